@@ -0,0 +1,198 @@
+package expressionsolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.function.Add;
+import org.nfunk.jep.function.Divide;
+import org.nfunk.jep.function.Multiply;
+import org.nfunk.jep.function.PostfixMathCommandI;
+import org.nfunk.jep.function.Power;
+import org.nfunk.jep.function.Subtract;
+import org.nfunk.jep.function.UMinus;
+
+/**
+ * Floating-point expression compiled to a tree of primitive evaluators.
+ *
+ * Unlike {@link Expression}, which drives a JEP parser (and thus boxes
+ * every intermediate value and looks variables up in a symbol table), a
+ * compiled expression reads its variables from a {@code double[]} of slots,
+ * one per variable, in the order given by {@link #getVariables()}. It holds
+ * no mutable state, so a single instance can be evaluated concurrently by
+ * any number of threads.
+ *
+ * Only the arithmetic operators (+, -, *, / and ^) are supported, which is
+ * what reliability expressions are made of.
+ */
+public final class CompiledExpression {
+    private static final Logger LOGGER = Logger.getLogger(CompiledExpression.class.getName());
+
+    /**
+     * Node of the evaluator tree.
+     */
+    @FunctionalInterface
+    private interface Term {
+        double evaluate(double[] slots);
+    }
+
+    /**
+     * Constant (sub)expression, recognizable so that it can be folded.
+     */
+    private static final class ConstantTerm implements Term {
+        private final double value;
+
+        ConstantTerm(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(double[] slots) {
+            return value;
+        }
+    }
+
+    private final List<String> variables;
+    private final Map<String, Integer> slots;
+    private final Term root;
+
+    private CompiledExpression(List<String> variables, Term root) {
+        this.variables = Collections.unmodifiableList(variables);
+        this.slots = new HashMap<String, Integer>();
+        for (int i = 0; i < variables.size(); i++) {
+            slots.put(variables.get(i), i);
+        }
+        this.root = root;
+    }
+
+    /**
+     * Compiles the parse tree of a floating-point JEP parser.
+     *
+     * @param topNode
+     * @throws IllegalArgumentException if the tree uses an operator or
+     *      function other than +, -, *, / and ^.
+     */
+    static CompiledExpression compile(Node topNode) {
+        List<String> variables = new ArrayList<String>();
+        Term root = compile(topNode, variables, new HashMap<String, Integer>());
+        return new CompiledExpression(variables, root);
+    }
+
+    /**
+     * @return the names of the variables in the expression, indexed by
+     *      their slots.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the slot of the given variable or -1 if it does not occur
+     *      in the expression.
+     */
+    public int getSlot(String variable) {
+        Integer slot = slots.get(variable);
+        return (slot == null) ? -1 : slot;
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param values Value of each variable, indexed by its slot.
+     */
+    public double evaluate(double[] values) {
+        if (values.length < variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size()
+                    + " variable values, but got " + values.length);
+        }
+        return root.evaluate(values);
+    }
+
+    /**
+     * Shortcut for {@link #evaluate(double[])} when the interpretation of
+     * variables is given by name. Variables without an interpretation
+     * evaluate to 0, as undeclared variables do in {@link Expression}.
+     */
+    public double evaluate(Map<String, Double> interpretation) {
+        double[] values = new double[variables.size()];
+        for (int i = 0; i < values.length; i++) {
+            Double value = interpretation.get(variables.get(i));
+            if (value == null) {
+                LOGGER.warning("No interpretation for variable <" + variables.get(i) + "> was provided");
+                values[i] = 0;
+            } else {
+                values[i] = value;
+            }
+        }
+        return root.evaluate(values);
+    }
+
+    private static Term compile(Node node, List<String> variables, Map<String, Integer> slots) {
+        if (node instanceof ASTConstant) {
+            double value = ((Number) ((ASTConstant) node).getValue()).doubleValue();
+            return constant(value);
+        } else if (node instanceof ASTVarNode) {
+            String name = ((ASTVarNode) node).getName();
+            Integer slot = slots.get(name);
+            if (slot == null) {
+                slot = variables.size();
+                slots.put(name, slot);
+                variables.add(name);
+            }
+            int index = slot;
+            return values -> values[index];
+        } else if (node instanceof ASTFunNode) {
+            ASTFunNode function = (ASTFunNode) node;
+            Term[] operands = new Term[function.jjtGetNumChildren()];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = compile(function.jjtGetChild(i), variables, slots);
+            }
+            Term term = compileOperator(function.getName(), function.getPFMC(), operands);
+            return isConstant(operands) ? constant(term.evaluate(null)) : term;
+        }
+        throw new IllegalArgumentException("Unsupported expression node: " + node);
+    }
+
+    private static Term compileOperator(String name, PostfixMathCommandI operator, Term[] operands) {
+        if (operator instanceof UMinus && operands.length == 1) {
+            Term operand = operands[0];
+            return values -> -operand.evaluate(values);
+        } else if (operands.length == 2) {
+            Term left = operands[0];
+            Term right = operands[1];
+            if (operator instanceof Add) {
+                return values -> left.evaluate(values) + right.evaluate(values);
+            } else if (operator instanceof Subtract) {
+                return values -> left.evaluate(values) - right.evaluate(values);
+            } else if (operator instanceof Multiply) {
+                return values -> left.evaluate(values) * right.evaluate(values);
+            } else if (operator instanceof Divide) {
+                return values -> left.evaluate(values) / right.evaluate(values);
+            } else if (operator instanceof Power) {
+                return values -> Math.pow(left.evaluate(values), right.evaluate(values));
+            }
+        }
+        throw new IllegalArgumentException("Unsupported operator: " + name + "/" + operands.length);
+    }
+
+    private static Term constant(double value) {
+        return new ConstantTerm(value);
+    }
+
+    private static boolean isConstant(Term[] operands) {
+        for (Term operand : operands) {
+            if (!(operand instanceof ConstantTerm)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,230 @@
+package expressionsolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+
+/**
+ * Propositional logic formula compiled to a boolean evaluator over
+ * configurations encoded as bit sets.
+ *
+ * Variables are identified by their indices, so that a configuration is
+ * given by a {@code long[]} in which the bit of each present variable is
+ * set (as in {@link java.util.BitSet#toLongArray()}). Conjunctions of
+ * literals, which make up most presence conditions, are tested one word
+ * at a time with bit masks.
+ *
+ * Compiled formulas are immutable, so they can be shared among threads.
+ */
+public final class CompiledFormula {
+
+    /**
+     * Node of the evaluator tree.
+     */
+    @FunctionalInterface
+    private interface Condition {
+        boolean holds(long[] configuration);
+    }
+
+    private static final Condition TRUE = configuration -> true;
+    private static final Condition FALSE = configuration -> false;
+
+    private final Set<String> variables;
+    private final Condition root;
+
+    private CompiledFormula(Set<String> variables, Condition root) {
+        this.variables = Collections.unmodifiableSet(variables);
+        this.root = root;
+    }
+
+    /**
+     * Compiles the parse tree of a propositional logic formula.
+     *
+     * @param topNode
+     * @param variableIndex Maps the name of each variable to its index.
+     * @throws IllegalArgumentException if the tree uses an operator other
+     *      than &&, || and !.
+     */
+    static CompiledFormula compile(Node topNode, ToIntFunction<String> variableIndex) {
+        Set<String> variables = new LinkedHashSet<String>();
+        Condition root = new Compiler(variableIndex, variables).compile(topNode);
+        return new CompiledFormula(variables, root);
+    }
+
+    /**
+     * @return the names of the variables in the formula.
+     */
+    public Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Evaluates the formula. Variables whose indices are beyond the given
+     * words are taken to be absent.
+     *
+     * @param configuration Bit set of the present variables' indices.
+     */
+    public boolean evaluate(long[] configuration) {
+        return root.holds(configuration);
+    }
+
+    private static boolean isSet(long[] configuration, int index) {
+        int word = index >>> 6;
+        return word < configuration.length && (configuration[word] & (1L << index)) != 0;
+    }
+
+    private static final class Compiler {
+        private final ToIntFunction<String> variableIndex;
+        private final Set<String> variables;
+
+        Compiler(ToIntFunction<String> variableIndex, Set<String> variables) {
+            this.variableIndex = variableIndex;
+            this.variables = variables;
+        }
+
+        Condition compile(Node node) {
+            if (node instanceof ASTConstant) {
+                double value = ((Number) ((ASTConstant) node).getValue()).doubleValue();
+                return (value != 0) ? TRUE : FALSE;
+            } else if (node instanceof ASTVarNode) {
+                String name = ((ASTVarNode) node).getName();
+                if (name.equals("true") || name.equals("True")) {
+                    return TRUE;
+                } else if (name.equals("false") || name.equals("False")) {
+                    return FALSE;
+                }
+                int index = indexOf(name);
+                return configuration -> isSet(configuration, index);
+            } else if (node instanceof ASTFunNode) {
+                String operator = ((ASTFunNode) node).getName();
+                if (operator.equals("\"!\"") && node.jjtGetNumChildren() == 1) {
+                    Condition operand = compile(node.jjtGetChild(0));
+                    return configuration -> !operand.holds(configuration);
+                } else if (operator.equals("\"&&\"")) {
+                    return compileConjunction(node);
+                } else if (operator.equals("\"||\"") && node.jjtGetNumChildren() == 2) {
+                    Condition left = compile(node.jjtGetChild(0));
+                    Condition right = compile(node.jjtGetChild(1));
+                    return configuration -> left.holds(configuration) || right.holds(configuration);
+                }
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+            }
+            throw new IllegalArgumentException("Unsupported formula node: " + node);
+        }
+
+        /**
+         * Compiles a (possibly nested) conjunction, testing all of its
+         * literals at once with a pair of bit masks.
+         */
+        private Condition compileConjunction(Node node) {
+            List<Node> conjuncts = new ArrayList<Node>();
+            flattenConjunction(node, conjuncts);
+
+            long[] present = new long[0];
+            long[] absent = new long[0];
+            List<Condition> others = new ArrayList<Condition>();
+            for (Node conjunct : conjuncts) {
+                String literal = literalName(conjunct);
+                boolean isNegated = literal == null && isNegation(conjunct);
+                if (isNegated) {
+                    literal = literalName(conjunct.jjtGetChild(0));
+                }
+                if (literal == null) {
+                    others.add(compile(conjunct));
+                } else {
+                    int index = indexOf(literal);
+                    int word = index >>> 6;
+                    if (isNegated) {
+                        absent = ensureLength(absent, word + 1);
+                        absent[word] |= 1L << index;
+                    } else {
+                        present = ensureLength(present, word + 1);
+                        present[word] |= 1L << index;
+                    }
+                }
+            }
+
+            long[] presentMask = present;
+            long[] absentMask = absent;
+            Condition[] remaining = others.toArray(new Condition[others.size()]);
+            return configuration -> {
+                for (int word = 0; word < presentMask.length; word++) {
+                    long bits = (word < configuration.length) ? configuration[word] : 0;
+                    if ((bits & presentMask[word]) != presentMask[word]) {
+                        return false;
+                    }
+                }
+                for (int word = 0; word < absentMask.length && word < configuration.length; word++) {
+                    if ((configuration[word] & absentMask[word]) != 0) {
+                        return false;
+                    }
+                }
+                for (Condition condition : remaining) {
+                    if (!condition.holds(configuration)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        private void flattenConjunction(Node node, List<Node> conjuncts) {
+            if (node instanceof ASTFunNode && ((ASTFunNode) node).getName().equals("\"&&\"")) {
+                for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                    flattenConjunction(node.jjtGetChild(i), conjuncts);
+                }
+            } else {
+                conjuncts.add(node);
+            }
+        }
+
+        /**
+         * @return the name of the variable if the node is a variable
+         *      (other than the boolean constants), or null otherwise.
+         */
+        private String literalName(Node node) {
+            if (!(node instanceof ASTVarNode)) {
+                return null;
+            }
+            String name = ((ASTVarNode) node).getName();
+            switch (name) {
+            case "true":
+            case "True":
+            case "false":
+            case "False":
+                return null;
+            default:
+                return name;
+            }
+        }
+
+        private boolean isNegation(Node node) {
+            return node instanceof ASTFunNode
+                    && ((ASTFunNode) node).getName().equals("\"!\"")
+                    && node.jjtGetNumChildren() == 1;
+        }
+
+        private int indexOf(String variable) {
+            variables.add(variable);
+            return variableIndex.applyAsInt(variable);
+        }
+
+        private static long[] ensureLength(long[] words, int length) {
+            if (words.length >= length) {
+                return words;
+            }
+            long[] longer = new long[length];
+            System.arraycopy(words, 0, longer, 0, words.length);
+            return longer;
+        }
+    }
+
+}
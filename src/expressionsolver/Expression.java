@@ -1,49 +1,176 @@
 package expressionsolver;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
 import java.util.logging.Logger;
 
-import org.nfunk.jep.JEP;
-import org.nfunk.jep.SymbolTable;
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.function.Add;
+import org.nfunk.jep.function.Multiply;
+import org.nfunk.jep.function.PostfixMathCommandI;
 
+/**
+ * Handle to a parsed expression.
+ *
+ * The syntax tree built by the parser is turned into an immutable tree of
+ * terms, with functions bound once and for all, and the parser is dropped.
+ * Solving an expression does not write to any shared state (as setting
+ * variables in a parser's symbol table would), so the same expression can
+ * be solved concurrently by multiple threads.
+ */
 public class Expression<T> {
     private static final Logger LOGGER = Logger.getLogger(Expression.class.getName());
 
-    private JEP parser;
-    private Class<? extends T> type;
+    /**
+     * Node of the expression, which pushes its value onto an evaluation stack.
+     */
+    @FunctionalInterface
+    private interface Term {
+        void evaluate(Map<String, ?> interpretation, Stack<Object> stack) throws ParseException;
+    }
+
+    private final Term root;
+    private final Set<String> variables;
+    private final Map<String, Object> defaultValues;
+    private final Class<? extends T> type;
 
     /**
-     * Creates a new Expression with the underlying {@code parser},
+     * Creates a new Expression from the expression last parsed by {@code parser},
      * which operates on the given {@code type} (e.g., Double, ADD).
      * @param parser
      */
-    public Expression(JEP parser, Class<? extends T> type) {
-        this.parser = parser;
+    Expression(ExpressionParser parser, Class<? extends T> type) {
+        Set<String> variables = new LinkedHashSet<String>();
+        this.root = toTerm(parser.getTopNode(), parser, variables);
+        this.variables = Collections.unmodifiableSet(variables);
+        // Values given by the parser to undeclared variables.
+        this.defaultValues = new HashMap<String, Object>();
+        for (String varName: variables) {
+            Object value = parser.getSymbolTable().get(varName);
+            if (value != null) {
+                defaultValues.put(varName, value);
+            }
+        }
         this.type = type;
     }
 
+    /**
+     * @return the names of the variables in this expression.
+     */
+    public Set<String> getVariables() {
+        return variables;
+    }
+
     /**
      * Solves an expression with respect to the given interpretation of variables.
      * Here, variables are interpreted in the algebraic sense, not as boolean ADD-variables.
-     * @param <T>
      *
-     * @param expression
      * @param interpretation A map from variable names to the respective values
      *          to be considered during evaluation.
      * @return the result of applying the operations in the expression as defined
-     *          for type {@code T}.
+     *          for type {@code T}, or {@code null} if an operation fails.
+     *          Variables with no interpretation are reported with a warning
+     *          and take the value given to them by the parser, i.e., 0 for
+     *          floating-point expressions. ADD expressions have no such
+     *          value, so solving them yields {@code null}.
      */
     public T solve(Map<String, T> interpretation) {
-        SymbolTable symbolTable = parser.getSymbolTable();
-        for (Object var: symbolTable.keySet()) {
-            String varName = (String)var;
-            if (interpretation.containsKey(varName)) {
-                parser.addVariableAsObject(varName, interpretation.get(varName));
-            } else {
-                LOGGER.warning("No interpretation for variable <"+varName+"> was provided");
+        Map<String, ?> values = interpretation;
+        if (!interpretation.keySet().containsAll(variables)) {
+            Map<String, Object> completeInterpretation = new HashMap<String, Object>(defaultValues);
+            for (String varName: variables) {
+                if (!interpretation.containsKey(varName)) {
+                    LOGGER.warning("No interpretation for variable <"+varName+"> was provided");
+                }
+            }
+            completeInterpretation.putAll(interpretation);
+            values = completeInterpretation;
+        }
+
+        Stack<Object> stack = new Stack<Object>();
+        try {
+            root.evaluate(values, stack);
+        } catch (ParseException e) {
+            LOGGER.warning("Evaluation error: " + e.getMessage());
+            return null;
+        }
+        return type.cast(stack.pop());
+    }
+
+    private static Term toTerm(Node node, ExpressionParser parser, Set<String> variables) {
+        if (node instanceof ASTConstant) {
+            Object value = ((ASTConstant) node).getValue();
+            return (interpretation, stack) -> stack.push(value);
+        } else if (node instanceof ASTVarNode) {
+            String name = ((ASTVarNode) node).getName();
+            variables.add(name);
+            return (interpretation, stack) -> stack.push(interpretation.get(name));
+        } else if (node instanceof ASTFunNode) {
+            Term[] operands = new Term[node.jjtGetNumChildren()];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = toTerm(node.jjtGetChild(i), parser, variables);
+            }
+            PostfixMathCommandI function = parser.getFunction((ASTFunNode) node);
+            if (function instanceof Add) {
+                Add add = (Add) function;
+                return foldTerm(operands, (sum, operand) -> add.add(operand, sum));
+            } else if (function instanceof Multiply) {
+                Multiply multiply = (Multiply) function;
+                return foldTerm(operands, multiply::mul);
+            }
+            return (interpretation, stack) -> {
+                for (Term operand : operands) {
+                    operand.evaluate(interpretation, stack);
+                }
+                run(function, operands.length, stack);
+            };
+        }
+        throw new IllegalArgumentException("Unsupported expression node: " + node);
+    }
+
+    @FunctionalInterface
+    private interface BinaryOperation {
+        Object apply(Object accumulated, Object operand) throws ParseException;
+    }
+
+    /**
+     * Sums and products are the most common functions of variable arity.
+     * Instead of running the shared function instance, which has to be told
+     * the arity of each use beforehand, their operands are combined right
+     * here, in the same order (and with the same operand order) as the
+     * function would.
+     */
+    private static Term foldTerm(Term[] operands, BinaryOperation operation) {
+        return (interpretation, stack) -> {
+            for (Term operand : operands) {
+                operand.evaluate(interpretation, stack);
+            }
+            Object result = stack.pop();
+            for (int i = 1; i < operands.length; i++) {
+                result = operation.apply(result, stack.pop());
+            }
+            stack.push(result);
+        };
+    }
+
+    private static void run(PostfixMathCommandI function, int numberOfParameters, Stack<Object> stack) throws ParseException {
+        if (function.getNumberOfParameters() == -1) {
+            // Other functions of variable arity are told the actual one
+            // before running, which is state shared by all their uses.
+            synchronized (function) {
+                function.setCurNumberOfParameters(numberOfParameters);
+                function.run(stack);
             }
+        } else {
+            function.run(stack);
         }
-        Object result = parser.getValueAsObject();
-        return type.cast(result);
     }
 }
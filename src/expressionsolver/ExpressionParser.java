@@ -0,0 +1,38 @@
+package expressionsolver;
+
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.function.PostfixMathCommandI;
+import org.nfunk.jep.type.NumberFactory;
+
+/**
+ * JEP parser which tells which function implements each operator of a
+ * parsed expression.
+ *
+ * JEP only binds the operators overridden with {@link #addFunction(String, PostfixMathCommandI)}
+ * (e.g., "+" for ADDs) while evaluating, so that is needed to evaluate an
+ * expression without the parser.
+ */
+class ExpressionParser extends JEP {
+
+    ExpressionParser(NumberFactory numberFactory) {
+        super(false, true, true, numberFactory);
+    }
+
+    /**
+     * Resolves the function to be run for a function node, in the same
+     * way as JEP's evaluator: by name and arity first, then by name only.
+     */
+    PostfixMathCommandI getFunction(ASTFunNode node) {
+        PostfixMathCommandI function = node.getPFMC();
+        String name = node.getName();
+        String nameWithArity = name + ":" + function.getNumberOfParameters();
+        if (funTab.containsKey(nameWithArity)) {
+            return (PostfixMathCommandI) funTab.get(nameWithArity);
+        } else if (funTab.containsKey(name)) {
+            return (PostfixMathCommandI) funTab.get(name);
+        }
+        return function;
+    }
+
+}
@@ -1,8 +1,12 @@
 package expressionsolver;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
+import jadd.UnrecognizedVariableException;
 
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -49,14 +53,17 @@ public class ExpressionSolver {
      *            A map from variable names to the respective values to be
      *            considered during evaluation.
      * @return a (possibly constant) function (ADD) representing all possible
-     *         results according to the ADDs involved.
+     *         results according to the ADDs involved. Intermediate results
+     *         are released before returning.
      */
     public ADD solveExpressionAsFunction(String expression, Map<String, ADD> interpretation) {
-        Expression<ADD> parsedExpression = parseExpressionForFunctions(expression);
-        if (parsedExpression == null) {
-            return null;
+        try (ADDScope scope = jadd.openScope()) {
+            Expression<ADD> parsedExpression = parseExpressionForFunctions(expression);
+            if (parsedExpression == null) {
+                return null;
+            }
+            return scope.keep(parsedExpression.solve(interpretation));
         }
-        return parsedExpression.solve(interpretation);
     }
 
     /**
@@ -112,6 +119,13 @@ public class ExpressionSolver {
      * @return
      */
     public ADD encodeFormula(String formula) {
+        try (ADDScope scope = jadd.openScope()) {
+            ADD encoded = encodeFormulaInScope(formula);
+            return (encoded == null) ? null : scope.keep(encoded);
+        }
+    }
+
+    private ADD encodeFormulaInScope(String formula) {
         JEP parser = makeADDParser(jadd);
         parser.parseExpression(formula);
         if (parser.hasError()) {
@@ -139,18 +153,69 @@ public class ExpressionSolver {
         return (ADD) parser.getValueAsObject();
     }
 
+    /**
+     * Alternative to {@link encodeFormula(String)} for formulas which must be
+     * evaluated for a large number of configurations, possibly in parallel.
+     *
+     * Variables are interpreted as ADD variables, just like in
+     * {@link encodeFormula(String)}, but the formula is compiled to a boolean
+     * evaluator over configurations encoded by {@link encodeConfiguration(Collection)}.
+     *
+     * @param formula
+     *            Propositional logic formula to be compiled. The valid boolean
+     *            operators are && (AND), || (OR) and !(NOT).
+     * @return the compiled formula or {@code null} if there is a parsing error.
+     */
+    public CompiledFormula compileFormula(String formula) {
+        JEP parser = makeFloatingPointParser();
+        parser.parseExpression(formula);
+        if (parser.hasError()) {
+            LOGGER.warning("Parser error: " + parser.getErrorInfo());
+            return null;
+        }
+        try {
+            return CompiledFormula.compile(parser.getTopNode(), this::getVariableIndex);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Cannot compile formula: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a configuration as a bit set of the indices of its features,
+     * which is the input to {@link CompiledFormula#evaluate(long[])}.
+     *
+     * @param configuration Names of the present features.
+     * @throws UnrecognizedVariableException if some feature is not an ADD variable.
+     */
+    public long[] encodeConfiguration(Collection<String> configuration) throws UnrecognizedVariableException {
+        BitSet encoded = new BitSet();
+        for (String feature : configuration) {
+            encoded.set(jadd.getVariableIndex(feature));
+        }
+        return encoded.toLongArray();
+    }
+
+    /**
+     * @return the index of an ADD variable, which is registered if needed.
+     */
+    private int getVariableIndex(String variable) {
+        return jadd.getOrCreateVariableIndex(variable);
+    }
+
     /**
      * Lower level alternative for {@link solveExpression(String)}.
      *
      * It returns a handle to an already parsed expression, in case it
-     * must be evaluated more than once.
+     * must be evaluated more than once. The handle is immutable, so it can
+     * be solved by multiple threads at once.
      *
      * @param expression
      * @return A handle to the parsed expression or {@code null} if there
      *      is a parsing error.
      */
     public Expression<Double> parseExpression(String expression) {
-        JEP parser = makeFloatingPointParser();
+        ExpressionParser parser = makeFloatingPointParser();
         parser.parseExpression(expression);
         if (parser.hasError()) {
             LOGGER.warning("Parser error: " + parser.getErrorInfo());
@@ -159,6 +224,32 @@ public class ExpressionSolver {
         return new Expression<Double>(parser, Double.class);
     }
 
+    /**
+     * Alternative to {@link parseExpression(String)} for expressions which
+     * must be evaluated a large number of times, possibly in parallel.
+     *
+     * The expression is parsed once and compiled to an immutable evaluator,
+     * which does not depend on a parser anymore.
+     *
+     * @param expression
+     * @return the compiled expression or {@code null} if there is a parsing
+     *      error or the expression uses non-arithmetic operators.
+     */
+    public CompiledExpression compileExpression(String expression) {
+        JEP parser = makeFloatingPointParser();
+        parser.parseExpression(expression);
+        if (parser.hasError()) {
+            LOGGER.warning("Parser error: " + parser.getErrorInfo());
+            return null;
+        }
+        try {
+            return CompiledExpression.compile(parser.getTopNode());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Cannot compile expression: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Lower level alternative for {@link solveExpressionAsFunction(String)}.
      *
@@ -169,7 +260,7 @@ public class ExpressionSolver {
      *      is a parsing error.
      */
     public Expression<ADD> parseExpressionForFunctions(String expression) {
-        JEP parser = makeADDParser(jadd);
+        ExpressionParser parser = makeADDParser(jadd);
         parser.parseExpression(expression);
         if (parser.hasError()) {
             LOGGER.warning("Parser error: " + parser.getErrorInfo());
@@ -178,11 +269,20 @@ public class ExpressionSolver {
         return new Expression<ADD>(parser, ADD.class);
     }
 
+    /**
+     * Opens a scope for the ADDs created by this solver.
+     *
+     * @see JADD#openScope()
+     */
+    public ADDScope openScope() {
+        return jadd.openScope();
+    }
+
     /**
      * @param jadd
      */
-    private JEP makeADDParser(JADD jadd) {
-        JEP parser = new JEP(false, true, true, new ADDNumberFactory(jadd));
+    private ExpressionParser makeADDParser(JADD jadd) {
+        ExpressionParser parser = new ExpressionParser(new ADDNumberFactory(jadd));
         parser.addFunction("\"+\"", new ADDAdd());
         parser.addFunction("\"-\":2", new ADDSubtract());
         parser.addFunction("\"-\":1", new UnaryMinus());
@@ -199,8 +299,8 @@ public class ExpressionSolver {
     /**
      * Makes a standard floating-point-based parser.
      */
-    private JEP makeFloatingPointParser() {
-        JEP parser = new JEP(false, true, true, new DoubleNumberFactory());
+    private ExpressionParser makeFloatingPointParser() {
+        ExpressionParser parser = new ExpressionParser(new DoubleNumberFactory());
         parser.setAllowUndeclared(true);
         return parser;
     }
@@ -1,103 +1,162 @@
 package jadd;
 
+import java.lang.ref.Cleaner;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators.AbstractSpliterator;
-import java.util.function.Consumer;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
-
-import org.bridj.Pointer;
 
+import jadd.ADDBackend.Operation;
 import tool.UnknownFeatureException;
-import bigcudd.BigcuddLibrary;
-import bigcudd.BigcuddLibrary.Cudd_addApply_arg1_callback;
-import bigcudd.BigcuddLibrary.DdGen;
-import bigcudd.BigcuddLibrary.DdManager;
-import bigcudd.DdNode;
 
 /**
  * ADD - constant, variable or function alike.
+ *
+ * Each ADD holds a reference to its backend node, which is released by
+ * {@link #close()}. ADDs which are garbage collected without being closed
+ * are released later on, but closing them (or creating them inside an
+ * {@link ADDScope}) is what allows the backend to reclaim their nodes in time.
+ *
+ * ADDs may be shared among threads. Operations always take place in the
+ * manager of the calling thread, so the result of an operation
+ * belongs to that thread's manager.
  * @author thiago
  *
  */
-public class ADD {
+public class ADD implements AutoCloseable {
     private static double FLOATING_POINT_PRECISION = 1E-14;
+    private static final Cleaner CLEANER = Cleaner.create();
 
-    private Pointer<DdNode> function;
-    private Pointer<DdManager> dd;
+    private long function;
+    private ADDBackend backend;
     private VariableStore variableStore;
+    private Manager manager;
 
-    ADD(Pointer<DdManager> dd, Pointer<DdNode> function, VariableStore variableStore) {
-        this.dd = dd;
+    private NodeReference reference;
+    private Cleaner.Cleanable cleanable;
+
+    ADD(long function, VariableStore variableStore, Manager manager) {
+        this(function, variableStore, manager, false);
+    }
+
+    /**
+     * @param pinned Whether the ADD must never be released, as is the case
+     *      for the variables in the variable store.
+     */
+    ADD(long function, VariableStore variableStore, Manager manager, boolean pinned) {
+        this.backend = manager.getBackend();
         this.function = function;
         this.variableStore = variableStore;
-        BigcuddLibrary.Cudd_Ref(this.function);
+        this.manager = manager;
+        synchronized (manager) {
+            backend.ref(this.function);
+        }
+        if (!pinned) {
+            this.reference = new NodeReference(manager.getReferences(), function);
+            this.cleanable = CLEANER.register(this, reference);
+            manager.getReferences().track(this);
+        }
     }
 
     /**
-     * Overriding finalize in order to free CUDD allocated memory.
+     * Releases the reference to the underlying backend node. Closing an ADD
+     * more than once has no effect, and so does closing an ADD variable.
+     *
+     * The ADD must not be used afterwards.
      */
     @Override
-    protected void finalize() throws Throwable {
-//        BigcuddLibrary.Cudd_Deref(function);
-        super.finalize();
+    public void close() {
+        if (reference != null) {
+            cleanable.clean();
+        }
+    }
+
+    public boolean isClosed() {
+        return reference != null && reference.released;
     }
 
     public ADD plus(ADD other) {
-        return apply(other, PLUS);
+        return apply(other, Operation.PLUS);
     }
 
     public ADD minus(ADD other) {
-        return apply(other, MINUS);
+        return apply(other, Operation.MINUS);
     }
 
     public ADD times(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, Operation.TIMES);
     }
 
     public ADD dividedBy(ADD other) {
-        return apply(other, DIVIDE);
+        return apply(other, Operation.DIVIDE);
     }
 
     public ADD and(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, Operation.TIMES);
     }
 
     public ADD or(ADD other) {
-        return apply(other, LOGICAL_OR);
+        return apply(other, Operation.OR);
     }
 
-    private ADD apply(ADD other, Cudd_addApply_arg1_callback operation) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addApply(dd,
-                                                              Pointer.getPointer(operation),
-                                                              this.function,
-                                                              other.function);
-        return new ADD(dd, result, variableStore);
+    /*
+     * Operations take place in the manager of the calling thread, into
+     * which operands from other managers are copied for the duration of
+     * the operation.
+     */
+
+    private ADD apply(ADD other, Operation operation) {
+        Manager local = manager.current();
+        ADD left = this.in(local);
+        ADD right = other.in(local);
+        try {
+            synchronized (local) {
+                long result = local.getBackend().apply(operation,
+                                                       left.getUnderlyingNode(),
+                                                       right.getUnderlyingNode());
+                return new ADD(result, variableStore, local);
+            }
+        } finally {
+            left.releaseCopyOf(this);
+            right.releaseCopyOf(other);
+        }
     }
 
     /**
      * @return negated form (corresponding to unary minus).
      */
     public ADD negate() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addNegate(dd, this.function),
-                       variableStore);
+        Manager local = manager.current();
+        ADD operand = this.in(local);
+        try {
+            synchronized (local) {
+                return new ADD(local.getBackend().negate(operand.getUnderlyingNode()),
+                               variableStore,
+                               local);
+            }
+        } finally {
+            operand.releaseCopyOf(this);
+        }
     }
 
     /**
      * @return complemented form (corresponding to logical not).
      */
     public ADD complement() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addCmpl(dd, this.function),
-                       variableStore);
+        Manager local = manager.current();
+        ADD operand = this.in(local);
+        try {
+            synchronized (local) {
+                return new ADD(local.getBackend().complement(operand.getUnderlyingNode()),
+                               variableStore,
+                               local);
+            }
+        } finally {
+            operand.releaseCopyOf(this);
+        }
     }
 
     /**
@@ -105,23 +164,164 @@ public class ADD {
      * as the conditional.
      */
     public ADD ifThenElse(ADD ifTrue, ADD ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            ifFalse.function);
-        return new ADD(dd, result, variableStore);
+        Manager local = manager.current();
+        ADD condition = this.in(local);
+        ADD thenBranch = ifTrue.in(local);
+        ADD elseBranch = ifFalse.in(local);
+        try {
+            synchronized (local) {
+                long result = local.getBackend().ite(condition.getUnderlyingNode(),
+                                                     thenBranch.getUnderlyingNode(),
+                                                     elseBranch.getUnderlyingNode());
+                return new ADD(result, variableStore, local);
+            }
+        } finally {
+            condition.releaseCopyOf(this);
+            thenBranch.releaseCopyOf(ifTrue);
+            elseBranch.releaseCopyOf(ifFalse);
+        }
     }
 
     /**
      * Overloading for constant fallbacks.
      */
     public ADD ifThenElse(ADD ifTrue, double ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            BigcuddLibrary.Cudd_addConst(dd,
-                                                                                         ifFalse));
-        return new ADD(dd, result, variableStore);
+        Manager local = manager.current();
+        ADD condition = this.in(local);
+        ADD thenBranch = ifTrue.in(local);
+        try {
+            synchronized (local) {
+                ADDBackend localBackend = local.getBackend();
+                long result = localBackend.ite(condition.getUnderlyingNode(),
+                                               thenBranch.getUnderlyingNode(),
+                                               localBackend.constant(ifFalse));
+                return new ADD(result, variableStore, local);
+            }
+        } finally {
+            condition.releaseCopyOf(this);
+            thenBranch.releaseCopyOf(ifTrue);
+        }
+    }
+
+    /**
+     * Fixes the values of some variables, so that the resulting ADD (which is
+     * usually smaller) no longer depends on them. This is the cofactor of this
+     * ADD with respect to the partial assignment.
+     *
+     * @param assignment Value of each variable to be fixed, by name.
+     * @throws UnrecognizedVariableException if some variable is unknown.
+     */
+    public ADD restrict(Map<String, Boolean> assignment) throws UnrecognizedVariableException {
+        int[] indices = new int[assignment.size()];
+        boolean[] values = new boolean[indices.length];
+        int i = 0;
+        for (Map.Entry<String, Boolean> entry : assignment.entrySet()) {
+            indices[i] = variableStore.getIndex(entry.getKey());
+            values[i] = entry.getValue();
+            i++;
+        }
+
+        Manager local = manager.current();
+        ADD operand = this.in(local);
+        try {
+            synchronized (local) {
+                ADDBackend localBackend = local.getBackend();
+                long cube = localBackend.constant(1);
+                localBackend.ref(cube);
+                for (i = 0; i < indices.length; i++) {
+                    long literal = literal(localBackend, indices[i], values[i]);
+                    cube = replace(localBackend, cube, localBackend.apply(Operation.TIMES, cube, literal));
+                    localBackend.deref(literal);
+                }
+                ADD result = new ADD(localBackend.cofactor(operand.getUnderlyingNode(), cube),
+                                     variableStore,
+                                     local);
+                localBackend.deref(cube);
+                return result;
+            }
+        } finally {
+            operand.releaseCopyOf(this);
+        }
+    }
+
+    /**
+     * Abstracts variables away, combining the values this ADD takes when each
+     * of them is true and when it is false. For instance, abstracting x by
+     * {@link Abstraction#MAX} yields max(f|x=1, f|x=0).
+     *
+     * @param variables Names of the variables to be abstracted.
+     * @param abstraction How to combine the values.
+     * @throws UnrecognizedVariableException if some variable is unknown.
+     */
+    public ADD abstractVariables(Collection<String> variables, Abstraction abstraction) throws UnrecognizedVariableException {
+        int[] indices = new int[variables.size()];
+        int i = 0;
+        for (String variable : variables) {
+            indices[i++] = variableStore.getIndex(variable);
+        }
+
+        Manager local = manager.current();
+        ADD operand = this.in(local);
+        try {
+            synchronized (local) {
+                ADDBackend localBackend = local.getBackend();
+                long result = operand.getUnderlyingNode();
+                localBackend.ref(result);
+                for (int index : indices) {
+                    long positive = literal(localBackend, index, true);
+                    long negative = literal(localBackend, index, false);
+                    long thenCofactor = localBackend.cofactor(result, positive);
+                    localBackend.ref(thenCofactor);
+                    long elseCofactor = localBackend.cofactor(result, negative);
+                    localBackend.ref(elseCofactor);
+                    result = replace(localBackend, result, localBackend.apply(abstraction.getOperation(),
+                                                                              thenCofactor,
+                                                                              elseCofactor));
+                    localBackend.deref(thenCofactor);
+                    localBackend.deref(elseCofactor);
+                    localBackend.deref(positive);
+                    localBackend.deref(negative);
+                }
+                ADD abstracted = new ADD(result, variableStore, local);
+                localBackend.deref(result);
+                return abstracted;
+            }
+        } finally {
+            operand.releaseCopyOf(this);
+        }
+    }
+
+    /**
+     * @return the referenced 0-1 ADD of the literal of a variable.
+     */
+    private static long literal(ADDBackend backend, int index, boolean value) {
+        long literal = value ? backend.variable(index) : backend.complement(backend.variable(index));
+        backend.ref(literal);
+        return literal;
+    }
+
+    /**
+     * References {@code next} and dereferences {@code previous}, for
+     * threading intermediate results of the backend.
+     */
+    private static long replace(ADDBackend backend, long previous, long next) {
+        backend.ref(next);
+        backend.deref(previous);
+        return next;
+    }
+
+    /**
+     * @return this ADD, if it belongs to {@code target}, or else a copy
+     *      of it in {@code target}.
+     */
+    ADD in(Manager target) {
+        return (manager == target) ? this : target.transfer(this);
+    }
+
+    private void releaseCopyOf(ADD original) {
+        if (this != original) {
+            close();
+        }
     }
 
     /**
@@ -134,10 +334,11 @@ public class ADD {
     public Set<String> getVariables() {
         Set<String> variables = new HashSet<String>();
 
-        Pointer<Integer> variablesPtr = BigcuddLibrary.Cudd_SupportIndex(dd, this.function);
-        int numVars = BigcuddLibrary.Cudd_ReadSize(dd);
-        int[] variablesPresence = variablesPtr.getInts(numVars);
-        for (short i = 0; i < numVars; i++) {
+        int[] variablesPresence;
+        synchronized (manager) {
+            variablesPresence = backend.getSupport(getUnderlyingNode());
+        }
+        for (short i = 0; i < variablesPresence.length; i++) {
             if (variablesPresence[i] == 1) {
                 variables.add(variableStore.getName(i));
             }
@@ -147,8 +348,7 @@ public class ADD {
 
     public List<String> getVariableOrder() {
         List<String> variables = new ArrayList<String>();
-        for (int pos = 0; pos < variableStore.getNumberOfVariables(); pos++) {
-            int varIndex = BigcuddLibrary.Cudd_ReadInvPerm(dd, pos);
+        for (int varIndex : manager.getVariableOrder()) {
             String varName = variableStore.getName((short)varIndex);
             variables.add(varName);
         }
@@ -157,17 +357,26 @@ public class ADD {
 
     public double eval(String[] variables) throws UnrecognizedVariableException {
         int[] presenceVector = variableStore.toPresenceVector(variables);
-        Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
-                                                            function,
-                                                            Pointer.pointerToInts(presenceVector));
-        DdNode terminalNode = terminal.get();
-        return terminalNode.type().value();
+        synchronized (manager) {
+            return backend.eval(getUnderlyingNode(), presenceVector);
+        }
     }
 
     public double eval(List<String> variables) throws UnrecognizedVariableException {
         return eval(variables.toArray(new String[variables.size()]));
     }
 
+    /**
+     * @return an immutable snapshot of this ADD, which can be evaluated
+     *      many times without locking or calling into the backend.
+     */
+    public FlatADD flatten() {
+        String[] variableNames = variableStore.getOrderedNames();
+        synchronized (manager) {
+            return FlatADD.of(backend, getUnderlyingNode(), variableNames);
+        }
+    }
+
     /**
      * Checks if a configuration is valid (non-zero).
      * @param configuration
@@ -193,7 +402,8 @@ public class ADD {
      * @return
      */
     public Stream<Collection<String>> getExpandedConfigurations() {
-        return StreamSupport.stream(new CubeSpliterator(), true);
+        FlatADD snapshot = flatten();
+        return snapshot.getConfigurations().map(snapshot::toNames);
     }
 
     /**
@@ -201,7 +411,9 @@ public class ADD {
     * @return
     */
     public int getNodeCount() {
-        return BigcuddLibrary.Cudd_DagSize(function);
+        synchronized (manager) {
+            return backend.getDagSize(getUnderlyingNode());
+        }
     }
 
     /**
@@ -209,51 +421,9 @@ public class ADD {
      * @return
      */
     public boolean isConstant() {
-        return 1 != BigcuddLibrary.Cudd_IsNonConstant(function);
-    }
-
-    static Collection<List<String>> expandDontCares(List<String> config) {
-        return expandDontCares(config.iterator());
-    }
-
-    /**
-     * Iterates {@code cursor} expanding "don't care" variables, i.e.,
-     * doubling the configurations for each one encountered.
-     *
-     * It expands "don't care" variables in linear time.
-     * @param cursor
-     * @return
-     */
-    static Collection<List<String>> expandDontCares(Iterator<String> cursor) {
-        Set<List<String>> expanded = new HashSet<List<String>>();
-        List<String> prefix = new LinkedList<String>();
-        while (cursor.hasNext()) {
-            String variable = cursor.next();
-            if (variable.startsWith("(")) {
-                // We must generate two alternative prefixes: one with the
-                // variable in positive form and another with it in negative
-                // form (i.e., omitted).
-                List<String> complementedPrefix = new LinkedList<String>(prefix);
-                String deparenthesized = variable.substring(1, variable.length()-1);
-                prefix.add(deparenthesized);
-                // Then we must expand the rest of the configuration and append
-                // each of the expanded sub-configurations to the alternative prefixes.
-                Collection<List<String>> expandedTail = expandDontCares(cursor);
-                for (List<String> expandedSubconfig : expandedTail) {
-                    List<String> positive = new LinkedList<String>(prefix);
-                    List<String> complemented = new LinkedList<String>(complementedPrefix);
-                    positive.addAll(expandedSubconfig);
-                    complemented.addAll(expandedSubconfig);
-                    expanded.add(positive);
-                    expanded.add(complemented);
-                }
-                return expanded;
-            } else {
-                prefix.add(variable);
-            }
+        synchronized (manager) {
+            return backend.isConstant(getUnderlyingNode());
         }
-        expanded.add(prefix);
-        return expanded;
     }
 
     /* (non-Javadoc)
@@ -265,158 +435,111 @@ public class ADD {
             return false;
         }
         ADD other = (ADD) obj;
-        return this.function.equals(other.function)
-                || (BigcuddLibrary.Cudd_EqualSupNorm(dd,
-                                                     this.function,
-                                                     other.function,
-                                                     ADD.FLOATING_POINT_PRECISION,
-                                                     1) == 1);
+        if (this.manager == other.manager && this.function == other.function) {
+            return true;
+        }
+        Manager local = manager.current();
+        ADD left = this.in(local);
+        ADD right = other.in(local);
+        try {
+            synchronized (local) {
+                return local.getBackend().equalSupNorm(left.getUnderlyingNode(),
+                                                       right.getUnderlyingNode(),
+                                                       ADD.FLOATING_POINT_PRECISION);
+            }
+        } finally {
+            left.releaseCopyOf(this);
+            right.releaseCopyOf(other);
+        }
     }
 
     public int getDeadNodesCount() {
-    	return BigcuddLibrary.Cudd_ReadDead(dd);
+        synchronized (manager) {
+            return backend.getDeadNodeCount();
+        }
+    }
+
+    /**
+     * Returns the number of nodes of the whole manager which are still
+     * referenced, as opposed to {@link #getNodeCount()}.
+     */
+    public long getLiveNodesCount() {
+        synchronized (manager) {
+            return backend.getLiveNodeCount();
+        }
     }
 
     public int getTerminalsDifferentThanZeroCount() {
-    	return BigcuddLibrary.Cudd_CountLeaves(function) - 1;
+        synchronized (manager) {
+            return backend.countLeaves(function) - 1;
+        }
     }
 
     public double getPathsToNonZeroTerminalsCount() {
-    	return BigcuddLibrary.Cudd_CountPathsToNonZero(function);
+        synchronized (manager) {
+            return backend.countPathsToNonZero(function);
+        }
     }
 
     public double getPathsToZeroTerminalCount() {
-    	return BigcuddLibrary.Cudd_CountPath(function) - getPathsToNonZeroTerminalsCount();
+        synchronized (manager) {
+            return backend.countPaths(function) - getPathsToNonZeroTerminalsCount();
+        }
     }
 
     public int getReorderingsCount() {
-    	return BigcuddLibrary.Cudd_ReadReorderings(dd);
+        synchronized (manager) {
+            return backend.getReorderingsCount();
+        }
     }
 
     public int getGarbageCollectionsCount() {
-    	return BigcuddLibrary.Cudd_ReadGarbageCollections(dd);
+        synchronized (manager) {
+            return backend.getGarbageCollectionsCount();
+        }
     }
 
     public long getAddSizeInBytes() {
-    	return BigcuddLibrary.Cudd_ReadMemoryInUse(dd);
+        synchronized (manager) {
+            return backend.getMemoryInUse();
+        }
     }
 
     @Override
     public int hashCode() {
-        return this.function.hashCode();
+        return Long.hashCode(this.function);
     }
 
-    Pointer<DdNode> getUnderlyingNode() {
-        return this.function;
+    Manager getManager() {
+        return manager;
     }
 
-    /**************************************************************
-     *** Operators definitions
-     *************************************************************/
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback TIMES = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
+    long getUnderlyingNode() {
+        if (isClosed()) {
+            throw new IllegalStateException("ADD has already been closed");
         }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback PLUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback DIVIDE = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback LOGICAL_OR = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
-        }
-    };
-
-    private class CubeSpliterator extends AbstractSpliterator<Collection<String>> {
-
-        private Pointer<Pointer<Integer>> cubePtr;
-        private Pointer<Double> valuePtr;
-        private Pointer<DdGen> generator;
-        private int numVars;
-        private Iterator<List<String>> expandedIterator;
-
-        protected CubeSpliterator() {
-            super((long) BigcuddLibrary.Cudd_CountPathsToNonZero(function),
-                  Spliterator.SIZED | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.ORDERED);
-
-            Pointer<Integer> dummy = Pointer.allocateInt();
-            // A pointer to a freshly allocated pointer to int.
-            // As Cudd_FirstCube and Cudd_NextCube allocate the returned cubes,
-            // allocating a whole int[] here makes no sense. Thus, we allocate
-            // only the position where the address to the generated cubes are
-            // to be stored.
-            cubePtr = Pointer.pointerToPointer(dummy);
-            // A pointer to a freshly allocated double.
-            valuePtr = Pointer.pointerToDouble(0);
-
-            // So let's start the iteration!
-            generator = BigcuddLibrary.Cudd_FirstCube(dd,
-                                                      function,
-                                                      cubePtr,
-                                                      valuePtr);
-            numVars = BigcuddLibrary.Cudd_ReadSize(dd);
+        return this.function;
+    }
 
+    /**
+     * Cleaning action which holds the backend node, but not the ADD itself,
+     * so that it does not prevent the ADD from being collected.
+     */
+    private static class NodeReference implements Runnable {
+        private final ReferenceTracker references;
+        private final long node;
+        volatile boolean released = false;
+
+        NodeReference(ReferenceTracker references, long node) {
+            this.references = references;
+            this.node = node;
         }
 
         @Override
-        public boolean tryAdvance(Consumer<? super Collection<String>> action) {
-            if (expandedIterator == null || !expandedIterator.hasNext()) {
-                if (BigcuddLibrary.Cudd_IsGenEmpty(generator) == 0) {
-                    Pointer<Integer> cube = cubePtr.getPointer(Integer.class);
-                    int[] presenceVector = cube.getInts(numVars);
-                    List<String> configuration = variableStore.fromPresenceVector(presenceVector);
-
-                    Collection<List<String>> expanded = expandDontCares(configuration);
-                    expandedIterator = expanded.iterator();
-
-                    BigcuddLibrary.Cudd_NextCube(generator,
-                            cubePtr,
-                            valuePtr);
-                } else {
-                    if (generator != null) {
-                        BigcuddLibrary.Cudd_GenFree(generator);
-                        generator = null;
-                    }
-                    return false;
-                }
-            }
-
-            action.accept(expandedIterator.next());
-            return true;
+        public void run() {
+            released = true;
+            references.release(node);
         }
-
     }
 
 }
@@ -0,0 +1,156 @@
+package jadd;
+
+/**
+ * Decision diagram engine on which ADDs are built.
+ *
+ * Nodes are identified by opaque {@code long} handles. As in CUDD, nodes
+ * returned by operations are not referenced: callers must {@link #ref(long)}
+ * the ones they keep before calling any other method which may free nodes
+ * (i.e., {@link #deref(long)} and reordering).
+ *
+ * Implementations are not thread-safe.
+ */
+interface ADDBackend {
+
+    enum Operation {
+        PLUS,
+        MINUS,
+        TIMES,
+        DIVIDE,
+        /** Logical or, in which any constant other than 1 counts as false. */
+        OR,
+        MINIMUM,
+        MAXIMUM
+    }
+
+    long constant(double value);
+
+    /**
+     * @return the 0-1 ADD of the variable of the given index, which is
+     *      created (along with all variables of lower indices) if needed.
+     */
+    long variable(int index);
+
+    int getNumberOfVariables();
+
+    long apply(Operation operation, long f, long g);
+
+    long negate(long f);
+
+    /**
+     * @return 1 wherever f is 0, and 0 elsewhere.
+     */
+    long complement(long f);
+
+    /**
+     * If-then-else with a 0-1 condition {@code f}.
+     */
+    long ite(long f, long g, long h);
+
+    /**
+     * @param cube 0-1 ADD of a conjunction of literals (i.e., a product of
+     *      variables and complemented variables).
+     * @return f with the variables in {@code cube} fixed to the values
+     *      of their literals, and thus no longer depending on them.
+     */
+    long cofactor(long f, long cube);
+
+    void ref(long f);
+
+    /**
+     * Removes a reference, recursively dereferencing the children of nodes
+     * which become dead.
+     */
+    void deref(long f);
+
+    /*
+     * Node structure
+     */
+
+    boolean isConstant(long f);
+
+    double getValue(long f);
+
+    int getIndex(long f);
+
+    long getThen(long f);
+
+    long getElse(long f);
+
+    /*
+     * Queries
+     */
+
+    /**
+     * @param assignment Value (0 or 1) of each variable, by index.
+     */
+    double eval(long f, int[] assignment);
+
+    /**
+     * @return an array with 1 at the indices of the variables on which f depends.
+     */
+    int[] getSupport(long f);
+
+    /**
+     * @return the number of nodes of f, including the constant ones.
+     */
+    int getDagSize(long f);
+
+    int countLeaves(long f);
+
+    double countPaths(long f);
+
+    double countPathsToNonZero(long f);
+
+    boolean equalSupNorm(long f, long g, double tolerance);
+
+    /*
+     * Variable ordering
+     */
+
+    /**
+     * @return the variable index at each level, from the top.
+     */
+    int[] getVariableOrder();
+
+    /**
+     * @param order Variable index at each level, from the top. It must be a
+     *      permutation of all variable indices.
+     */
+    void setVariableOrder(int[] order);
+
+    /**
+     * Reorders variables by sifting.
+     */
+    void reorder();
+
+    /*
+     * Statistics
+     */
+
+    long getLiveNodeCount();
+
+    int getDeadNodeCount();
+
+    int getReorderingsCount();
+
+    int getGarbageCollectionsCount();
+
+    long getMemoryInUse();
+
+    /*
+     * Input and output
+     */
+
+    void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName);
+
+    /*
+     * Lifecycle
+     */
+
+    /**
+     * Frees the whole manager. None of its nodes may be used afterwards.
+     */
+    void quit();
+
+}
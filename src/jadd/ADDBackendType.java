@@ -0,0 +1,23 @@
+package jadd;
+
+/**
+ * Available decision diagram engines.
+ */
+public enum ADDBackendType {
+    /** Native CUDD library. */
+    CUDD {
+        @Override
+        ADDBackend create() {
+            return new CuddBackend();
+        }
+    },
+    /** Pure-Java engine, which needs no native library. */
+    JAVA {
+        @Override
+        ADDBackend create() {
+            return new JavaBackend();
+        }
+    };
+
+    abstract ADDBackend create();
+}
@@ -0,0 +1,89 @@
+package jadd;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Scope which owns every ADD created by its thread while it is open, so
+ * that all intermediate results of a computation can be released at once.
+ *
+ * Results which must outlive the scope are to be passed to {@link #keep(ADD)}.
+ * Scopes may be nested, in which case kept ADDs are handed over to the
+ * enclosing scope.
+ *
+ * <pre>
+ * try (ADDScope scope = jadd.openScope()) {
+ *     ADD sum = a.plus(b);
+ *     return scope.keep(sum.times(c));  // sum is released here
+ * }
+ * </pre>
+ */
+public class ADDScope implements AutoCloseable {
+
+    private final ReferenceTracker tracker;
+    private final ADDScope parent;
+    // Identity matters here, since ADD.equals() compares functions.
+    private final Set<ADD> owned = Collections.newSetFromMap(new IdentityHashMap<ADD, Boolean>());
+
+    private NodeCounts countsBeforeRelease;
+    private NodeCounts countsAfterRelease;
+
+    ADDScope(ReferenceTracker tracker, ADDScope parent) {
+        this.tracker = tracker;
+        this.parent = parent;
+    }
+
+    void own(ADD add) {
+        owned.add(add);
+    }
+
+    /**
+     * Prevents an ADD from being released along with this scope.
+     *
+     * @return the same ADD, for convenience.
+     */
+    public ADD keep(ADD add) {
+        if (owned.remove(add) && parent != null) {
+            parent.own(add);
+        }
+        return add;
+    }
+
+    /**
+     * Releases every ADD created while this scope was open, except for the
+     * ones explicitly kept.
+     *
+     * @throws IllegalStateException if a scope nested in this one is still open.
+     */
+    @Override
+    public void close() {
+        if (countsAfterRelease != null) {
+            return;
+        }
+        tracker.closeScope(this);
+        countsBeforeRelease = tracker.getNodeCounts();
+        for (ADD add : owned) {
+            add.close();
+        }
+        owned.clear();
+        countsAfterRelease = tracker.getNodeCounts();
+    }
+
+    /**
+     * @return the manager's node counts right before this scope released
+     *      its ADDs, or null if it is still open.
+     */
+    public NodeCounts getCountsBeforeRelease() {
+        return countsBeforeRelease;
+    }
+
+    /**
+     * @return the manager's node counts right after this scope released
+     *      its ADDs, or null if it is still open.
+     */
+    public NodeCounts getCountsAfterRelease() {
+        return countsAfterRelease;
+    }
+
+}
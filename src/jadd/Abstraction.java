@@ -0,0 +1,28 @@
+package jadd;
+
+import jadd.ADDBackend.Operation;
+
+/**
+ * Ways of abstracting variables away from an ADD, i.e., of combining the
+ * values it takes when each of these variables is true and when it is false.
+ */
+public enum Abstraction {
+    /** Sum over the values of the variables (CUDD's existential abstraction). */
+    SUM(Operation.PLUS),
+    /** Product over the values of the variables (CUDD's universal abstraction). */
+    PRODUCT(Operation.TIMES),
+    /** Least value over the values of the variables. */
+    MIN(Operation.MINIMUM),
+    /** Greatest value over the values of the variables. */
+    MAX(Operation.MAXIMUM);
+
+    private final Operation operation;
+
+    Abstraction(Operation operation) {
+        this.operation = operation;
+    }
+
+    Operation getOperation() {
+        return operation;
+    }
+}
@@ -0,0 +1,242 @@
+package jadd;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the configurations for which a {@link FlatADD} is non-zero,
+ * each one as the set of indices of its present variables.
+ *
+ * Paths are walked depth-first, with the "else" branches which are yet to
+ * be visited kept as pending subtrees. Each path to a non-zero terminal is a
+ * cube whose unassigned variables are "don't care" ones; rather than being
+ * expanded up front, a cube is enumerated by counting from 0 to 2^k - 1 over
+ * its k "don't care" variables.
+ *
+ * Splitting hands over the pending subtree closest to the root or, once
+ * there are none left, half of the current cube's counter range. Since the
+ * fraction of non-zero assignments below each node is known, the sizes of
+ * both halves are exact.
+ */
+final class ConfigurationSpliterator implements Spliterator<BitSet> {
+
+    private final FlatADD add;
+    /** Fraction of the assignments below each internal node which are non-zero. */
+    private final double[] fractions;
+    /** Number of variables which configurations range over. */
+    private final int numVariables;
+    private final Deque<Subtree> pending = new ArrayDeque<Subtree>();
+
+    /*
+     * Cube being enumerated.
+     */
+    private long[] cubeValues;
+    private int[] dontCares;
+    private long counter = 0;
+    private long limit = 0;
+
+    /**
+     * Node reached by a partial assignment.
+     */
+    private static final class Subtree {
+        final int node;
+        final long[] values;
+        final long[] assigned;
+        final int depth;
+
+        Subtree(int node, long[] values, long[] assigned, int depth) {
+            this.node = node;
+            this.values = values;
+            this.assigned = assigned;
+            this.depth = depth;
+        }
+    }
+
+    ConfigurationSpliterator(FlatADD add) {
+        this(add, nonZeroFractions(add));
+        int words = (add.getNumberOfVariables() + 63) >>> 6;
+        // Excluded variables are never tested, so they count as assigned
+        // (to false) from the start, although not as part of the depth.
+        long[] assigned = new long[words];
+        for (int variable = 0; variable < add.getNumberOfVariables(); variable++) {
+            if (add.isExcluded(variable)) {
+                withBit(assigned, variable);
+            }
+        }
+        pending.add(new Subtree(add.getRoot(), new long[words], assigned, 0));
+    }
+
+    private ConfigurationSpliterator(FlatADD add, double[] fractions) {
+        this.add = add;
+        this.fractions = fractions;
+        this.numVariables = add.getNumberOfFreeVariables();
+    }
+
+    private static double[] nonZeroFractions(FlatADD add) {
+        // Nodes are stored children first.
+        double[] fractions = new double[add.getInternalNodeCount()];
+        for (int node = 0; node < fractions.length; node++) {
+            fractions[node] = (fractionOf(add, fractions, add.getThen(node))
+                    + fractionOf(add, fractions, add.getElse(node))) / 2;
+        }
+        return fractions;
+    }
+
+    private static double fractionOf(FlatADD add, double[] fractions, int node) {
+        if (node < 0) {
+            return add.getTerminalValue(node) != 0 ? 1 : 0;
+        }
+        return fractions[node];
+    }
+
+    private double fractionOf(int node) {
+        return fractionOf(add, fractions, node);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super BitSet> action) {
+        while (counter >= limit) {
+            Subtree subtree = pending.pollLast();
+            if (subtree == null) {
+                return false;
+            }
+            descend(subtree);
+        }
+        action.accept(nextConfiguration());
+        return true;
+    }
+
+    private BitSet nextConfiguration() {
+        BitSet configuration = BitSet.valueOf(cubeValues);
+        for (int i = 0; i < dontCares.length; i++) {
+            if ((counter & (1L << i)) != 0) {
+                configuration.set(dontCares[i]);
+            }
+        }
+        counter++;
+        return configuration;
+    }
+
+    /**
+     * Follows the "then" branches from a subtree's node, leaving the "else"
+     * ones pending, and starts enumerating the cube of the path found, if any.
+     */
+    private void descend(Subtree subtree) {
+        int node = subtree.node;
+        long[] values = subtree.values;
+        long[] assigned = subtree.assigned;
+        int depth = subtree.depth;
+        while (node >= 0) {
+            int variable = add.getVariable(node);
+            int elseChild = add.getElse(node);
+            int thenChild = add.getThen(node);
+            if (fractionOf(elseChild) > 0) {
+                pending.addLast(new Subtree(elseChild,
+                                            values.clone(),
+                                            withBit(assigned.clone(), variable),
+                                            depth + 1));
+            }
+            if (fractionOf(thenChild) == 0) {
+                return;
+            }
+            withBit(values, variable);
+            withBit(assigned, variable);
+            depth++;
+            node = thenChild;
+        }
+        if (fractionOf(node) > 0) {
+            startCube(values, assigned, depth);
+        }
+    }
+
+    private static long[] withBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+        return bits;
+    }
+
+    private void startCube(long[] values, long[] assigned, int depth) {
+        int numDontCares = numVariables - depth;
+        if (numDontCares >= Long.SIZE - 1) {
+            throw new IllegalStateException("Too many configurations in a single cube: 2^" + numDontCares);
+        }
+        cubeValues = values;
+        dontCares = new int[numDontCares];
+        int i = 0;
+        for (int variable = 0; variable < add.getNumberOfVariables(); variable++) {
+            if ((assigned[variable >>> 6] & (1L << variable)) == 0) {
+                dontCares[i++] = variable;
+            }
+        }
+        counter = 0;
+        limit = 1L << numDontCares;
+    }
+
+    /**
+     * Replaces a pending subtree by its children (or by its cube, if it is
+     * a terminal).
+     */
+    private void open(Subtree subtree) {
+        if (subtree.node < 0) {
+            if (fractionOf(subtree.node) > 0) {
+                startCube(subtree.values, subtree.assigned, subtree.depth);
+            }
+            return;
+        }
+        int index = add.getVariable(subtree.node);
+        int elseChild = add.getElse(subtree.node);
+        int thenChild = add.getThen(subtree.node);
+        if (fractionOf(elseChild) > 0) {
+            pending.addLast(new Subtree(elseChild,
+                                        subtree.values.clone(),
+                                        withBit(subtree.assigned.clone(), index),
+                                        subtree.depth + 1));
+        }
+        if (fractionOf(thenChild) > 0) {
+            pending.addLast(new Subtree(thenChild,
+                                        withBit(subtree.values.clone(), index),
+                                        withBit(subtree.assigned.clone(), index),
+                                        subtree.depth + 1));
+        }
+    }
+
+    @Override
+    public Spliterator<BitSet> trySplit() {
+        while (pending.size() == 1 && counter >= limit) {
+            open(pending.pollLast());
+        }
+        if (pending.size() > 1 || (!pending.isEmpty() && counter < limit)) {
+            ConfigurationSpliterator split = new ConfigurationSpliterator(add, fractions);
+            split.pending.add(pending.pollFirst());
+            return split;
+        }
+        if (limit - counter > 1) {
+            ConfigurationSpliterator split = new ConfigurationSpliterator(add, fractions);
+            long middle = counter + (limit - counter) / 2;
+            split.cubeValues = cubeValues;
+            split.dontCares = dontCares;
+            split.counter = middle;
+            split.limit = limit;
+            limit = middle;
+            return split;
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        double size = limit - counter;
+        for (Subtree subtree : pending) {
+            size += Math.scalb(fractionOf(subtree.node), numVariables - subtree.depth);
+        }
+        return size >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) size;
+    }
+
+    @Override
+    public int characteristics() {
+        return SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+
+}
@@ -0,0 +1,63 @@
+package jadd;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of configurations which share the same value in an ADD, given by
+ * a path from its root to a terminal.
+ *
+ * Present variables are the ones assigned true along the path, and "don't
+ * care" variables are the ones which are not tested at all. The cube stands
+ * for every configuration made of the present variables and any subset of
+ * the "don't care" ones.
+ */
+public class Cube {
+    private final double value;
+    private final List<String> presentVariables;
+    private final List<String> dontCareVariables;
+
+    Cube(double value, List<String> presentVariables, List<String> dontCareVariables) {
+        this.value = value;
+        this.presentVariables = presentVariables;
+        this.dontCareVariables = dontCareVariables;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public List<String> getPresentVariables() {
+        return presentVariables;
+    }
+
+    public List<String> getDontCareVariables() {
+        return dontCareVariables;
+    }
+
+    /**
+     * @return the number of configurations in this cube, i.e., 2^(# don't cares).
+     */
+    public BigInteger getConfigurationCount() {
+        return BigInteger.ONE.shiftLeft(dontCareVariables.size());
+    }
+
+    /**
+     * @return the cube as a list of variables, with "don't care" ones
+     *      between parentheses.
+     */
+    public List<String> toList() {
+        List<String> variables = new ArrayList<String>(presentVariables);
+        for (String variable : dontCareVariables) {
+            variables.add("(" + variable + ")");
+        }
+        return variables;
+    }
+
+    @Override
+    public String toString() {
+        return toList() + ": " + value;
+    }
+
+}
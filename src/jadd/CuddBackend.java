@@ -0,0 +1,354 @@
+package jadd;
+
+import org.bridj.IntValuedEnum;
+import org.bridj.Pointer;
+
+import bigcudd.BigcuddLibrary;
+import bigcudd.BigcuddLibrary.Cudd_ReorderingType;
+import bigcudd.BigcuddLibrary.Cudd_addApply_arg1_callback;
+import bigcudd.BigcuddLibrary.DdManager;
+import bigcudd.DdNode;
+
+/**
+ * ADD backend on top of a native CUDD manager. Node handles are the
+ * addresses of the CUDD nodes.
+ */
+final class CuddBackend implements ADDBackend {
+
+    private final Pointer<DdManager> dd;
+
+    CuddBackend() {
+        this.dd = BigcuddLibrary.Cudd_Init(0,
+                                           0,
+                                           BigcuddLibrary.CUDD_UNIQUE_SLOTS,
+                                           BigcuddLibrary.CUDD_CACHE_SLOTS,
+                                           0);
+    }
+
+    private static Pointer<DdNode> node(long handle) {
+        return Pointer.pointerToAddress(handle, DdNode.class, null);
+    }
+
+    private static long handle(Pointer<DdNode> node) {
+        return node.getPeer();
+    }
+
+    @Override
+    public long constant(double value) {
+        return handle(BigcuddLibrary.Cudd_addConst(dd, value));
+    }
+
+    @Override
+    public long variable(int index) {
+        return handle(BigcuddLibrary.Cudd_addIthVar(dd, index));
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return BigcuddLibrary.Cudd_ReadSize(dd);
+    }
+
+    @Override
+    public long apply(Operation operation, long f, long g) {
+        return handle(BigcuddLibrary.Cudd_addApply(dd,
+                                                   Pointer.getPointer(callbackFor(operation)),
+                                                   node(f),
+                                                   node(g)));
+    }
+
+    @Override
+    public long negate(long f) {
+        return handle(BigcuddLibrary.Cudd_addNegate(dd, node(f)));
+    }
+
+    @Override
+    public long complement(long f) {
+        return handle(BigcuddLibrary.Cudd_addCmpl(dd, node(f)));
+    }
+
+    @Override
+    public long ite(long f, long g, long h) {
+        return handle(BigcuddLibrary.Cudd_addIte(dd, node(f), node(g), node(h)));
+    }
+
+    @Override
+    public long cofactor(long f, long cube) {
+        return handle(BigcuddLibrary.Cudd_Cofactor(dd, node(f), node(cube)));
+    }
+
+    @Override
+    public void ref(long f) {
+        BigcuddLibrary.Cudd_Ref(node(f));
+    }
+
+    @Override
+    public void deref(long f) {
+        BigcuddLibrary.Cudd_RecursiveDeref(dd, node(f));
+    }
+
+    @Override
+    public boolean isConstant(long f) {
+        return BigcuddLibrary.Cudd_IsNonConstant(node(f)) == 0;
+    }
+
+    @Override
+    public double getValue(long f) {
+        return node(f).get().type().value();
+    }
+
+    @Override
+    public int getIndex(long f) {
+        return BigcuddLibrary.Cudd_NodeReadIndex(node(f));
+    }
+
+    @Override
+    public long getThen(long f) {
+        return handle(node(f).get().type().kids().T());
+    }
+
+    @Override
+    public long getElse(long f) {
+        return handle(node(f).get().type().kids().E());
+    }
+
+    @Override
+    public double eval(long f, int[] assignment) {
+        Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
+                                                            node(f),
+                                                            Pointer.pointerToInts(assignment));
+        return terminal.get().type().value();
+    }
+
+    @Override
+    public int[] getSupport(long f) {
+        Pointer<Integer> support = BigcuddLibrary.Cudd_SupportIndex(dd, node(f));
+        return support.getInts(getNumberOfVariables());
+    }
+
+    @Override
+    public int getDagSize(long f) {
+        return BigcuddLibrary.Cudd_DagSize(node(f));
+    }
+
+    @Override
+    public int countLeaves(long f) {
+        return BigcuddLibrary.Cudd_CountLeaves(node(f));
+    }
+
+    @Override
+    public double countPaths(long f) {
+        return BigcuddLibrary.Cudd_CountPath(node(f));
+    }
+
+    @Override
+    public double countPathsToNonZero(long f) {
+        return BigcuddLibrary.Cudd_CountPathsToNonZero(node(f));
+    }
+
+    @Override
+    public boolean equalSupNorm(long f, long g, double tolerance) {
+        return BigcuddLibrary.Cudd_EqualSupNorm(dd, node(f), node(g), tolerance, 1) == 1;
+    }
+
+    @Override
+    public int[] getVariableOrder() {
+        int[] order = new int[getNumberOfVariables()];
+        for (int level = 0; level < order.length; level++) {
+            order[level] = BigcuddLibrary.Cudd_ReadInvPerm(dd, level);
+        }
+        return order;
+    }
+
+    @Override
+    public void setVariableOrder(int[] order) {
+        BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(order));
+    }
+
+    @Override
+    public void reorder() {
+        IntValuedEnum<Cudd_ReorderingType> heuristic = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
+        BigcuddLibrary.Cudd_ReduceHeap(dd, heuristic, 1);
+    }
+
+    @Override
+    public long getLiveNodeCount() {
+        return BigcuddLibrary.Cudd_ReadNodeCount(dd);
+    }
+
+    @Override
+    public int getDeadNodeCount() {
+        return BigcuddLibrary.Cudd_ReadDead(dd);
+    }
+
+    @Override
+    public int getReorderingsCount() {
+        return BigcuddLibrary.Cudd_ReadReorderings(dd);
+    }
+
+    @Override
+    public int getGarbageCollectionsCount() {
+        return BigcuddLibrary.Cudd_ReadGarbageCollections(dd);
+    }
+
+    @Override
+    public long getMemoryInUse() {
+        return BigcuddLibrary.Cudd_ReadMemoryInUse(dd);
+    }
+
+    @Override
+    public void quit() {
+        BigcuddLibrary.Cudd_Quit(dd);
+    }
+
+    @Override
+    public void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName) {
+        @SuppressWarnings("unchecked")
+        Pointer<DdNode>[] nodes = (Pointer<DdNode>[]) new Pointer[functions.length];
+        for (int i = 0; i < functions.length; i++) {
+            nodes[i] = node(functions[i]);
+        }
+        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
+        BigcuddLibrary.Cudd_DumpDot(dd,
+                                    functions.length,
+                                    Pointer.pointerToPointers(nodes),
+                                    Pointer.pointerToCStrings(variableNames),
+                                    Pointer.pointerToCStrings(functionNames),
+                                    output);
+        CUtils.fclose(output);
+    }
+
+    /**
+     * Writes a dddmp text file, which no other backend supports.
+     */
+    void store(String functionName, long f, String[] variableNames, String fileName) {
+        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
+
+        Pointer<Byte> ddname;
+        if (functionName == null || functionName.isEmpty()) {
+            ddname = null;
+        } else {
+            ddname = Pointer.pointerToCString(functionName);
+        }
+
+        BigcuddLibrary.Dddmp_cuddAddStore(dd,
+                                          ddname,
+                                          node(f),
+                                          Pointer.pointerToCStrings(variableNames),
+                                          null,
+                                          BigcuddLibrary.DDDMP_MODE_TEXT,
+                                          BigcuddLibrary.Dddmp_VarInfoType.DDDMP_VARIDS,
+                                          Pointer.pointerToCString(fileName),
+                                          output);
+        CUtils.fclose(output);
+    }
+
+    /**
+     * Reads a dddmp text file written by {@link #store(String, long, String[], String)}.
+     */
+    long load(String fileName) {
+        Pointer<?> input = CUtils.fopen(fileName, CUtils.ACCESS_READ);
+
+        IntValuedEnum<BigcuddLibrary.Dddmp_VarMatchType> varMatchMode = BigcuddLibrary.Dddmp_VarMatchType.DDDMP_VAR_MATCHIDS;
+        int mode = BigcuddLibrary.DDDMP_MODE_TEXT;
+        Pointer<Byte> file = Pointer.pointerToCString(fileName);
+        Pointer<DdNode> node = BigcuddLibrary.Dddmp_cuddAddLoad(dd,
+                                                                varMatchMode,
+                                                                null,
+                                                                null,
+                                                                null,
+                                                                mode,
+                                                                file,
+                                                                input);
+        CUtils.fclose(input);
+        return handle(node);
+    }
+
+    /**************************************************************
+     *** Operators definitions
+     *************************************************************/
+
+    private static Cudd_addApply_arg1_callback callbackFor(Operation operation) {
+        switch (operation) {
+        case PLUS:
+            return PLUS;
+        case MINUS:
+            return MINUS;
+        case TIMES:
+            return TIMES;
+        case DIVIDE:
+            return DIVIDE;
+        case OR:
+            return LOGICAL_OR;
+        case MINIMUM:
+            return MINIMUM;
+        case MAXIMUM:
+            return MAXIMUM;
+        default:
+            throw new IllegalArgumentException("Unsupported operation: " + operation);
+        }
+    }
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback TIMES = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback PLUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback DIVIDE = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback LOGICAL_OR = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINIMUM = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addMinimum(dd, node1, node2);
+        }
+    };
+
+    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MAXIMUM = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
+        @Override
+        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
+                                      Pointer<Pointer<DdNode > > node1,
+                                      Pointer<Pointer<DdNode > > node2) {
+            return BigcuddLibrary.Cudd_addMaximum(dd, node1, node2);
+        }
+    };
+
+}
@@ -0,0 +1,542 @@
+package jadd;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.DoublePredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable on-heap snapshot of an ADD, for evaluating it many times.
+ *
+ * Internal nodes are packed into a single int array as (variable index,
+ * then child, else child) triples. A child is either the position of another
+ * internal node or, if negative, the bitwise complement of the position of
+ * its value in the terminals array. Evaluation just follows these links, so
+ * it allocates nothing, takes no locks and may happen in any thread.
+ *
+ * Configurations are sets of variable indices (see {@link #getVariableIndex(String)}),
+ * given either as {@link BitSet}s or as {@code long[]} bit sets laid out
+ * as in {@link BitSet#toLongArray()}.
+ *
+ * Configurations range over every variable known when the snapshot was
+ * taken, except for those {@link #excluding(Collection) excluded} from it.
+ */
+public final class FlatADD {
+    private static final int NODE_SIZE = 3;
+
+    private final int[] nodes;
+    private final double[] terminals;
+    private final int root;
+    private final String[] variableNames;
+    private final Map<String, Integer> variableIndices;
+    /** Variables which configurations do not range over, as a bit set. */
+    private final BitSet excluded;
+
+    FlatADD(int[] nodes, double[] terminals, int root, String[] variableNames) {
+        this(nodes, terminals, root, variableNames, new BitSet());
+    }
+
+    private FlatADD(int[] nodes, double[] terminals, int root, String[] variableNames, BitSet excluded) {
+        this.nodes = nodes;
+        this.terminals = terminals;
+        this.root = root;
+        this.variableNames = variableNames;
+        this.variableIndices = new HashMap<String, Integer>();
+        for (int i = 0; i < variableNames.length; i++) {
+            variableIndices.put(variableNames[i], i);
+        }
+        this.excluded = excluded;
+    }
+
+    /**
+     * Flattens the ADD rooted at {@code function}. The caller must hold the
+     * lock of the backend's manager.
+     */
+    static FlatADD of(ADDBackend backend, long function, String[] variableNames) {
+        Flattener flattener = new Flattener(backend);
+        int root = flattener.visit(function);
+        return new FlatADD(flattener.getNodes(),
+                           flattener.getTerminals(),
+                           root,
+                           variableNames);
+    }
+
+    /**
+     * Returns a snapshot of the same function whose configurations no
+     * longer range over the given variables, e.g., because they have been
+     * fixed by {@link ADD#restrict(Map)} or removed by
+     * {@link ADD#abstractVariables(Collection, Abstraction)}. Aggregates then
+     * count configurations of the remaining variables only, and cubes do
+     * not list the excluded variables as "don't care" ones.
+     *
+     * Excluded variables are not written by {@link #writeTo(Path)}.
+     *
+     * @throws UnrecognizedVariableException if some variable is unknown.
+     * @throws IllegalArgumentException if the function depends on some of
+     *      the variables.
+     */
+    public FlatADD excluding(Collection<String> variables) throws UnrecognizedVariableException {
+        BitSet moreExcluded = (BitSet) excluded.clone();
+        for (String variable : variables) {
+            moreExcluded.set(getVariableIndex(variable));
+        }
+        for (int node = 0; node < getInternalNodeCount(); node++) {
+            if (moreExcluded.get(getVariable(node))) {
+                throw new IllegalArgumentException("The function depends on " + variableNames[getVariable(node)]);
+            }
+        }
+        return new FlatADD(nodes, terminals, root, variableNames, moreExcluded);
+    }
+
+    /**
+     * Writes this snapshot to a binary file, along with the names of its
+     * variables and a checksum.
+     */
+    public void writeTo(Path path) throws IOException {
+        FlatADDFormat.write(this, path);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo(Path)}. The file is
+     * memory-mapped, so reading it involves no parsing of node by node.
+     *
+     * @throws IOException if the file cannot be read or is corrupt.
+     */
+    public static FlatADD readFrom(Path path) throws IOException {
+        return FlatADDFormat.read(path);
+    }
+
+    public double eval(long[] configuration) {
+        int node = root;
+        while (node >= 0) {
+            int base = node * NODE_SIZE;
+            int variable = nodes[base];
+            int word = variable >>> 6;
+            boolean present = word < configuration.length
+                    && (configuration[word] & (1L << variable)) != 0;
+            node = present ? nodes[base + 1] : nodes[base + 2];
+        }
+        return terminals[~node];
+    }
+
+    public double eval(BitSet configuration) {
+        int node = root;
+        while (node >= 0) {
+            int base = node * NODE_SIZE;
+            node = configuration.get(nodes[base]) ? nodes[base + 1] : nodes[base + 2];
+        }
+        return terminals[~node];
+    }
+
+    public double eval(String[] configuration) throws UnrecognizedVariableException {
+        return eval(toBits(configuration));
+    }
+
+    /**
+     * @return the configuration as a {@code long[]} bit set of variable indices.
+     */
+    public long[] toBits(String[] configuration) throws UnrecognizedVariableException {
+        long[] bits = new long[(variableIndices.size() + 63) >>> 6];
+        for (String variable : configuration) {
+            int index = getVariableIndex(variable);
+            bits[index >>> 6] |= 1L << index;
+        }
+        return bits;
+    }
+
+    public int getVariableIndex(String variable) throws UnrecognizedVariableException {
+        Integer index = variableIndices.get(variable);
+        if (index == null) {
+            throw new UnrecognizedVariableException(variable);
+        }
+        return index;
+    }
+
+    public String getVariableName(int index) {
+        return variableNames[index];
+    }
+
+    public int getNumberOfVariables() {
+        return variableNames.length;
+    }
+
+    /**
+     * @return the number of variables which configurations range over,
+     *      i.e., those which are not excluded.
+     */
+    public int getNumberOfFreeVariables() {
+        return variableNames.length - excluded.cardinality();
+    }
+
+    boolean isExcluded(int index) {
+        return excluded.get(index);
+    }
+
+    /**
+     * @return the names of the variables in a configuration, by index.
+     */
+    public List<String> toNames(BitSet configuration) {
+        List<String> names = new ArrayList<String>(configuration.cardinality());
+        for (int index = configuration.nextSetBit(0); index >= 0; index = configuration.nextSetBit(index + 1)) {
+            names.add(variableNames[index]);
+        }
+        return names;
+    }
+
+    /**
+     * Returns a parallel stream of the configurations (over all variables
+     * known when this snapshot was taken, except for the excluded ones)
+     * for which this ADD is non-zero.
+     * Configurations are enumerated lazily, so that the stream may be far
+     * larger than the ADD.
+     */
+    public Stream<BitSet> getConfigurations() {
+        return StreamSupport.stream(new ConfigurationSpliterator(this), true);
+    }
+
+    public int getInternalNodeCount() {
+        return nodes.length / NODE_SIZE;
+    }
+
+    public int getTerminalCount() {
+        return terminals.length;
+    }
+
+    /*
+     * Aggregate queries. They range over every assignment to the variables
+     * known when this snapshot was taken (except for the excluded ones),
+     * but take a single pass over its
+     * nodes (which are stored children first, so that each node is visited
+     * once, after its children) instead of enumerating assignments.
+     */
+
+    /**
+     * @return the least value taken by this ADD among those satisfying
+     *      {@code condition}, or NaN if there is none.
+     */
+    public double getMin(DoublePredicate condition) {
+        double min = Double.NaN;
+        for (double value : terminals) {
+            if (condition.test(value) && !(value >= min)) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @return the greatest value taken by this ADD among those satisfying
+     *      {@code condition}, or NaN if there is none.
+     */
+    public double getMax(DoublePredicate condition) {
+        double max = Double.NaN;
+        for (double value : terminals) {
+            if (condition.test(value) && !(value <= max)) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the mean of the values satisfying {@code condition}, each one
+     *      weighted by the number of assignments which lead to it, or NaN if
+     *      there is none.
+     */
+    public double getMean(DoublePredicate condition) {
+        // Fractions of all assignments below each node, and their values
+        // weighted by these fractions.
+        double[] fractions = new double[getInternalNodeCount()];
+        double[] sums = new double[fractions.length];
+        for (int node = 0; node < fractions.length; node++) {
+            int thenChild = getThen(node);
+            int elseChild = getElse(node);
+            fractions[node] = (fractionOf(thenChild, fractions, condition) + fractionOf(elseChild, fractions, condition)) / 2;
+            sums[node] = (sumOf(thenChild, sums, condition) + sumOf(elseChild, sums, condition)) / 2;
+        }
+        double fraction = fractionOf(root, fractions, condition);
+        return fraction == 0 ? Double.NaN : sumOf(root, sums, condition) / fraction;
+    }
+
+    private double fractionOf(int node, double[] fractions, DoublePredicate condition) {
+        if (node < 0) {
+            return condition.test(getTerminalValue(node)) ? 1 : 0;
+        }
+        return fractions[node];
+    }
+
+    private double sumOf(int node, double[] sums, DoublePredicate condition) {
+        if (node < 0) {
+            double value = getTerminalValue(node);
+            return condition.test(value) ? value : 0;
+        }
+        return sums[node];
+    }
+
+    /**
+     * @return the exact number of assignments whose values satisfy {@code condition}.
+     */
+    public BigInteger count(DoublePredicate condition) {
+        // Below a node, each path of length l stands for 2^(n - l) assignments,
+        // which is why counts are halved at every level.
+        BigInteger all = BigInteger.ONE.shiftLeft(getNumberOfFreeVariables());
+        BigInteger[] counts = new BigInteger[getInternalNodeCount()];
+        for (int node = 0; node < counts.length; node++) {
+            counts[node] = countOf(getThen(node), counts, condition, all)
+                    .add(countOf(getElse(node), counts, condition, all))
+                    .shiftRight(1);
+        }
+        return countOf(root, counts, condition, all);
+    }
+
+    private BigInteger countOf(int node, BigInteger[] counts, DoublePredicate condition, BigInteger all) {
+        if (node < 0) {
+            return condition.test(getTerminalValue(node)) ? all : BigInteger.ZERO;
+        }
+        return counts[node];
+    }
+
+    /**
+     * @return the number of assignments whose values lie in [low, high).
+     */
+    public BigInteger countInRange(double low, double high) {
+        return count(value -> value >= low && value < high);
+    }
+
+    /**
+     * Counts the assignments whose values satisfy {@code condition} and fall
+     * into each of {@code bins} equal intervals of [low, high]. The last
+     * interval is closed, so that {@code high} itself is counted.
+     */
+    public BigInteger[] getHistogram(DoublePredicate condition, double low, double high, int bins) {
+        BigInteger[] histogram = new BigInteger[bins];
+        double width = (high - low) / bins;
+        for (int bin = 0; bin < bins; bin++) {
+            double binLow = low + bin * width;
+            double binHigh = low + (bin + 1) * width;
+            boolean last = (bin == bins - 1);
+            histogram[bin] = count(value -> condition.test(value)
+                    && value >= binLow
+                    && (value < binHigh || (last && value <= high)));
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the cubes of least values among those satisfying {@code condition},
+     * in ascending order of value, until they amount to at least {@code k}
+     * configurations (or until there are no cubes left). Ties are broken
+     * arbitrarily.
+     *
+     * Paths are searched best-first, guided by the least value reachable
+     * below each node, so that only the paths leading to the cubes returned
+     * (and their siblings) are ever visited.
+     */
+    public List<Cube> getLowest(int k, DoublePredicate condition) {
+        return getExtremes(k, condition, false);
+    }
+
+    /**
+     * Returns the cubes of greatest values among those satisfying {@code condition},
+     * in descending order of value, until they amount to at least {@code k}
+     * configurations.
+     *
+     * @see #getLowest(int, DoublePredicate)
+     */
+    public List<Cube> getHighest(int k, DoublePredicate condition) {
+        return getExtremes(k, condition, true);
+    }
+
+    private List<Cube> getExtremes(int k, DoublePredicate condition, boolean highest) {
+        // Best value satisfying the condition below each node, or NaN if there is none.
+        double[] bounds = new double[getInternalNodeCount()];
+        for (int node = 0; node < bounds.length; node++) {
+            bounds[node] = best(boundOf(getThen(node), bounds, condition),
+                                boundOf(getElse(node), bounds, condition),
+                                highest);
+        }
+
+        Comparator<PartialPath> byBound = Comparator.comparingDouble(path -> path.bound);
+        PriorityQueue<PartialPath> frontier = new PriorityQueue<PartialPath>(highest ? byBound.reversed() : byBound);
+        double rootBound = boundOf(root, bounds, condition);
+        if (!Double.isNaN(rootBound)) {
+            int words = (getNumberOfVariables() + 63) >>> 6;
+            frontier.add(new PartialPath(root, rootBound, new long[words], new long[words]));
+        }
+
+        List<Cube> cubes = new ArrayList<Cube>();
+        BigInteger wanted = BigInteger.valueOf(k);
+        BigInteger found = BigInteger.ZERO;
+        while (found.compareTo(wanted) < 0 && !frontier.isEmpty()) {
+            PartialPath path = frontier.poll();
+            if (path.node < 0) {
+                Cube cube = toCube(path);
+                cubes.add(cube);
+                found = found.add(cube.getConfigurationCount());
+                continue;
+            }
+            int variable = getVariable(path.node);
+            int thenChild = getThen(path.node);
+            int elseChild = getElse(path.node);
+            double thenBound = boundOf(thenChild, bounds, condition);
+            if (!Double.isNaN(thenBound)) {
+                frontier.add(new PartialPath(thenChild,
+                                             thenBound,
+                                             withBit(path.values.clone(), variable),
+                                             withBit(path.assigned.clone(), variable)));
+            }
+            double elseBound = boundOf(elseChild, bounds, condition);
+            if (!Double.isNaN(elseBound)) {
+                frontier.add(new PartialPath(elseChild,
+                                             elseBound,
+                                             path.values,
+                                             withBit(path.assigned.clone(), variable)));
+            }
+        }
+        return cubes;
+    }
+
+    private double boundOf(int node, double[] bounds, DoublePredicate condition) {
+        if (node < 0) {
+            double value = getTerminalValue(node);
+            return condition.test(value) ? value : Double.NaN;
+        }
+        return bounds[node];
+    }
+
+    private static double best(double a, double b, boolean highest) {
+        if (Double.isNaN(a)) {
+            return b;
+        } else if (Double.isNaN(b)) {
+            return a;
+        }
+        return highest ? Math.max(a, b) : Math.min(a, b);
+    }
+
+    private static long[] withBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+        return bits;
+    }
+
+    private Cube toCube(PartialPath path) {
+        List<String> present = new ArrayList<String>();
+        List<String> dontCares = new ArrayList<String>();
+        for (int variable = 0; variable < getNumberOfVariables(); variable++) {
+            long bit = 1L << variable;
+            if (excluded.get(variable)) {
+                continue;
+            } else if ((path.assigned[variable >>> 6] & bit) == 0) {
+                dontCares.add(variableNames[variable]);
+            } else if ((path.values[variable >>> 6] & bit) != 0) {
+                present.add(variableNames[variable]);
+            }
+        }
+        return new Cube(path.bound, present, dontCares);
+    }
+
+    /**
+     * Path from the root to a node, with the best value reachable from it.
+     * Once the node is a terminal, its bound is its value.
+     */
+    private static class PartialPath {
+        final int node;
+        final double bound;
+        final long[] values;
+        final long[] assigned;
+
+        PartialPath(int node, double bound, long[] values, long[] assigned) {
+            this.node = node;
+            this.bound = bound;
+            this.values = values;
+            this.assigned = assigned;
+        }
+    }
+
+    /*
+     * Structure, for walking the snapshot. Children which are terminals
+     * are negative.
+     */
+
+    int getRoot() {
+        return root;
+    }
+
+    int getVariable(int node) {
+        return nodes[node * NODE_SIZE];
+    }
+
+    int getThen(int node) {
+        return nodes[node * NODE_SIZE + 1];
+    }
+
+    int getElse(int node) {
+        return nodes[node * NODE_SIZE + 2];
+    }
+
+    double getTerminalValue(int terminal) {
+        return terminals[~terminal];
+    }
+
+    /**
+     * Copies nodes out of a backend, children before parents.
+     */
+    private static class Flattener {
+        private final ADDBackend backend;
+        private final Map<Long, Integer> visited = new HashMap<Long, Integer>();
+        private int[] nodes = new int[NODE_SIZE * 16];
+        private int nodeCount = 0;
+        private double[] terminals = new double[4];
+        private int terminalCount = 0;
+
+        Flattener(ADDBackend backend) {
+            this.backend = backend;
+        }
+
+        int visit(long function) {
+            Integer position = visited.get(function);
+            if (position != null) {
+                return position;
+            }
+            if (backend.isConstant(function)) {
+                if (terminalCount == terminals.length) {
+                    terminals = Arrays.copyOf(terminals, terminalCount * 2);
+                }
+                terminals[terminalCount] = backend.getValue(function);
+                position = ~terminalCount++;
+            } else {
+                int thenChild = visit(backend.getThen(function));
+                int elseChild = visit(backend.getElse(function));
+                if ((nodeCount + 1) * NODE_SIZE > nodes.length) {
+                    nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                }
+                int base = nodeCount * NODE_SIZE;
+                nodes[base] = backend.getIndex(function);
+                nodes[base + 1] = thenChild;
+                nodes[base + 2] = elseChild;
+                position = nodeCount++;
+            }
+            visited.put(function, position);
+            return position;
+        }
+
+        int[] getNodes() {
+            return Arrays.copyOf(nodes, nodeCount * NODE_SIZE);
+        }
+
+        double[] getTerminals() {
+            return Arrays.copyOf(terminals, terminalCount);
+        }
+    }
+
+}
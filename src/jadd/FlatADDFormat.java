@@ -0,0 +1,178 @@
+package jadd;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file format of {@link FlatADD} snapshots.
+ *
+ * The layout (big-endian) is:
+ * <pre>
+ *   int    magic number ("JADD")
+ *   int    format version
+ *   int    number of variables
+ *   int    number of terminals
+ *   int    number of internal nodes
+ *   int    root
+ *   (int length, UTF-8 bytes) name of each variable, by index
+ *          padding up to a multiple of 8 bytes
+ *   double value of each terminal
+ *   int    (variable index, then child, else child) of each internal node
+ *          padding up to a multiple of 8 bytes
+ *   long   CRC32 of all preceding bytes
+ * </pre>
+ * The arrays are the ones of the snapshot itself, so that reading a file
+ * amounts to bulk copies out of a memory-mapped buffer.
+ */
+final class FlatADDFormat {
+    /** "JADD" in ASCII. */
+    private static final int MAGIC = 0x4A414444;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    private FlatADDFormat() {
+    }
+
+    static void write(FlatADD add, Path path) throws IOException {
+        int numVariables = add.getNumberOfVariables();
+        int numTerminals = add.getTerminalCount();
+        int numNodes = add.getInternalNodeCount();
+        byte[][] names = new byte[numVariables][];
+        int namesSize = 0;
+        for (int i = 0; i < numVariables; i++) {
+            names[i] = add.getVariableName(i).getBytes(StandardCharsets.UTF_8);
+            namesSize += Integer.BYTES + names[i].length;
+        }
+        int terminalsOffset = align(HEADER_SIZE + namesSize);
+        int checksumOffset = align(terminalsOffset + numTerminals * Double.BYTES + numNodes * 3 * Integer.BYTES);
+
+        ByteBuffer buffer = ByteBuffer.allocate(checksumOffset + Long.BYTES);
+        buffer.putInt(MAGIC)
+            .putInt(VERSION)
+            .putInt(numVariables)
+            .putInt(numTerminals)
+            .putInt(numNodes)
+            .putInt(add.getRoot());
+        for (byte[] name : names) {
+            buffer.putInt(name.length).put(name);
+        }
+        buffer.position(terminalsOffset);
+        for (int terminal = 0; terminal < numTerminals; terminal++) {
+            buffer.putDouble(add.getTerminalValue(~terminal));
+        }
+        for (int node = 0; node < numNodes; node++) {
+            buffer.putInt(add.getVariable(node))
+                .putInt(add.getThen(node))
+                .putInt(add.getElse(node));
+        }
+        buffer.putLong(checksumOffset, checksum(buffer, checksumOffset));
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * @throws IOException if the file cannot be read, or if it is not a
+     *      well-formed snapshot (e.g., if its checksum does not match).
+     */
+    static FlatADD read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not an ADD snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported ADD snapshot version " + version + " in " + path);
+            }
+            int numVariables = buffer.getInt();
+            int numTerminals = buffer.getInt();
+            int numNodes = buffer.getInt();
+            int root = buffer.getInt();
+            String[] variableNames = new String[numVariables];
+            for (int i = 0; i < numVariables; i++) {
+                byte[] name = new byte[checkedSize(buffer.getInt(), 1, buffer, path)];
+                buffer.get(name);
+                variableNames[i] = new String(name, StandardCharsets.UTF_8);
+            }
+            buffer.position(align(buffer.position()));
+            double[] terminals = new double[checkedSize(numTerminals, Double.BYTES, buffer, path)];
+            buffer.asDoubleBuffer().get(terminals);
+            buffer.position(buffer.position() + numTerminals * Double.BYTES);
+            int[] nodes = new int[checkedSize(numNodes, 3 * Integer.BYTES, buffer, path) * 3];
+            buffer.asIntBuffer().get(nodes);
+            int checksumOffset = align(buffer.position() + nodes.length * Integer.BYTES);
+
+            if (buffer.getLong(checksumOffset) != checksum(buffer, checksumOffset)) {
+                throw new IOException("Checksum mismatch in ADD snapshot " + path);
+            }
+            checkStructure(nodes, numTerminals, root, numVariables, path);
+            return new FlatADD(nodes, terminals, root, variableNames);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated ADD snapshot " + path, e);
+        }
+    }
+
+    /**
+     * @return {@code count}, if there are enough bytes left in the buffer for
+     *      as many elements of the given size.
+     */
+    private static int checkedSize(int count, int elementSize, ByteBuffer buffer, Path path) throws IOException {
+        if (count < 0 || (long) count * elementSize > buffer.remaining()) {
+            throw new IOException("Truncated ADD snapshot " + path);
+        }
+        return count;
+    }
+
+    /**
+     * Makes sure that children always come before their parents, so that
+     * evaluation always reaches a terminal.
+     */
+    private static void checkStructure(int[] nodes, int numTerminals, int root, int numVariables, Path path) throws IOException {
+        for (int node = 0; node * 3 < nodes.length; node++) {
+            int variable = nodes[node * 3];
+            if (variable < 0 || variable >= numVariables
+                    || !isChild(nodes[node * 3 + 1], node, numTerminals)
+                    || !isChild(nodes[node * 3 + 2], node, numTerminals)) {
+                throw new IOException("Malformed node " + node + " in ADD snapshot " + path);
+            }
+        }
+        if (!isChild(root, nodes.length / 3, numTerminals)) {
+            throw new IOException("Malformed root in ADD snapshot " + path);
+        }
+    }
+
+    private static boolean isChild(int child, int parent, int numTerminals) {
+        return child < 0 ? ~child < numTerminals : child < parent;
+    }
+
+    private static long checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.position(0).limit(length);
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static int align(int offset) {
+        return (offset + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+}
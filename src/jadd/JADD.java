@@ -1,50 +1,132 @@
 package jadd;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
-import org.bridj.IntValuedEnum;
-import org.bridj.Pointer;
-
-import bigcudd.BigcuddLibrary;
-import bigcudd.BigcuddLibrary.Cudd_ReorderingType;
-import bigcudd.DdNode;
-
 /**
  * Interface to basic ADD operations.
  *
+ * ADDs are built by a backend chosen upon creation: either the native CUDD
+ * library (the default) or a pure-Java engine.
+ *
+ * A JADD may be used by several threads at once. Backends are not
+ * thread-safe, so each thread gets a manager of its own, created on first
+ * use with all known variables. All managers share the same variable store,
+ * so that ADDs can be copied from one manager into another by variable index.
+ *
+ * Variable reordering only affects the manager of the calling thread, and
+ * must not happen while other threads are reading ADDs from it. New managers
+ * start with the variable order last set or found by reordering in any
+ * thread, or else with the order of the manager of the thread which created
+ * this JADD. Worker threads should free their managers with
+ * {@link #releaseCurrentManager()} once they are done.
+ *
  * @author thiago
  *
  */
 public class JADD {
 
-    private Pointer<BigcuddLibrary.DdManager> dd;
     private VariableStore variableStore = new VariableStore();
+    private ADDBackendType backendType;
+    private Manager mainManager;
+    // Variable order last set or found by reordering in any manager, which
+    // new managers adopt. If null, they adopt that of the main manager.
+    private volatile int[] referenceOrder;
+    private ThreadLocal<Manager> managers = ThreadLocal.withInitial(this::makeManager);
 
     public JADD() {
-        dd = BigcuddLibrary.Cudd_Init(0,
-                                      0,
-                                      BigcuddLibrary.CUDD_UNIQUE_SLOTS,
-                                      BigcuddLibrary.CUDD_CACHE_SLOTS,
-                                      0);
-        IntValuedEnum<Cudd_ReorderingType> method = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
-//        BigcuddLibrary.Cudd_AutodynEnable(dd, method);
+        this(ADDBackendType.CUDD);
+    }
+
+    public JADD(ADDBackendType backendType) {
+        this.backendType = backendType;
+        mainManager = new Manager(this, backendType.create(), variableStore);
+        managers.set(mainManager);
+    }
+
+    public ADDBackendType getBackendType() {
+        return backendType;
+    }
+
+    private Manager makeManager() {
+        Manager manager = new Manager(this, backendType.create(), variableStore);
+        int[] order = referenceOrder;
+        manager.adoptVariableOrder((order != null) ? order : mainManager.getVariableOrder());
+        return manager;
+    }
+
+    Manager getCurrentManager() {
+        return managers.get();
+    }
+
+    /**
+     * Frees the manager of the calling thread, which is meant to be called
+     * by worker threads before they terminate. ADDs created by this thread
+     * must not be used afterwards, although closing them is harmless.
+     * Should the thread use this JADD again, it gets a new manager.
+     *
+     * The manager of the thread which created this JADD is never freed.
+     */
+    public void releaseCurrentManager() {
+        Manager manager = managers.get();
+        if (manager != mainManager) {
+            managers.remove();
+            manager.release();
+        }
     }
 
     public ADD makeConstant(double constant) {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addConst(dd,  constant),
-                       variableStore);
+        Manager manager = getCurrentManager();
+        synchronized (manager) {
+            return new ADD(manager.getBackend().constant(constant),
+                           variableStore,
+                           manager);
+        }
     }
 
     public ADD getVariable(String varName) {
-        if (variableStore.contains(varName)) {
-            return variableStore.get(varName);
-        } else {
-            Pointer<DdNode> var = BigcuddLibrary.Cudd_addNewVar(dd);
-            ADD varADD = new ADD(dd, var, variableStore);
-            variableStore.put(var.get().index(), varName, varADD);
-            return varADD;
-        }
+        return getCurrentManager().getVariable(variableStore.getOrCreateIndex(varName));
+    }
+
+    /**
+     * @return the index of a variable, which is stable for the lifetime
+     *      of this JADD, regardless of variable reordering.
+     * @throws UnrecognizedVariableException if the variable is unknown.
+     */
+    public int getVariableIndex(String varName) throws UnrecognizedVariableException {
+        return variableStore.getIndex(varName);
+    }
+
+    /**
+     * Registers a variable without creating it in any manager, so that it
+     * is safe to call from threads which never use ADDs (and which would
+     * otherwise get a manager of their own).
+     *
+     * @return the index of the variable, as in {@link #getVariableIndex(String)}.
+     */
+    public int getOrCreateVariableIndex(String varName) {
+        return variableStore.getOrCreateIndex(varName);
+    }
+
+    /**
+     * Opens a scope which owns every ADD subsequently created by the current
+     * thread, until it is closed.
+     *
+     * @see ADDScope
+     */
+    public ADDScope openScope() {
+        return getCurrentManager().getReferences().openScope();
+    }
+
+    /**
+     * @return the current number of live and dead nodes in the manager
+     *      of the calling thread.
+     */
+    public NodeCounts getNodeCounts() {
+        return getCurrentManager().getReferences().getNodeCounts();
     }
 
     /**
@@ -52,8 +134,11 @@ public class JADD {
     * based on the sifting heuristic.
     */
     public void reorderVariables() {
-        IntValuedEnum<Cudd_ReorderingType> heuristic = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
-        BigcuddLibrary.Cudd_ReduceHeap(dd, heuristic, 1);
+        Manager manager = getCurrentManager();
+        synchronized (manager) {
+            manager.getBackend().reorder();
+            referenceOrder = manager.getVariableOrder();
+        }
     }
 
     /**
@@ -64,29 +149,46 @@ public class JADD {
      */
     public void setVariableOrder(String[] orderedVariables) throws UnrecognizedVariableException {
         int[] permutationVector = variableStore.toPermutationVector(orderedVariables);
-        BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(permutationVector));
+        Manager manager = getCurrentManager();
+        synchronized (manager) {
+            manager.adoptVariableOrder(permutationVector);
+            referenceOrder = manager.getVariableOrder();
+        }
     }
 
-    public void dumpDot(String[] functionNames, ADD[] functions, String fileName) {
-        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
+    /**
+     * @return the names of the variables in the manager of the calling
+     *      thread, from the topmost ADD level to the bottommost one.
+     */
+    public List<String> getVariableOrder() {
+        List<String> order = new ArrayList<String>();
+        for (int varIndex : getCurrentManager().getVariableOrder()) {
+            order.add(variableStore.getName((short) varIndex));
+        }
+        return order;
+    }
 
-        @SuppressWarnings("unchecked")
-        Pointer<DdNode>[] nodes = (Pointer<DdNode>[]) new Pointer[functions.length];
+    public void dumpDot(String[] functionNames, ADD[] functions, String fileName) {
+        Manager manager = getCurrentManager();
+        ADD[] localFunctions = new ADD[functions.length];
+        long[] nodes = new long[functions.length];
         int i = 0;
         for (ADD function : functions) {
-            nodes[i] = function.getUnderlyingNode();
+            localFunctions[i] = function.in(manager);
+            nodes[i] = localFunctions[i].getUnderlyingNode();
             i++;
         }
 
         String[] orderedVariableNames = variableStore.getOrderedNames();
-        BigcuddLibrary.Cudd_DumpDot(dd,
-                                    functions.length,
-                                    Pointer.pointerToPointers(nodes),
-                                    Pointer.pointerToCStrings(orderedVariableNames),
-                                    Pointer.pointerToCStrings(functionNames),
-                                    output);
+        synchronized (manager) {
+            manager.getBackend().dumpDot(nodes, orderedVariableNames, functionNames, fileName);
+        }
 
-        CUtils.fclose(output);
+        for (i = 0; i < functions.length; i++) {
+            if (localFunctions[i] != functions[i]) {
+                localFunctions[i].close();
+            }
+        }
     }
 
     public void dumpDot(Map<String, ADD> functions, String fileName) {
@@ -112,32 +214,19 @@ public class JADD {
     
     /**
      * Writes an ADD to a text file using the functionality provided by
-     * the dddmp library.
+     * the dddmp library. Only the CUDD backend supports it.
      * @param functionName Name of the function represented by the ADD (Can be empty or null).
      * @param add ADD to be stored to the file.
      * @param fileName Name of the text file to be written.
+     * @throws UnsupportedOperationException if this JADD uses another backend.
      */
     public void dumpADD(String functionName, ADD add, String fileName) {
-        Pointer<?> output = CUtils.fopen(fileName, CUtils.ACCESS_WRITE);
-        
-        Pointer<Byte> ddname;
-        if (functionName == null || functionName.isEmpty()) {
-            ddname = null;
-        } else {
-            ddname = Pointer.pointerToCString(functionName);
-        }
-
+        checkDddmpSupport();
+        Manager manager = add.getManager();
         String[] orderedVariableNames = variableStore.getOrderedNames(); 
-        BigcuddLibrary.Dddmp_cuddAddStore(dd, 
-                                          ddname, 
-                                          add.getUnderlyingNode(), 
-                                          Pointer.pointerToCStrings(orderedVariableNames), 
-                                          null, 
-                                          BigcuddLibrary.DDDMP_MODE_TEXT, 
-                                          BigcuddLibrary.Dddmp_VarInfoType.DDDMP_VARIDS, 
-                                          Pointer.pointerToCString(fileName), 
-                                          output);
-        CUtils.fclose(output);
+        synchronized (manager) {
+            ((CuddBackend) manager.getBackend()).store(functionName, add.getUnderlyingNode(), orderedVariableNames, fileName);
+        }
     }
     
     public void dumpADD(ADD add, String fileName) {
@@ -148,24 +237,47 @@ public class JADD {
      * Reads an ADD from a text file written by the dumpADD method.
      * @param fileName Name of the file of containing the ADD.
      * @return New ADD instance containing the read information.
+     * @throws UnsupportedOperationException if this JADD uses another backend.
      */
     public ADD readADD(String fileName) {
-        Pointer<?> input = CUtils.fopen(fileName, CUtils.ACCESS_READ);
-
-        IntValuedEnum<BigcuddLibrary.Dddmp_VarMatchType> varMatchMode = BigcuddLibrary.Dddmp_VarMatchType.DDDMP_VAR_MATCHIDS;
-        int mode = BigcuddLibrary.DDDMP_MODE_TEXT;
-        Pointer<Byte> file = Pointer.pointerToCString(fileName);
-        Pointer<DdNode> node = BigcuddLibrary.Dddmp_cuddAddLoad(dd,
-                                                                varMatchMode,
-                                                                null,
-                                                                null,
-                                                                null,
-                                                                mode,
-                                                                file,
-                                                                input);
-
-        CUtils.fclose(input);
-        
-        return new ADD(dd, node, variableStore);
+        checkDddmpSupport();
+        Manager manager = getCurrentManager();
+        synchronized (manager) {
+            return new ADD(((CuddBackend) manager.getBackend()).load(fileName), variableStore, manager);
+        }
+    }
+
+    private void checkDddmpSupport() {
+        if (backendType != ADDBackendType.CUDD) {
+            throw new UnsupportedOperationException("dddmp files are only supported by the CUDD backend; use dumpBinaryADD instead");
+        }
+    }
+
+    /**
+     * Writes an ADD to a compact binary file, along with the names of its
+     * variables and a checksum. Unlike {@link #dumpADD(String, ADD, String)},
+     * this works with any backend.
+     *
+     * @see FlatADD#writeTo(java.nio.file.Path)
+     */
+    public void dumpBinaryADD(ADD add, String fileName) throws IOException {
+        add.flatten().writeTo(Paths.get(fileName));
+    }
+
+    /**
+     * Reads an ADD from a binary file written by the dumpBinaryADD method.
+     * Variables are matched by name, so the file may have been written with
+     * another variable order (or by another JADD altogether); unknown ones
+     * are created.
+     *
+     * @throws IOException if the file cannot be read or is corrupt.
+     */
+    public ADD readBinaryADD(String fileName) throws IOException {
+        FlatADD snapshot = FlatADD.readFrom(Paths.get(fileName));
+        int[] variableIndices = new int[snapshot.getNumberOfVariables()];
+        for (int i = 0; i < variableIndices.length; i++) {
+            variableIndices[i] = variableStore.getOrCreateIndex(snapshot.getVariableName(i));
+        }
+        return getCurrentManager().rebuild(snapshot, variableIndices);
     }
 }
@@ -0,0 +1,1019 @@
+package jadd;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pure-Java ADD backend, modelled after CUDD.
+ *
+ * Nodes live in parallel primitive arrays and are hash-consed in one unique
+ * subtable per variable (plus one for constants), so that each function has
+ * exactly one node. Operation results are memoized in a direct-mapped
+ * computed table. Nodes are reference-counted: a node whose count drops to
+ * zero becomes dead (and releases its children), but stays in the unique
+ * table, where it may be resurrected, until the next garbage collection.
+ * Collections only happen when references are released, never during an
+ * operation, so that the unreferenced intermediate results of an operation
+ * are safe until its caller references them.
+ *
+ * Variables are reordered by Rudell's sifting, which is built upon swaps
+ * of adjacent levels performed in place, so that every node keeps denoting
+ * the same function (and thus node handles stay valid).
+ */
+final class JavaBackend implements ADDBackend {
+    private static final Logger LOGGER = Logger.getLogger(JavaBackend.class.getName());
+
+    /** Variable index of constant nodes. */
+    private static final int CONSTANT = -1;
+    /** Variable index of nodes in the free list. */
+    private static final int FREE = -2;
+    private static final int NIL = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int INITIAL_SUBTABLE_SIZE = 1 << 4;
+    private static final int MAX_LOAD_FACTOR = 2;
+    private static final int CACHE_SIZE = 1 << 18;
+    private static final int MIN_DEAD_FOR_COLLECTION = 1 << 14;
+    /** Sifting stops moving a variable once the ADDs grow this much. */
+    private static final double MAX_GROWTH = 1.2;
+    /** Constants closer to zero than this are zero, as in CUDD. */
+    private static final double EPSILON = 1E-12;
+
+    /*
+     * Node storage. A node is an index into these arrays.
+     */
+    private int[] variableOf;
+    private int[] thenOf;
+    private int[] elseOf;
+    private double[] valueOf;
+    private int[] refs;
+    /** Next node in the same unique table bucket, or in the free list. */
+    private int[] next;
+    private int allocated = 0;
+    private int freeList = NIL;
+
+    private Subtable[] subtables = new Subtable[0];
+    private final Subtable constants = new Subtable();
+    private int nodeCount = 0;
+    private int deadCount = 0;
+
+    /** Level of each variable. */
+    private int[] perm = new int[0];
+    /** Variable at each level. */
+    private int[] invPerm = new int[0];
+    private int numVars = 0;
+
+    /*
+     * Computed table. Operation codes start at 1, so 0 marks empty entries.
+     */
+    private static final int OP_PLUS = 1;
+    private static final int OP_MINUS = 2;
+    private static final int OP_TIMES = 3;
+    private static final int OP_DIVIDE = 4;
+    private static final int OP_OR = 5;
+    private static final int OP_NEGATE = 6;
+    private static final int OP_COMPLEMENT = 7;
+    private static final int OP_ITE = 8;
+    private static final int OP_MINIMUM = 9;
+    private static final int OP_MAXIMUM = 10;
+    private static final int OP_COFACTOR = 11;
+
+    private final int[] cacheOp = new int[CACHE_SIZE];
+    private final int[] cacheF = new int[CACHE_SIZE];
+    private final int[] cacheG = new int[CACHE_SIZE];
+    private final int[] cacheH = new int[CACHE_SIZE];
+    private final int[] cacheResult = new int[CACHE_SIZE];
+
+    private final int one;
+    private final int zero;
+
+    private int reorderings = 0;
+    private int garbageCollections = 0;
+
+    JavaBackend() {
+        variableOf = new int[INITIAL_CAPACITY];
+        thenOf = new int[INITIAL_CAPACITY];
+        elseOf = new int[INITIAL_CAPACITY];
+        valueOf = new double[INITIAL_CAPACITY];
+        refs = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+
+        one = makeConstant(1);
+        refNode(one);
+        zero = makeConstant(0);
+        refNode(zero);
+    }
+
+    /**
+     * Chained hash table of the nodes labelled by a single variable
+     * (or of the constant nodes).
+     */
+    private static final class Subtable {
+        int[] buckets;
+        int keys = 0;
+
+        Subtable() {
+            buckets = new int[INITIAL_SUBTABLE_SIZE];
+            Arrays.fill(buckets, NIL);
+        }
+    }
+
+    /**************************************************************
+     *** Unique table
+     *************************************************************/
+
+    private boolean isConstantNode(int f) {
+        return variableOf[f] == CONSTANT;
+    }
+
+    private int level(int f) {
+        return isConstantNode(f) ? numVars : perm[variableOf[f]];
+    }
+
+    private static int hash(int thenChild, int elseChild) {
+        int h = thenChild * 0x9E3779B1 + elseChild * 0x85EBCA77;
+        return h ^ (h >>> 15);
+    }
+
+    private static int hash(long bits) {
+        int h = (int) (bits ^ (bits >>> 32)) * 0x9E3779B1;
+        return h ^ (h >>> 15);
+    }
+
+    private int hashOf(int f) {
+        if (isConstantNode(f)) {
+            return hash(Double.doubleToLongBits(valueOf[f]));
+        }
+        return hash(thenOf[f], elseOf[f]);
+    }
+
+    private int makeConstant(double value) {
+        if (Math.abs(value) < EPSILON) {
+            value = 0.0;
+        }
+        long bits = Double.doubleToLongBits(value);
+        int position = hash(bits) & (constants.buckets.length - 1);
+        for (int f = constants.buckets[position]; f != NIL; f = next[f]) {
+            if (Double.doubleToLongBits(valueOf[f]) == bits) {
+                return f;
+            }
+        }
+        int f = allocate();
+        variableOf[f] = CONSTANT;
+        thenOf[f] = NIL;
+        elseOf[f] = NIL;
+        valueOf[f] = value;
+        insert(constants, f);
+        return f;
+    }
+
+    /**
+     * @return the unique node labelled by {@code variable} with the given
+     *      children, or the child itself if both are the same.
+     */
+    private int makeNode(int variable, int thenChild, int elseChild) {
+        if (thenChild == elseChild) {
+            return thenChild;
+        }
+        Subtable subtable = subtables[variable];
+        int position = hash(thenChild, elseChild) & (subtable.buckets.length - 1);
+        for (int f = subtable.buckets[position]; f != NIL; f = next[f]) {
+            if (thenOf[f] == thenChild && elseOf[f] == elseChild) {
+                return f;
+            }
+        }
+        int f = allocate();
+        variableOf[f] = variable;
+        thenOf[f] = thenChild;
+        elseOf[f] = elseChild;
+        valueOf[f] = 0;
+        insert(subtable, f);
+        return f;
+    }
+
+    /**
+     * Inserts a new (thus dead) node into a subtable.
+     */
+    private void insert(Subtable subtable, int f) {
+        refs[f] = 0;
+        deadCount++;
+        nodeCount++;
+        link(subtable, f);
+        if (subtable.keys > subtable.buckets.length * MAX_LOAD_FACTOR) {
+            resize(subtable);
+        }
+    }
+
+    private void link(Subtable subtable, int f) {
+        int position = hashOf(f) & (subtable.buckets.length - 1);
+        next[f] = subtable.buckets[position];
+        subtable.buckets[position] = f;
+        subtable.keys++;
+    }
+
+    private void unlink(Subtable subtable, int f) {
+        int position = hashOf(f) & (subtable.buckets.length - 1);
+        int previous = NIL;
+        for (int g = subtable.buckets[position]; g != NIL; g = next[g]) {
+            if (g == f) {
+                if (previous == NIL) {
+                    subtable.buckets[position] = next[f];
+                } else {
+                    next[previous] = next[f];
+                }
+                subtable.keys--;
+                return;
+            }
+            previous = g;
+        }
+        throw new IllegalStateException("Node " + f + " is not in its unique subtable");
+    }
+
+    private void resize(Subtable subtable) {
+        int[] oldBuckets = subtable.buckets;
+        subtable.buckets = new int[oldBuckets.length * 2];
+        Arrays.fill(subtable.buckets, NIL);
+        subtable.keys = 0;
+        for (int bucket : oldBuckets) {
+            int f = bucket;
+            while (f != NIL) {
+                int following = next[f];
+                link(subtable, f);
+                f = following;
+            }
+        }
+    }
+
+    private int allocate() {
+        if (freeList != NIL) {
+            int f = freeList;
+            freeList = next[f];
+            return f;
+        }
+        if (allocated == variableOf.length) {
+            int capacity = variableOf.length * 2;
+            variableOf = Arrays.copyOf(variableOf, capacity);
+            thenOf = Arrays.copyOf(thenOf, capacity);
+            elseOf = Arrays.copyOf(elseOf, capacity);
+            valueOf = Arrays.copyOf(valueOf, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return allocated++;
+    }
+
+    private void free(int f) {
+        variableOf[f] = FREE;
+        next[f] = freeList;
+        freeList = f;
+        nodeCount--;
+    }
+
+    private int[] nodesOf(Subtable subtable) {
+        int[] nodes = new int[subtable.keys];
+        int i = 0;
+        for (int bucket : subtable.buckets) {
+            for (int f = bucket; f != NIL; f = next[f]) {
+                nodes[i++] = f;
+            }
+        }
+        return nodes;
+    }
+
+    /**************************************************************
+     *** Reference counting and garbage collection
+     *************************************************************/
+
+    private void refNode(int f) {
+        if (refs[f]++ == 0) {
+            deadCount--;
+            if (!isConstantNode(f)) {
+                refNode(thenOf[f]);
+                refNode(elseOf[f]);
+            }
+        }
+    }
+
+    private void derefNode(int f) {
+        if (refs[f] <= 0) {
+            throw new IllegalStateException("Node " + f + " is not referenced");
+        }
+        if (--refs[f] == 0) {
+            deadCount++;
+            if (!isConstantNode(f)) {
+                derefNode(thenOf[f]);
+                derefNode(elseOf[f]);
+            }
+        }
+    }
+
+    private void collectGarbage() {
+        for (Subtable subtable : subtables) {
+            collectGarbage(subtable);
+        }
+        collectGarbage(constants);
+        clearCache();
+        garbageCollections++;
+    }
+
+    /**
+     * Frees the dead nodes of a subtable. Their children must have been
+     * dereferenced already, and their parents (if any) must be dead too.
+     */
+    private void collectGarbage(Subtable subtable) {
+        for (int position = 0; position < subtable.buckets.length; position++) {
+            int previous = NIL;
+            int f = subtable.buckets[position];
+            while (f != NIL) {
+                int following = next[f];
+                if (refs[f] == 0) {
+                    if (previous == NIL) {
+                        subtable.buckets[position] = following;
+                    } else {
+                        next[previous] = following;
+                    }
+                    subtable.keys--;
+                    deadCount--;
+                    free(f);
+                } else {
+                    previous = f;
+                }
+                f = following;
+            }
+        }
+    }
+
+    /**************************************************************
+     *** Computed table
+     *************************************************************/
+
+    private static int cachePosition(int op, int f, int g, int h) {
+        int hash = ((op * 0x9E3779B1 + f) * 0x85EBCA77 + g) * 0xC2B2AE3D + h;
+        hash ^= hash >>> 16;
+        return hash & (CACHE_SIZE - 1);
+    }
+
+    private int cacheLookup(int op, int f, int g, int h) {
+        int position = cachePosition(op, f, g, h);
+        if (cacheOp[position] == op && cacheF[position] == f && cacheG[position] == g && cacheH[position] == h) {
+            return cacheResult[position];
+        }
+        return NIL;
+    }
+
+    private void cacheInsert(int op, int f, int g, int h, int result) {
+        int position = cachePosition(op, f, g, h);
+        cacheOp[position] = op;
+        cacheF[position] = f;
+        cacheG[position] = g;
+        cacheH[position] = h;
+        cacheResult[position] = result;
+    }
+
+    private void clearCache() {
+        Arrays.fill(cacheOp, 0);
+    }
+
+    /**************************************************************
+     *** Operations
+     *************************************************************/
+
+    @Override
+    public long constant(double value) {
+        return makeConstant(value);
+    }
+
+    @Override
+    public long variable(int index) {
+        while (numVars <= index) {
+            addVariable();
+        }
+        return makeNode(index, one, zero);
+    }
+
+    /**
+     * Adds a new variable at the bottommost level.
+     */
+    private void addVariable() {
+        subtables = Arrays.copyOf(subtables, numVars + 1);
+        subtables[numVars] = new Subtable();
+        perm = Arrays.copyOf(perm, numVars + 1);
+        invPerm = Arrays.copyOf(invPerm, numVars + 1);
+        perm[numVars] = numVars;
+        invPerm[numVars] = numVars;
+        numVars++;
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return numVars;
+    }
+
+    @Override
+    public long apply(Operation operation, long f, long g) {
+        return apply(opCode(operation), (int) f, (int) g);
+    }
+
+    private static int opCode(Operation operation) {
+        switch (operation) {
+        case PLUS:
+            return OP_PLUS;
+        case MINUS:
+            return OP_MINUS;
+        case TIMES:
+            return OP_TIMES;
+        case DIVIDE:
+            return OP_DIVIDE;
+        case OR:
+            return OP_OR;
+        case MINIMUM:
+            return OP_MINIMUM;
+        case MAXIMUM:
+            return OP_MAXIMUM;
+        default:
+            throw new IllegalArgumentException("Unsupported operation: " + operation);
+        }
+    }
+
+    private int apply(int op, int f, int g) {
+        int terminal = applyTerminal(op, f, g);
+        if (terminal != NIL) {
+            return terminal;
+        }
+        if ((op == OP_PLUS || op == OP_TIMES || op == OP_OR || op == OP_MINIMUM || op == OP_MAXIMUM) && f > g) {
+            int swap = f;
+            f = g;
+            g = swap;
+        }
+        int cached = cacheLookup(op, f, g, 0);
+        if (cached != NIL) {
+            return cached;
+        }
+        int top = Math.min(level(f), level(g));
+        int variable = invPerm[top];
+        int thenChild = apply(op, thenCofactor(f, top), thenCofactor(g, top));
+        int elseChild = apply(op, elseCofactor(f, top), elseCofactor(g, top));
+        int result = makeNode(variable, thenChild, elseChild);
+        cacheInsert(op, f, g, 0, result);
+        return result;
+    }
+
+    /**
+     * Terminal cases of the binary operations, which are the same as
+     * those of the corresponding CUDD operators.
+     *
+     * @return the result, or NIL if it must be computed recursively.
+     */
+    private int applyTerminal(int op, int f, int g) {
+        boolean constants = isConstantNode(f) && isConstantNode(g);
+        switch (op) {
+        case OP_PLUS:
+            if (f == zero) {
+                return g;
+            }
+            if (g == zero) {
+                return f;
+            }
+            return constants ? makeConstant(valueOf[f] + valueOf[g]) : NIL;
+        case OP_MINUS:
+            if (f == g) {
+                return zero;
+            }
+            if (f == zero) {
+                return negate(g);
+            }
+            if (g == zero) {
+                return f;
+            }
+            return constants ? makeConstant(valueOf[f] - valueOf[g]) : NIL;
+        case OP_TIMES:
+            if (f == zero || g == zero) {
+                return zero;
+            }
+            if (f == one) {
+                return g;
+            }
+            if (g == one) {
+                return f;
+            }
+            return constants ? makeConstant(valueOf[f] * valueOf[g]) : NIL;
+        case OP_DIVIDE:
+            if (f == zero) {
+                return zero;
+            }
+            if (g == one) {
+                return f;
+            }
+            return constants ? makeConstant(valueOf[f] / valueOf[g]) : NIL;
+        case OP_OR:
+            if (f == one || g == one) {
+                return one;
+            }
+            if (isConstantNode(f)) {
+                return g;
+            }
+            if (isConstantNode(g) || f == g) {
+                return f;
+            }
+            return NIL;
+        case OP_MINIMUM:
+            if (f == g) {
+                return f;
+            }
+            return constants ? makeConstant(Math.min(valueOf[f], valueOf[g])) : NIL;
+        case OP_MAXIMUM:
+            if (f == g) {
+                return f;
+            }
+            return constants ? makeConstant(Math.max(valueOf[f], valueOf[g])) : NIL;
+        default:
+            throw new IllegalArgumentException("Unknown operation code: " + op);
+        }
+    }
+
+    private int thenCofactor(int f, int level) {
+        return level(f) == level ? thenOf[f] : f;
+    }
+
+    private int elseCofactor(int f, int level) {
+        return level(f) == level ? elseOf[f] : f;
+    }
+
+    @Override
+    public long negate(long f) {
+        return negate((int) f);
+    }
+
+    private int negate(int f) {
+        if (isConstantNode(f)) {
+            return makeConstant(-valueOf[f]);
+        }
+        int cached = cacheLookup(OP_NEGATE, f, 0, 0);
+        if (cached != NIL) {
+            return cached;
+        }
+        int result = makeNode(variableOf[f], negate(thenOf[f]), negate(elseOf[f]));
+        cacheInsert(OP_NEGATE, f, 0, 0, result);
+        return result;
+    }
+
+    @Override
+    public long complement(long f) {
+        return complement((int) f);
+    }
+
+    private int complement(int f) {
+        if (isConstantNode(f)) {
+            return (f == zero) ? one : zero;
+        }
+        int cached = cacheLookup(OP_COMPLEMENT, f, 0, 0);
+        if (cached != NIL) {
+            return cached;
+        }
+        int result = makeNode(variableOf[f], complement(thenOf[f]), complement(elseOf[f]));
+        cacheInsert(OP_COMPLEMENT, f, 0, 0, result);
+        return result;
+    }
+
+    @Override
+    public long ite(long f, long g, long h) {
+        return ite((int) f, (int) g, (int) h);
+    }
+
+    private int ite(int f, int g, int h) {
+        if (f == one) {
+            return g;
+        }
+        if (isConstantNode(f)) {
+            return h;
+        }
+        if (f == g) {
+            g = one;
+        }
+        if (f == h) {
+            h = zero;
+        }
+        if (g == h) {
+            return g;
+        }
+        if (g == one && h == zero) {
+            return f;
+        }
+        int cached = cacheLookup(OP_ITE, f, g, h);
+        if (cached != NIL) {
+            return cached;
+        }
+        int top = Math.min(level(f), Math.min(level(g), level(h)));
+        int variable = invPerm[top];
+        int thenChild = ite(thenCofactor(f, top), thenCofactor(g, top), thenCofactor(h, top));
+        int elseChild = ite(elseCofactor(f, top), elseCofactor(g, top), elseCofactor(h, top));
+        int result = makeNode(variable, thenChild, elseChild);
+        cacheInsert(OP_ITE, f, g, h, result);
+        return result;
+    }
+
+    @Override
+    public long cofactor(long f, long cube) {
+        return cofactor((int) f, (int) cube);
+    }
+
+    private int cofactor(int f, int cube) {
+        if (isConstantNode(f) || isConstantNode(cube)) {
+            return f;
+        }
+        int cached = cacheLookup(OP_COFACTOR, f, cube, 0);
+        if (cached != NIL) {
+            return cached;
+        }
+        // Each node of a cube has a zero child, below the literal's opposite value.
+        boolean positive = (elseOf[cube] == zero);
+        int restOfCube = positive ? thenOf[cube] : elseOf[cube];
+        int result;
+        if (level(cube) < level(f)) {
+            result = cofactor(f, restOfCube);
+        } else if (level(f) < level(cube)) {
+            result = makeNode(variableOf[f], cofactor(thenOf[f], cube), cofactor(elseOf[f], cube));
+        } else {
+            result = cofactor(positive ? thenOf[f] : elseOf[f], restOfCube);
+        }
+        cacheInsert(OP_COFACTOR, f, cube, 0, result);
+        return result;
+    }
+
+    @Override
+    public void ref(long f) {
+        refNode((int) f);
+    }
+
+    @Override
+    public void deref(long f) {
+        derefNode((int) f);
+        if (deadCount > MIN_DEAD_FOR_COLLECTION && deadCount > nodeCount - deadCount) {
+            collectGarbage();
+        }
+    }
+
+    /**************************************************************
+     *** Node structure and queries
+     *************************************************************/
+
+    @Override
+    public boolean isConstant(long f) {
+        return isConstantNode((int) f);
+    }
+
+    @Override
+    public double getValue(long f) {
+        return valueOf[(int) f];
+    }
+
+    @Override
+    public int getIndex(long f) {
+        return variableOf[(int) f];
+    }
+
+    @Override
+    public long getThen(long f) {
+        return thenOf[(int) f];
+    }
+
+    @Override
+    public long getElse(long f) {
+        return elseOf[(int) f];
+    }
+
+    @Override
+    public double eval(long function, int[] assignment) {
+        int f = (int) function;
+        while (!isConstantNode(f)) {
+            int variable = variableOf[f];
+            f = (variable < assignment.length && assignment[variable] == 1) ? thenOf[f] : elseOf[f];
+        }
+        return valueOf[f];
+    }
+
+    /**
+     * @return the nodes reachable from {@code f}.
+     */
+    private BitSet reachableFrom(int f) {
+        BitSet visited = new BitSet();
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = f;
+        visited.set(f);
+        while (size > 0) {
+            int node = stack[--size];
+            if (isConstantNode(node)) {
+                continue;
+            }
+            for (int child : new int[] {thenOf[node], elseOf[node]}) {
+                if (!visited.get(child)) {
+                    visited.set(child);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = child;
+                }
+            }
+        }
+        return visited;
+    }
+
+    @Override
+    public int[] getSupport(long f) {
+        int[] support = new int[numVars];
+        BitSet nodes = reachableFrom((int) f);
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            if (!isConstantNode(node)) {
+                support[variableOf[node]] = 1;
+            }
+        }
+        return support;
+    }
+
+    @Override
+    public int getDagSize(long f) {
+        return reachableFrom((int) f).cardinality();
+    }
+
+    @Override
+    public int countLeaves(long f) {
+        int leaves = 0;
+        BitSet nodes = reachableFrom((int) f);
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            if (isConstantNode(node)) {
+                leaves++;
+            }
+        }
+        return leaves;
+    }
+
+    @Override
+    public double countPaths(long f) {
+        return countPaths((int) f, false, new HashMap<Integer, Double>());
+    }
+
+    @Override
+    public double countPathsToNonZero(long f) {
+        return countPaths((int) f, true, new HashMap<Integer, Double>());
+    }
+
+    private double countPaths(int f, boolean nonZeroOnly, Map<Integer, Double> counts) {
+        if (isConstantNode(f)) {
+            return (nonZeroOnly && f == zero) ? 0 : 1;
+        }
+        Double count = counts.get(f);
+        if (count == null) {
+            count = countPaths(thenOf[f], nonZeroOnly, counts) + countPaths(elseOf[f], nonZeroOnly, counts);
+            counts.put(f, count);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equalSupNorm(long f, long g, double tolerance) {
+        return equalSupNorm((int) f, (int) g, tolerance, new HashSet<Long>());
+    }
+
+    private boolean equalSupNorm(int f, int g, double tolerance, Set<Long> equalPairs) {
+        if (f == g) {
+            return true;
+        }
+        if (isConstantNode(f) && isConstantNode(g)) {
+            return Math.abs(valueOf[f] - valueOf[g]) < tolerance;
+        }
+        long pair = ((long) f << 32) | (g & 0xFFFFFFFFL);
+        if (equalPairs.contains(pair)) {
+            return true;
+        }
+        int top = Math.min(level(f), level(g));
+        boolean equal = equalSupNorm(thenCofactor(f, top), thenCofactor(g, top), tolerance, equalPairs)
+                && equalSupNorm(elseCofactor(f, top), elseCofactor(g, top), tolerance, equalPairs);
+        if (equal) {
+            equalPairs.add(pair);
+        }
+        return equal;
+    }
+
+    /**************************************************************
+     *** Variable ordering
+     *************************************************************/
+
+    @Override
+    public int[] getVariableOrder() {
+        return invPerm.clone();
+    }
+
+    @Override
+    public void setVariableOrder(int[] order) {
+        collectGarbage();
+        for (int level = 0; level < order.length; level++) {
+            for (int current = perm[order[level]]; current > level; current--) {
+                swapLevels(current - 1);
+            }
+        }
+        clearCache();
+    }
+
+    @Override
+    public void reorder() {
+        collectGarbage();
+        Integer[] variables = new Integer[numVars];
+        for (int i = 0; i < numVars; i++) {
+            variables[i] = i;
+        }
+        // Largest subtables first, as they are the most likely to shrink.
+        Arrays.sort(variables, Comparator.comparingInt((Integer variable) -> subtables[variable].keys).reversed());
+        for (int variable : variables) {
+            sift(variable);
+        }
+        clearCache();
+        reorderings++;
+    }
+
+    /**
+     * Moves a variable down to the bottom and up to the top, one level at
+     * a time, and then back to the level where the ADDs were the smallest.
+     */
+    private void sift(int variable) {
+        int level = perm[variable];
+        int bestLevel = level;
+        int bestSize = nodeCount;
+        while (level < numVars - 1) {
+            swapLevels(level++);
+            if (nodeCount < bestSize) {
+                bestSize = nodeCount;
+                bestLevel = level;
+            } else if (nodeCount > MAX_GROWTH * bestSize) {
+                break;
+            }
+        }
+        while (level > 0) {
+            swapLevels(--level);
+            if (nodeCount < bestSize) {
+                bestSize = nodeCount;
+                bestLevel = level;
+            } else if (nodeCount > MAX_GROWTH * bestSize) {
+                break;
+            }
+        }
+        while (level < bestLevel) {
+            swapLevels(level++);
+        }
+        while (level > bestLevel) {
+            swapLevels(--level);
+        }
+    }
+
+    /**
+     * Swaps the variables at {@code level} and {@code level + 1}. Nodes of
+     * the upper variable x which depend on the lower one y are relabelled
+     * in place as y-nodes whose children are new x-nodes, so that they keep
+     * their functions. There must be no dead nodes in x's subtable.
+     */
+    private void swapLevels(int level) {
+        int x = invPerm[level];
+        int y = invPerm[level + 1];
+        Subtable xs = subtables[x];
+        Subtable ys = subtables[y];
+        for (int f : nodesOf(xs)) {
+            int f1 = thenOf[f];
+            int f0 = elseOf[f];
+            boolean thenDepends = !isConstantNode(f1) && variableOf[f1] == y;
+            boolean elseDepends = !isConstantNode(f0) && variableOf[f0] == y;
+            if (!thenDepends && !elseDepends) {
+                continue;
+            }
+            int f11 = thenDepends ? thenOf[f1] : f1;
+            int f10 = thenDepends ? elseOf[f1] : f1;
+            int f01 = elseDepends ? thenOf[f0] : f0;
+            int f00 = elseDepends ? elseOf[f0] : f0;
+
+            unlink(xs, f);
+            int thenChild = makeNode(x, f11, f01);
+            int elseChild = makeNode(x, f10, f00);
+            refNode(thenChild);
+            refNode(elseChild);
+            derefNode(f1);
+            derefNode(f0);
+
+            variableOf[f] = y;
+            thenOf[f] = thenChild;
+            elseOf[f] = elseChild;
+            link(ys, f);
+        }
+        if (ys.keys > ys.buckets.length * MAX_LOAD_FACTOR) {
+            resize(ys);
+        }
+        perm[x] = level + 1;
+        perm[y] = level;
+        invPerm[level] = y;
+        invPerm[level + 1] = x;
+        // Only former y-nodes may have died.
+        collectGarbage(ys);
+    }
+
+    /**************************************************************
+     *** Statistics
+     *************************************************************/
+
+    @Override
+    public long getLiveNodeCount() {
+        return nodeCount - deadCount;
+    }
+
+    @Override
+    public int getDeadNodeCount() {
+        return deadCount;
+    }
+
+    @Override
+    public int getReorderingsCount() {
+        return reorderings;
+    }
+
+    @Override
+    public int getGarbageCollectionsCount() {
+        return garbageCollections;
+    }
+
+    @Override
+    public long getMemoryInUse() {
+        long nodes = (long) variableOf.length * (5 * Integer.BYTES + Double.BYTES);
+        long cache = (long) CACHE_SIZE * 5 * Integer.BYTES;
+        long buckets = (long) constants.buckets.length * Integer.BYTES;
+        for (Subtable subtable : subtables) {
+            buckets += (long) subtable.buckets.length * Integer.BYTES;
+        }
+        return nodes + cache + buckets;
+    }
+
+    @Override
+    public void quit() {
+        // NO-OP: the node table is reclaimed by the garbage collector.
+    }
+
+    /**************************************************************
+     *** Input and output
+     *************************************************************/
+
+    @Override
+    public void dumpDot(long[] functions, String[] variableNames, String[] functionNames, String fileName) {
+        BitSet nodes = new BitSet();
+        for (long f : functions) {
+            nodes.or(reachableFrom((int) f));
+        }
+        List<List<Integer>> levels = new ArrayList<List<Integer>>();
+        for (int level = 0; level <= numVars; level++) {
+            levels.add(new ArrayList<Integer>());
+        }
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            levels.get(level(node)).add(node);
+        }
+
+        try (PrintWriter out = new PrintWriter(new FileWriter(fileName))) {
+            out.println("digraph \"DD\" {");
+            out.println("center = true;");
+            out.println("edge [dir = none];");
+            for (int i = 0; i < functions.length; i++) {
+                out.println("\"F" + i + "\" [shape = plaintext, label = \"" + functionNames[i] + "\"];");
+                out.println("\"F" + i + "\" -> \"" + functions[i] + "\" [style = solid];");
+            }
+            for (List<Integer> sameLevel : levels) {
+                if (sameLevel.isEmpty()) {
+                    continue;
+                }
+                out.print("{ rank = same;");
+                for (int node : sameLevel) {
+                    out.print(" \"" + node + "\";");
+                }
+                out.println(" }");
+            }
+            for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+                if (isConstantNode(node)) {
+                    out.println("\"" + node + "\" [shape = box, label = \"" + valueOf[node] + "\"];");
+                } else {
+                    out.println("\"" + node + "\" [label = \"" + variableNames[variableOf[node]] + "\"];");
+                    out.println("\"" + node + "\" -> \"" + thenOf[node] + "\";");
+                    out.println("\"" + node + "\" -> \"" + elseOf[node] + "\" [style = dashed];");
+                }
+            }
+            out.println("}");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not write DOT file " + fileName, e);
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A decision diagram manager (i.e., an {@link ADDBackend} instance) along
+ * with the ADD variables created in it.
+ *
+ * Backends are not thread-safe, so every call into this manager's
+ * backend must be made while holding its monitor (i.e., inside
+ * {@code synchronized (manager)}). Each thread using a {@link JADD} gets a
+ * manager of its own, so that the lock is normally uncontended and is only
+ * there for ADDs which are handed over to (or released by) other threads.
+ */
+final class Manager {
+
+    private final JADD jadd;
+    private final ADDBackend backend;
+    private final VariableStore variableStore;
+    private final ReferenceTracker references;
+    private final Map<Short, ADD> variables = new HashMap<Short, ADD>();
+    private boolean released = false;
+
+    Manager(JADD jadd, ADDBackend backend, VariableStore variableStore) {
+        this.jadd = jadd;
+        this.backend = backend;
+        this.variableStore = variableStore;
+        this.references = new ReferenceTracker(this);
+    }
+
+    ADDBackend getBackend() {
+        return backend;
+    }
+
+    ReferenceTracker getReferences() {
+        return references;
+    }
+
+    /**
+     * Frees the backend. ADDs of this manager must not be used afterwards,
+     * but they may still be closed (or garbage collected), which is then
+     * a no-op.
+     */
+    synchronized void release() {
+        if (!released) {
+            released = true;
+            backend.quit();
+        }
+    }
+
+    synchronized boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * @return the manager of the calling thread, among those which share
+     *      this one's variables.
+     */
+    Manager current() {
+        return jadd.getCurrentManager();
+    }
+
+    /**
+     * @return the ADD for the variable of the given index, which is created
+     *      in this manager (along with all variables of lower indices) if
+     *      it does not exist yet.
+     */
+    synchronized ADD getVariable(short index) {
+        ADD variable = variables.get(index);
+        if (variable == null) {
+            variable = new ADD(backend.variable(index),
+                               variableStore,
+                               this,
+                               true);
+            variables.put(index, variable);
+        }
+        return variable;
+    }
+
+    /**
+     * @return the variable indices of this manager, from the topmost level
+     *      to the bottommost one.
+     */
+    synchronized int[] getVariableOrder() {
+        return backend.getVariableOrder();
+    }
+
+    /**
+     * Creates every variable known to the variable store and sorts them
+     * according to {@code order}. Variables which are missing from
+     * {@code order} are kept below the ordered ones.
+     */
+    synchronized void adoptVariableOrder(int[] order) {
+        int numVariables = variableStore.getNumberOfVariables();
+        if (numVariables == 0) {
+            return;
+        }
+        getVariable((short) (numVariables - 1));
+        int size = backend.getNumberOfVariables();
+        int[] permutation = new int[size];
+        boolean[] placed = new boolean[size];
+        int level = 0;
+        for (int index : order) {
+            if (index < size && !placed[index]) {
+                permutation[level++] = index;
+                placed[index] = true;
+            }
+        }
+        for (int index = 0; index < size; index++) {
+            if (!placed[index]) {
+                permutation[level++] = index;
+            }
+        }
+        backend.setVariableOrder(permutation);
+    }
+
+    /**
+     * Copies an ADD from another manager into this one, which may even
+     * have a different backend. The source graph is first read into plain
+     * arrays (holding only the source manager's lock), and then rebuilt
+     * bottom-up here (holding only this manager's lock), so that two
+     * threads copying ADDs into each other's managers cannot deadlock.
+     *
+     * Variables keep their indices, which are shared by all managers of
+     * the same {@link JADD}, even if their orders differ.
+     */
+    ADD transfer(ADD source) {
+        NodeGraph graph = source.getManager().readGraph(source);
+        synchronized (this) {
+            long[] copies = graph.rebuildIn(backend);
+            ADD copy = new ADD(copies[copies.length - 1], variableStore, this);
+            for (long node : copies) {
+                backend.deref(node);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Rebuilds a snapshot in this manager.
+     *
+     * @param variableIndices Index in this manager of each snapshot variable.
+     */
+    synchronized ADD rebuild(FlatADD snapshot, int[] variableIndices) {
+        long[] terminals = new long[snapshot.getTerminalCount()];
+        for (int terminal = 0; terminal < terminals.length; terminal++) {
+            terminals[terminal] = backend.constant(snapshot.getTerminalValue(~terminal));
+            backend.ref(terminals[terminal]);
+        }
+        // Snapshot nodes come after their children.
+        long[] nodes = new long[snapshot.getInternalNodeCount()];
+        for (int node = 0; node < nodes.length; node++) {
+            long variable = getVariable((short) variableIndices[snapshot.getVariable(node)]).getUnderlyingNode();
+            nodes[node] = backend.ite(variable,
+                                      copyOf(snapshot.getThen(node), nodes, terminals),
+                                      copyOf(snapshot.getElse(node), nodes, terminals));
+            backend.ref(nodes[node]);
+        }
+        ADD copy = new ADD(copyOf(snapshot.getRoot(), nodes, terminals), variableStore, this);
+        for (long node : nodes) {
+            backend.deref(node);
+        }
+        for (long terminal : terminals) {
+            backend.deref(terminal);
+        }
+        return copy;
+    }
+
+    private static long copyOf(int node, long[] nodes, long[] terminals) {
+        return node < 0 ? terminals[~node] : nodes[node];
+    }
+
+    private synchronized NodeGraph readGraph(ADD add) {
+        if (released) {
+            throw new IllegalStateException("The manager of this ADD has been released");
+        }
+        NodeGraph graph = new NodeGraph();
+        graph.visit(backend, add.getUnderlyingNode(), new HashMap<Long, Integer>());
+        return graph;
+    }
+
+    /**
+     * Nodes of an ADD in post-order, i.e., each node after its children.
+     */
+    private static class NodeGraph {
+        private final List<Integer> indices = new ArrayList<Integer>();
+        private final List<Integer> thenChildren = new ArrayList<Integer>();
+        private final List<Integer> elseChildren = new ArrayList<Integer>();
+        private final List<Double> values = new ArrayList<Double>();
+
+        private int visit(ADDBackend source, long node, Map<Long, Integer> visited) {
+            Integer position = visited.get(node);
+            if (position != null) {
+                return position;
+            }
+            if (source.isConstant(node)) {
+                position = add(-1, -1, -1, source.getValue(node));
+            } else {
+                int thenChild = visit(source, source.getThen(node), visited);
+                int elseChild = visit(source, source.getElse(node), visited);
+                position = add(source.getIndex(node), thenChild, elseChild, 0);
+            }
+            visited.put(node, position);
+            return position;
+        }
+
+        private int add(int index, int thenChild, int elseChild, double value) {
+            indices.add(index);
+            thenChildren.add(thenChild);
+            elseChildren.add(elseChild);
+            values.add(value);
+            return indices.size() - 1;
+        }
+
+        /**
+         * @return the referenced copy of each node, in the same order.
+         */
+        private long[] rebuildIn(ADDBackend target) {
+            long[] copies = new long[indices.size()];
+            for (int i = 0; i < copies.length; i++) {
+                if (indices.get(i) < 0) {
+                    copies[i] = target.constant(values.get(i));
+                    target.ref(copies[i]);
+                } else {
+                    long variable = target.variable(indices.get(i));
+                    target.ref(variable);
+                    copies[i] = target.ite(variable,
+                                           copies[thenChildren.get(i)],
+                                           copies[elseChildren.get(i)]);
+                    target.ref(copies[i]);
+                    target.deref(variable);
+                }
+            }
+            return copies;
+        }
+    }
+
+}
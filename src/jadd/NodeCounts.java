@@ -0,0 +1,32 @@
+package jadd;
+
+/**
+ * Snapshot of the node counts of an ADD manager.
+ *
+ * Live nodes are those which are still referenced by some ADD. Dead nodes
+ * are no longer referenced, but are only reclaimed by CUDD's next garbage
+ * collection.
+ */
+public class NodeCounts {
+    private final long liveNodes;
+    private final int deadNodes;
+
+    NodeCounts(long liveNodes, int deadNodes) {
+        this.liveNodes = liveNodes;
+        this.deadNodes = deadNodes;
+    }
+
+    public long getLiveNodes() {
+        return liveNodes;
+    }
+
+    public int getDeadNodes() {
+        return deadNodes;
+    }
+
+    @Override
+    public String toString() {
+        return liveNodes + " live, " + deadNodes + " dead";
+    }
+
+}
@@ -0,0 +1,62 @@
+package jadd;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Keeps track of the node references held by the ADDs of a single manager.
+ *
+ * Releases take the manager's lock, so they may come from any thread,
+ * including the cleaner one for ADDs which were never closed.
+ */
+final class ReferenceTracker {
+
+    private final Manager manager;
+    private final ThreadLocal<Deque<ADDScope>> openScopes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    ReferenceTracker(Manager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Registers a newly created ADD with the innermost scope open in the
+     * current thread, if any.
+     */
+    void track(ADD add) {
+        ADDScope scope = openScopes.get().peek();
+        if (scope != null) {
+            scope.own(add);
+        }
+    }
+
+    ADDScope openScope() {
+        Deque<ADDScope> scopes = openScopes.get();
+        ADDScope scope = new ADDScope(this, scopes.peek());
+        scopes.push(scope);
+        return scope;
+    }
+
+    void closeScope(ADDScope scope) {
+        Deque<ADDScope> scopes = openScopes.get();
+        if (scopes.peek() != scope) {
+            throw new IllegalStateException("ADD scopes must be closed in the reverse order of their opening, by the thread which opened them");
+        }
+        scopes.pop();
+    }
+
+    void release(long node) {
+        synchronized (manager) {
+            if (!manager.isReleased()) {
+                manager.getBackend().deref(node);
+            }
+        }
+    }
+
+    NodeCounts getNodeCounts() {
+        synchronized (manager) {
+            return new NodeCounts(manager.getBackend().getLiveNodeCount(),
+                                  manager.getBackend().getDeadNodeCount());
+        }
+    }
+
+}
@@ -9,40 +9,57 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+/**
+ * Names and indices of the ADD variables of a {@link JADD}.
+ *
+ * The same store is shared by all CUDD managers of a JADD, so that a
+ * variable has the same index in all of them. Its methods are
+ * synchronized, since variables may be created by any thread.
+ */
 public class VariableStore {
-    private Map<String, ADD> variables;
     private SortedMap<Short, String> variableNames;
     private Map<String, Short> variableIndices;
 
     public VariableStore() {
-        variables = new HashMap<String, ADD>();
         variableNames = new TreeMap<Short, String>();
         variableIndices = new HashMap<String, Short>();
     }
 
-    public int getNumberOfVariables() {
-        return variables.size();
+    public synchronized int getNumberOfVariables() {
+        return variableIndices.size();
     }
 
-    public boolean contains(String varName) {
-        return variables.containsKey(varName);
+    public synchronized boolean contains(String varName) {
+        return variableIndices.containsKey(varName);
     }
 
-    public ADD get(String varName) {
-        return variables.get(varName);
+    public synchronized String getName(short varIndex) {
+        return variableNames.get(varIndex);
     }
 
-    public String getName(short varIndex) {
-        return variableNames.get(varIndex);
+    public synchronized short getIndex(String varName) throws UnrecognizedVariableException {
+        Short varIndex = variableIndices.get(varName);
+        if (varIndex == null) {
+            throw new UnrecognizedVariableException(varName);
+        }
+        return varIndex;
     }
 
-    public void put(short varIndex, String varName, ADD varADD) {
-        variables.put(varName, varADD);
-        variableNames.put(varIndex, varName);
-        variableIndices.put(varName, varIndex);
+    /**
+     * @return the index of the variable, which is the next free one if the
+     *      variable is not yet known.
+     */
+    public synchronized short getOrCreateIndex(String varName) {
+        Short varIndex = variableIndices.get(varName);
+        if (varIndex == null) {
+            varIndex = (short) variableIndices.size();
+            variableNames.put(varIndex, varName);
+            variableIndices.put(varName, varIndex);
+        }
+        return varIndex;
     }
 
-    public String[] getOrderedNames() {
+    public synchronized String[] getOrderedNames() {
         Collection<String> values = variableNames.values();
         return values.toArray(new String[values.size()]);
     }
@@ -55,7 +72,7 @@ public class VariableStore {
      * @return an array with 1 in every position whose index is equal to that
      *          of a present variable and 0 in every other position.
      */
-    public int[] toPresenceVector(String[] variables) throws UnrecognizedVariableException {
+    public synchronized int[] toPresenceVector(String[] variables) throws UnrecognizedVariableException {
         int[] presenceVector = new int[variableIndices.size()];
         Arrays.fill(presenceVector, 0);
         for (String var: variables) {
@@ -79,7 +96,7 @@ public class VariableStore {
      *          literal, and 2 stands for don't care.
      * @return
      */
-    public List<String> fromPresenceVector(int[] presenceVector) {
+    public synchronized List<String> fromPresenceVector(int[] presenceVector) {
         List<String> varNames = new LinkedList<String>();
         for (short i = 0; i < presenceVector.length; i++) {
             if (presenceVector[i] == 1) {
@@ -99,7 +116,7 @@ public class VariableStore {
      * @return an array with the current index of each variable in the order
      *      specified by {@code variables}.
      */
-    public int[] toPermutationVector(String[] variables) throws UnrecognizedVariableException {
+    public synchronized int[] toPermutationVector(String[] variables) throws UnrecognizedVariableException {
         int[] permutationVector = new int[variableIndices.size()];
         int i = 0;
         for (String var: variables) {
@@ -0,0 +1,149 @@
+package paramwrapper;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+import fdtmc.Transition;
+
+/**
+ * Closed-form evaluator for acyclic FDTMCs.
+ *
+ * The reliability of an FDTMC with no loops (other than the self-loops
+ * of absorbing states) is the sum over all paths to success of the
+ * products of transition probabilities. It can thus be computed in linear
+ * time by dynamic programming over a topological order of the states,
+ * with no need for an actual model checker. FDTMCs with cycles are
+ * delegated to another {@link ParametricModelChecker}.
+ *
+ * The resulting expressions are formatted in the same way as PARAM's.
+ */
+public class AcyclicModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(AcyclicModelChecker.class.getName());
+
+    private ParametricModelChecker fallback;
+    private IModelCollector modelCollector;
+
+    /**
+     * @param fallback Model checker for FDTMCs with cycles.
+     */
+    public AcyclicModelChecker(ParametricModelChecker fallback, IModelCollector modelCollector) {
+        this.fallback = fallback;
+        this.modelCollector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        long startTime = System.nanoTime();
+        RationalFunction reliability;
+        try {
+            reliability = computeReachability(fdtmc);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Unparseable transition probability; falling back to the general model checker: " + e.getMessage());
+            return fallback.getReliability(fdtmc);
+        }
+        if (reliability == null) {
+            LOGGER.fine("Cyclic FDTMC; falling back to the general model checker");
+            return fallback.getReliability(fdtmc);
+        }
+        String formula = reliability.toString();
+        long elapsedTime = System.nanoTime() - startTime;
+
+        ParamModel model = new ParamModel(fdtmc);
+        modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
+        modelCollector.collectModelCheckingTime(elapsedTime);
+        LOGGER.finer(formula);
+        return formula;
+    }
+
+    /**
+     * Computes the probability of eventually reaching a success state
+     * from the initial state by visiting states in reverse topological
+     * order (i.e., DFS post-order).
+     *
+     * @return the reliability or {@code null} if the FDTMC has a cycle.
+     */
+    RationalFunction computeReachability(FDTMC fdtmc) {
+        State initial = fdtmc.getInitialState();
+        if (initial == null) {
+            return RationalFunction.ZERO;
+        }
+        Map<State, List<Transition>> transitions = fdtmc.getTransitions();
+        // Present but unfinished states are on the DFS stack, so reaching
+        // one of them again means we have found a cycle.
+        Map<State, RationalFunction> finished = new HashMap<State, RationalFunction>();
+        Map<State, Iterator<Transition>> onStack = new HashMap<State, Iterator<Transition>>();
+        Deque<State> stack = new ArrayDeque<State>();
+        stack.push(initial);
+        onStack.put(initial, successors(initial, transitions));
+        while (!stack.isEmpty()) {
+            State state = stack.peek();
+            Iterator<Transition> pending = onStack.get(state);
+            if (pending.hasNext()) {
+                State target = pending.next().getTarget();
+                if (onStack.containsKey(target)) {
+                    return null;
+                } else if (!finished.containsKey(target)) {
+                    stack.push(target);
+                    onStack.put(target, successors(target, transitions));
+                }
+                continue;
+            }
+            stack.pop();
+            onStack.remove(state);
+            finished.put(state, evaluate(state, transitions, finished));
+        }
+        return finished.get(initial);
+    }
+
+    /**
+     * @return the transitions which lead out of {@code state}. Success
+     *      states and states whose only transitions are self-loops are
+     *      absorbing, so they have none.
+     */
+    private static Iterator<Transition> successors(State state, Map<State, List<Transition>> transitions) {
+        List<Transition> outgoing = transitions.get(state);
+        if (outgoing == null || isAbsorbing(state, outgoing)) {
+            return Collections.<Transition>emptyIterator();
+        }
+        return outgoing.iterator();
+    }
+
+    private static boolean isAbsorbing(State state, List<Transition> outgoing) {
+        if (FDTMC.SUCCESS_LABEL.equals(state.getLabel())) {
+            return true;
+        }
+        for (Transition transition : outgoing) {
+            if (!transition.getTarget().equals(state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static RationalFunction evaluate(State state, Map<State, List<Transition>> transitions, Map<State, RationalFunction> finished) {
+        if (FDTMC.SUCCESS_LABEL.equals(state.getLabel())) {
+            return RationalFunction.ONE;
+        }
+        List<Transition> outgoing = transitions.get(state);
+        if (outgoing == null || isAbsorbing(state, outgoing)) {
+            return RationalFunction.ZERO;
+        }
+        RationalFunction reliability = RationalFunction.ZERO;
+        for (Transition transition : outgoing) {
+            RationalFunction targetReliability = finished.get(transition.getTarget());
+            if (!targetReliability.isZero()) {
+                reliability = reliability.plus(ProbabilityParser.parse(transition.getProbability()).times(targetReliability));
+            }
+        }
+        return reliability;
+    }
+
+}
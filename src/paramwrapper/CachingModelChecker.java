@@ -0,0 +1,223 @@
+package paramwrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+
+/**
+ * Disk-backed cache of reliability expressions in front of another
+ * {@link ParametricModelChecker}.
+ *
+ * Entries are content-addressed: the key of an FDTMC is a SHA-256 hash of
+ * its canonical {@link ParamModel} (see {@link ParamModel#toCanonicalString()}),
+ * so that the same behavioral fragment is model checked only once across
+ * analysis strategies and runs. Each entry is stored in its own file and
+ * the least recently used ones are evicted once the configured number of
+ * entries is exceeded.
+ *
+ * Concurrent requests for the same model are served by a single
+ * invocation of the underlying model checker.
+ */
+public class CachingModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(CachingModelChecker.class.getName());
+
+    private static final String ENTRY_SUFFIX = ".formula";
+
+    private final ParametricModelChecker modelChecker;
+    private final File directory;
+    private final int maxEntries;
+    private final String namespace;
+    private final IModelCollector modelCollector;
+
+    /**
+     * Index of cached entries in LRU order. Values are the formulas, or
+     * null for entries which are on disk but have not been read yet.
+     * Guarded by itself.
+     */
+    private final LinkedHashMap<String, String> index = new LinkedHashMap<String, String>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<String, CompletableFuture<String>>();
+
+    /**
+     * @param modelChecker Model checker whose results are to be cached.
+     * @param directory Directory where entries are stored (created if needed).
+     * @param maxEntries Maximum number of cached entries.
+     * @param namespace Identifies the underlying model checker, so that the
+     *      same directory can be shared by backends with different output formats.
+     * @param modelCollector Collector of hit/miss counts.
+     */
+    public CachingModelChecker(ParametricModelChecker modelChecker,
+                               File directory,
+                               int maxEntries,
+                               String namespace,
+                               IModelCollector modelCollector) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+        }
+        this.modelChecker = modelChecker;
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.namespace = namespace;
+        this.modelCollector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+        loadIndex();
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        String key = getKey(fdtmc);
+        String formula = lookup(key);
+        if (formula != null) {
+            modelCollector.collectCacheHit();
+            return formula;
+        }
+
+        CompletableFuture<String> ownResult = new CompletableFuture<String>();
+        CompletableFuture<String> pendingResult = inFlight.putIfAbsent(key, ownResult);
+        if (pendingResult != null) {
+            // Some other thread is already model checking an equivalent FDTMC.
+            modelCollector.collectCacheHit();
+            return pendingResult.join();
+        }
+        try {
+            // Another thread may have stored the formula and left inFlight
+            // between our first lookup and putIfAbsent.
+            formula = lookup(key);
+            if (formula != null) {
+                modelCollector.collectCacheHit();
+                ownResult.complete(formula);
+                return formula;
+            }
+            modelCollector.collectCacheMiss();
+            formula = modelChecker.getReliability(fdtmc);
+            // An empty formula signals a model checker failure (see ParamWrapper).
+            if (formula != null && !formula.isEmpty()) {
+                store(key, formula);
+            }
+            ownResult.complete(formula);
+            return formula;
+        } catch (RuntimeException e) {
+            ownResult.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ownResult);
+        }
+    }
+
+    /**
+     * @return the number of entries currently cached.
+     */
+    public int size() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    String getKey(FDTMC fdtmc) {
+        String canonicalModel = new ParamModel(fdtmc).toCanonicalString();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(namespace.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(canonicalModel.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String lookup(String key) {
+        synchronized (index) {
+            if (!index.containsKey(key)) {
+                return null;
+            }
+            String formula = index.get(key);
+            if (formula != null) {
+                return formula;
+            }
+            File entry = getEntryFile(key);
+            try {
+                formula = new String(Files.readAllBytes(entry.toPath()), StandardCharsets.UTF_8);
+                index.put(key, formula);
+                // Keeps the LRU order across runs.
+                entry.setLastModified(System.currentTimeMillis());
+                return formula;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unreadable model cache entry " + entry, e);
+                index.remove(key);
+                return null;
+            }
+        }
+    }
+
+    private void store(String key, String formula) {
+        File entry = getEntryFile(key);
+        try {
+            // Writing to a temporary file and then moving it guarantees that
+            // readers never see a partially written entry.
+            File temporary = File.createTempFile(key, ".tmp", directory);
+            Files.write(temporary.toPath(), formula.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not store model cache entry " + entry, e);
+        }
+        synchronized (index) {
+            index.put(key, formula);
+            evictExceedingEntries();
+        }
+    }
+
+    private void evictExceedingEntries() {
+        Iterator<String> eldest = index.keySet().iterator();
+        while (index.size() > maxEntries && eldest.hasNext()) {
+            String key = eldest.next();
+            eldest.remove();
+            File entry = getEntryFile(key);
+            if (!entry.delete() && entry.exists()) {
+                LOGGER.warning("Could not evict model cache entry " + entry);
+            }
+        }
+    }
+
+    private void loadIndex() {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOGGER.severe("Could not create model cache directory " + directory);
+            return;
+        }
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (entries == null) {
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        synchronized (index) {
+            for (File entry : entries) {
+                String name = entry.getName();
+                index.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()), null);
+            }
+            evictExceedingEntries();
+        }
+    }
+
+    private File getEntryFile(String key) {
+        return new File(directory, key + ENTRY_SUFFIX);
+    }
+
+}
@@ -0,0 +1,365 @@
+package paramwrapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+import fdtmc.Transition;
+
+/**
+ * Reduces an FDTMC while preserving the probability of eventually
+ * reaching a success state:
+ * <ol>
+ *   <li>states which are unreachable from the initial state are dropped;</li>
+ *   <li>states which cannot reach success are merged into a single sink;</li>
+ *   <li>chains of probability-1 transitions are collapsed;</li>
+ *   <li>states are lumped according to strong probabilistic bisimulation,
+ *      comparing parametric transition labels as rational functions.</li>
+ * </ol>
+ */
+final class FDTMCReducer {
+    private static final int SINK = -1;
+
+    private final FDTMC original;
+    private final int size;
+    private final boolean[] isTarget;
+    private final List<List<Edge>> outgoing;
+    private int initial;
+    private int originalTransitions;
+
+    private int reducedStates;
+    private int reducedTransitions;
+
+    private static final class Edge {
+        final int target;
+        final String label;
+        final RationalFunction probability;
+
+        Edge(int target, String label, RationalFunction probability) {
+            this.target = target;
+            this.label = label;
+            this.probability = probability;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if some transition probability cannot be parsed.
+     */
+    FDTMCReducer(FDTMC fdtmc) {
+        this.original = fdtmc;
+        Map<State, Integer> ids = new HashMap<State, Integer>();
+        for (State state : fdtmc.getStates()) {
+            ids.put(state, ids.size());
+        }
+        size = ids.size();
+        isTarget = new boolean[size];
+        outgoing = new ArrayList<List<Edge>>(size);
+        for (State state : fdtmc.getStates()) {
+            int id = ids.get(state);
+            isTarget[id] = FDTMC.SUCCESS_LABEL.equals(state.getLabel());
+            List<Edge> edges = new ArrayList<Edge>();
+            List<Transition> transitions = fdtmc.getTransitions().get(state);
+            if (transitions == null) {
+                // Deadlock, i.e., self-loop (see ParamModel).
+                edges.add(new Edge(id, "1", RationalFunction.ONE));
+                originalTransitions++;
+            } else {
+                for (Transition transition : transitions) {
+                    originalTransitions++;
+                    RationalFunction probability = ProbabilityParser.parse(transition.getProbability());
+                    if (!probability.isZero()) {
+                        edges.add(new Edge(ids.get(transition.getTarget()), transition.getProbability(), probability));
+                    }
+                }
+            }
+            outgoing.add(edges);
+        }
+        initial = (fdtmc.getInitialState() != null) ? ids.get(fdtmc.getInitialState()) : SINK;
+    }
+
+    int getOriginalStatesNumber() {
+        return size;
+    }
+
+    int getOriginalTransitionsNumber() {
+        return originalTransitions;
+    }
+
+    int getReducedStatesNumber() {
+        return reducedStates;
+    }
+
+    int getReducedTransitionsNumber() {
+        return reducedTransitions;
+    }
+
+    FDTMC reduce() {
+        boolean[] useful = getUsefulStates();
+        if (initial == SINK || !useful[initial]) {
+            return unreachableSuccess();
+        }
+        if (isTarget[initial]) {
+            return alwaysSuccess();
+        }
+
+        // Successor of each state after merging useless states into the
+        // sink and collapsing probability-1 chains.
+        int[] resolved = new int[size];
+        Arrays.fill(resolved, Integer.MIN_VALUE);
+        int start = resolve(initial, useful, resolved);
+        if (isTarget[start]) {
+            return alwaysSuccess();
+        }
+
+        // Quotient graph over the states which remain reachable.
+        List<Integer> nodes = new ArrayList<Integer>();
+        Map<Integer, Integer> nodeIndex = new HashMap<Integer, Integer>();
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        nodeIndex.put(start, 0);
+        nodes.add(start);
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            int state = pending.poll();
+            if (state == SINK || isTarget[state]) {
+                continue;
+            }
+            for (Edge edge : outgoing.get(state)) {
+                int target = resolveTarget(edge.target, useful, resolved);
+                if (!nodeIndex.containsKey(target)) {
+                    nodeIndex.put(target, nodes.size());
+                    nodes.add(target);
+                    pending.add(target);
+                }
+            }
+        }
+
+        int[] block = lump(nodes, nodeIndex, useful, resolved);
+        return buildQuotient(nodes, nodeIndex, block, useful, resolved);
+    }
+
+    /**
+     * @return states which are reachable from the initial state and
+     *      from which some target is reachable.
+     */
+    private boolean[] getUsefulStates() {
+        boolean[] reachable = new boolean[size];
+        List<List<Integer>> predecessors = new ArrayList<List<Integer>>(size);
+        for (int i = 0; i < size; i++) {
+            predecessors.add(new ArrayList<Integer>());
+        }
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        if (initial != SINK) {
+            reachable[initial] = true;
+            pending.push(initial);
+        }
+        while (!pending.isEmpty()) {
+            int state = pending.pop();
+            if (isTarget[state]) {
+                continue;
+            }
+            for (Edge edge : outgoing.get(state)) {
+                predecessors.get(edge.target).add(state);
+                if (!reachable[edge.target]) {
+                    reachable[edge.target] = true;
+                    pending.push(edge.target);
+                }
+            }
+        }
+
+        boolean[] useful = new boolean[size];
+        for (int state = 0; state < size; state++) {
+            if (isTarget[state] && reachable[state]) {
+                useful[state] = true;
+                pending.push(state);
+            }
+        }
+        while (!pending.isEmpty()) {
+            int state = pending.pop();
+            for (int source : predecessors.get(state)) {
+                if (!useful[source]) {
+                    useful[source] = true;
+                    pending.push(source);
+                }
+            }
+        }
+        return useful;
+    }
+
+    private int resolveTarget(int state, boolean[] useful, int[] resolved) {
+        return useful[state] ? resolve(state, useful, resolved) : SINK;
+    }
+
+    /**
+     * Follows probability-1 transitions from a useful state.
+     */
+    private int resolve(int state, boolean[] useful, int[] resolved) {
+        List<Integer> chain = new ArrayList<Integer>();
+        int current = state;
+        while (resolved[current] == Integer.MIN_VALUE && !isTarget[current] && chain.size() <= size) {
+            int next = getSingleSuccessor(current, useful);
+            if (next == current || next == SINK || next == Integer.MIN_VALUE) {
+                break;
+            }
+            chain.add(current);
+            current = next;
+        }
+        int end = (resolved[current] != Integer.MIN_VALUE) ? resolved[current] : current;
+        resolved[current] = end;
+        for (int link : chain) {
+            resolved[link] = end;
+        }
+        return end;
+    }
+
+    /**
+     * @return the only (useful) successor of a state, which must be reached
+     *      with probability 1, or {@link Integer#MIN_VALUE} if there is no
+     *      such successor (e.g., the state has more than one successor or
+     *      a parametric one).
+     */
+    private int getSingleSuccessor(int state, boolean[] useful) {
+        int successor = Integer.MIN_VALUE;
+        RationalFunction probability = RationalFunction.ZERO;
+        for (Edge edge : outgoing.get(state)) {
+            int target = useful[edge.target] ? edge.target : SINK;
+            if (successor == Integer.MIN_VALUE) {
+                successor = target;
+            } else if (successor != target) {
+                return Integer.MIN_VALUE;
+            }
+            probability = probability.plus(edge.probability);
+        }
+        return probability.isOne() ? successor : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Partition refinement: two states stay in the same block as long as
+     * they assign the same total probability to every block.
+     *
+     * @return the block of each node.
+     */
+    private int[] lump(List<Integer> nodes, Map<Integer, Integer> nodeIndex, boolean[] useful, int[] resolved) {
+        int[] block = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            int state = nodes.get(i);
+            block[i] = (state == SINK) ? 1 : (isTarget[state] ? 0 : 2);
+        }
+        int blocks = -1;
+        while (true) {
+            Map<List<Object>, Integer> signatures = new HashMap<List<Object>, Integer>();
+            int[] refined = new int[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++) {
+                List<Object> signature = new ArrayList<Object>(2);
+                signature.add(block[i]);
+                int state = nodes.get(i);
+                if (state != SINK && !isTarget[state]) {
+                    signature.add(getBlockProbabilities(state, block, nodeIndex, useful, resolved));
+                }
+                Integer id = signatures.get(signature);
+                if (id == null) {
+                    id = signatures.size();
+                    signatures.put(signature, id);
+                }
+                refined[i] = id;
+            }
+            block = refined;
+            if (signatures.size() == blocks) {
+                return block;
+            }
+            blocks = signatures.size();
+        }
+    }
+
+    private Map<Integer, RationalFunction> getBlockProbabilities(int state, int[] block, Map<Integer, Integer> nodeIndex, boolean[] useful, int[] resolved) {
+        Map<Integer, RationalFunction> probabilities = new TreeMap<Integer, RationalFunction>();
+        for (Edge edge : outgoing.get(state)) {
+            int targetBlock = block[nodeIndex.get(resolveTarget(edge.target, useful, resolved))];
+            RationalFunction current = probabilities.get(targetBlock);
+            probabilities.put(targetBlock, (current == null) ? edge.probability : current.plus(edge.probability));
+        }
+        return probabilities;
+    }
+
+    private FDTMC buildQuotient(List<Integer> nodes, Map<Integer, Integer> nodeIndex, int[] block, boolean[] useful, int[] resolved) {
+        FDTMC reduced = new FDTMC();
+        reduced.setVariableName(original.getVariableName());
+        // Blocks are numbered in order of first appearance, so the initial
+        // state (the first node) gets block 0 and thus index 0.
+        Map<Integer, State> blockStates = new LinkedHashMap<Integer, State>();
+        Map<Integer, Integer> representatives = new LinkedHashMap<Integer, Integer>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (blockStates.containsKey(block[i])) {
+                continue;
+            }
+            int state = nodes.get(i);
+            String label;
+            if (state == SINK) {
+                label = FDTMC.ERROR_LABEL;
+            } else if (isTarget[state]) {
+                label = FDTMC.SUCCESS_LABEL;
+            } else {
+                label = (i == 0) ? FDTMC.INITIAL_LABEL : null;
+            }
+            blockStates.put(block[i], reduced.createState(label));
+            representatives.put(block[i], state);
+        }
+
+        reducedTransitions = 0;
+        for (Map.Entry<Integer, Integer> entry : representatives.entrySet()) {
+            State source = blockStates.get(entry.getKey());
+            int state = entry.getValue();
+            if (state == SINK || isTarget[state]) {
+                reduced.createTransition(source, source, "", "1");
+                reducedTransitions++;
+                continue;
+            }
+            Map<Integer, StringBuilder> labels = new LinkedHashMap<Integer, StringBuilder>();
+            for (Edge edge : outgoing.get(state)) {
+                int targetBlock = block[nodeIndex.get(resolveTarget(edge.target, useful, resolved))];
+                StringBuilder label = labels.get(targetBlock);
+                if (label == null) {
+                    labels.put(targetBlock, new StringBuilder(edge.label));
+                } else {
+                    label.append('+').append(edge.label);
+                }
+            }
+            for (Map.Entry<Integer, StringBuilder> label : labels.entrySet()) {
+                reduced.createTransition(source, blockStates.get(label.getKey()), "", label.getValue().toString());
+                reducedTransitions++;
+            }
+        }
+        reducedStates = blockStates.size();
+        return reduced;
+    }
+
+    private FDTMC unreachableSuccess() {
+        FDTMC reduced = new FDTMC();
+        reduced.setVariableName(original.getVariableName());
+        State initialState = reduced.createState(FDTMC.INITIAL_LABEL);
+        State success = reduced.createState(FDTMC.SUCCESS_LABEL);
+        reduced.createTransition(initialState, initialState, "", "1");
+        reduced.createTransition(success, success, "", "1");
+        reducedStates = 2;
+        reducedTransitions = 2;
+        return reduced;
+    }
+
+    private FDTMC alwaysSuccess() {
+        FDTMC reduced = new FDTMC();
+        reduced.setVariableName(original.getVariableName());
+        State success = reduced.createState(FDTMC.SUCCESS_LABEL);
+        reduced.createTransition(success, success, "", "1");
+        reducedStates = 1;
+        reducedTransitions = 1;
+        return reduced;
+    }
+
+}
@@ -0,0 +1,114 @@
+package paramwrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Groups models submitted concurrently by different threads into batches,
+ * so that a single model checker run handles each batch.
+ *
+ * A batch is checked as soon as it is full, by the thread which submitted
+ * the last model. Otherwise, the first waiting thread to exceed the linger
+ * time checks whatever has been submitted so far, so that no thread waits
+ * indefinitely for a batch to fill up.
+ */
+final class ModelBatcher {
+    static final long DEFAULT_LINGER_MILLIS = 50;
+
+    /**
+     * Checks a batch of models at once.
+     */
+    interface BatchChecker {
+        /**
+         * @return the reliability expression of each model, in the same order.
+         */
+        List<String> check(List<ParamModel> models);
+    }
+
+    private static final class Request {
+        final ParamModel model;
+        final CompletableFuture<String> result = new CompletableFuture<String>();
+
+        Request(ParamModel model) {
+            this.model = model;
+        }
+    }
+
+    private final int batchSize;
+    private final long lingerMillis;
+    private final BatchChecker checker;
+    private List<Request> pending;
+
+    ModelBatcher(int batchSize, BatchChecker checker) {
+        this(batchSize, DEFAULT_LINGER_MILLIS, checker);
+    }
+
+    ModelBatcher(int batchSize, long lingerMillis, BatchChecker checker) {
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.checker = checker;
+        this.pending = new ArrayList<Request>(batchSize);
+    }
+
+    /**
+     * Blocks until the batch containing {@code model} has been checked.
+     */
+    String submit(ParamModel model) {
+        Request request = new Request(model);
+        List<Request> batch = null;
+        synchronized (this) {
+            pending.add(request);
+            if (pending.size() >= batchSize) {
+                batch = takePending();
+            }
+        }
+        if (batch == null) {
+            try {
+                return request.result.get(lingerMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Nobody filled the batch in time, so we check it ourselves.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                return request.result.join();
+            }
+            synchronized (this) {
+                if (pending.contains(request)) {
+                    batch = takePending();
+                }
+            }
+        }
+        if (batch != null) {
+            check(batch);
+        }
+        return request.result.join();
+    }
+
+    private List<Request> takePending() {
+        List<Request> batch = pending;
+        pending = new ArrayList<Request>(batchSize);
+        return batch;
+    }
+
+    private void check(List<Request> batch) {
+        List<ParamModel> models = new ArrayList<ParamModel>(batch.size());
+        for (Request request : batch) {
+            models.add(request.model);
+        }
+        try {
+            List<String> results = checker.check(models);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Request request : batch) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package paramwrapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A long-lived model checker process which serves requests over its
+ * standard input and output.
+ *
+ * @see ModelCheckerWorkerPool for a description of the protocol.
+ */
+class ModelCheckerWorker {
+    private static final Logger LOGGER = Logger.getLogger(ModelCheckerWorker.class.getName());
+
+    /**
+     * Sentinel line which signals that the worker's output was closed.
+     * It contains a NUL character so that no real response can match it.
+     */
+    private static final String END_OF_STREAM = "\u0000EOF";
+
+    private final String[] command;
+    private Process process;
+    private Writer input;
+    private BlockingQueue<String> responses;
+    private long lastUsed;
+
+    ModelCheckerWorker(String[] command) {
+        this.command = command;
+    }
+
+    /**
+     * Starts the worker process and checks that it answers to a PING.
+     */
+    void start(long timeoutMillis) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        process = builder.start();
+        input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        responses = new LinkedBlockingQueue<String>();
+
+        final BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        final BlockingQueue<String> sink = responses;
+        Thread reader = new Thread(() -> {
+            try {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    sink.add(line);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e.toString(), e);
+            } finally {
+                sink.add(END_OF_STREAM);
+            }
+        }, "model-checker-worker-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        if (!ping(timeoutMillis)) {
+            destroy();
+            throw new IOException("Model checker worker did not answer to the health check: " + String.join(" ", command));
+        }
+    }
+
+    boolean isAlive() {
+        return process != null && process.isAlive();
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Health check.
+     * @return true if the worker answered PONG within the given time.
+     */
+    boolean ping(long timeoutMillis) {
+        try {
+            send("PING\n");
+            return "PONG".equals(receive(timeoutMillis));
+        } catch (IOException | WorkerCrashedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sends a model checking request and waits for its result.
+     *
+     * @throws WorkerCrashedException if the worker died while serving the request.
+     * @throws IOException if the worker reported an error or did not answer
+     *      in time (in which case it is destroyed).
+     */
+    String check(String model, String property, Collection<String> parameters, long timeoutMillis) throws IOException, WorkerCrashedException {
+        String[] modelLines = model.split("\n", -1);
+        String[] propertyLines = property.split("\n", -1);
+        StringBuilder request = new StringBuilder();
+        request.append("CHECK ")
+               .append(modelLines.length).append(' ')
+               .append(propertyLines.length).append(' ')
+               .append(parameters.isEmpty() ? "-" : String.join(",", parameters))
+               .append('\n');
+        for (String line : modelLines) {
+            request.append(line).append('\n');
+        }
+        for (String line : propertyLines) {
+            request.append(line).append('\n');
+        }
+        send(request.toString());
+        lastUsed = System.currentTimeMillis();
+
+        String response = receive(timeoutMillis);
+        if (response != null && response.startsWith("RESULT ")) {
+            return response.substring("RESULT ".length());
+        } else if (response != null && response.startsWith("ERROR")) {
+            throw new IOException("Model checker worker error: " + response.substring("ERROR".length()).trim());
+        }
+        // Timeouts and protocol violations leave the worker in an unknown
+        // state, so it must not serve any further requests.
+        destroy();
+        if (response == null) {
+            throw new IOException("Model checker worker timed out after " + timeoutMillis + " ms");
+        }
+        throw new IOException("Unexpected model checker worker response: " + response);
+    }
+
+    /**
+     * Asks the worker to quit and kills it if it does not comply.
+     */
+    void destroy() {
+        if (process == null) {
+            return;
+        }
+        try {
+            send("QUIT\n");
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException | WorkerCrashedException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        process = null;
+    }
+
+    private void send(String message) throws IOException, WorkerCrashedException {
+        if (!isAlive()) {
+            throw new WorkerCrashedException();
+        }
+        try {
+            input.write(message);
+            input.flush();
+        } catch (IOException e) {
+            if (!isAlive()) {
+                throw new WorkerCrashedException();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next response line or {@code null} on timeout.
+     */
+    private String receive(long timeoutMillis) throws WorkerCrashedException {
+        String line;
+        try {
+            line = responses.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (END_OF_STREAM.equals(line)) {
+            throw new WorkerCrashedException();
+        }
+        return line;
+    }
+
+    /**
+     * Signals that the worker process died.
+     */
+    static class WorkerCrashedException extends Exception {
+        private static final long serialVersionUID = 2466731432853451375L;
+    }
+
+}
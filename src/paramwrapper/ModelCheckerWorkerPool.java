@@ -0,0 +1,150 @@
+package paramwrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import paramwrapper.ModelCheckerWorker.WorkerCrashedException;
+
+/**
+ * Size-bounded pool of long-lived model checker processes.
+ *
+ * Instead of paying the start-up cost of PRISM's JVM (or PARAM) once
+ * per FDTMC, a fixed number of worker processes is kept alive for the
+ * whole analysis. A worker is started by running the configured command
+ * and must speak the following line-based protocol over its standard
+ * input and output:
+ *
+ * <pre>
+ *   -&gt; PING
+ *   &lt;- PONG
+ *
+ *   -&gt; CHECK &lt;model line count&gt; &lt;property line count&gt; &lt;comma-separated parameters or "-"&gt;
+ *   -&gt; (model lines)
+ *   -&gt; (property lines)
+ *   &lt;- RESULT &lt;formula&gt;      (or ERROR &lt;message&gt;)
+ *
+ *   -&gt; QUIT
+ * </pre>
+ *
+ * Workers are started lazily, checked for liveness when borrowed (and
+ * pinged if they have been idle for a while), restarted whenever they
+ * crash and killed if a request exceeds the configured timeout.
+ */
+public class ModelCheckerWorkerPool implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ModelCheckerWorkerPool.class.getName());
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 60000;
+    private static final long HEALTH_CHECK_TIMEOUT_MILLIS = 5000;
+    private static final long IDLE_MILLIS_BEFORE_HEALTH_CHECK = 30000;
+
+    private final long requestTimeoutMillis;
+    private final BlockingDeque<ModelCheckerWorker> idleWorkers;
+    private final List<ModelCheckerWorker> allWorkers;
+    private final Thread shutdownHook;
+    private volatile boolean closed = false;
+
+    /**
+     * @param command Command line which starts a worker process.
+     * @param size Maximum number of simultaneous worker processes.
+     * @param requestTimeoutMillis Maximum time to wait for a single result.
+     */
+    public ModelCheckerWorkerPool(String command, int size, long requestTimeoutMillis) {
+        this(command.trim().split("\\s+"), size, requestTimeoutMillis);
+    }
+
+    public ModelCheckerWorkerPool(String[] command, int size, long requestTimeoutMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Worker pool size must be positive: " + size);
+        }
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.idleWorkers = new LinkedBlockingDeque<ModelCheckerWorker>(size);
+        this.allWorkers = new ArrayList<ModelCheckerWorker>(size);
+        for (int i = 0; i < size; i++) {
+            ModelCheckerWorker worker = new ModelCheckerWorker(command);
+            allWorkers.add(worker);
+            idleWorkers.add(worker);
+        }
+        // Worker processes must not outlive the analysis.
+        this.shutdownHook = new Thread(this::destroyWorkers, "model-checker-worker-pool-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Model checks {@code property} against {@code model}, blocking until
+     * a worker is available. A request whose worker crashes is retried
+     * once with a fresh worker.
+     *
+     * @return the resulting formula.
+     * @throws IOException if the worker failed, timed out or reported an error.
+     */
+    public String check(String model, String property, Collection<String> parameters) throws IOException {
+        if (closed) {
+            throw new IOException("Model checker worker pool is closed");
+        }
+        ModelCheckerWorker worker;
+        try {
+            worker = idleWorkers.takeFirst();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a model checker worker", e);
+        }
+        try {
+            for (int attempt = 0; ; attempt++) {
+                ensureHealthy(worker);
+                try {
+                    return worker.check(model, property, parameters, requestTimeoutMillis);
+                } catch (WorkerCrashedException e) {
+                    LOGGER.warning("Model checker worker crashed; restarting it");
+                    worker.destroy();
+                    if (attempt > 0) {
+                        throw new IOException("Model checker worker crashed twice on the same request");
+                    }
+                }
+            }
+        } finally {
+            // LIFO reuse keeps the most recently used (i.e., warmest) workers
+            // busy and avoids starting processes which are not needed.
+            idleWorkers.addFirst(worker);
+        }
+    }
+
+    private void ensureHealthy(ModelCheckerWorker worker) throws IOException {
+        if (worker.isAlive()) {
+            boolean idleForLong = System.currentTimeMillis() - worker.getLastUsed() > IDLE_MILLIS_BEFORE_HEALTH_CHECK;
+            if (!idleForLong || worker.ping(HEALTH_CHECK_TIMEOUT_MILLIS)) {
+                return;
+            }
+            LOGGER.warning("Model checker worker failed the health check; restarting it");
+            worker.destroy();
+        }
+        worker.start(STARTUP_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Terminates all worker processes. Requests issued afterwards fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        destroyWorkers();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down, so the hook will run anyway.
+            LOGGER.log(Level.FINE, e.toString(), e);
+        }
+    }
+
+    private void destroyWorkers() {
+        for (ModelCheckerWorker worker : allWorkers) {
+            worker.destroy();
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package paramwrapper;
+
+import java.util.Arrays;
+
+/**
+ * Power product of parameters, e.g., r0*rFail^2.
+ *
+ * Variables are kept sorted by name so that equal monomials have equal
+ * representations. Instances are immutable.
+ */
+final class Monomial implements Comparable<Monomial> {
+    static final Monomial ONE = new Monomial(new String[0], new int[0]);
+
+    private final String[] variables;
+    private final int[] exponents;
+    private final int degree;
+    private final int hash;
+
+    private Monomial(String[] variables, int[] exponents) {
+        this.variables = variables;
+        this.exponents = exponents;
+        int tmpDegree = 0;
+        for (int exponent : exponents) {
+            tmpDegree += exponent;
+        }
+        this.degree = tmpDegree;
+        this.hash = 31 * Arrays.hashCode(variables) + Arrays.hashCode(exponents);
+    }
+
+    static Monomial of(String variable) {
+        return new Monomial(new String[]{variable}, new int[]{1});
+    }
+
+    int getDegree() {
+        return degree;
+    }
+
+    boolean isOne() {
+        return variables.length == 0;
+    }
+
+    String[] getVariables() {
+        return variables;
+    }
+
+    int[] getExponents() {
+        return exponents;
+    }
+
+    Monomial times(Monomial other) {
+        if (this.isOne()) {
+            return other;
+        } else if (other.isOne()) {
+            return this;
+        }
+        String[] tmpVariables = new String[variables.length + other.variables.length];
+        int[] tmpExponents = new int[tmpVariables.length];
+        int i = 0, j = 0, k = 0;
+        while (i < variables.length || j < other.variables.length) {
+            int cmp;
+            if (i == variables.length) {
+                cmp = 1;
+            } else if (j == other.variables.length) {
+                cmp = -1;
+            } else {
+                cmp = variables[i].compareTo(other.variables[j]);
+            }
+            if (cmp < 0) {
+                tmpVariables[k] = variables[i];
+                tmpExponents[k++] = exponents[i++];
+            } else if (cmp > 0) {
+                tmpVariables[k] = other.variables[j];
+                tmpExponents[k++] = other.exponents[j++];
+            } else {
+                tmpVariables[k] = variables[i];
+                tmpExponents[k++] = exponents[i++] + other.exponents[j++];
+            }
+        }
+        return new Monomial(Arrays.copyOf(tmpVariables, k), Arrays.copyOf(tmpExponents, k));
+    }
+
+    /**
+     * @return this / {@code other} or {@code null} if {@code other}
+     *      does not divide this monomial.
+     */
+    Monomial dividedBy(Monomial other) {
+        if (other.isOne()) {
+            return this;
+        }
+        String[] tmpVariables = new String[variables.length];
+        int[] tmpExponents = new int[variables.length];
+        int i = 0, j = 0, k = 0;
+        while (i < variables.length) {
+            if (j < other.variables.length) {
+                int cmp = variables[i].compareTo(other.variables[j]);
+                if (cmp > 0) {
+                    return null;
+                } else if (cmp == 0) {
+                    int exponent = exponents[i] - other.exponents[j];
+                    if (exponent < 0) {
+                        return null;
+                    } else if (exponent > 0) {
+                        tmpVariables[k] = variables[i];
+                        tmpExponents[k++] = exponent;
+                    }
+                    i++;
+                    j++;
+                    continue;
+                }
+            }
+            tmpVariables[k] = variables[i];
+            tmpExponents[k++] = exponents[i++];
+        }
+        if (j < other.variables.length) {
+            return null;
+        }
+        return new Monomial(Arrays.copyOf(tmpVariables, k), Arrays.copyOf(tmpExponents, k));
+    }
+
+    /**
+     * Graded lexicographic order: higher degrees come first, ties are broken
+     * by variable names.
+     */
+    @Override
+    public int compareTo(Monomial other) {
+        if (this.degree != other.degree) {
+            return other.degree - this.degree;
+        }
+        int length = Math.min(variables.length, other.variables.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = variables[i].compareTo(other.variables[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+            if (exponents[i] != other.exponents[i]) {
+                return other.exponents[i] - exponents[i];
+            }
+        }
+        return variables.length - other.variables.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Monomial) {
+            Monomial other = (Monomial) obj;
+            return hash == other.hash
+                    && Arrays.equals(variables, other.variables)
+                    && Arrays.equals(exponents, other.exponents);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < variables.length; i++) {
+            if (i > 0) {
+                builder.append('*');
+            }
+            builder.append(variables[i]);
+            if (exponents[i] > 1) {
+                builder.append('^').append(exponents[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -14,6 +14,21 @@ public class NoopModelCollector implements IModelCollector {
         // NO-OP
     }
 
+    @Override
+    public void collectCacheHit() {
+        // NO-OP
+    }
+
+    @Override
+    public void collectCacheMiss() {
+        // NO-OP
+    }
+
+    @Override
+    public void collectModelReduction(int originalStates, int originalTransitions, int reducedStates, int reducedTransitions) {
+        // NO-OP
+    }
+
     @Override
     public void printStats(PrintStream out) {
         // NO-OP
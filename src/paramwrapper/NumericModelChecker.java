@@ -0,0 +1,282 @@
+package paramwrapper;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+import fdtmc.Transition;
+
+/**
+ * In-JVM numeric model checker for parameter-free FDTMCs.
+ *
+ * Fully derived models (e.g., the ones of product-based analyses) have only
+ * numeric transition probabilities, so their reliability is a single number
+ * which can be computed with no symbolic machinery at all. The transition
+ * matrix is kept in compressed sparse row (CSR) form and the reachability
+ * equations are solved by Gauss-Seidel iteration. States are swept in DFS
+ * post-order from the initial state (successors before predecessors), so
+ * acyclic models converge after a single sweep.
+ */
+public class NumericModelChecker {
+
+    private static final double EPSILON = 1E-12;
+    private static final int MAX_ITERATIONS = 100000;
+
+    private final IModelCollector modelCollector;
+
+    public NumericModelChecker() {
+        this(null);
+    }
+
+    /**
+     * @param modelCollector Collector of model sizes and model checking
+     *      times, as recorded by the other model checkers.
+     */
+    public NumericModelChecker(IModelCollector modelCollector) {
+        this.modelCollector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+    }
+
+    /**
+     * @return true if all transition probabilities of {@code fdtmc} are
+     *      numeric, i.e., its reliability can be computed by {@link #getReliability(FDTMC)}.
+     */
+    public static boolean isParameterFree(FDTMC fdtmc) {
+        for (List<Transition> transitions : fdtmc.getTransitions().values()) {
+            if (transitions != null) {
+                for (Transition transition : transitions) {
+                    if (Double.isNaN(toDouble(transition.getProbability()))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the probability of eventually reaching a state labeled
+     * {@link FDTMC#SUCCESS_LABEL} from the initial state.
+     *
+     * @throws IllegalArgumentException if the FDTMC is parametric.
+     */
+    public double getReliability(FDTMC fdtmc) {
+        long startTime = System.nanoTime();
+        double reliability = computeReachability(fdtmc);
+        long elapsedTime = System.nanoTime() - startTime;
+
+        // Parameter-free models have no variables.
+        modelCollector.collectModel(0, fdtmc.getStates().size());
+        modelCollector.collectModelCheckingTime(elapsedTime);
+        return reliability;
+    }
+
+    private double computeReachability(FDTMC fdtmc) {
+        State initialState = fdtmc.getInitialState();
+        if (initialState == null) {
+            return 0;
+        }
+        SparseMatrix matrix = new SparseMatrix(fdtmc);
+        boolean[] relevant = matrix.getStatesReachingTargets();
+        int initial = matrix.indexOf(initialState);
+        if (!relevant[initial]) {
+            return 0;
+        }
+        int[] order = matrix.getSweepOrder(initial, relevant);
+
+        double[] reachability = new double[matrix.size];
+        for (int state = 0; state < matrix.size; state++) {
+            if (matrix.isTarget[state]) {
+                reachability[state] = 1;
+            }
+        }
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double maxChange = 0;
+            for (int state : order) {
+                double selfLoop = 0;
+                double sum = 0;
+                for (int k = matrix.rowStart[state]; k < matrix.rowStart[state + 1]; k++) {
+                    int target = matrix.columns[k];
+                    if (target == state) {
+                        selfLoop += matrix.values[k];
+                    } else {
+                        sum += matrix.values[k] * reachability[target];
+                    }
+                }
+                double updated = (selfLoop < 1) ? sum / (1 - selfLoop) : 0;
+                maxChange = Math.max(maxChange, Math.abs(updated - reachability[state]));
+                reachability[state] = updated;
+            }
+            if (maxChange < EPSILON) {
+                break;
+            }
+        }
+        return reachability[initial];
+    }
+
+    /**
+     * @return the numeric value of a transition probability or
+     *      {@link Double#NaN} if it depends on parameters.
+     */
+    private static double toDouble(String probability) {
+        try {
+            return Double.parseDouble(probability);
+        } catch (NumberFormatException e) {
+            // Constant expressions such as "1-0.999".
+            Rational value = ProbabilityParser.parse(probability).getConstantValue();
+            return (value != null) ? value.doubleValue() : Double.NaN;
+        }
+    }
+
+    /**
+     * Transition matrix in compressed sparse row form. Target states are
+     * made absorbing and states with no transitions get a self-loop.
+     */
+    private static final class SparseMatrix {
+        final int size;
+        final int[] stateIndices;
+        final int[] rowStart;
+        final int[] columns;
+        final double[] values;
+        final boolean[] isTarget;
+
+        SparseMatrix(FDTMC fdtmc) {
+            Map<State, List<Transition>> transitions = fdtmc.getTransitions();
+            // States are usually numbered 0..n-1, but we do not rely on it.
+            int maxIndex = -1;
+            for (State state : fdtmc.getStates()) {
+                maxIndex = Math.max(maxIndex, state.getIndex());
+            }
+            stateIndices = new int[maxIndex + 1];
+            Arrays.fill(stateIndices, -1);
+            int count = 0;
+            for (State state : fdtmc.getStates()) {
+                stateIndices[state.getIndex()] = count++;
+            }
+            size = count;
+            isTarget = new boolean[size];
+
+            rowStart = new int[size + 1];
+            int[] rowLength = new int[size];
+            int[] rowOf = new int[size];
+            State[] statesByRow = new State[size];
+            for (State state : fdtmc.getStates()) {
+                int row = indexOf(state);
+                statesByRow[row] = state;
+                isTarget[row] = FDTMC.SUCCESS_LABEL.equals(state.getLabel());
+                List<Transition> outgoing = transitions.get(state);
+                rowLength[row] = isTarget[row] ? 0 : (outgoing == null ? 1 : outgoing.size());
+            }
+            for (int row = 0; row < size; row++) {
+                rowStart[row + 1] = rowStart[row] + rowLength[row];
+                rowOf[row] = rowStart[row];
+            }
+            columns = new int[rowStart[size]];
+            values = new double[rowStart[size]];
+            for (int row = 0; row < size; row++) {
+                if (isTarget[row]) {
+                    continue;
+                }
+                List<Transition> outgoing = transitions.get(statesByRow[row]);
+                if (outgoing == null) {
+                    columns[rowOf[row]] = row;
+                    values[rowOf[row]] = 1;
+                    continue;
+                }
+                for (Transition transition : outgoing) {
+                    double probability = toDouble(transition.getProbability());
+                    if (Double.isNaN(probability)) {
+                        throw new IllegalArgumentException("Parametric transition probability: " + transition.getProbability());
+                    }
+                    columns[rowOf[row]] = indexOf(transition.getTarget());
+                    values[rowOf[row]] = probability;
+                    rowOf[row]++;
+                }
+            }
+        }
+
+        int indexOf(State state) {
+            return stateIndices[state.getIndex()];
+        }
+
+        /**
+         * Backward reachability from target states. All other states have
+         * reliability zero and need not be solved for.
+         */
+        boolean[] getStatesReachingTargets() {
+            int[] predecessorStart = new int[size + 1];
+            for (int k = 0; k < columns.length; k++) {
+                predecessorStart[columns[k] + 1]++;
+            }
+            for (int state = 0; state < size; state++) {
+                predecessorStart[state + 1] += predecessorStart[state];
+            }
+            int[] predecessors = new int[columns.length];
+            int[] fill = Arrays.copyOf(predecessorStart, size);
+            for (int source = 0; source < size; source++) {
+                for (int k = rowStart[source]; k < rowStart[source + 1]; k++) {
+                    if (values[k] != 0) {
+                        predecessors[fill[columns[k]]++] = source;
+                    }
+                }
+            }
+
+            boolean[] relevant = new boolean[size];
+            Deque<Integer> pending = new ArrayDeque<Integer>();
+            for (int state = 0; state < size; state++) {
+                if (isTarget[state]) {
+                    relevant[state] = true;
+                    pending.push(state);
+                }
+            }
+            while (!pending.isEmpty()) {
+                int state = pending.pop();
+                for (int k = predecessorStart[state]; k < fill[state]; k++) {
+                    int source = predecessors[k];
+                    if (!relevant[source]) {
+                        relevant[source] = true;
+                        pending.push(source);
+                    }
+                }
+            }
+            return relevant;
+        }
+
+        /**
+         * @return the relevant non-target states reachable from
+         *      {@code initial}, in DFS post-order.
+         */
+        int[] getSweepOrder(int initial, boolean[] relevant) {
+            int[] order = new int[size];
+            int ordered = 0;
+            boolean[] visited = new boolean[size];
+            int[] stack = new int[size];
+            int[] nextEdge = new int[size];
+            int top = 0;
+            stack[top++] = initial;
+            visited[initial] = true;
+            nextEdge[initial] = rowStart[initial];
+            while (top > 0) {
+                int state = stack[top - 1];
+                if (nextEdge[state] < rowStart[state + 1]) {
+                    int target = columns[nextEdge[state]++];
+                    if (!visited[target] && relevant[target]) {
+                        visited[target] = true;
+                        nextEdge[target] = rowStart[target];
+                        stack[top++] = target;
+                    }
+                } else {
+                    top--;
+                    if (!isTarget[state]) {
+                        order[ordered++] = state;
+                    }
+                }
+            }
+            return Arrays.copyOf(order, ordered);
+        }
+    }
+
+}
@@ -1,7 +1,15 @@
 package paramwrapper;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -97,7 +105,9 @@ class ParamModel {
 	private Set<String> getParameters(Collection<Command> commands) {
 		Set<String> tmpParameters = new HashSet<String>();
 
-		Pattern validIdentifier = Pattern.compile("(^|\\d+-)([A-Za-z_][A-Za-z0-9_]*)");
+		// Identifiers may appear anywhere in an expression, but we must not
+		// take the exponent of numbers such as 1.0E-4 for a parameter.
+		Pattern validIdentifier = Pattern.compile("(^|[^A-Za-z0-9_.])([A-Za-z_][A-Za-z0-9_]*)");
 		for (Command command : commands) {
 			for (String probability : command.getUpdatesProbabilities()) {
 				Matcher m = validIdentifier.matcher(probability);
@@ -109,40 +119,203 @@ class ParamModel {
 		return tmpParameters;
 	}
 
-	@Override
-	public String toString() {
-		String params = "";
-		for (String parameter : parameters) {
-			params += "param double "+parameter+";\n";
-		}
-		String module =
-				"dtmc\n" +
-				"\n" +
-				params +
-				"\n" +
-				"module " + moduleName + "\n" +
-				"	"+stateVariable+ " : ["+stateRangeStart+".."+stateRangeEnd+"] init "+initialState+";" +
-				"\n";
+	/**
+	 * Textual representation of this model which does not depend on the
+	 * naming or numbering of states: states are renumbered in breadth-first
+	 * order from the initial state (unreachable ones are dropped, since they
+	 * do not affect the result) and parameters are sorted. Thus, FDTMCs which
+	 * differ only by such details have the same canonical form.
+	 */
+	String toCanonicalString() {
+		Map<Integer, Integer> renumbering = new HashMap<Integer, Integer>();
+		List<Command> reachableCommands = new ArrayList<Command>();
+		Deque<Integer> pending = new ArrayDeque<Integer>();
+		renumbering.put(initialState, 0);
+		pending.add(initialState);
+		while (!pending.isEmpty()) {
+			Command command = commands.get(pending.poll());
+			if (command == null) {
+				continue;
+			}
+			reachableCommands.add(command);
+			for (Integer target : command.getUpdatesActions()) {
+				if (!renumbering.containsKey(target)) {
+					renumbering.put(target, renumbering.size());
+					pending.add(target);
+				}
+			}
+		}
+
+		StringBuilder canonical = new StringBuilder();
+		canonical.append("params ")
+				 .append(String.join(",", new TreeSet<String>(getParameters(reachableCommands))))
+				 .append('\n');
+		for (Command command : reachableCommands) {
+			canonical.append(renumbering.get(command.getInitialState())).append(" ->");
+			List<String> probabilities = command.getUpdatesProbabilities();
+			List<Integer> targets = command.getUpdatesActions();
+			for (int i = 0; i < probabilities.size(); i++) {
+				canonical.append(" (").append(probabilities.get(i).replaceAll("\\s+", "")).append("):")
+						 .append(renumbering.get(targets.get(i)));
+			}
+			canonical.append('\n');
+		}
+		for (Map.Entry<String, Set<Integer>> entry : labels.entrySet()) {
+			Set<Integer> labeledStates = new TreeSet<Integer>();
+			for (Integer state : entry.getValue()) {
+				if (renumbering.containsKey(state)) {
+					labeledStates.add(renumbering.get(state));
+				}
+			}
+			if (!labeledStates.isEmpty()) {
+				canonical.append("label ").append(entry.getKey()).append(' ').append(labeledStates).append('\n');
+			}
+		}
+		return canonical.toString();
+	}
+
+	/**
+	 * Textual representation of the disjoint union of several models.
+	 *
+	 * @see #writeUnion(Writer, List, boolean)
+	 */
+	static String toUnionString(List<ParamModel> models) {
+		StringWriter writer = new StringWriter();
+		try {
+			writeUnion(writer, models, false);
+		} catch (IOException e) {
+			// StringWriter does not throw.
+			throw new UncheckedIOException(e);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * @return the index of the initial state of each model in the disjoint
+	 *      union of the given models.
+	 * @see #writeUnion(Writer, List, boolean)
+	 */
+	static int[] getUnionInitialStates(List<ParamModel> models) {
+		int[] initialStates = new int[models.size()];
+		int offset = 1;
+		for (int i = 0; i < models.size(); i++) {
+			initialStates[i] = models.get(i).initialState + offset;
+			offset += models.get(i).stateRangeEnd + 1;
+		}
+		return initialStates;
+	}
+
+	/**
+	 * Writes the disjoint union of several models, so that all of them can
+	 * be checked in a single model checker run. The states of each model are
+	 * shifted past the ones of the previous models, and a fresh initial state
+	 * (0) leads to the initial state of every model, so that the model
+	 * checker builds all of them.
+	 *
+	 * @param parametersAsConstants Whether to declare parameters as undefined
+	 *      constants (as PRISM expects) instead of PARAM parameters.
+	 */
+	static void writeUnion(Writer out, List<ParamModel> models, boolean parametersAsConstants) throws IOException {
+		String unionVariable = "s";
+		int[] initialStates = getUnionInitialStates(models);
+		Set<String> unionParameters = new TreeSet<String>();
+		Map<String, Set<Integer>> unionLabels = new TreeMap<String, Set<Integer>>();
+		int offset = 1;
+		for (ParamModel model : models) {
+			unionParameters.addAll(model.parameters);
+			for (Map.Entry<String, Set<Integer>> entry : model.labels.entrySet()) {
+				if (!unionLabels.containsKey(entry.getKey())) {
+					unionLabels.put(entry.getKey(), new TreeSet<Integer>());
+				}
+				for (Integer state : entry.getValue()) {
+					unionLabels.get(entry.getKey()).add(state + offset);
+				}
+			}
+			offset += model.stateRangeEnd + 1;
+		}
+
+		out.write("dtmc\n\n");
+		writeParameters(out, unionParameters, parametersAsConstants);
+		out.write("\nmodule batchModule\n");
+		out.write("	"+unionVariable+" : [0.."+(offset-1)+"] init 0;\n");
+		out.write("	[] "+unionVariable+"=0 -> ");
+		for (int i = 0; i < models.size(); i++) {
+			if (i > 0) {
+				out.write(" + ");
+			}
+			out.write("(1/"+models.size()+") : ("+unionVariable+"'="+initialStates[i]+")");
+		}
+		out.write(";\n");
+		offset = 1;
+		for (ParamModel model : models) {
+			for (Command command : model.commands.values()) {
+				out.write("	"+command.makeString(unionVariable, offset)+"\n");
+			}
+			offset += model.stateRangeEnd + 1;
+		}
+		out.write("endmodule\n\n");
+		writeLabels(out, unionLabels, unionVariable);
+	}
+
+	/**
+	 * Writes this model in the PARAM (or PRISM) input language, without
+	 * building it in memory first.
+	 *
+	 * @param parametersAsConstants Whether to declare parameters as undefined
+	 *      constants (as PRISM expects) instead of PARAM parameters.
+	 */
+	void writeTo(Writer out, boolean parametersAsConstants) throws IOException {
+		out.write("dtmc\n\n");
+		writeParameters(out, parameters, parametersAsConstants);
+		out.write("\nmodule " + moduleName + "\n");
+		out.write("	"+stateVariable+ " : ["+stateRangeStart+".."+stateRangeEnd+"] init "+initialState+";\n");
 		for (Command command : commands.values()) {
-			module += "	"+command.makeString(stateVariable) + "\n";
+			out.write("	"+command.makeString(stateVariable) + "\n");
 		}
-		module += "endmodule\n\n";
+		out.write("endmodule\n\n");
+		writeLabels(out, labels, stateVariable);
+	}
+
+	private static void writeParameters(Writer out, Set<String> parameters, boolean asConstants) throws IOException {
+		String keyword = asConstants ? "const" : "param";
+		for (String parameter : parameters) {
+			out.write(keyword+" double "+parameter+";\n");
+		}
+	}
+
+	private static void writeLabels(Writer out, Map<String, Set<Integer>> labels, String stateVariable) throws IOException {
 		for (Map.Entry<String, Set<Integer>> entry : labels.entrySet()) {
-			String label = entry.getKey();
-			module += "label \""+label+"\" = ";
-
-			Set<Integer> states = entry.getValue();
-			int count = 1;
-			for (Integer state : states) {
-				module += stateVariable+"="+state;
-				if (count < states.size()) {
-					module += " | ";
+			out.write("label \""+entry.getKey()+"\" = ");
+			boolean needsOr = false;
+			for (Integer state : entry.getValue()) {
+				if (needsOr) {
+					out.write(" | ");
 				}
-				count++;
+				out.write(stateVariable+"="+state);
+				needsOr = true;
 			}
-			module += ";\n";
+			out.write(";\n");
 		}
-		return module;
+	}
+
+	/**
+	 * @param parametersAsConstants Whether to declare parameters as undefined
+	 *      constants (as PRISM expects) instead of PARAM parameters.
+	 */
+	String toString(boolean parametersAsConstants) {
+		StringWriter writer = new StringWriter();
+		try {
+			writeTo(writer, parametersAsConstants);
+		} catch (IOException e) {
+			// StringWriter does not throw.
+			throw new UncheckedIOException(e);
+		}
+		return writer.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toString(false);
 	}
 }
 
@@ -162,12 +335,27 @@ class Command {
 		updatesActions.add(update);
 	}
 
-	public Collection<String> getUpdatesProbabilities() {
+	public int getInitialState() {
+		return initialState;
+	}
+
+	public List<String> getUpdatesProbabilities() {
 		return updatesProbabilities;
 	}
 
+	public List<Integer> getUpdatesActions() {
+		return updatesActions;
+	}
+
 	public String makeString(String stateVariable) {
-		String command = "[] "+stateVariable+"="+initialState+" -> ";
+		return makeString(stateVariable, 0);
+	}
+
+	/**
+	 * @param offset Number to be added to every state index.
+	 */
+	public String makeString(String stateVariable, int offset) {
+		String command = "[] "+stateVariable+"="+(initialState+offset)+" -> ";
 		boolean needsPlus = false;
 		for (int i = 0; i < updatesProbabilities.size(); i++) {
 		    if (needsPlus) {
@@ -175,7 +363,7 @@ class Command {
 		    } else {
 		        needsPlus = true;
 		    }
-			command += "("+updatesProbabilities.get(i)+") : ("+stateVariable+"'="+updatesActions.get(i)+")";
+			command += "("+updatesProbabilities.get(i)+") : ("+stateVariable+"'="+(updatesActions.get(i)+offset)+")";
 		}
 		return command+";";
 	}
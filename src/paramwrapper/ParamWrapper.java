@@ -3,13 +3,19 @@
  */
 package paramwrapper;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,18 +30,53 @@ import fdtmc.FDTMC;
 public class ParamWrapper implements ParametricModelChecker {
     private static final Logger LOGGER = Logger.getLogger(ParamWrapper.class.getName());
 
+    private static final String RELIABILITY_PROPERTY = "P=? [ F \"success\" ]";
+    /**
+     * Path by which a model checker can read its standard input as a file.
+     */
+    private static final File STANDARD_INPUT = new File("/dev/stdin");
+
 	private String paramPath;
 	private IModelCollector modelCollector;
 	private boolean usePrism = false;
+	private ModelCheckerWorkerPool workerPool;
+	private ModelBatcher batcher;
 
     public ParamWrapper(String paramPath) {
         this(paramPath, new NoopModelCollector());
     }
 
     public ParamWrapper(String paramPath, IModelCollector modelCollector) {
+        this(paramPath, modelCollector, null);
+    }
+
+    /**
+     * @param workerPool Pool of long-lived model checker processes to which
+     *      models are submitted. If null, a new process is started for each model.
+     */
+    public ParamWrapper(String paramPath, IModelCollector modelCollector, ModelCheckerWorkerPool workerPool) {
+        this(paramPath, modelCollector, workerPool, 1);
+    }
+
+    /**
+     * @param batchSize Maximum number of models (submitted concurrently)
+     *      to be packed into a single PRISM run. Batching trades the number
+     *      of simultaneous PRISM processes for the latency of each run, and
+     *      it is only available when invoking PRISM without a worker pool.
+     *      A batch size of 1 disables it.
+     */
+    public ParamWrapper(String paramPath, IModelCollector modelCollector, ModelCheckerWorkerPool workerPool, int batchSize) {
         this.paramPath = paramPath;
         this.usePrism = paramPath.contains("prism");
         this.modelCollector = modelCollector;
+        this.workerPool = workerPool;
+        if (batchSize > 1) {
+            if (usePrism && workerPool == null) {
+                this.batcher = new ModelBatcher(batchSize, this::evaluateBatch);
+            } else {
+                LOGGER.warning("Model batching is only supported for PRISM without worker processes; ignoring batch size.");
+            }
+        }
     }
 
 	public String fdtmcToParam(FDTMC fdtmc) {
@@ -48,46 +89,33 @@ public class ParamWrapper implements ParametricModelChecker {
 	public String getReliability(FDTMC fdtmc) {
 	    ParamModel model = new ParamModel(fdtmc);
         modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
-		String modelString = model.toString();
-
-		if (usePrism) {
-		    modelString = modelString.replace("param", "const");
-		}
-		String reliabilityProperty = "P=? [ F \"success\" ]";
-
-		return evaluate(modelString, reliabilityProperty, model);
+        if (batcher != null) {
+            return batcher.submit(model);
+        }
+        if (workerPool != null) {
+            return evaluateInWorker(model.toString(usePrism), RELIABILITY_PROPERTY, model);
+        }
+		return evaluate(model);
 	}
 
-	private String evaluate(String modelString, String property, ParamModel model) {
+	private String evaluate(ParamModel model) {
+		File propertyFile = null;
+		File resultsFile = null;
 		try {
-		    LOGGER.finer(modelString);
-			File modelFile = File.createTempFile("model", "param");
-			FileWriter modelWriter = new FileWriter(modelFile);
-			modelWriter.write(modelString);
-			modelWriter.flush();
-			modelWriter.close();
-
-			File propertyFile = File.createTempFile("property", "prop");
-			FileWriter propertyWriter = new FileWriter(propertyFile);
-			propertyWriter.write(property);
-			propertyWriter.flush();
-			propertyWriter.close();
-
-			File resultsFile = File.createTempFile("result", null);
+		    if (LOGGER.isLoggable(Level.FINER)) {
+		        LOGGER.finer(model.toString(usePrism));
+		    }
+			ScratchDirectory scratch = ScratchDirectory.get();
+			resultsFile = scratch.createFile("result", null);
 
 			String formula;
 			long startTime = System.nanoTime();
-			if (usePrism && !modelString.contains("const")) {
-			    formula = invokeModelChecker(modelFile.getAbsolutePath(),
-			                                 propertyFile.getAbsolutePath(),
-			                                 resultsFile.getAbsolutePath());
-			} else if(usePrism) {
-			    formula = invokeParametricPRISM(model,
-			                                    modelFile.getAbsolutePath(),
-                                                propertyFile.getAbsolutePath(),
-                                                resultsFile.getAbsolutePath());
+			if (usePrism) {
+			    formula = invokePRISM(model, resultsFile.getAbsolutePath());
 			} else {
-			    formula = invokeParametricModelChecker(modelFile.getAbsolutePath(),
+			    propertyFile = scratch.createFile("property", "prop");
+			    Files.write(propertyFile.toPath(), RELIABILITY_PROPERTY.getBytes(StandardCharsets.UTF_8));
+			    formula = invokeParametricModelChecker(model,
 			                                           propertyFile.getAbsolutePath(),
 			                                           resultsFile.getAbsolutePath());
 			}
@@ -96,60 +124,241 @@ public class ParamWrapper implements ParametricModelChecker {
 			return formula.trim().replaceAll("\\s+", "");
 		} catch (IOException e) {
 			LOGGER.log(Level.SEVERE, e.toString(), e);
+		} finally {
+		    if (resultsFile != null) {
+		        ScratchDirectory.delete(propertyFile, resultsFile, new File(resultsFile.getAbsolutePath()+".out"));
+		    }
 		}
 		return "";
 	}
 
-	private String invokeParametricModelChecker(String modelPath,
+	private String evaluateInWorker(String modelString, String property, ParamModel model) {
+	    LOGGER.finer(modelString);
+	    try {
+	        long startTime = System.nanoTime();
+	        String formula = workerPool.check(modelString, property, model.getParameters());
+	        long elapsedTime = System.nanoTime() - startTime;
+	        modelCollector.collectModelCheckingTime(elapsedTime);
+	        return formula.trim().replaceAll("\\s+", "");
+	    } catch (IOException e) {
+	        LOGGER.log(Level.SEVERE, e.toString(), e);
+	    }
+	    return "";
+	}
+
+	/**
+	 * Checks several models in a single PRISM run. The models are joined
+	 * into their disjoint union, and the reliability of each one is asked
+	 * for by a separate property filtered on its initial state.
+	 *
+	 * @return the reliability expression of each model, in the same order.
+	 *      Expressions of a failed run are empty.
+	 */
+	List<String> evaluateBatch(List<ParamModel> models) {
+	    int[] initialStates = ParamModel.getUnionInitialStates(models);
+	    StringBuilder properties = new StringBuilder();
+	    Set<String> parameters = new TreeSet<String>();
+	    for (int i = 0; i < models.size(); i++) {
+	        properties.append("filter(state, P=? [ F \"success\" ], s="+initialStates[i]+")\n");
+	        parameters.addAll(models.get(i).getParameters());
+	    }
+	    File propertyFile = null;
+	    File resultsFile = null;
+	    try {
+	        ScratchDirectory scratch = ScratchDirectory.get();
+	        resultsFile = scratch.createFile("result", null);
+	        propertyFile = scratch.createFile("property", "prop");
+	        Files.write(propertyFile.toPath(), properties.toString().getBytes(StandardCharsets.UTF_8));
+
+	        ModelSource union = out -> ParamModel.writeUnion(out, models, true);
+	        ModelInput modelInput = modelInput(union, scratch);
+	        List<String> command = getCommand(modelInput);
+	        command.add(propertyFile.getAbsolutePath());
+	        command.add("-exportresults");
+	        command.add(resultsFile.getAbsolutePath());
+	        if (!parameters.isEmpty()) {
+	            command.add("-param");
+	            command.add(String.join(",", parameters));
+	        }
+	        long startTime = System.nanoTime();
+	        List<String> results = splitBatchResults(invokeAndGetResults(command, modelInput, union, resultsFile.getAbsolutePath()));
+	        long elapsedTime = System.nanoTime() - startTime;
+	        if (results.size() != models.size()) {
+	            throw new IOException("Expected " + models.size() + " results from batch, got " + results.size());
+	        }
+	        List<String> formulas = new ArrayList<String>(results.size());
+	        for (String result : results) {
+	            // The time of the whole run is shared among its models.
+	            modelCollector.collectModelCheckingTime(elapsedTime / models.size());
+	            formulas.add(result.trim().replaceAll("\\s+", ""));
+	        }
+	        return formulas;
+	    } catch (IOException e) {
+	        LOGGER.log(Level.SEVERE, e.toString(), e);
+	    } finally {
+	        ScratchDirectory.delete(propertyFile, resultsFile);
+	    }
+	    List<String> failed = new ArrayList<String>(models.size());
+	    for (int i = 0; i < models.size(); i++) {
+	        failed.add("");
+	    }
+	    return failed;
+	}
+
+	/**
+	 * Splits the results exported by PRISM for multiple properties. Each
+	 * one is a block of the form "property:", "Result", value. Parametric
+	 * values are rational functions of the form "{ numerator | denominator }".
+	 */
+	static List<String> splitBatchResults(List<String> lines) {
+	    List<String> results = new ArrayList<String>();
+	    for (int i = 0; i < lines.size(); i++) {
+	        if (!lines.get(i).trim().equals("Result")) {
+	            continue;
+	        }
+	        int valueLine = i + 1;
+	        while (valueLine < lines.size() && lines.get(valueLine).trim().isEmpty()) {
+	            valueLine++;
+	        }
+	        if (valueLine == lines.size()) {
+	            break;
+	        }
+	        String rawResult = lines.get(valueLine);
+	        int openBracket = rawResult.indexOf("{");
+	        int closeBracket = rawResult.indexOf("}");
+	        if (openBracket >= 0 && closeBracket > openBracket) {
+	            rawResult = rawResult.substring(openBracket+1, closeBracket).trim().replace('|', '/');
+	        }
+	        results.add(rawResult);
+	        i = valueLine;
+	    }
+	    return results;
+	}
+
+	private String invokeParametricModelChecker(ParamModel model,
 												String propertyPath,
 												String resultsPath) throws IOException {
-		String commandLine = paramPath+" "
-							 +modelPath+" "
-							 +propertyPath+" "
-							 +"--result-file "+resultsPath;
-		return invokeAndGetResult(commandLine, resultsPath+".out");
+		ModelSource source = out -> model.writeTo(out, false);
+		ModelInput modelInput = modelInput(source, ScratchDirectory.get());
+		List<String> command = getCommand(modelInput);
+		command.add(propertyPath);
+		command.add("--result-file");
+		command.add(resultsPath);
+		return invokeAndGetResult(command, modelInput, source, resultsPath+".out");
 	}
 
-    private String invokeParametricPRISM(ParamModel model,
-                                         String modelPath,
-                                         String propertyPath,
-                                         String resultsPath) throws IOException {
-        String commandLine = paramPath+" "
-                             +modelPath+" "
-                             +propertyPath+" "
-                             +"-exportresults "+resultsPath+" "
-                             +"-param "+String.join(",", model.getParameters());
-        String rawResult = invokeAndGetResult(commandLine, resultsPath);
+	/**
+	 * Invokes PRISM with the property given in the command line. Parametric
+	 * models get their parameters declared as undefined constants, and the
+	 * resulting rational function is of the form "{ numerator | denominator }".
+	 */
+    private String invokePRISM(ParamModel model, String resultsPath) throws IOException {
+        ModelSource source = out -> model.writeTo(out, true);
+        ModelInput modelInput = modelInput(source, ScratchDirectory.get());
+        List<String> command = getCommand(modelInput);
+        command.add("-pf");
+        command.add(RELIABILITY_PROPERTY);
+        command.add("-exportresults");
+        command.add(resultsPath);
+        if (model.getParametersNumber() == 0) {
+            return invokeAndGetResult(command, modelInput, source, resultsPath);
+        }
+        command.add("-param");
+        command.add(String.join(",", model.getParameters()));
+        String rawResult = invokeAndGetResult(command, modelInput, source, resultsPath);
         int openBracket = rawResult.indexOf("{");
         int closeBracket = rawResult.indexOf("}");
         String expression = rawResult.substring(openBracket+1, closeBracket);
         return expression.trim().replace('|', '/');
     }
 
-	private String invokeModelChecker(String modelPath,
-									  String propertyPath,
-									  String resultsPath) throws IOException {
-		String commandLine = paramPath+" "
-				 			 +modelPath+" "
-				 			 +propertyPath+" "
-				 			 +"-exportresults "+resultsPath;
-		return invokeAndGetResult(commandLine, resultsPath);
+	/**
+	 * Where the model checker reads a model from. If possible, it is the
+	 * standard input, to which the model is written through a pipe.
+	 * Otherwise, the model is written to a file in the scratch directory,
+	 * which is deleted once the model checker is done.
+	 */
+	private static class ModelInput {
+	    final String path;
+	    final File file;
+
+	    ModelInput(String path, File file) {
+	        this.path = path;
+	        this.file = file;
+	    }
 	}
 
-	private String invokeAndGetResult(String commandLine, String resultsPath) throws IOException {
-	    LOGGER.fine(commandLine);
-		Process program = Runtime.getRuntime().exec(commandLine);
-		int exitCode = 0;
-		try {
-			exitCode = program.waitFor();
-		} catch (InterruptedException e) {
-			LOGGER.severe("Exit code: " + exitCode);
-			LOGGER.log(Level.SEVERE, e.toString(), e);
-		}
-		List<String> lines = Files.readAllLines(Paths.get(resultsPath), Charset.forName("UTF-8"));
+	/**
+	 * Writes a model to the model checker's input.
+	 */
+	private interface ModelSource {
+	    void writeTo(Writer out) throws IOException;
+	}
+
+	private static ModelInput modelInput(ModelSource source, ScratchDirectory scratch) throws IOException {
+	    if (STANDARD_INPUT.exists()) {
+	        return new ModelInput(STANDARD_INPUT.getPath(), null);
+	    }
+	    File modelFile = scratch.createFile("model", "param");
+	    try (Writer out = Files.newBufferedWriter(modelFile.toPath(), StandardCharsets.UTF_8)) {
+	        source.writeTo(out);
+	    }
+	    return new ModelInput(modelFile.getAbsolutePath(), modelFile);
+	}
+
+	/**
+	 * @return the command line which invokes the model checker on the given
+	 *      model. Further arguments may be added to the returned list.
+	 */
+	private List<String> getCommand(ModelInput modelInput) {
+	    List<String> command = new ArrayList<String>(Arrays.asList(paramPath.trim().split("\\s+")));
+	    command.add(modelInput.path);
+	    return command;
+	}
+
+	private String invokeAndGetResult(List<String> command, ModelInput modelInput, ModelSource model, String resultsPath) throws IOException {
+		List<String> lines = invokeAndGetResults(command, modelInput, model, resultsPath);
 		lines.removeIf(String::isEmpty);
+		if (lines.isEmpty()) {
+		    throw new IOException("Empty model checker results in " + resultsPath);
+		}
 		// Formula
 		return lines.get(lines.size()-1);
 	}
 
+	/**
+	 * Runs the model checker, streaming the model to its standard input
+	 * (unless it was written to a file), and reads the results file.
+	 */
+	private List<String> invokeAndGetResults(List<String> command, ModelInput modelInput, ModelSource model, String resultsPath) throws IOException {
+	    LOGGER.fine(String.join(" ", command));
+	    File modelFile = modelInput.file;
+	    try {
+	        ProcessBuilder builder = new ProcessBuilder(command)
+	                .redirectErrorStream(true)
+	                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+	        Process program = builder.start();
+	        try (Writer stdin = new BufferedWriter(new OutputStreamWriter(program.getOutputStream(), StandardCharsets.UTF_8))) {
+	            if (modelFile == null) {
+	                model.writeTo(stdin);
+	            }
+	        } catch (IOException e) {
+	            // The model checker stopped reading; its results will tell why.
+	            LOGGER.log(Level.WARNING, "Could not stream model to the model checker", e);
+	        }
+	        try {
+	            program.waitFor();
+	        } catch (InterruptedException e) {
+	            // The analysis gave up on this model (e.g., its deadline expired),
+	            // so there is no point in letting the model checker go on.
+	            program.destroyForcibly();
+	            Thread.currentThread().interrupt();
+	            throw new IOException("Interrupted while waiting for the model checker", e);
+	        }
+	        return Files.readAllLines(Paths.get(resultsPath), StandardCharsets.UTF_8);
+	    } finally {
+	        ScratchDirectory.delete(modelFile);
+	    }
+	}
+
 }
@@ -0,0 +1,230 @@
+package paramwrapper;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Multivariate polynomial over the parameters of an FDTMC, with exact
+ * rational coefficients.
+ *
+ * Terms are kept in graded lexicographic order, so the first term is
+ * the leading one. Instances are immutable.
+ */
+final class Polynomial {
+    static final Polynomial ZERO = new Polynomial(new TreeMap<Monomial, Rational>());
+    static final Polynomial ONE = constant(Rational.ONE);
+
+    private final SortedMap<Monomial, Rational> terms;
+
+    private Polynomial(SortedMap<Monomial, Rational> terms) {
+        this.terms = terms;
+    }
+
+    static Polynomial constant(Rational value) {
+        TreeMap<Monomial, Rational> terms = new TreeMap<Monomial, Rational>();
+        if (!value.isZero()) {
+            terms.put(Monomial.ONE, value);
+        }
+        return new Polynomial(terms);
+    }
+
+    static Polynomial variable(String name) {
+        TreeMap<Monomial, Rational> terms = new TreeMap<Monomial, Rational>();
+        terms.put(Monomial.of(name), Rational.ONE);
+        return new Polynomial(terms);
+    }
+
+    SortedMap<Monomial, Rational> getTerms() {
+        return Collections.unmodifiableSortedMap(terms);
+    }
+
+    boolean isZero() {
+        return terms.isEmpty();
+    }
+
+    boolean isConstant() {
+        return terms.isEmpty() || (terms.size() == 1 && terms.firstKey().isOne());
+    }
+
+    /**
+     * @return the value of this polynomial if it is constant.
+     */
+    Rational getConstantValue() {
+        if (terms.isEmpty()) {
+            return Rational.ZERO;
+        }
+        return terms.get(Monomial.ONE) != null ? terms.get(Monomial.ONE) : Rational.ZERO;
+    }
+
+    Monomial getLeadingMonomial() {
+        return terms.firstKey();
+    }
+
+    Rational getLeadingCoefficient() {
+        return terms.get(terms.firstKey());
+    }
+
+    Polynomial plus(Polynomial other) {
+        if (this.isZero()) {
+            return other;
+        } else if (other.isZero()) {
+            return this;
+        }
+        TreeMap<Monomial, Rational> sum = new TreeMap<Monomial, Rational>(terms);
+        for (Map.Entry<Monomial, Rational> term : other.terms.entrySet()) {
+            addTerm(sum, term.getKey(), term.getValue());
+        }
+        return new Polynomial(sum);
+    }
+
+    Polynomial minus(Polynomial other) {
+        return plus(other.negate());
+    }
+
+    Polynomial negate() {
+        return times(Rational.ONE.negate());
+    }
+
+    Polynomial times(Rational scalar) {
+        if (scalar.isZero()) {
+            return ZERO;
+        } else if (scalar.isOne()) {
+            return this;
+        }
+        TreeMap<Monomial, Rational> product = new TreeMap<Monomial, Rational>();
+        for (Map.Entry<Monomial, Rational> term : terms.entrySet()) {
+            product.put(term.getKey(), term.getValue().times(scalar));
+        }
+        return new Polynomial(product);
+    }
+
+    Polynomial times(Polynomial other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        } else if (this.isConstant()) {
+            return other.times(this.getConstantValue());
+        } else if (other.isConstant()) {
+            return this.times(other.getConstantValue());
+        }
+        TreeMap<Monomial, Rational> product = new TreeMap<Monomial, Rational>();
+        for (Map.Entry<Monomial, Rational> term : terms.entrySet()) {
+            for (Map.Entry<Monomial, Rational> otherTerm : other.terms.entrySet()) {
+                addTerm(product,
+                        term.getKey().times(otherTerm.getKey()),
+                        term.getValue().times(otherTerm.getValue()));
+            }
+        }
+        return new Polynomial(product);
+    }
+
+    Polynomial pow(int exponent) {
+        Polynomial result = ONE;
+        Polynomial base = this;
+        while (exponent > 0) {
+            if ((exponent & 1) == 1) {
+                result = result.times(base);
+            }
+            base = base.times(base);
+            exponent >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Exact division.
+     *
+     * Since a single polynomial is always a Groebner basis of the ideal it
+     * generates, {@code divisor} divides this polynomial if and only if
+     * multivariate division leaves no remainder.
+     *
+     * @return this / {@code divisor} or {@code null} if the division is not exact.
+     */
+    Polynomial dividedBy(Polynomial divisor) {
+        if (divisor.isZero()) {
+            throw new ArithmeticException("Division by zero polynomial");
+        } else if (divisor.isConstant()) {
+            return times(Rational.ONE.dividedBy(divisor.getConstantValue()));
+        }
+        Monomial divisorLeading = divisor.getLeadingMonomial();
+        Rational divisorCoefficient = divisor.getLeadingCoefficient();
+        TreeMap<Monomial, Rational> quotient = new TreeMap<Monomial, Rational>();
+        Polynomial remainder = this;
+        while (!remainder.isZero()) {
+            Monomial factor = remainder.getLeadingMonomial().dividedBy(divisorLeading);
+            if (factor == null) {
+                return null;
+            }
+            Rational coefficient = remainder.getLeadingCoefficient().dividedBy(divisorCoefficient);
+            quotient.put(factor, coefficient);
+
+            TreeMap<Monomial, Rational> subtrahend = new TreeMap<Monomial, Rational>();
+            for (Map.Entry<Monomial, Rational> term : divisor.terms.entrySet()) {
+                subtrahend.put(term.getKey().times(factor), term.getValue().times(coefficient).negate());
+            }
+            remainder = remainder.plus(new Polynomial(subtrahend));
+        }
+        return new Polynomial(quotient);
+    }
+
+    /**
+     * @return the least common multiple of all coefficients' denominators.
+     */
+    BigInteger getCommonDenominator() {
+        BigInteger lcm = BigInteger.ONE;
+        for (Rational coefficient : terms.values()) {
+            BigInteger denominator = coefficient.getDenominator();
+            lcm = lcm.multiply(denominator).divide(lcm.gcd(denominator));
+        }
+        return lcm;
+    }
+
+    private static void addTerm(TreeMap<Monomial, Rational> terms, Monomial monomial, Rational coefficient) {
+        Rational current = terms.get(monomial);
+        Rational sum = (current == null) ? coefficient : current.plus(coefficient);
+        if (sum.isZero()) {
+            terms.remove(monomial);
+        } else {
+            terms.put(monomial, sum);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Polynomial) {
+            return terms.equals(((Polynomial) obj).terms);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return terms.hashCode();
+    }
+
+    /**
+     * Formats this polynomial in the same fashion as PARAM does, e.g.,
+     * {@code -1*r0*rFail+1*r0}. All coefficients must be integers.
+     */
+    @Override
+    public String toString() {
+        if (terms.isEmpty()) {
+            return "0";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Monomial, Rational> term : terms.entrySet()) {
+            Rational coefficient = term.getValue();
+            if (builder.length() > 0 && coefficient.signum() > 0) {
+                builder.append('+');
+            }
+            builder.append(coefficient);
+            if (!term.getKey().isOne()) {
+                builder.append('*').append(term.getKey());
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,159 @@
+package paramwrapper;
+
+/**
+ * Recursive-descent parser for transition probabilities of FDTMCs
+ * (e.g., "0.99", "rFail", "1 - n1", "(1-r0)*r1^2").
+ *
+ * Grammar:
+ * <pre>
+ *   expr   := term (("+" | "-") term)*
+ *   term   := unary (("*" | "/") unary)*
+ *   unary  := "-" unary | power
+ *   power  := atom ("^" integer)?
+ *   atom   := number | identifier | "(" expr ")"
+ * </pre>
+ */
+final class ProbabilityParser {
+    private final String input;
+    private int position;
+
+    private ProbabilityParser(String input) {
+        this.input = input;
+        this.position = 0;
+    }
+
+    /**
+     * Parses a probability expression into an exact rational function.
+     * @throws IllegalArgumentException if {@code probability} is malformed.
+     */
+    static RationalFunction parse(String probability) {
+        ProbabilityParser parser = new ProbabilityParser(probability);
+        RationalFunction result = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.position != parser.input.length()) {
+            throw parser.error("Unexpected character");
+        }
+        return result;
+    }
+
+    private RationalFunction parseExpression() {
+        RationalFunction result = parseTerm();
+        while (true) {
+            if (consume('+')) {
+                result = result.plus(parseTerm());
+            } else if (consume('-')) {
+                result = result.minus(parseTerm());
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private RationalFunction parseTerm() {
+        RationalFunction result = parseUnary();
+        while (true) {
+            if (consume('*')) {
+                result = result.times(parseUnary());
+            } else if (consume('/')) {
+                result = result.dividedBy(parseUnary());
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private RationalFunction parseUnary() {
+        if (consume('-')) {
+            return parseUnary().negate();
+        } else if (consume('+')) {
+            return parseUnary();
+        }
+        return parsePower();
+    }
+
+    private RationalFunction parsePower() {
+        RationalFunction base = parseAtom();
+        if (consume('^')) {
+            skipWhitespace();
+            int start = position;
+            while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected integer exponent");
+            }
+            return base.pow(Integer.parseInt(input.substring(start, position)));
+        }
+        return base;
+    }
+
+    private RationalFunction parseAtom() {
+        skipWhitespace();
+        if (position >= input.length()) {
+            throw error("Unexpected end of expression");
+        }
+        char current = input.charAt(position);
+        if (current == '(') {
+            position++;
+            RationalFunction inner = parseExpression();
+            if (!consume(')')) {
+                throw error("Expected ')'");
+            }
+            return inner;
+        } else if (Character.isDigit(current) || current == '.') {
+            return RationalFunction.constant(Rational.parse(readNumber()));
+        } else if (Character.isLetter(current) || current == '_') {
+            int start = position;
+            while (position < input.length()
+                    && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_')) {
+                position++;
+            }
+            return RationalFunction.variable(input.substring(start, position));
+        }
+        throw error("Unexpected character");
+    }
+
+    private String readNumber() {
+        int start = position;
+        while (position < input.length()
+                && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.')) {
+            position++;
+        }
+        // Scientific notation, e.g., 1.0E-4
+        if (position < input.length() && (input.charAt(position) == 'E' || input.charAt(position) == 'e')) {
+            int mark = position;
+            position++;
+            if (position < input.length() && (input.charAt(position) == '-' || input.charAt(position) == '+')) {
+                position++;
+            }
+            if (position < input.length() && Character.isDigit(input.charAt(position))) {
+                while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                    position++;
+                }
+            } else {
+                position = mark;
+            }
+        }
+        return input.substring(start, position);
+    }
+
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (position < input.length() && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of \"" + input + "\"");
+    }
+
+}
@@ -0,0 +1,141 @@
+package paramwrapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Exact rational number used as coefficient of parametric expressions.
+ *
+ * Instances are immutable and always kept in lowest terms, with a positive
+ * denominator.
+ */
+final class Rational implements Comparable<Rational> {
+    static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+    static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+    private final BigInteger numerator;
+    private final BigInteger denominator;
+
+    private Rational(BigInteger numerator, BigInteger denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    static Rational valueOf(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+            numerator = numerator.divide(gcd);
+            denominator = denominator.divide(gcd);
+        }
+        if (numerator.signum() == 0) {
+            denominator = BigInteger.ONE;
+        }
+        return new Rational(numerator, denominator);
+    }
+
+    static Rational valueOf(long value) {
+        return new Rational(BigInteger.valueOf(value), BigInteger.ONE);
+    }
+
+    /**
+     * Parses a decimal literal (e.g., "0.99" or "1E-4") into its exact
+     * rational value.
+     */
+    static Rational parse(String literal) {
+        BigDecimal decimal = new BigDecimal(literal);
+        if (decimal.scale() > 0) {
+            return valueOf(decimal.unscaledValue(), BigInteger.TEN.pow(decimal.scale()));
+        }
+        return valueOf(decimal.toBigIntegerExact(), BigInteger.ONE);
+    }
+
+    BigInteger getNumerator() {
+        return numerator;
+    }
+
+    BigInteger getDenominator() {
+        return denominator;
+    }
+
+    boolean isZero() {
+        return numerator.signum() == 0;
+    }
+
+    boolean isOne() {
+        return numerator.equals(BigInteger.ONE) && denominator.equals(BigInteger.ONE);
+    }
+
+    boolean isInteger() {
+        return denominator.equals(BigInteger.ONE);
+    }
+
+    int signum() {
+        return numerator.signum();
+    }
+
+    Rational plus(Rational other) {
+        if (this.denominator.equals(other.denominator)) {
+            return valueOf(this.numerator.add(other.numerator), denominator);
+        }
+        return valueOf(this.numerator.multiply(other.denominator).add(other.numerator.multiply(this.denominator)),
+                       this.denominator.multiply(other.denominator));
+    }
+
+    Rational minus(Rational other) {
+        return plus(other.negate());
+    }
+
+    Rational times(Rational other) {
+        return valueOf(this.numerator.multiply(other.numerator),
+                       this.denominator.multiply(other.denominator));
+    }
+
+    Rational dividedBy(Rational other) {
+        return valueOf(this.numerator.multiply(other.denominator),
+                       this.denominator.multiply(other.numerator));
+    }
+
+    Rational negate() {
+        return new Rational(numerator.negate(), denominator);
+    }
+
+    double doubleValue() {
+        return new BigDecimal(numerator).divide(new BigDecimal(denominator), java.math.MathContext.DECIMAL64).doubleValue();
+    }
+
+    @Override
+    public int compareTo(Rational other) {
+        return this.numerator.multiply(other.denominator)
+                .compareTo(other.numerator.multiply(this.denominator));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Rational) {
+            Rational other = (Rational) obj;
+            return numerator.equals(other.numerator) && denominator.equals(other.denominator);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * numerator.hashCode() + denominator.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (isInteger()) {
+            return numerator.toString();
+        }
+        return "(" + numerator + ")/(" + denominator + ")";
+    }
+
+}
@@ -0,0 +1,210 @@
+package paramwrapper;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Quotient of polynomials over the parameters of an FDTMC.
+ *
+ * The denominator is kept as a list of (monic) polynomial factors rather
+ * than as a single expanded polynomial. State elimination introduces the
+ * very same factors (i.e., 1 - self-loop probability) over and over, so
+ * keeping them apart allows for cheap common denominators and for
+ * cancellation by exact division, without general multivariate GCDs.
+ *
+ * Instances are immutable.
+ */
+final class RationalFunction {
+    static final RationalFunction ZERO = new RationalFunction(Polynomial.ZERO, Collections.<Polynomial>emptyList());
+    static final RationalFunction ONE = new RationalFunction(Polynomial.ONE, Collections.<Polynomial>emptyList());
+
+    private final Polynomial numerator;
+    private final List<Polynomial> denominatorFactors;
+
+    private RationalFunction(Polynomial numerator, List<Polynomial> denominatorFactors) {
+        this.numerator = numerator;
+        this.denominatorFactors = denominatorFactors;
+    }
+
+    static RationalFunction of(Polynomial polynomial) {
+        return new RationalFunction(polynomial, Collections.<Polynomial>emptyList());
+    }
+
+    static RationalFunction constant(Rational value) {
+        return of(Polynomial.constant(value));
+    }
+
+    static RationalFunction variable(String name) {
+        return of(Polynomial.variable(name));
+    }
+
+    boolean isZero() {
+        return numerator.isZero();
+    }
+
+    boolean isOne() {
+        return denominatorFactors.isEmpty() && numerator.equals(Polynomial.ONE);
+    }
+
+    boolean isPolynomial() {
+        return denominatorFactors.isEmpty();
+    }
+
+    Polynomial getNumerator() {
+        return numerator;
+    }
+
+    List<Polynomial> getDenominatorFactors() {
+        return Collections.unmodifiableList(denominatorFactors);
+    }
+
+    RationalFunction plus(RationalFunction other) {
+        if (this.isZero()) {
+            return other;
+        } else if (other.isZero()) {
+            return this;
+        }
+        List<Polynomial> common = new ArrayList<Polynomial>(this.denominatorFactors);
+        List<Polynomial> missingFromThis = new ArrayList<Polynomial>();
+        List<Polynomial> remaining = new ArrayList<Polynomial>(this.denominatorFactors);
+        for (Polynomial factor : other.denominatorFactors) {
+            if (!remaining.remove(factor)) {
+                common.add(factor);
+                missingFromThis.add(factor);
+            }
+        }
+        // Whatever was not matched by the other's factors is missing from it.
+        List<Polynomial> missingFromOther = remaining;
+
+        Polynomial sum = this.numerator.times(product(missingFromThis))
+                .plus(other.numerator.times(product(missingFromOther)));
+        return normalize(sum, common);
+    }
+
+    RationalFunction minus(RationalFunction other) {
+        return plus(other.negate());
+    }
+
+    RationalFunction negate() {
+        return new RationalFunction(numerator.negate(), denominatorFactors);
+    }
+
+    RationalFunction times(RationalFunction other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        } else if (this.isOne()) {
+            return other;
+        } else if (other.isOne()) {
+            return this;
+        }
+        List<Polynomial> factors = new ArrayList<Polynomial>(this.denominatorFactors);
+        factors.addAll(other.denominatorFactors);
+        return normalize(this.numerator.times(other.numerator), factors);
+    }
+
+    RationalFunction dividedBy(RationalFunction other) {
+        if (other.isZero()) {
+            throw new ArithmeticException("Division by zero");
+        }
+        List<Polynomial> factors = new ArrayList<Polynomial>(this.denominatorFactors);
+        factors.add(other.numerator);
+        return normalize(this.numerator.times(product(other.denominatorFactors)), factors);
+    }
+
+    RationalFunction pow(int exponent) {
+        RationalFunction result = ONE;
+        for (int i = 0; i < exponent; i++) {
+            result = result.times(this);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates this function if it has no parameters.
+     * @return the exact value or {@code null} if this function is not constant.
+     */
+    Rational getConstantValue() {
+        if (denominatorFactors.isEmpty() && numerator.isConstant()) {
+            return numerator.getConstantValue();
+        }
+        return null;
+    }
+
+    private static Polynomial product(List<Polynomial> factors) {
+        Polynomial result = Polynomial.ONE;
+        for (Polynomial factor : factors) {
+            result = result.times(factor);
+        }
+        return result;
+    }
+
+    /**
+     * Brings a fraction to its normal form: constant factors are moved into
+     * the numerator, the remaining ones are made monic and cancelled
+     * whenever they exactly divide the numerator.
+     */
+    private static RationalFunction normalize(Polynomial numerator, List<Polynomial> factors) {
+        if (numerator.isZero()) {
+            return ZERO;
+        }
+        List<Polynomial> normalized = new ArrayList<Polynomial>(factors.size());
+        for (Polynomial factor : factors) {
+            if (factor.isConstant()) {
+                numerator = numerator.times(Rational.ONE.dividedBy(factor.getConstantValue()));
+                continue;
+            }
+            Rational leading = factor.getLeadingCoefficient();
+            if (!leading.isOne()) {
+                factor = factor.times(Rational.ONE.dividedBy(leading));
+                numerator = numerator.times(Rational.ONE.dividedBy(leading));
+            }
+            Polynomial quotient = numerator.dividedBy(factor);
+            if (quotient != null) {
+                numerator = quotient;
+            } else {
+                normalized.add(factor);
+            }
+        }
+        return new RationalFunction(numerator, normalized);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof RationalFunction) {
+            RationalFunction other = (RationalFunction) obj;
+            return numerator.equals(other.numerator)
+                    && denominatorFactors.equals(other.denominatorFactors);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return numerator.hashCode() + denominatorFactors.hashCode();
+    }
+
+    /**
+     * Formats this function in the same fashion as PARAM does, i.e., as a
+     * polynomial with integer coefficients or as a quotient of such
+     * polynomials (e.g., {@code (9801)/(10000)}).
+     */
+    @Override
+    public String toString() {
+        Polynomial denominator = product(denominatorFactors);
+        BigInteger scale = lcm(numerator.getCommonDenominator(), denominator.getCommonDenominator());
+        Rational scaleFactor = Rational.valueOf(scale, BigInteger.ONE);
+        Polynomial scaledNumerator = numerator.times(scaleFactor);
+        Polynomial scaledDenominator = denominator.times(scaleFactor);
+        if (scaledDenominator.equals(Polynomial.ONE)) {
+            return scaledNumerator.toString();
+        }
+        return "(" + scaledNumerator + ")/(" + scaledDenominator + ")";
+    }
+
+    private static BigInteger lcm(BigInteger a, BigInteger b) {
+        return a.multiply(b).divide(a.gcd(b));
+    }
+
+}
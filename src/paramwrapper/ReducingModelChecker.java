@@ -0,0 +1,48 @@
+package paramwrapper;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+
+/**
+ * Decorator which minimizes FDTMCs before handing them to another
+ * {@link ParametricModelChecker}. The reliability of the reduced model is
+ * the same as the one of the original model.
+ *
+ * @see FDTMCReducer for the applied reductions.
+ */
+public class ReducingModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(ReducingModelChecker.class.getName());
+
+    private ParametricModelChecker modelChecker;
+    private IModelCollector modelCollector;
+
+    public ReducingModelChecker(ParametricModelChecker modelChecker, IModelCollector modelCollector) {
+        this.modelChecker = modelChecker;
+        this.modelCollector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        return modelChecker.getReliability(reduce(fdtmc));
+    }
+
+    FDTMC reduce(FDTMC fdtmc) {
+        FDTMCReducer reducer;
+        try {
+            reducer = new FDTMCReducer(fdtmc);
+        } catch (IllegalArgumentException e) {
+            // Probabilities we cannot interpret are left for the model checker.
+            LOGGER.log(Level.WARNING, "Skipping reduction of FDTMC: " + e.getMessage());
+            return fdtmc;
+        }
+        FDTMC reduced = reducer.reduce();
+        modelCollector.collectModelReduction(reducer.getOriginalStatesNumber(),
+                                             reducer.getOriginalTransitionsNumber(),
+                                             reducer.getReducedStatesNumber(),
+                                             reducer.getReducedTransitionsNumber());
+        return reduced;
+    }
+
+}
@@ -0,0 +1,76 @@
+package paramwrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Directory for the files which model checkers still need (e.g., PARAM's
+ * property and result files). There is a single one per run, and it is
+ * deleted along with its contents when the JVM exits. Files should
+ * nonetheless be deleted as soon as they are no longer needed, so that
+ * long runs do not pile them up.
+ */
+final class ScratchDirectory {
+    private static final Logger LOGGER = Logger.getLogger(ScratchDirectory.class.getName());
+
+    private static ScratchDirectory instance;
+
+    private final Path directory;
+
+    private ScratchDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the scratch directory of this run, which is created on first use.
+     */
+    static synchronized ScratchDirectory get() throws IOException {
+        if (instance == null) {
+            ScratchDirectory scratch = new ScratchDirectory(Files.createTempDirectory("reana-"));
+            Runtime.getRuntime().addShutdownHook(new Thread(scratch::deleteAll));
+            instance = scratch;
+        }
+        return instance;
+    }
+
+    File createFile(String prefix, String suffix) throws IOException {
+        return File.createTempFile(prefix, suffix, directory.toFile());
+    }
+
+    Path getPath() {
+        return directory;
+    }
+
+    /**
+     * Deletes the given files, if they exist.
+     */
+    static void delete(File... files) {
+        for (File file : files) {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not delete scratch file " + file, e);
+                }
+            }
+        }
+    }
+
+    private void deleteAll() {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            // Children come after their parents in a walk.
+            paths.sorted(Comparator.reverseOrder())
+                 .map(Path::toFile)
+                 .forEach(File::delete);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete scratch directory " + directory, e);
+        }
+    }
+
+}
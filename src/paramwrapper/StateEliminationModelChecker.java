@@ -0,0 +1,247 @@
+package paramwrapper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+import fdtmc.Transition;
+
+/**
+ * In-JVM parametric model checker.
+ *
+ * It computes the probability of eventually reaching a success state by
+ * means of state elimination (Daws' algorithm, the same one implemented by
+ * PARAM) directly over the FDTMC transition system, thus avoiding the cost
+ * of writing model files and forking an external process for each model.
+ *
+ * The resulting expressions are formatted in the same way as PARAM's.
+ */
+public class StateEliminationModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(StateEliminationModelChecker.class.getName());
+
+    private IModelCollector modelCollector;
+
+    public StateEliminationModelChecker() {
+        this(new NoopModelCollector());
+    }
+
+    public StateEliminationModelChecker(IModelCollector modelCollector) {
+        this.modelCollector = modelCollector;
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        ParamModel model = new ParamModel(fdtmc);
+        modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
+
+        long startTime = System.nanoTime();
+        String formula = computeReachability(fdtmc).toString();
+        long elapsedTime = System.nanoTime() - startTime;
+        modelCollector.collectModelCheckingTime(elapsedTime);
+
+        LOGGER.finer(formula);
+        return formula;
+    }
+
+    /**
+     * Computes the probability of eventually reaching a state labeled
+     * {@link FDTMC#SUCCESS_LABEL} from the initial state.
+     */
+    RationalFunction computeReachability(FDTMC fdtmc) {
+        State initialState = fdtmc.getInitialState();
+        Set<Integer> targets = new HashSet<Integer>();
+        for (State state : fdtmc.getStates()) {
+            if (FDTMC.SUCCESS_LABEL.equals(state.getLabel())) {
+                targets.add(state.getIndex());
+            }
+        }
+        if (initialState == null || targets.isEmpty()) {
+            return RationalFunction.ZERO;
+        }
+        int initial = initialState.getIndex();
+        if (targets.contains(initial)) {
+            return RationalFunction.ONE;
+        }
+
+        Map<Integer, Map<Integer, RationalFunction>> successors = toMatrix(fdtmc, targets);
+        Set<Integer> relevant = getRelevantStates(successors, initial, targets);
+        if (!relevant.contains(initial)) {
+            return RationalFunction.ZERO;
+        }
+        // Transitions to irrelevant states cannot lead to success, so we can
+        // simply drop them (they would contribute with zero).
+        Map<Integer, Map<Integer, RationalFunction>> predecessors = new HashMap<Integer, Map<Integer, RationalFunction>>();
+        for (Integer state : relevant) {
+            successors.get(state).keySet().retainAll(relevant);
+            predecessors.put(state, new LinkedHashMap<Integer, RationalFunction>());
+        }
+        for (Integer source : relevant) {
+            for (Map.Entry<Integer, RationalFunction> entry : successors.get(source).entrySet()) {
+                predecessors.get(entry.getKey()).put(source, entry.getValue());
+            }
+        }
+
+        Set<Integer> toEliminate = new LinkedHashSet<Integer>(relevant);
+        toEliminate.remove(initial);
+        toEliminate.removeAll(targets);
+        while (!toEliminate.isEmpty()) {
+            Integer state = pickCheapest(toEliminate, successors, predecessors);
+            eliminate(state, successors, predecessors);
+            toEliminate.remove(state);
+        }
+
+        Map<Integer, RationalFunction> initialSuccessors = successors.get(initial);
+        RationalFunction reachability = RationalFunction.ZERO;
+        for (Integer target : targets) {
+            RationalFunction probability = initialSuccessors.get(target);
+            if (probability != null) {
+                reachability = reachability.plus(probability);
+            }
+        }
+        RationalFunction selfLoop = initialSuccessors.get(initial);
+        if (selfLoop != null) {
+            reachability = reachability.dividedBy(RationalFunction.ONE.minus(selfLoop));
+        }
+        return reachability;
+    }
+
+    /**
+     * Builds a sparse transition matrix out of the FDTMC. Target states are
+     * made absorbing, since only the first visit to them matters.
+     */
+    private static Map<Integer, Map<Integer, RationalFunction>> toMatrix(FDTMC fdtmc, Set<Integer> targets) {
+        Map<Integer, Map<Integer, RationalFunction>> matrix = new LinkedHashMap<Integer, Map<Integer, RationalFunction>>();
+        for (State state : fdtmc.getStates()) {
+            matrix.put(state.getIndex(), new LinkedHashMap<Integer, RationalFunction>());
+        }
+        for (Map.Entry<State, List<Transition>> entry : fdtmc.getTransitions().entrySet()) {
+            int source = entry.getKey().getIndex();
+            Map<Integer, RationalFunction> row = matrix.get(source);
+            if (targets.contains(source)) {
+                continue;
+            }
+            if (entry.getValue() == null) {
+                // Same workaround as in ParamModel: states with no specified
+                // transitions are deadlocks, i.e., have a self-loop.
+                row.put(source, RationalFunction.ONE);
+                continue;
+            }
+            for (Transition transition : entry.getValue()) {
+                RationalFunction probability = ProbabilityParser.parse(transition.getProbability());
+                if (probability.isZero()) {
+                    continue;
+                }
+                int target = transition.getTarget().getIndex();
+                RationalFunction current = row.get(target);
+                row.put(target, current == null ? probability : current.plus(probability));
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * @return states which are both reachable from {@code initial} and
+     *      able to reach some target state.
+     */
+    private static Set<Integer> getRelevantStates(Map<Integer, Map<Integer, RationalFunction>> successors,
+                                                  int initial,
+                                                  Set<Integer> targets) {
+        Set<Integer> reachable = new HashSet<Integer>();
+        Deque<Integer> pending = new ArrayDeque<Integer>();
+        reachable.add(initial);
+        pending.push(initial);
+        Map<Integer, Set<Integer>> reversed = new HashMap<Integer, Set<Integer>>();
+        while (!pending.isEmpty()) {
+            Integer state = pending.pop();
+            for (Integer target : successors.get(state).keySet()) {
+                Set<Integer> sources = reversed.get(target);
+                if (sources == null) {
+                    sources = new HashSet<Integer>();
+                    reversed.put(target, sources);
+                }
+                sources.add(state);
+                if (reachable.add(target)) {
+                    pending.push(target);
+                }
+            }
+        }
+
+        Set<Integer> relevant = new LinkedHashSet<Integer>();
+        for (Integer target : targets) {
+            if (reachable.contains(target) && relevant.add(target)) {
+                pending.push(target);
+            }
+        }
+        while (!pending.isEmpty()) {
+            Integer state = pending.pop();
+            Set<Integer> sources = reversed.get(state);
+            if (sources != null) {
+                for (Integer source : sources) {
+                    if (relevant.add(source)) {
+                        pending.push(source);
+                    }
+                }
+            }
+        }
+        return relevant;
+    }
+
+    /**
+     * Greedy heuristic: eliminating a state creates at most
+     * in-degree * out-degree new transitions, so we pick the state which
+     * minimizes this product.
+     */
+    private static Integer pickCheapest(Set<Integer> candidates,
+                                        Map<Integer, Map<Integer, RationalFunction>> successors,
+                                        Map<Integer, Map<Integer, RationalFunction>> predecessors) {
+        Integer cheapest = null;
+        long minCost = Long.MAX_VALUE;
+        for (Integer state : candidates) {
+            long cost = (long) predecessors.get(state).size() * successors.get(state).size();
+            if (cost < minCost) {
+                minCost = cost;
+                cheapest = state;
+            }
+        }
+        return cheapest;
+    }
+
+    private static void eliminate(Integer state,
+                                  Map<Integer, Map<Integer, RationalFunction>> successors,
+                                  Map<Integer, Map<Integer, RationalFunction>> predecessors) {
+        Map<Integer, RationalFunction> outgoing = successors.remove(state);
+        Map<Integer, RationalFunction> incoming = predecessors.remove(state);
+        RationalFunction selfLoop = outgoing.remove(state);
+        incoming.remove(state);
+
+        RationalFunction loopFactor = (selfLoop == null) ? RationalFunction.ONE
+                                                         : RationalFunction.ONE.dividedBy(RationalFunction.ONE.minus(selfLoop));
+        for (Integer target : outgoing.keySet()) {
+            predecessors.get(target).remove(state);
+        }
+        for (Map.Entry<Integer, RationalFunction> in : incoming.entrySet()) {
+            Integer source = in.getKey();
+            Map<Integer, RationalFunction> sourceRow = successors.get(source);
+            sourceRow.remove(state);
+            RationalFunction toState = in.getValue().times(loopFactor);
+            for (Map.Entry<Integer, RationalFunction> out : outgoing.entrySet()) {
+                Integer target = out.getKey();
+                RationalFunction current = sourceRow.get(target);
+                RationalFunction added = toState.times(out.getValue());
+                RationalFunction updated = (current == null) ? added : current.plus(added);
+                sourceRow.put(target, updated);
+                predecessors.get(target).put(source, updated);
+            }
+        }
+    }
+
+}
@@ -4,29 +4,56 @@
 package tool;
 
 import jadd.ADD;
+import jadd.ADDBackendType;
+import jadd.Abstraction;
+import jadd.Cube;
 import jadd.JADD;
+import jadd.UnrecognizedVariableException;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import paramwrapper.IModelCollector;
 import paramwrapper.ParamWrapper;
 import paramwrapper.ParametricModelChecker;
+import tool.analyzers.ADDReliabilityResults;
 import tool.analyzers.IPruningStrategy;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.ModelCheckingExecutor;
 import tool.analyzers.strategies.FamilyBasedAnalyzer;
 import tool.analyzers.strategies.FamilyProductBasedAnalyzer;
 import tool.analyzers.strategies.FeatureFamilyBasedAnalyzer;
 import tool.analyzers.strategies.FeatureProductBasedAnalyzer;
 import tool.analyzers.strategies.ProductBasedAnalyzer;
 import tool.analyzers.strategies.FeatureFamilyProductBasedAnalyzer;
+import tool.featuremodel.Clause;
+import tool.featuremodel.FeatureModelBuilder;
+import tool.featuremodel.FeatureModelReader;
+import tool.featuremodel.FeatureTree;
+import tool.ordering.Clauses;
+import tool.ordering.IVariableOrderingHeuristic;
+import tool.ordering.VariableOrderFile;
+import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
 import tool.stats.NoopFormulaCollector;
 import tool.stats.NoopTimeCollector;
-import expressionsolver.ExpressionSolver;
 
 /**
  * Implements the orchestration of analysis tasks.
@@ -37,10 +64,12 @@ import expressionsolver.ExpressionSolver;
  * @author thiago
  */
 public class Analyzer {
+    private static final Logger LOGGER = Logger.getLogger(Analyzer.class.getName());
 
     private ADD featureModel;
+    private int featureModelPeakNodeCount;
+    private long featureModelPeakLiveNodeCount;
     private ParametricModelChecker modelChecker;
-    private ExpressionSolver expressionSolver;
     private JADD jadd;
 
     private ConcurrencyStrategy concurrencyStrategy = ConcurrencyStrategy.PARALLEL;
@@ -64,7 +93,118 @@ public class Analyzer {
      * @throws IOException if there is a problem reading the file.
      */
     public Analyzer(String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
-        this(new JADD(), featureModel, paramPath, timeCollector, formulaCollector, modelCollector);
+        this(featureModel, paramPath, ModelCheckingStrategy.EXTERNAL, timeCollector, formulaCollector, modelCollector);
+    }
+
+    /**
+     * Creates an Analyzer which will follow the logical rules
+     * encoded in the provided feature model file and which will compute
+     * reliability expressions using the given model checking strategy.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param paramPath Path to the external model checker (ignored by in-JVM strategies).
+     * @param modelCheckingStrategy Model checker backend to be used.
+     */
+    public Analyzer(String featureModel, String paramPath, ModelCheckingStrategy modelCheckingStrategy, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+        this(new JADD(),
+             featureModel,
+             ModelCheckerFactory.createModelChecker(modelCheckingStrategy, paramPath, modelCollector),
+             timeCollector,
+             formulaCollector);
+        this.productBasedAnalyzerImpl.setModelCollector(modelCollector);
+    }
+
+    /**
+     * Creates an Analyzer which will follow the logical rules
+     * encoded in the provided feature model file and which will compute
+     * reliability expressions using an already configured model checker.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param modelChecker Model checker to be used (see {@link ModelCheckerFactory}).
+     */
+    public Analyzer(String featureModel, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(new JADD(), featureModel, modelChecker, timeCollector, formulaCollector);
+    }
+
+    /**
+     * Creates an Analyzer which builds its ADDs with the given backend.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param addBackend ADD engine to be used.
+     * @param modelChecker Model checker to be used (see {@link ModelCheckerFactory}).
+     */
+    public Analyzer(String featureModel, ADDBackendType addBackend, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(new JADD(addBackend), featureModel, modelChecker, timeCollector, formulaCollector);
+    }
+
+    /**
+     * Creates an Analyzer which builds its ADDs with the given backend, with
+     * variables statically ordered before the feature model is encoded.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param addBackend ADD engine to be used.
+     * @param orderingHeuristic Static variable ordering heuristic, applied before
+     *          sifting (see {@link VariableOrderingFactory}). If null, variables
+     *          are only ordered by sifting.
+     * @param variableOrderFile Path to a file with the variable order (see
+     *          {@link VariableOrderFile}). If the file exists, its order is used
+     *          instead of the heuristics; otherwise, the order found is written
+     *          to it. If null, orders are neither read nor written.
+     * @param modelChecker Model checker to be used (see {@link ModelCheckerFactory}).
+     */
+    public Analyzer(String featureModel, ADDBackendType addBackend, IVariableOrderingHeuristic orderingHeuristic, String variableOrderFile, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(new JADD(addBackend), featureModel, orderingHeuristic, variableOrderFile, modelChecker, timeCollector, formulaCollector);
+    }
+
+    /**
+     * Creates an Analyzer whose feature model is given by its clauses (e.g.,
+     * as read by {@link FeatureModelReader}), which are encoded one by one.
+     *
+     * @param featureModel Clauses of the feature model in conjunctive normal form.
+     * @param addBackend ADD engine to be used.
+     * @param orderingHeuristic Static variable ordering heuristic, applied before
+     *          sifting (see {@link VariableOrderingFactory}). If null, variables
+     *          are only ordered by sifting.
+     * @param variableOrderFile Path to a file with the variable order (see
+     *          {@link VariableOrderFile}), or null.
+     * @param modelChecker Model checker to be used (see {@link ModelCheckerFactory}).
+     * @param modelCollector Collector of statistics of the models which are
+     *          checked numerically instead of by {@code modelChecker}, or null.
+     */
+    public Analyzer(List<Clause> featureModel, ADDBackendType addBackend, IVariableOrderingHeuristic orderingHeuristic, String variableOrderFile, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+        this(new JADD(addBackend), featureModel, orderingHeuristic, variableOrderFile, modelChecker, timeCollector, formulaCollector);
+        this.productBasedAnalyzerImpl.setModelCollector(modelCollector);
+    }
+
+    /**
+     * Creates an Analyzer whose feature model is compiled straight from a
+     * feature tree (e.g., read from a FeatureIDE XML file).
+     *
+     * @param featureModel Feature tree and cross-tree constraints.
+     * @param addBackend ADD engine to be used.
+     * @param orderingHeuristic Static variable ordering heuristic, applied before
+     *          sifting (see {@link VariableOrderingFactory}). If null, variables
+     *          are ordered depth-first along the feature tree.
+     * @param variableOrderFile Path to a file with the variable order (see
+     *          {@link VariableOrderFile}), or null.
+     * @param modelChecker Model checker to be used (see {@link ModelCheckerFactory}).
+     * @param modelCollector Collector of statistics of the models which are
+     *          checked numerically instead of by {@code modelChecker}, or null.
+     */
+    public Analyzer(FeatureTree featureModel, ADDBackendType addBackend, IVariableOrderingHeuristic orderingHeuristic, String variableOrderFile, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+        this(new JADD(addBackend),
+             variablesOf(featureModel.toClauses()),
+             builder -> builder.build(featureModel),
+             (orderingHeuristic != null) ? orderingHeuristic : clauses -> featureModel.getFeatureOrder(),
+             variableOrderFile,
+             modelChecker,
+             timeCollector,
+             formulaCollector);
+        this.productBasedAnalyzerImpl.setModelCollector(modelCollector);
     }
 
     /**
@@ -74,26 +214,90 @@ public class Analyzer {
      * @param featureModel
      */
     Analyzer(JADD jadd, String featureModel, String paramPath) {
-        this(jadd, featureModel, paramPath, null, null, null);
+        this(jadd, featureModel, new ParamWrapper(paramPath), null, null);
+    }
+
+    /**
+     * Package-private constructor for testability.
+     * It allows injection of ADD processor, feature model expression and
+     * model checker.
+     * @param jadd
+     * @param featureModel
+     * @param modelChecker
+     */
+    Analyzer(JADD jadd, String featureModel, ParametricModelChecker modelChecker) {
+        this(jadd, featureModel, modelChecker, null, null);
     }
 
 
     /**
-     * This is where true initialization happens.
+     * Initialization without static variable ordering.
      * @param jadd
      * @param featureModel
      */
-    private Analyzer(JADD jadd, String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
-        this.jadd = jadd;
-        this.expressionSolver = new ExpressionSolver(jadd);
-        this.featureModel = expressionSolver.encodeFormula(featureModel);
-        // The feature model contains all used variables, so we expect to
-        // be able to generate an optimal ordering right after parsing it.
-        jadd.reorderVariables();
+    private Analyzer(JADD jadd, String featureModel, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(jadd, featureModel, null, null, modelChecker, timeCollector, formulaCollector);
+    }
 
+    /**
+     * Package-private constructor for testability.
+     * It allows injection of ADD processor, feature model expression,
+     * static variable ordering and model checker.
+     * @param jadd
+     * @param featureModel
+     * @param orderingHeuristic
+     * @param variableOrderFile
+     */
+    Analyzer(JADD jadd, String featureModel, IVariableOrderingHeuristic orderingHeuristic, String variableOrderFile, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(jadd, readClauses(featureModel), orderingHeuristic, variableOrderFile, modelChecker, timeCollector, formulaCollector);
+    }
+
+    private Analyzer(JADD jadd, List<Clause> featureModel, IVariableOrderingHeuristic orderingHeuristic, String variableOrderFile, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this(jadd,
+             variablesOf(featureModel),
+             builder -> builder.build(featureModel),
+             orderingHeuristic,
+             variableOrderFile,
+             modelChecker,
+             timeCollector,
+             formulaCollector);
+    }
+
+    /**
+     * This is where true initialization happens.
+     * @param jadd
+     * @param featureModelClauses Variables of each clause of the feature model,
+     *          for static variable ordering.
+     * @param featureModelEncoding Builds the feature model's ADD.
+     * @param orderingHeuristic
+     * @param variableOrderFile
+     */
+    private Analyzer(JADD jadd, List<List<String>> featureModelClauses, Function<FeatureModelBuilder, ADD> featureModelEncoding, IVariableOrderingHeuristic orderingHeuristic, String variableOrderFile, ParametricModelChecker modelChecker, ITimeCollector timeCollector, IFormulaCollector formulaCollector) {
+        this.jadd = jadd;
         this.timeCollector = (timeCollector != null) ? timeCollector : new NoopTimeCollector();
         this.formulaCollector = (formulaCollector != null) ? formulaCollector : new NoopFormulaCollector();
-        this.modelChecker = (modelCollector != null) ? new ParamWrapper(paramPath, modelCollector) : new ParamWrapper(paramPath);
+
+        Path orderFile = (variableOrderFile != null) ? Paths.get(variableOrderFile) : null;
+        this.timeCollector.startTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+        boolean orderRead = setInitialVariableOrder(featureModelClauses, orderingHeuristic, orderFile);
+        this.timeCollector.stopTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+
+        FeatureModelBuilder featureModelBuilder = new FeatureModelBuilder(jadd);
+        this.featureModel = featureModelEncoding.apply(featureModelBuilder);
+        this.featureModelPeakNodeCount = featureModelBuilder.getPeakNodeCount();
+        this.featureModelPeakLiveNodeCount = featureModelBuilder.getPeakLiveNodeCount();
+
+        this.timeCollector.startTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+        if (!orderRead) {
+            // The feature model contains all used variables, so we expect to
+            // be able to generate an optimal ordering right after parsing it.
+            jadd.reorderVariables();
+            if (orderFile != null && this.featureModel != null) {
+                writeVariableOrder(orderFile);
+            }
+        }
+        this.timeCollector.stopTimer(CollectibleTimers.VARIABLE_ORDERING_TIME);
+        this.modelChecker = modelChecker;
 
         this.featureFamilyBasedAnalyzerImpl = new FeatureFamilyBasedAnalyzer(this.jadd,
                                                                              this.featureModel,
@@ -124,6 +328,110 @@ public class Analyzer {
         		                                                                           this.formulaCollector);
     }
 
+    /**
+     * Creates the variables of the feature model in a static order, read from
+     * {@code orderFile} if it exists or else computed by {@code heuristic}.
+     *
+     * @return whether the order was read from the file.
+     */
+    private boolean setInitialVariableOrder(List<List<String>> clauses, IVariableOrderingHeuristic heuristic, Path orderFile) {
+        List<String> order = null;
+        boolean orderRead = false;
+        if (orderFile != null && Files.exists(orderFile)) {
+            try {
+                order = VariableOrderFile.read(orderFile);
+                orderRead = true;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read the variable order from " + orderFile, e);
+            }
+        }
+        if (order == null && heuristic != null) {
+            order = heuristic.order(clauses);
+        }
+        if (order == null) {
+            return false;
+        }
+
+        // Only feature model variables are kept, and the missing ones are
+        // placed below the others.
+        Set<String> variables = new LinkedHashSet<String>(Clauses.variablesOf(clauses));
+        List<String> initialOrder = new ArrayList<String>(variables.size());
+        for (String variable : order) {
+            if (variables.remove(variable)) {
+                initialOrder.add(variable);
+            }
+        }
+        initialOrder.addAll(variables);
+        for (String variable : initialOrder) {
+            jadd.getVariable(variable);
+        }
+        try {
+            jadd.setVariableOrder(initialOrder.toArray(new String[initialOrder.size()]));
+        } catch (UnrecognizedVariableException e) {
+            // All variables have just been created.
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+        }
+        return orderRead;
+    }
+
+    /**
+     * Splits the feature model into its clauses, so that it is encoded
+     * clause by clause rather than parsed as a single (possibly huge) formula.
+     *
+     * @see FeatureModelBuilder
+     */
+    private static List<Clause> readClauses(String featureModel) {
+        try {
+            return FeatureModelReader.readCnf(new StringReader(featureModel));
+        } catch (IOException e) {
+            // Unreachable, as the feature model is already in memory.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the distinct variables of each clause which has any, for
+     *      static variable ordering.
+     */
+    private static List<List<String>> variablesOf(List<Clause> clauses) {
+        return clauses.stream()
+                .map(clause -> clause.getVariables().stream().distinct().collect(Collectors.toList()))
+                .filter(variables -> !variables.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private void writeVariableOrder(Path orderFile) {
+        try {
+            VariableOrderFile.write(orderFile, featureModel.getVariableOrder());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write the variable order to " + orderFile, e);
+        }
+    }
+
+    /**
+     * @return the number of internal nodes of the feature model's ADD.
+     */
+    public int getFeatureModelNodeCount() {
+        return featureModel.getNodeCount();
+    }
+
+    /**
+     * @return the number of nodes of the largest intermediate ADD built
+     *      while encoding the feature model.
+     */
+    public int getFeatureModelPeakNodeCount() {
+        return featureModelPeakNodeCount;
+    }
+
+    /**
+     * @return the largest number of live nodes in the ADD manager while
+     *      encoding the feature model, which also counts the partial
+     *      conjunctions awaiting to be combined.
+     */
+    public long getFeatureModelPeakLiveNodeCount() {
+        return featureModelPeakLiveNodeCount;
+    }
+
     /**
      * Returns the set of all valid configurations according to the feature model.
      * @return
@@ -160,6 +468,19 @@ public class Analyzer {
         this.concurrencyStrategy = concurrencyStrategy;
     }
 
+    /**
+     * Sets the executor on which the feature-based strategies model check
+     * the RDG nodes concurrently (i.e., when using the PARALLEL concurrency
+     * strategy). If none is set, the common fork-join pool is used.
+     *
+     * @param modelCheckingExecutor the executor to set
+     */
+    public void setModelCheckingExecutor(ModelCheckingExecutor modelCheckingExecutor) {
+        this.featureFamilyBasedAnalyzerImpl.setModelCheckingExecutor(modelCheckingExecutor);
+        this.featureProductBasedAnalyzerImpl.setModelCheckingExecutor(modelCheckingExecutor);
+        this.featureFamilyProductBasedAnalyzerImpl.setModelCheckingExecutor(modelCheckingExecutor);
+    }
+
     /**
      * Evaluates the feature-family-based reliability function of an RDG node, based
      * on the reliabilities of the nodes on which it depends.
@@ -242,6 +563,67 @@ public class Analyzer {
         return featureFamilyProductBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
     
+    /**
+     * Returns the valid configurations with the lowest reliabilities, worst
+     * first, as cubes whose "don't care" features do not affect reliability.
+     * The cubes returned amount to at least {@code k} configurations, unless
+     * there are fewer valid ones.
+     *
+     * @param familyReliability Reliability function computed by a call to the
+     *          {@link #evaluateFeatureFamilyBasedReliability(RDGNode)} or
+     *          {@link #evaluateFamilyBasedReliability(RDGNode, Stream)} methods.
+     * @param k Number of configurations to be found.
+     * @throws IllegalArgumentException if the results were not computed as an ADD.
+     */
+    public List<Cube> getLeastReliableConfigurations(IReliabilityAnalysisResults familyReliability, int k) {
+        return asADDResults(familyReliability).getLeastReliableConfigurations(k);
+    }
+
+    /**
+     * Returns the valid configurations with the highest reliabilities, best
+     * first.
+     *
+     * @see #getLeastReliableConfigurations(IReliabilityAnalysisResults, int)
+     */
+    public List<Cube> getMostReliableConfigurations(IReliabilityAnalysisResults familyReliability, int k) {
+        return asADDResults(familyReliability).getMostReliableConfigurations(k);
+    }
+
+    /**
+     * Derives the family reliability function of a segment of the product
+     * line, in which some features are fixed, without analyzing it again.
+     * The derived function is usually much smaller, and may be kept for
+     * answering follow-up queries about the segment.
+     *
+     * @param familyReliability Reliability function computed as an ADD.
+     * @param partialConfiguration Presence (true) or absence (false) of each fixed feature.
+     * @throws UnknownFeatureException if some feature is unknown.
+     * @throws IllegalArgumentException if the results were not computed as an ADD.
+     */
+    public IReliabilityAnalysisResults restrictReliability(IReliabilityAnalysisResults familyReliability, Map<String, Boolean> partialConfiguration) throws UnknownFeatureException {
+        return asADDResults(familyReliability).restrict(partialConfiguration);
+    }
+
+    /**
+     * Derives a family reliability function which no longer depends on the
+     * given features, by combining the reliabilities of configurations which
+     * differ only in them (e.g., the worst one, with {@link Abstraction#MIN}).
+     *
+     * @param familyReliability Reliability function computed as an ADD.
+     * @throws UnknownFeatureException if some feature is unknown.
+     * @throws IllegalArgumentException if the results were not computed as an ADD.
+     */
+    public IReliabilityAnalysisResults abstractReliability(IReliabilityAnalysisResults familyReliability, Collection<String> features, Abstraction abstraction) throws UnknownFeatureException {
+        return asADDResults(familyReliability).abstractFeatures(features, abstraction);
+    }
+
+    private static ADDReliabilityResults asADDResults(IReliabilityAnalysisResults results) {
+        if (!(results instanceof ADDReliabilityResults)) {
+            throw new IllegalArgumentException("Only family reliability functions computed as ADDs support this query.");
+        }
+        return (ADDReliabilityResults) results;
+    }
+
     /**
      * Dumps the computed family reliability function to the output file
      * in the specified path.
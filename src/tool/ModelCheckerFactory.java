@@ -0,0 +1,58 @@
+package tool;
+
+import paramwrapper.AcyclicModelChecker;
+import paramwrapper.IModelCollector;
+import paramwrapper.ModelCheckerWorkerPool;
+import paramwrapper.NoopModelCollector;
+import paramwrapper.ParamWrapper;
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.StateEliminationModelChecker;
+
+public class ModelCheckerFactory {
+
+    private ModelCheckerFactory() {
+        // NO-OP
+    }
+
+    public static ParametricModelChecker createModelChecker(ModelCheckingStrategy strategySelection,
+                                                            String paramPath,
+                                                            IModelCollector modelCollector) {
+        return createModelChecker(strategySelection, paramPath, null, modelCollector);
+    }
+
+    /**
+     * @param workerPool Pool of persistent model checker processes to be used
+     *      by the EXTERNAL strategy. If null, a process is started per model.
+     */
+    public static ParametricModelChecker createModelChecker(ModelCheckingStrategy strategySelection,
+                                                            String paramPath,
+                                                            ModelCheckerWorkerPool workerPool,
+                                                            IModelCollector modelCollector) {
+        return createModelChecker(strategySelection, paramPath, workerPool, 1, modelCollector);
+    }
+
+    /**
+     * @param batchSize Maximum number of models packed into a single PRISM
+     *      run by the EXTERNAL strategy (see {@link ParamWrapper}).
+     */
+    public static ParametricModelChecker createModelChecker(ModelCheckingStrategy strategySelection,
+                                                            String paramPath,
+                                                            ModelCheckerWorkerPool workerPool,
+                                                            int batchSize,
+                                                            IModelCollector modelCollector) {
+        IModelCollector collector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+        ParametricModelChecker modelChecker;
+        switch (strategySelection) {
+        case STATE_ELIMINATION:
+            modelChecker = new StateEliminationModelChecker(collector);
+            break;
+        case EXTERNAL:
+        default:
+            modelChecker = new ParamWrapper(paramPath, collector, workerPool, batchSize);
+        }
+        // Acyclic models are evaluated in closed form, so the selected
+        // backend only gets the ones with loops.
+        return new AcyclicModelChecker(modelChecker, collector);
+    }
+
+}
@@ -0,0 +1,12 @@
+package tool;
+
+public enum ModelCheckingStrategy {
+    /**
+     * Invoke an external parametric model checker (PARAM or Prism).
+     */
+    EXTERNAL,
+    /**
+     * Perform state elimination inside the JVM.
+     */
+    STATE_ELIMINATION
+}
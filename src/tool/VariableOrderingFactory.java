@@ -0,0 +1,45 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import tool.ordering.Clauses;
+import tool.ordering.DepthFirstOrdering;
+import tool.ordering.ForceOrdering;
+import tool.ordering.IVariableOrderingHeuristic;
+
+public class VariableOrderingFactory {
+
+    private VariableOrderingFactory() {
+        // NO-OP
+    }
+
+    /**
+     * @param presenceConditions Presence conditions of the RDG nodes, which
+     *      are only used by the PRESENCE_CONDITIONS strategy.
+     * @return the static ordering heuristic, or null if the variables are
+     *      to be left in creation order (SIFTING).
+     */
+    public static IVariableOrderingHeuristic createHeuristic(VariableOrderingStrategy strategySelection, Collection<String> presenceConditions) {
+        switch (strategySelection) {
+        case FORCE:
+            return new ForceOrdering();
+        case DFS:
+            return new DepthFirstOrdering();
+        case PRESENCE_CONDITIONS:
+            List<List<String>> hyperedges = new ArrayList<List<String>>();
+            for (String presenceCondition : presenceConditions) {
+                List<String> variables = Clauses.variablesOf(presenceCondition);
+                if (!variables.isEmpty()) {
+                    hyperedges.add(variables);
+                }
+            }
+            return new ForceOrdering(hyperedges);
+        case SIFTING:
+        default:
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package tool;
+
+public enum VariableOrderingStrategy {
+    /**
+     * Variables are created as they are found while parsing the feature
+     * model, and are only reordered by sifting afterwards.
+     */
+    SIFTING,
+    /**
+     * FORCE heuristic over the clauses of the feature model, followed by sifting.
+     */
+    FORCE,
+    /**
+     * Depth-first traversal of the variables sharing clauses of the
+     * feature model, followed by sifting.
+     */
+    DFS,
+    /**
+     * FORCE heuristic over the clauses of the feature model and the
+     * presence conditions of the RDG nodes, followed by sifting.
+     */
+    PRESENCE_CONDITIONS
+}
@@ -1,33 +1,183 @@
 package tool.analyzers;
 
 import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoublePredicate;
 
 import tool.UnknownFeatureException;
 import jadd.ADD;
+import jadd.Abstraction;
+import jadd.ADDScope;
+import jadd.Cube;
+import jadd.FlatADD;
+import jadd.NodeCounts;
 import jadd.UnrecognizedVariableException;
 
 public class ADDReliabilityResults implements IReliabilityAnalysisResults {
+    /**
+     * Invalid configurations are the ones whose reliability is zero.
+     */
+    private static final DoublePredicate VALID = value -> value != 0;
 
     private ADD results;
+    /**
+     * Snapshot of the results, which is what configurations are looked up in.
+     */
+    private FlatADD flatResults;
+    /**
+     * Features fixed by restriction or removed by abstraction, which
+     * configurations no longer range over.
+     */
+    private Set<String> eliminatedFeatures;
+    private NodeCounts countsBeforeRelease;
+    private NodeCounts countsAfterRelease;
 
     public ADDReliabilityResults(ADD results) {
         this.results = results;
+        this.flatResults = results.flatten();
+        this.eliminatedFeatures = Collections.emptySet();
+    }
+
+    private ADDReliabilityResults(ADD results, Set<String> eliminatedFeatures) throws UnrecognizedVariableException {
+        this.results = results;
+        this.flatResults = results.flatten().excluding(eliminatedFeatures);
+        this.eliminatedFeatures = eliminatedFeatures;
+    }
+
+    /**
+     * @param results
+     * @param solvingScope Closed scope in which the results were computed,
+     *      whose node counts are reported along with the other statistics.
+     */
+    public ADDReliabilityResults(ADD results, ADDScope solvingScope) {
+        this(results);
+        this.countsBeforeRelease = solvingScope.getCountsBeforeRelease();
+        this.countsAfterRelease = solvingScope.getCountsAfterRelease();
     }
 
     @Override
     public Double getResult(String[] configuration) throws UnknownFeatureException {
         try {
-            return results.eval(configuration);
+            return flatResults.eval(configuration);
         } catch (UnrecognizedVariableException e) {
             throw new UnknownFeatureException(e.getVariableName());
         }
     }
 
+    /*
+     * Aggregates over all valid configurations, computed from the ADD
+     * without enumerating them.
+     */
+
+    public BigInteger countValidConfigurations() {
+        return flatResults.count(VALID);
+    }
+
+    public double getMinReliability() {
+        return flatResults.getMin(VALID);
+    }
+
+    public double getMaxReliability() {
+        return flatResults.getMax(VALID);
+    }
+
+    public double getMeanReliability() {
+        return flatResults.getMean(VALID);
+    }
+
+    /**
+     * @return the number of valid configurations whose reliability is
+     *      below {@code threshold}.
+     */
+    public BigInteger countConfigurationsBelow(double threshold) {
+        return flatResults.count(value -> VALID.test(value) && value < threshold);
+    }
+
+    /**
+     * @return the number of valid configurations in each of {@code bins}
+     *      equal intervals between the minimum and maximum reliabilities.
+     */
+    public BigInteger[] getReliabilityHistogram(int bins) {
+        return flatResults.getHistogram(VALID, getMinReliability(), getMaxReliability(), bins);
+    }
+
+    /**
+     * @return the cubes of valid configurations with the lowest reliabilities,
+     *      worst first, which amount to at least {@code k} configurations
+     *      (unless there are fewer valid ones).
+     */
+    public List<Cube> getLeastReliableConfigurations(int k) {
+        return flatResults.getLowest(k, VALID);
+    }
+
+    /**
+     * @return the cubes of valid configurations with the highest reliabilities,
+     *      best first, which amount to at least {@code k} configurations
+     *      (unless there are fewer valid ones).
+     */
+    public List<Cube> getMostReliableConfigurations(int k) {
+        return flatResults.getHighest(k, VALID);
+    }
+
+    /**
+     * Derives the results for the segment of the product line in which some
+     * features are fixed. The derived results depend on the remaining features
+     * only and are usually much smaller, so they can be kept for answering
+     * follow-up queries about the segment. Their aggregates count
+     * configurations of the remaining features only.
+     *
+     * @param partialConfiguration Presence (true) or absence (false) of each fixed feature.
+     * @throws UnknownFeatureException if some feature is unknown.
+     */
+    public ADDReliabilityResults restrict(Map<String, Boolean> partialConfiguration) throws UnknownFeatureException {
+        try {
+            return new ADDReliabilityResults(results.restrict(partialConfiguration),
+                                             eliminating(partialConfiguration.keySet()));
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
+    /**
+     * Derives results which no longer depend on the given features, by
+     * combining the reliabilities of the configurations which differ only
+     * in them (e.g., taking the worst reliability among them, with
+     * {@link Abstraction#MIN}).
+     *
+     * Invalid configurations keep a reliability of zero, so abstracting with
+     * {@link Abstraction#MIN} yields zero wherever some choice of the
+     * features is invalid. Aggregates of the derived results count
+     * configurations of the remaining features only.
+     *
+     * @throws UnknownFeatureException if some feature is unknown.
+     */
+    public ADDReliabilityResults abstractFeatures(Collection<String> features, Abstraction abstraction) throws UnknownFeatureException {
+        try {
+            return new ADDReliabilityResults(results.abstractVariables(features, abstraction),
+                                             eliminating(features));
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
+    private Set<String> eliminating(Collection<String> features) {
+        Set<String> eliminated = new HashSet<String>(eliminatedFeatures);
+        eliminated.addAll(features);
+        return eliminated;
+    }
+
     @Override
     public void printStats(PrintStream output) {
         int numVariables = results.getVariables().size();
         int numNodes = results.getNodeCount();
         int numDeadNodes = results.getDeadNodesCount();
+        long numLiveNodes = results.getLiveNodesCount();
         int numTerminalsNonZero = results.getTerminalsDifferentThanZeroCount();
         double numPathsToNonZeroTerminals = results.getPathsToNonZeroTerminalsCount();
         double numPathsToZeroTerminal = results.getPathsToZeroTerminalCount();
@@ -38,6 +188,11 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         output.println("# variables: " + numVariables);
         output.println("# internal nodes: " + numNodes);
         output.println("# dead nodes: " + numDeadNodes);
+        output.println("# live nodes: " + numLiveNodes);
+        if (countsBeforeRelease != null) {
+            output.println("# nodes before releasing intermediate ADDs: " + countsBeforeRelease);
+            output.println("# nodes after releasing intermediate ADDs: " + countsAfterRelease);
+        }
         output.println("# terminals different than zero: " + numTerminalsNonZero);
         output.println("# paths to non-zero terminals: " + numPathsToNonZeroTerminals);
         output.println("# paths to zero terminal: " + numPathsToZeroTerminal);
@@ -0,0 +1,72 @@
+package tool.analyzers.buildingblocks;
+
+import jadd.UnrecognizedVariableException;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import tool.UnknownFeatureException;
+import expressionsolver.CompiledFormula;
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Cache of compiled presence conditions for product-wise evaluation.
+ *
+ * Each distinct presence condition is compiled only once, instead of being
+ * encoded as an ADD for every product. Configurations are encoded once as
+ * bit sets of feature indices, so that checking a presence condition takes
+ * a few word operations.
+ *
+ * Instances are safe for use by multiple threads.
+ */
+public class CompiledPresenceConditions {
+
+    private ExpressionSolver expressionSolver;
+    private ConcurrentMap<String, CompiledFormula> compiled = new ConcurrentHashMap<String, CompiledFormula>();
+
+    public CompiledPresenceConditions(ExpressionSolver expressionSolver) {
+        this.expressionSolver = expressionSolver;
+    }
+
+    /**
+     * Encodes a configuration for use with {@link #isPresent(String, long[])}.
+     *
+     * @param configuration
+     * @throws UnknownFeatureException if some feature is unknown.
+     */
+    public long[] encode(Collection<String> configuration) throws UnknownFeatureException {
+        try {
+            return expressionSolver.encodeConfiguration(configuration);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
+    /**
+     * @param presenceCondition
+     * @param configuration Configuration encoded by {@link #encode(Collection)}.
+     * @return whether the presence condition holds for the configuration.
+     */
+    public boolean isPresent(String presenceCondition, long[] configuration) {
+        return get(presenceCondition).evaluate(configuration);
+    }
+
+    /**
+     * @return the compiled presence condition, which is compiled on first use.
+     * @throws IllegalArgumentException if the presence condition is not a
+     *      valid propositional logic formula.
+     */
+    public CompiledFormula get(String presenceCondition) {
+        return compiled.computeIfAbsent(presenceCondition, this::compile);
+    }
+
+    private CompiledFormula compile(String presenceCondition) {
+        CompiledFormula formula = expressionSolver.compileFormula(presenceCondition);
+        if (formula == null) {
+            throw new IllegalArgumentException("Invalid presence condition: " + presenceCondition);
+        }
+        return formula;
+    }
+
+}
@@ -5,6 +5,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -78,6 +83,43 @@ public class Component<T> {
                 .get();
     }
 
+    /**
+     * Concurrent version of {@link #deriveFromMany(List, DerivationFunction, IsPresent)}.
+     *
+     * Each component is derived on the given executor as soon as all of its
+     * dependencies are, so that independent subtrees are derived at the same
+     * time. The derivation and presence functions must thus be thread-safe.
+     *
+     * @param dependencies Components sorted bottom-up (depended-upon to dependent).
+     * @return the derived value of the last component.
+     */
+    public static <P, A, V> V deriveFromMany(List<Component<A>> dependencies,
+                                             DerivationFunction<P, A, V> derive,
+                                             IsPresent<A, P> isPresent,
+                                             Executor executor) {
+        Map<String, V> derivedModels = new ConcurrentHashMap<String, V>();
+        Map<String, CompletableFuture<V>> derivations = new HashMap<String, CompletableFuture<V>>();
+        CompletableFuture<V> last = null;
+        for (Component<A> component : dependencies) {
+            CompletableFuture<?>[] prerequisites = component.getDependencies().stream()
+                    .map(c -> derivations.get(c.getId()))
+                    .filter(Objects::nonNull)
+                    .toArray(CompletableFuture<?>[]::new);
+            last = CompletableFuture.allOf(prerequisites)
+                    .thenApplyAsync(done -> deriveSingle(component, isPresent, derive, derivedModels),
+                                    executor);
+            derivations.put(component.getId(), last);
+        }
+        try {
+            return last.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     // TODO Candidate!
     private static <P, A, V> V deriveSingle(Component<A> component,
                                             IsPresent<A, P> isPresent,
@@ -0,0 +1,99 @@
+package tool.analyzers.buildingblocks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tool.RDGNode;
+import fdtmc.FDTMC;
+import fdtmc.Transition;
+
+/**
+ * Estimates how long model checking the FDTMC of an RDG node will take,
+ * so that the most expensive models can be dispatched first. Otherwise,
+ * a large model which happens to start last dominates the total time.
+ *
+ * Nodes which have already been model checked are estimated by their last
+ * actual time. The others are estimated by the size (states plus
+ * transitions) of their FDTMCs, scaled by the average time per element
+ * observed so far.
+ */
+public class ModelCheckingCostEstimator {
+    /**
+     * Time per FDTMC element assumed before any model has been checked.
+     * It only matters for reporting, since ordering is then by size alone.
+     */
+    static final double DEFAULT_NANOS_PER_ELEMENT = 100000;
+
+    private Map<String, Long> pastTimes = new HashMap<String, Long>();
+    private long observedElements = 0;
+    private long observedNanos = 0;
+
+    /**
+     * @return the estimated model checking time of the node, in nanoseconds.
+     */
+    public synchronized long estimate(RDGNode node) {
+        Long pastTime = pastTimes.get(node.getId());
+        if (pastTime != null) {
+            return pastTime;
+        }
+        double nanosPerElement = (observedElements > 0) ? observedNanos / (double) observedElements
+                                                        : DEFAULT_NANOS_PER_ELEMENT;
+        return Math.round(getSize(node.getFDTMC()) * nanosPerElement);
+    }
+
+    /**
+     * Records the actual model checking time of a node.
+     */
+    public synchronized void record(RDGNode node, long nanos) {
+        if (!pastTimes.containsKey(node.getId())) {
+            observedElements += getSize(node.getFDTMC());
+            observedNanos += nanos;
+        }
+        pastTimes.put(node.getId(), nanos);
+    }
+
+    /**
+     * @return the estimated model checking times of the given nodes,
+     *      in nanoseconds, indexed by node id.
+     */
+    public Map<String, Long> estimate(List<RDGNode> nodes) {
+        Map<String, Long> estimates = new HashMap<String, Long>();
+        for (RDGNode node : nodes) {
+            estimates.put(node.getId(), estimate(node));
+        }
+        return estimates;
+    }
+
+    /**
+     * @return the given nodes sorted by decreasing estimated cost.
+     */
+    public List<RDGNode> sortByDecreasingCost(List<RDGNode> nodes) {
+        return sortByDecreasingCost(nodes, estimate(nodes));
+    }
+
+    /**
+     * @param estimates estimated costs indexed by node id, as computed by
+     *      {@link #estimate(List)}.
+     * @return the given nodes sorted by decreasing estimated cost.
+     */
+    public static List<RDGNode> sortByDecreasingCost(List<RDGNode> nodes, Map<String, Long> estimates) {
+        List<RDGNode> sorted = new ArrayList<RDGNode>(nodes);
+        sorted.sort(Comparator.comparing((RDGNode node) -> estimates.get(node.getId())).reversed());
+        return sorted;
+    }
+
+    /**
+     * @return the number of states plus the number of transitions.
+     */
+    static int getSize(FDTMC fdtmc) {
+        int size = fdtmc.getStates().size();
+        for (List<Transition> transitions : fdtmc.getTransitions().values()) {
+            size += (transitions != null) ? transitions.size() : 1;
+        }
+        return size;
+    }
+
+}
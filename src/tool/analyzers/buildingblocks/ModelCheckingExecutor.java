@@ -0,0 +1,267 @@
+package tool.analyzers.buildingblocks;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Dedicated executor for model checking tasks.
+ *
+ * Model checking tasks spend most of their time blocked waiting for an
+ * external process, so the number of tasks run at once is given by what
+ * the model checker (and the machine's memory) can sustain, instead of by
+ * the number of cores, as in the common fork-join pool.
+ *
+ * Each task may be given a deadline, after which it is interrupted. The
+ * first task to fail (or to miss its deadline) causes the remaining ones
+ * of the same batch to be cancelled.
+ */
+public class ModelCheckingExecutor implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ModelCheckingExecutor.class.getName());
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService deadlineTimer;
+    private final long taskTimeoutMillis;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicLong cancelledTasks = new AtomicLong();
+    private final AtomicLong timedOutTasks = new AtomicLong();
+
+    /**
+     * @param maxConcurrency Maximum number of tasks to be run at once.
+     * @param taskTimeoutMillis Maximum time a task may run before being
+     *      interrupted. If 0, tasks may run indefinitely.
+     */
+    public ModelCheckingExecutor(int maxConcurrency, long taskTimeoutMillis) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + maxConcurrency);
+        }
+        this.taskTimeoutMillis = taskTimeoutMillis;
+        this.executor = new ThreadPoolExecutor(maxConcurrency,
+                                               maxConcurrency,
+                                               60, TimeUnit.SECONDS,
+                                               new LinkedBlockingQueue<Runnable>(),
+                                               new DaemonThreadFactory("model-checker-"));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.deadlineTimer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("model-checker-deadline-"));
+    }
+
+    /**
+     * Runs all tasks and waits for their results. Tasks are started in
+     * the given order.
+     *
+     * @return the result of each task, in the same order as the tasks.
+     * @throws CompletionException if some task failed or missed its
+     *      deadline (in which case the cause is a {@link TimeoutException}),
+     *      or if this executor was closed. Tasks which had not yet finished
+     *      are cancelled.
+     */
+    public <R> List<R> invokeAll(List<? extends Callable<R>> tasks) {
+        BlockingQueue<Task<R>> finished = new LinkedBlockingQueue<Task<R>>();
+        List<Task<R>> submitted = new ArrayList<Task<R>>(tasks.size());
+        for (Callable<R> callable : tasks) {
+            Task<R> task = new Task<R>(callable, finished);
+            submitted.add(task);
+            maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // This executor has been closed.
+                queueDepth.decrementAndGet();
+                cancelAll(submitted);
+                throw new CompletionException(e);
+            }
+        }
+
+        List<R> results = new ArrayList<R>(submitted.size());
+        try {
+            for (int i = 0; i < submitted.size(); i++) {
+                Task<R> task = finished.take();
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    cancelAll(submitted);
+                    throw new CompletionException(e.getCause());
+                } catch (CancellationException e) {
+                    cancelAll(submitted);
+                    if (!task.deadlineExpired.get()) {
+                        // Cancelled by closing this executor.
+                        throw new CompletionException(e);
+                    }
+                    throw new CompletionException(new TimeoutException("Model checking task exceeded its deadline of "
+                                                                       + taskTimeoutMillis + " ms"));
+                }
+            }
+            for (Task<R> task : submitted) {
+                results.add(task.get());
+            }
+        } catch (InterruptedException e) {
+            cancelAll(submitted);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            // Unreachable: every task has already finished successfully.
+            throw new CompletionException(e.getCause());
+        }
+        return results;
+    }
+
+    private <R> void cancelAll(List<Task<R>> tasks) {
+        int cancelled = 0;
+        for (Task<R> task : tasks) {
+            if (task.cancel(true)) {
+                cancelled++;
+            }
+        }
+        if (cancelled > 0) {
+            LOGGER.warning("Cancelled " + cancelled + " pending model checking tasks after a failure.");
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    public long getFailedTasks() {
+        return failedTasks.get();
+    }
+
+    public long getCancelledTasks() {
+        return cancelledTasks.get();
+    }
+
+    public long getTimedOutTasks() {
+        return timedOutTasks.get();
+    }
+
+    public void printStats(PrintStream out) {
+        out.println("Model checking tasks completed: " + getCompletedTasks());
+        out.println("Model checking tasks failed: " + getFailedTasks());
+        out.println("Model checking tasks timed out: " + getTimedOutTasks());
+        out.println("Model checking tasks cancelled: " + getCancelledTasks());
+        out.println("Maximum model checking queue depth: " + getMaxQueueDepth());
+    }
+
+    /**
+     * Interrupts running tasks and cancels queued ones, so that callers
+     * waiting for their results fail instead of waiting forever.
+     */
+    @Override
+    public void close() {
+        List<Runnable> dropped = executor.shutdownNow();
+        queueDepth.addAndGet(-dropped.size());
+        for (Runnable task : dropped) {
+            ((Task<?>) task).cancel(false);
+        }
+        deadlineTimer.shutdownNow();
+    }
+
+    /**
+     * Task which keeps track of queue metrics and of its own deadline.
+     */
+    private class Task<R> extends FutureTask<R> {
+        private final BlockingQueue<Task<R>> finished;
+        /**
+         * Set by the deadline right before cancelling the task. It only
+         * means the task timed out if the cancellation succeeds, i.e., if
+         * the task had not completed in the meantime.
+         */
+        private final AtomicBoolean deadlineExpired = new AtomicBoolean();
+
+        Task(Callable<R> callable, BlockingQueue<Task<R>> finished) {
+            super(callable);
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            queueDepth.decrementAndGet();
+            if (isDone()) {
+                return;
+            }
+            ScheduledFuture<?> deadline = null;
+            if (taskTimeoutMillis > 0) {
+                deadline = deadlineTimer.schedule(() -> {
+                    deadlineExpired.set(true);
+                    cancel(true);
+                }, taskTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            try {
+                super.run();
+            } finally {
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            // The outcome is given by the state of the future: a task which
+            // completed just as its deadline expired keeps its result.
+            if (isCancelled() && deadlineExpired.get()) {
+                timedOutTasks.incrementAndGet();
+            } else if (isCancelled()) {
+                cancelledTasks.incrementAndGet();
+            } else {
+                try {
+                    get();
+                    completedTasks.incrementAndGet();
+                } catch (InterruptedException | ExecutionException e) {
+                    failedTasks.incrementAndGet();
+                }
+            }
+            finished.add(this);
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
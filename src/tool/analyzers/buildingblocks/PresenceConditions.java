@@ -7,16 +7,23 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Logger;
 
 import tool.UnknownFeatureException;
+import expressionsolver.CompiledExpression;
 import expressionsolver.ExpressionSolver;
 
 public class PresenceConditions {
+    private static final Logger LOGGER = Logger.getLogger(PresenceConditions.class.getName());
 
+    /**
+     * Checks a presence condition by encoding it as an ADD. When presence
+     * conditions are checked for many configurations, {@link CompiledPresenceConditions}
+     * is much faster.
+     */
     public static boolean isPresent(String presenceCondition, Collection<String> configuration, ExpressionSolver expressionSolver) {
-        ADD encodedPresenceCondition = expressionSolver.encodeFormula(presenceCondition);
         Double presenceValue;
-        try {
+        try (ADD encodedPresenceCondition = expressionSolver.encodeFormula(presenceCondition)) {
             presenceValue = encodedPresenceCondition.eval(configuration.toArray(new String[configuration.size()]));
         } catch (UnrecognizedVariableException e) {
             throw new UnknownFeatureException(e.getVariableName());
@@ -52,4 +59,52 @@ public class PresenceConditions {
         return classes;
     }
 
+    /**
+     * Lines up the presence conditions of the equivalence classes with the
+     * variable slots of a compiled expression, so that the values of its
+     * variables can be computed for a configuration with no lookups by name.
+     *
+     * @param expression Expression whose variables are equivalence classes'
+     *          identifiers.
+     * @param eqClassToPC Mapping from equivalence classes' identifiers to
+     *          the respective presence conditions.
+     * @return the presence condition of each variable slot, or {@code null}
+     *          for variables which are not equivalence classes (and are
+     *          thus taken to be 0).
+     */
+    public static String[] alignWithSlots(CompiledExpression expression, Map<String, String> eqClassToPC) {
+        List<String> variables = expression.getVariables();
+        String[] slotPresenceConditions = new String[variables.size()];
+        for (int i = 0; i < slotPresenceConditions.length; i++) {
+            slotPresenceConditions[i] = eqClassToPC.get(variables.get(i));
+            if (slotPresenceConditions[i] == null) {
+                LOGGER.warning("No presence condition for variable <" + variables.get(i) + ">");
+            }
+        }
+        return slotPresenceConditions;
+    }
+
+    /**
+     * Evaluates an expression over presence conditions' equivalence classes
+     * for a given configuration, i.e., with each variable set to 1 if the
+     * respective presence condition holds and to 0 otherwise.
+     *
+     * @param expression
+     * @param slotPresenceConditions Presence conditions lined up with the
+     *          expression's slots by {@link #alignWithSlots(CompiledExpression, Map)}.
+     * @param configuration
+     * @param presenceConditions Cache of compiled presence conditions.
+     * @throws UnknownFeatureException if some feature is unknown.
+     */
+    public static double evaluate(CompiledExpression expression, String[] slotPresenceConditions, Collection<String> configuration, CompiledPresenceConditions presenceConditions) throws UnknownFeatureException {
+        long[] encodedConfiguration = presenceConditions.encode(configuration);
+        double[] values = new double[slotPresenceConditions.length];
+        for (int i = 0; i < values.length; i++) {
+            if (slotPresenceConditions[i] != null) {
+                values[i] = presenceConditions.isPresent(slotPresenceConditions[i], encodedConfiguration) ? 1.0 : 0.0;
+            }
+        }
+        return expression.evaluate(values);
+    }
+
 }
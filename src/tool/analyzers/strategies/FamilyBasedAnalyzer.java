@@ -1,6 +1,7 @@
 package tool.analyzers.strategies;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
 
 import java.util.List;
@@ -74,30 +75,35 @@ public class FamilyBasedAnalyzer {
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
         timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
-        // Lift
-        Expression<ADD> liftedExpression = helper.lift(expression);
-
-        List<String> presenceConditions = dependencies.stream()
-                .map(RDGNode::getPresenceCondition)
-                .collect(Collectors.toList());
-        Map<String, String> pcEquivalence = PresenceConditions.toEquivalenceClasses(presenceConditions);
-        Map<String, String> eqClassToPC = pcEquivalence.entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getValue(),
-                                          e -> e.getKey(),
-                                          (a, b) -> a));
-
-        Map<String, ADD> values = eqClassToPC.entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getKey(),
-                                          e -> expressionSolver.encodeFormula(e.getValue())));
-
-        // Sigma'_v
-        ADD reliability = liftedExpression.solve(values);
-        ADD result = featureModel.times(reliability);
-
+        ADD result;
+        ADDScope solvingScope = expressionSolver.openScope();
+        try {
+            // Lift
+            Expression<ADD> liftedExpression = helper.lift(expression);
+
+            List<String> presenceConditions = dependencies.stream()
+                    .map(RDGNode::getPresenceCondition)
+                    .collect(Collectors.toList());
+            Map<String, String> pcEquivalence = PresenceConditions.toEquivalenceClasses(presenceConditions);
+            Map<String, String> eqClassToPC = pcEquivalence.entrySet().stream()
+                    .collect(Collectors.toMap(e -> e.getValue(),
+                                              e -> e.getKey(),
+                                              (a, b) -> a));
+
+            Map<String, ADD> values = eqClassToPC.entrySet().stream()
+                    .collect(Collectors.toMap(e -> e.getKey(),
+                                              e -> expressionSolver.encodeFormula(e.getValue())));
+
+            // Sigma'_v
+            ADD reliability = liftedExpression.solve(values);
+            result = solvingScope.keep(featureModel.times(reliability));
+        } finally {
+            solvingScope.close();
+        }
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         LOGGER.info("Formula evaluation ok...");
 
-        return new ADDReliabilityResults(result);
+        return new ADDReliabilityResults(result, solvingScope);
     }
 
 }
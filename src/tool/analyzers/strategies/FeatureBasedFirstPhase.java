@@ -1,16 +1,20 @@
 package tool.analyzers.strategies;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import paramwrapper.ParametricModelChecker;
 import tool.Analyzer;
 import tool.RDGNode;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.ModelCheckingCostEstimator;
+import tool.analyzers.buildingblocks.ModelCheckingExecutor;
 import tool.stats.IFormulaCollector;
 import fdtmc.FDTMC;
 
@@ -22,6 +26,8 @@ public class FeatureBasedFirstPhase {
 
     ParametricModelChecker modelChecker;
     private IFormulaCollector formulaCollector;
+    private ModelCheckingExecutor executor;
+    private ModelCheckingCostEstimator costEstimator = new ModelCheckingCostEstimator();
 
     public FeatureBasedFirstPhase(ParametricModelChecker modelChecker,
                                   IFormulaCollector formulaCollector) {
@@ -29,6 +35,16 @@ public class FeatureBasedFirstPhase {
         this.formulaCollector = formulaCollector;
     }
 
+    /**
+     * Sets the executor on which the models of the RDG nodes are checked
+     * under the PARALLEL concurrency strategy. If none is set, the common
+     * fork-join pool is used, which limits the number of simultaneous
+     * model checker runs to the number of cores.
+     */
+    public void setExecutor(ModelCheckingExecutor executor) {
+        this.executor = executor;
+    }
+
     /**
      * Computes the reliability expression for the model of the given RDG nodes,
      * returning them in a map which is conveniently sorted in the same order as
@@ -42,15 +58,21 @@ public class FeatureBasedFirstPhase {
      * @return
      */
     public List<Component<String>> getReliabilityExpressions(List<RDGNode> nodes, ConcurrencyStrategy concurrencyStrategy) {
+        Map<String, String> expressionsByNode;
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Performing model checking in parallel for each FDTMC.");
+            // Expressions can be calculated concurrently. The most expensive
+            // models are dispatched first, so that none of them is left to
+            // start when all others are done...
+            Map<String, Long> estimates = costEstimator.estimate(nodes);
+            List<RDGNode> schedule = ModelCheckingCostEstimator.sortByDecreasingCost(nodes, estimates);
+            expressionsByNode = (executor != null) ? getReliabilityExpressionsWithExecutor(schedule, estimates)
+                                                   : getReliabilityExpressionsInCommonPool(schedule, estimates);
+        } else {
+            expressionsByNode = nodes.stream()
+                    .collect(Collectors.toMap(RDGNode::getId,
+                                              node -> getReliabilityExpression(node, costEstimator.estimate(node))));
         }
-        // Expressions can be calculated concurrently...
-        Stream<RDGNode> expressionStream = (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) ? nodes.parallelStream()
-                                                                                                 : nodes.stream();
-        Map<String, String> expressionsByNode = expressionStream
-            .collect(Collectors.toMap(RDGNode::getId,
-                                      this::getReliabilityExpression));
 
         // ... but then we need to recover ordering information
         // so that we can format the response accordingly.
@@ -60,17 +82,55 @@ public class FeatureBasedFirstPhase {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Tasks are started in the order of the given list.
+     */
+    private Map<String, String> getReliabilityExpressionsWithExecutor(List<RDGNode> schedule, Map<String, Long> estimates) {
+        List<Callable<String>> tasks = schedule.stream()
+                .map(node -> (Callable<String>) () -> getReliabilityExpression(node, estimates.get(node.getId())))
+                .collect(Collectors.toList());
+        List<String> expressions = executor.invokeAll(tasks);
+
+        Map<String, String> expressionsByNode = new HashMap<String, String>();
+        for (int i = 0; i < schedule.size(); i++) {
+            expressionsByNode.put(schedule.get(i).getId(), expressions.get(i));
+        }
+        return expressionsByNode;
+    }
+
+    /**
+     * Unlike a parallel stream, which splits its source arbitrarily, this
+     * submits tasks to the common pool in the order of the given list.
+     */
+    private Map<String, String> getReliabilityExpressionsInCommonPool(List<RDGNode> schedule, Map<String, Long> estimates) {
+        List<CompletableFuture<String>> futures = schedule.stream()
+                .map(node -> CompletableFuture.supplyAsync(() -> getReliabilityExpression(node, estimates.get(node.getId()))))
+                .collect(Collectors.toList());
+
+        Map<String, String> expressionsByNode = new HashMap<String, String>();
+        for (int i = 0; i < schedule.size(); i++) {
+            expressionsByNode.put(schedule.get(i).getId(), futures.get(i).join());
+        }
+        return expressionsByNode;
+    }
+
     /**
      * Computes the reliability expression for the model of a given RDG node.
      *
      * @param node
+     * @param estimatedTime the model checking time estimated when the node
+     *      was scheduled, in nanoseconds.
      * @return an algebraic expression on the variables present in the node's model.
      */
-    private String getReliabilityExpression(RDGNode node) {
+    private String getReliabilityExpression(RDGNode node, long estimatedTime) {
         FDTMC model = node.getFDTMC();
+        long startTime = System.nanoTime();
         String reliabilityExpression = modelChecker.getReliability(model);
+        long elapsedTime = System.nanoTime() - startTime;
+        costEstimator.record(node, elapsedTime);
 
         formulaCollector.collectFormula(node, reliabilityExpression);
+        formulaCollector.collectModelCheckingTime(node, estimatedTime, elapsedTime);
         LOGGER.fine("Reliability expression for "+ node.getId() + " -> " + reliabilityExpression);
         return reliabilityExpression;
     }
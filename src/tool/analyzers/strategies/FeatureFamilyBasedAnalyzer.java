@@ -1,9 +1,14 @@
 package tool.analyzers.strategies;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import paramwrapper.ParametricModelChecker;
@@ -18,6 +23,8 @@ import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.FamilyBasedHelper;
+import tool.analyzers.buildingblocks.IsPresent;
+import tool.analyzers.buildingblocks.ModelCheckingExecutor;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
@@ -62,13 +69,23 @@ public class FeatureFamilyBasedAnalyzer {
         this.helper = new FamilyBasedHelper(expressionSolver);
 
         AssetProcessor<Expression<ADD>, ADD> evalAndPrune = (expr, values) -> {
-            return this.pruningStrategy.pruneInvalidConfigurations(null,
-                                                                   expr.solve(values),
-                                                                   featureModel);
+            try (ADDScope scope = jadd.openScope()) {
+                return scope.keep(this.pruningStrategy.pruneInvalidConfigurations(null,
+                                                                                  expr.solve(values),
+                                                                                  featureModel));
+            }
+        };
+        DerivationFunction<ADD, Expression<ADD>, ADD> solveAndChoose = DerivationFunction.abstractDerivation(ADD::ite,
+                                                                                                       evalAndPrune,
+                                                                                                       jadd.makeConstant(1.0));
+        // Presence conditions are not needed once the choice is made.
+        solve = (presence, expr, values) -> {
+            try {
+                return solveAndChoose.apply(presence, expr, values);
+            } finally {
+                presence.close();
+            }
         };
-        solve = DerivationFunction.abstractDerivation(ADD::ite,
-                                                      evalAndPrune,
-                                                      jadd.makeConstant(1.0));
     }
 
     /**
@@ -93,20 +110,36 @@ public class FeatureFamilyBasedAnalyzer {
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
         timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
-        // Lift
-        List<Component<Expression<ADD>>> liftedExpressions = expressions.stream()
-                .map(helper::lift)
-                .collect(Collectors.toList());
-        // Sigma_v
-        ADD reliability = solveFromMany(liftedExpressions);
-        ADD result = featureModel.times(reliability);
+        ADD result;
+        // Every intermediate ADD (presence conditions, lifted constants and
+        // partial reliabilities) is released once the root one is computed.
+        // Those derived by other threads are not owned by the scope.
+        Collection<ADD> derivedReliabilities = new ConcurrentLinkedQueue<ADD>();
+        ADDScope solvingScope = jadd.openScope();
+        ExecutorService solvingExecutor = (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) ? makeSolvingExecutor() : null;
+        try {
+            // Lift
+            List<Component<Expression<ADD>>> liftedExpressions = expressions.stream()
+                    .map(helper::lift)
+                    .collect(Collectors.toList());
+            // Sigma_v
+            ADD reliability = solveFromMany(liftedExpressions, solvingExecutor, derivedReliabilities);
+            result = solvingScope.keep(featureModel.times(reliability));
+        } finally {
+            derivedReliabilities.forEach(ADD::close);
+            solvingScope.close();
+            if (solvingExecutor != null) {
+                // The workers free their managers as they terminate.
+                solvingExecutor.shutdown();
+            }
+        }
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
 
         if (dotOutput != null) {
             generateDotFile(result, dotOutput);
         }
 
-        return new ADDReliabilityResults(result);
+        return new ADDReliabilityResults(result, solvingScope);
     }
 
     /**
@@ -135,10 +168,55 @@ public class FeatureFamilyBasedAnalyzer {
         jadd.dumpDot("Family Reliability", familyReliability, outputFile);
     }
 
-    private ADD solveFromMany(List<Component<Expression<ADD>>> dependencies) {
+    /**
+     * @param solvingExecutor Threads on which independent subtrees of the
+     *          RDG are solved, or null to solve them sequentially.
+     * @param derived Collects the reliabilities of all components.
+     */
+    private ADD solveFromMany(List<Component<Expression<ADD>>> dependencies,
+                              ExecutorService solvingExecutor,
+                              Collection<ADD> derived) {
+        DerivationFunction<ADD, Expression<ADD>, ADD> solveAndCollect = (presence, expr, values) -> {
+            ADD reliability = solve.apply(presence, expr, values);
+            derived.add(reliability);
+            return reliability;
+        };
+        IsPresent<Expression<ADD>, ADD> isPresent = c -> expressionSolver.encodeFormula(c.getPresenceCondition());
+        if (solvingExecutor != null) {
+            return Component.deriveFromMany(dependencies,
+                                            solveAndCollect,
+                                            isPresent,
+                                            solvingExecutor);
+        }
         return Component.deriveFromMany(dependencies,
-                                        solve,
-                                        c -> expressionSolver.encodeFormula(c.getPresenceCondition()));
+                                        solveAndCollect,
+                                        isPresent);
+    }
+
+    /**
+     * Each thread holds its own ADD manager, which is freed when the thread
+     * terminates, so the threads are kept alive for a whole analysis.
+     */
+    private ExecutorService makeSolvingExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                            runnable -> {
+                                                Thread thread = new Thread(() -> {
+                                                    try {
+                                                        runnable.run();
+                                                    } finally {
+                                                        jadd.releaseCurrentManager();
+                                                    }
+                                                }, "expression-solver");
+                                                thread.setDaemon(true);
+                                                return thread;
+                                            });
+    }
+
+    /**
+     * @see FeatureBasedFirstPhase#setExecutor(ModelCheckingExecutor)
+     */
+    public void setModelCheckingExecutor(ModelCheckingExecutor executor) {
+        this.firstPhase.setExecutor(executor);
     }
 
 }
@@ -14,19 +14,20 @@ import tool.RDGNode;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.MapBasedReliabilityResults;
 import tool.analyzers.buildingblocks.Component;
+import tool.analyzers.buildingblocks.CompiledPresenceConditions;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.ModelCheckingExecutor;
 import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
-import expressionsolver.Expression;
+import expressionsolver.CompiledExpression;
 import expressionsolver.ExpressionSolver;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 /**
  * Orchestrator of feature-family-product-based analyses.
  */
@@ -34,6 +35,7 @@ public class FeatureFamilyProductBasedAnalyzer {
 
     private static final Logger LOGGER = Logger.getLogger(FamilyProductBasedAnalyzer.class.getName());
 	private ExpressionSolver expressionSolver;
+	private CompiledPresenceConditions compiledPresenceConditions;
 	private FeatureBasedFirstPhase firstPhase;
 	private ITimeCollector timeCollector;
 	private IFormulaCollector formulaCollector;
@@ -44,6 +46,7 @@ public class FeatureFamilyProductBasedAnalyzer {
 			ITimeCollector timeCollector,
 			IFormulaCollector formulaCollector) {
 		this.expressionSolver = new ExpressionSolver(jadd);
+		this.compiledPresenceConditions = new CompiledPresenceConditions(expressionSolver);
 		this.firstPhase = new FeatureBasedFirstPhase(modelChecker, formulaCollector);
 		this.timeCollector = timeCollector;
 		this.formulaCollector = formulaCollector;
@@ -82,24 +85,17 @@ public class FeatureFamilyProductBasedAnalyzer {
 		
 		expression = replaceVariables(expression, varToPC, pcEquivalence);
 
-		Map<Collection<String>, Double> results;
-
-        if (concurrencyStrategy == ConcurrencyStrategy.SEQUENTIAL) {
-            Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(parsedExpression,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
-        } else {
-        	String expressionCopy = expression;
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(expressionCopy,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
-        }
-		
+		// Compiled once: the evaluator is immutable, so it is shared by all threads.
+		CompiledExpression compiledExpression = expressionSolver.compileExpression(expression);
+		String[] slotPresenceConditions = PresenceConditions.alignWithSlots(compiledExpression, eqClassToPC);
+		Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(
+		        configuration -> PresenceConditions.evaluate(compiledExpression,
+		                                                     slotPresenceConditions,
+		                                                     configuration,
+		                                                     compiledPresenceConditions),
+		        configurations,
+		        concurrencyStrategy);
+
         LOGGER.info("Formulae evaluation ok...");
         timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
 		return new MapBasedReliabilityResults(results);
@@ -147,25 +143,16 @@ public class FeatureFamilyProductBasedAnalyzer {
 		return String.format("(((%s)*(%s)) + ((1-%s)*(%s)))", var, exp, var, alt);
 	}
 
-	private Double evaluateSingle(Expression<Double> expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
-		Function<Map.Entry<String, String>, Boolean> isPresent = e -> PresenceConditions.isPresent(e.getValue(),
-				configuration,
-				expressionSolver);
-		Map<String, Double> values = eqClassToPC.entrySet().stream()
-				.collect(Collectors.toMap(e -> e.getKey(),
-						isPresent.andThen(present -> present ? 1.0 : 0.0)));
-
-		return expression.solve(values);
-
-	}
-
-    private Double evaluateSingle(String expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
-        Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
-        return evaluateSingle(parsedExpression, configuration, eqClassToPC);
-    }
-
 	public static String substitute(String var, String subs, String exp) {
 		String newExp = exp.replaceAll("\\b"+var+"\\b", subs);
 		return newExp;
 	}
+
+	/**
+	 * @see FeatureBasedFirstPhase#setExecutor(ModelCheckingExecutor)
+	 */
+	public void setModelCheckingExecutor(ModelCheckingExecutor executor) {
+		this.firstPhase.setExecutor(executor);
+	}
+
 }
\ No newline at end of file
@@ -14,11 +14,12 @@ import tool.RDGNode;
 import tool.UnknownFeatureException;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.MapBasedReliabilityResults;
+import tool.analyzers.buildingblocks.CompiledPresenceConditions;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.IfOperator;
-import tool.analyzers.buildingblocks.PresenceConditions;
+import tool.analyzers.buildingblocks.ModelCheckingExecutor;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
@@ -32,6 +33,7 @@ public class FeatureProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FeatureProductBasedAnalyzer.class.getName());
 
     private ExpressionSolver expressionSolver;
+    private CompiledPresenceConditions compiledPresenceConditions;
     private FeatureBasedFirstPhase firstPhase;
 
     /**
@@ -46,6 +48,7 @@ public class FeatureProductBasedAnalyzer {
                                        ITimeCollector timeCollector,
                                        IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.compiledPresenceConditions = new CompiledPresenceConditions(expressionSolver);
 
         this.timeCollector = timeCollector;
 
@@ -80,8 +83,9 @@ public class FeatureProductBasedAnalyzer {
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Evaluating all expressions for each product in parallel.");
         }
-        Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
-                                                                                                                  configuration,
+        // Each configuration is encoded once, and then shared by the
+        // presence conditions of all RDG nodes.
+        Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(compiledPresenceConditions.encode(configuration),
                                                                                                                   expressions),
                                                                                   configurations,
                                                                                   concurrencyStrategy);
@@ -90,12 +94,21 @@ public class FeatureProductBasedAnalyzer {
         return new MapBasedReliabilityResults(results);
     }
 
-    private Double evaluateSingle(RDGNode node, Collection<String> configuration, List<Component<String>> expressions) {
+    /**
+     * @param encodedConfiguration Configuration encoded by {@link CompiledPresenceConditions#encode(Collection)}.
+     */
+    private Double evaluateSingle(long[] encodedConfiguration, List<Component<String>> expressions) {
         return Component.deriveFromMany(expressions,
                                         solve,
-                                        c -> PresenceConditions.isPresent(c.getPresenceCondition(),
-                                                                          configuration,
-                                                                          expressionSolver));
+                                        c -> compiledPresenceConditions.isPresent(c.getPresenceCondition(),
+                                                                                  encodedConfiguration));
+    }
+
+    /**
+     * @see FeatureBasedFirstPhase#setExecutor(ModelCheckingExecutor)
+     */
+    public void setModelCheckingExecutor(ModelCheckingExecutor executor) {
+        this.firstPhase.setExecutor(executor);
     }
 
 }
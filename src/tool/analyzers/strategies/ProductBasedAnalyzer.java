@@ -8,17 +8,19 @@ import java.util.Map;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
+import paramwrapper.IModelCollector;
+import paramwrapper.NumericModelChecker;
 import paramwrapper.ParametricModelChecker;
 import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.MapBasedReliabilityResults;
+import tool.analyzers.buildingblocks.CompiledPresenceConditions;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.IfOperator;
-import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
@@ -34,7 +36,9 @@ public class ProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(ProductBasedAnalyzer.class.getName());
 
     private ExpressionSolver expressionSolver;
+    private CompiledPresenceConditions compiledPresenceConditions;
     ParametricModelChecker modelChecker;
+    private NumericModelChecker numericModelChecker;
     /**
      * LAMBDA
      */
@@ -49,7 +53,9 @@ public class ProductBasedAnalyzer {
                                 ITimeCollector timeCollector,
                                 IFormulaCollector formulaCollector) {
         this.expressionSolver = new ExpressionSolver(jadd);
+        this.compiledPresenceConditions = new CompiledPresenceConditions(expressionSolver);
         this.modelChecker = modelChecker;
+        this.numericModelChecker = new NumericModelChecker();
 
         this.timeCollector = timeCollector;
         this.formulaCollector = formulaCollector;
@@ -89,6 +95,13 @@ public class ProductBasedAnalyzer {
         List<Component<FDTMC>> models = RDGNode.toComponentList(dependencies);
         // Lambda folding
         FDTMC rootModel = deriveFromMany(models, configuration);
+        // Fully derived models usually have no parameters left, in which
+        // case there is no need for symbolic model checking.
+        if (NumericModelChecker.isParameterFree(rootModel)) {
+            double reliability = numericModelChecker.getReliability(rootModel);
+            formulaCollector.collectFormula(node, Double.toString(reliability));
+            return reliability;
+        }
         // Alpha
         String reliabilityExpression = modelChecker.getReliability(rootModel);
         formulaCollector.collectFormula(node, reliabilityExpression);
@@ -96,12 +109,20 @@ public class ProductBasedAnalyzer {
         return expressionSolver.solveExpression(reliabilityExpression);
     }
 
+    /**
+     * Sets the collector of the statistics of parameter-free models, which
+     * are model checked numerically instead of by the model checker.
+     */
+    public void setModelCollector(IModelCollector modelCollector) {
+        this.numericModelChecker = new NumericModelChecker(modelCollector);
+    }
+
     private FDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Collection<String> configuration) {
+        long[] encodedConfiguration = compiledPresenceConditions.encode(configuration);
         return Component.deriveFromMany(dependencies,
                                         derive,
-                                        c -> PresenceConditions.isPresent(c.getPresenceCondition(),
-                                                                          configuration,
-                                                                          expressionSolver));
+                                        c -> compiledPresenceConditions.isPresent(c.getPresenceCondition(),
+                                                                                  encodedConfiguration));
     }
 
     private FDTMC trivialFdtmc() {
@@ -0,0 +1,150 @@
+package tool.featuremodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import tool.ordering.Clauses;
+
+/**
+ * Conjunct of a feature model in conjunctive normal form.
+ *
+ * Most conjuncts are disjunctions of literals (i.e., proper CNF clauses),
+ * which can be encoded without a parser. Any other conjunct is kept as an
+ * opaque formula written with Java logical operators.
+ */
+public final class Clause {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z_0-9]*");
+
+    private final List<String> variables;
+    private final boolean[] negated;
+    private final String formula;
+
+    private Clause(List<String> variables, boolean[] negated, String formula) {
+        this.variables = Collections.unmodifiableList(variables);
+        this.negated = negated;
+        this.formula = formula;
+    }
+
+    /**
+     * @param variables Variable of each literal.
+     * @param negated Whether each literal is negated.
+     */
+    public static Clause ofLiterals(List<String> variables, boolean[] negated) {
+        if (variables.size() != negated.length) {
+            throw new IllegalArgumentException("Expected " + variables.size()
+                    + " signs, but got " + negated.length);
+        }
+        return new Clause(new ArrayList<String>(variables), negated.clone(), null);
+    }
+
+    /**
+     * Parses a conjunct written with Java logical operators, such as
+     * {@code (!A || B)}. If it is not a disjunction of literals, it is kept
+     * as an opaque formula.
+     *
+     * @return the clause, or {@code null} if the text is blank.
+     */
+    public static Clause parse(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        String disjunction = stripParentheses(trimmed);
+        List<String> variables = new ArrayList<String>();
+        List<Boolean> signs = new ArrayList<Boolean>();
+        for (String literal : disjunction.split("\\|\\|", -1)) {
+            String atom = stripParentheses(literal.trim());
+            boolean negative = false;
+            while (atom.startsWith("!")) {
+                negative = !negative;
+                atom = stripParentheses(atom.substring(1).trim());
+            }
+            if (!IDENTIFIER.matcher(atom).matches() || Clauses.variablesOf(atom).isEmpty()) {
+                // Constants and nested operators are left to the parser.
+                return new Clause(Clauses.variablesOf(trimmed), null, trimmed);
+            }
+            variables.add(atom);
+            signs.add(negative);
+        }
+        boolean[] negated = new boolean[signs.size()];
+        for (int i = 0; i < negated.length; i++) {
+            negated[i] = signs.get(i);
+        }
+        return new Clause(variables, negated, null);
+    }
+
+    /**
+     * Removes parentheses which enclose the whole expression.
+     */
+    private static String stripParentheses(String expression) {
+        while (expression.startsWith("(") && closingParenthesis(expression) == expression.length() - 1) {
+            expression = expression.substring(1, expression.length() - 1).trim();
+        }
+        return expression;
+    }
+
+    private static int closingParenthesis(String expression) {
+        int depth = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether this is a disjunction of literals, as opposed to an
+     *      opaque formula.
+     */
+    public boolean isDisjunctionOfLiterals() {
+        return formula == null;
+    }
+
+    /**
+     * @return the variables of the literals, in order (possibly repeated),
+     *      or the distinct variables of an opaque formula.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return whether the i-th literal is negated.
+     */
+    public boolean isNegated(int i) {
+        return negated[i];
+    }
+
+    /**
+     * @return the clause written with Java logical operators.
+     */
+    @Override
+    public String toString() {
+        if (formula != null) {
+            return formula;
+        } else if (variables.isEmpty()) {
+            return "false";
+        }
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < variables.size(); i++) {
+            if (i > 0) {
+                builder.append(" || ");
+            }
+            if (negated[i]) {
+                builder.append('!');
+            }
+            builder.append(variables.get(i));
+        }
+        return builder.append(')').toString();
+    }
+
+}
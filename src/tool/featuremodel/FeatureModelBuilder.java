@@ -0,0 +1,257 @@
+package tool.featuremodel;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import expressionsolver.ExpressionSolver;
+
+/**
+ * Encodes a feature model as a 0,1-ADD, clause by clause.
+ *
+ * Conjoining the clauses in the order they are written (which is what
+ * parsing the whole feature model as one formula amounts to) produces a
+ * left-deep chain of conjunctions, whose intermediate results can be much
+ * larger than the final ADD. Instead, clauses are sorted by the ADD levels
+ * of their variables, so that clauses over neighboring variables are
+ * conjoined first, and then combined in a balanced tree of conjunctions.
+ * At most a logarithmic number of partial conjunctions are alive at once.
+ */
+public class FeatureModelBuilder {
+
+    private final JADD jadd;
+    private final ExpressionSolver expressionSolver;
+
+    private int peakNodeCount;
+    private long peakLiveNodeCount;
+
+    public FeatureModelBuilder(JADD jadd) {
+        this.jadd = jadd;
+        this.expressionSolver = new ExpressionSolver(jadd);
+    }
+
+    /**
+     * Partial conjunction of clauses, along with the height of the
+     * conjunction tree built so far.
+     */
+    private static class Conjunction {
+        final ADD function;
+        final int height;
+
+        Conjunction(ADD function, int height) {
+            this.function = function;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Encodes the conjunction of the given clauses. Variables which do not
+     * exist yet are created in order of appearance, below the existing ones.
+     *
+     * @return the feature model's ADD, or {@code null} if some clause
+     *      cannot be parsed.
+     */
+    public ADD build(List<Clause> clauses) {
+        peakNodeCount = 0;
+        peakLiveNodeCount = 0;
+        for (Clause clause : clauses) {
+            for (String variable : clause.getVariables()) {
+                jadd.getVariable(variable);
+            }
+        }
+
+        Deque<Conjunction> stack = new ArrayDeque<Conjunction>();
+        for (Clause clause : schedule(clauses)) {
+            ADD encoded = encode(clause);
+            if (encoded == null) {
+                for (Conjunction conjunction : stack) {
+                    conjunction.function.close();
+                }
+                return null;
+            }
+            Conjunction conjunction = new Conjunction(encoded, 0);
+            // Conjunctions of the same height are merged as soon as possible,
+            // as in a bottom-up merge sort.
+            while (!stack.isEmpty() && stack.peek().height == conjunction.height) {
+                Conjunction previous = stack.pop();
+                conjunction = new Conjunction(conjoin(previous.function, conjunction.function),
+                                              conjunction.height + 1);
+            }
+            stack.push(conjunction);
+        }
+
+        if (stack.isEmpty()) {
+            return jadd.makeConstant(1);
+        }
+        ADD result = stack.pop().function;
+        while (!stack.isEmpty()) {
+            result = conjoin(stack.pop().function, result);
+        }
+        return result;
+    }
+
+    /**
+     * Encodes a feature tree bottom-up, so that the constraints of each
+     * subtree are conjoined before those of its ancestors, followed by the
+     * cross-tree constraints. Variables which do not exist yet are created
+     * in depth-first order along the tree, below the existing ones.
+     *
+     * @return the feature model's ADD, or {@code null} if some cross-tree
+     *      constraint cannot be parsed.
+     */
+    public ADD build(FeatureTree featureTree) {
+        peakNodeCount = 0;
+        peakLiveNodeCount = 0;
+        for (String feature : featureTree.getFeatureOrder()) {
+            jadd.getVariable(feature);
+        }
+
+        FeatureTree.Feature root = featureTree.getRoot();
+        ADD result = conjoin(encodeSubtree(root), jadd.getVariable(root.getName()));
+        for (String constraint : featureTree.getConstraints()) {
+            ADD encoded = expressionSolver.encodeFormula(constraint);
+            if (encoded == null) {
+                result.close();
+                return null;
+            }
+            track(encoded);
+            result = conjoin(result, encoded);
+        }
+        return result;
+    }
+
+    /**
+     * @return the constraints among a feature and its descendants.
+     */
+    private ADD encodeSubtree(FeatureTree.Feature feature) {
+        ADD parent = jadd.getVariable(feature.getName());
+        ADD absentParent = parent.complement();
+        ADD result = jadd.makeConstant(1);
+        // Whether no child is present so far, and whether exactly one
+        // (alternative groups) or at least one (or groups) is.
+        ADD noChild = jadd.makeConstant(1);
+        ADD oneChild = jadd.makeConstant(0);
+        for (FeatureTree.Feature childFeature : feature.getChildren()) {
+            ADD child = jadd.getVariable(childFeature.getName());
+            ADD absentChild = child.complement();
+            // The child implies its parent.
+            result = conjoin(result, absentChild.or(parent));
+            if (feature.getGroupType() == FeatureTree.GroupType.AND && childFeature.isMandatory()) {
+                result = conjoin(result, absentParent.or(child));
+            }
+            result = conjoin(result, encodeSubtree(childFeature));
+
+            if (feature.getGroupType() != FeatureTree.GroupType.AND) {
+                ADD previousNoChild = noChild;
+                ADD previousOneChild = oneChild;
+                noChild = previousNoChild.and(absentChild);
+                if (feature.getGroupType() == FeatureTree.GroupType.ALTERNATIVE) {
+                    oneChild = ADD.ite(child, previousNoChild, previousOneChild);
+                } else {
+                    oneChild = previousOneChild.or(child);
+                }
+                previousNoChild.close();
+                previousOneChild.close();
+            }
+            absentChild.close();
+        }
+        if (feature.getGroupType() != FeatureTree.GroupType.AND && !feature.getChildren().isEmpty()) {
+            // Present parents have exactly one (alternative) or at least
+            // one (or) child present.
+            result = conjoin(result, absentParent.or(oneChild));
+        }
+        noChild.close();
+        oneChild.close();
+        absentParent.close();
+        return result;
+    }
+
+    /**
+     * Sorts the clauses by the level of their topmost variable and then by
+     * the level of their bottommost one.
+     */
+    private List<Clause> schedule(List<Clause> clauses) {
+        Map<String, Integer> levels = new HashMap<String, Integer>();
+        List<String> order = jadd.getVariableOrder();
+        for (int level = 0; level < order.size(); level++) {
+            levels.put(order.get(level), level);
+        }
+        Map<Clause, int[]> spans = new HashMap<Clause, int[]>();
+        for (Clause clause : clauses) {
+            int top = Integer.MAX_VALUE;
+            int bottom = Integer.MIN_VALUE;
+            for (String variable : clause.getVariables()) {
+                int level = levels.get(variable);
+                top = Math.min(top, level);
+                bottom = Math.max(bottom, level);
+            }
+            spans.put(clause, new int[] {top, bottom});
+        }
+        List<Clause> scheduled = new ArrayList<Clause>(clauses);
+        scheduled.sort(Comparator.<Clause>comparingInt(clause -> spans.get(clause)[0])
+                .thenComparingInt(clause -> spans.get(clause)[1]));
+        return scheduled;
+    }
+
+    private ADD encode(Clause clause) {
+        if (!clause.isDisjunctionOfLiterals()) {
+            ADD encoded = expressionSolver.encodeFormula(clause.toString());
+            if (encoded != null) {
+                track(encoded);
+            }
+            return encoded;
+        }
+        ADD disjunction = jadd.makeConstant(0);
+        for (int i = 0; i < clause.getVariables().size(); i++) {
+            ADD variable = jadd.getVariable(clause.getVariables().get(i));
+            ADD literal = clause.isNegated(i) ? variable.complement() : variable;
+            ADD previous = disjunction;
+            disjunction = previous.or(literal);
+            previous.close();
+            literal.close();
+        }
+        track(disjunction);
+        return disjunction;
+    }
+
+    /**
+     * Conjoins two partial results, which are released.
+     */
+    private ADD conjoin(ADD left, ADD right) {
+        ADD conjunction = left.and(right);
+        left.close();
+        right.close();
+        track(conjunction);
+        return conjunction;
+    }
+
+    private void track(ADD intermediate) {
+        peakNodeCount = Math.max(peakNodeCount, intermediate.getNodeCount());
+        peakLiveNodeCount = Math.max(peakLiveNodeCount, jadd.getNodeCounts().getLiveNodes());
+    }
+
+    /**
+     * @return the size of the largest ADD (either a clause or a partial
+     *      conjunction) built by the last call to {@link #build(List)}
+     *      or {@link #build(FeatureTree)}.
+     */
+    public int getPeakNodeCount() {
+        return peakNodeCount;
+    }
+
+    /**
+     * @return the largest number of live nodes in the manager during the
+     *      last call to {@link #build(List)} or {@link #build(FeatureTree)}.
+     */
+    public long getPeakLiveNodeCount() {
+        return peakLiveNodeCount;
+    }
+
+}
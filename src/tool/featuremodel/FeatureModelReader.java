@@ -0,0 +1,179 @@
+package tool.featuremodel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the clauses of a feature model in conjunctive normal form, either
+ * written with Java logical operators (as exported by FeatureIDE's
+ * <i>Export to CNF</i>) or in the DIMACS format.
+ *
+ * Clauses are read one at a time from a stream, so that feature models
+ * never have to be held (or parsed) as a single formula.
+ */
+public class FeatureModelReader {
+
+    private FeatureModelReader() {
+        // NO-OP
+    }
+
+    /**
+     * Reads a feature model file, whose format is told by its contents:
+     * DIMACS files start with comment lines ("c ...") followed by the
+     * problem line ("p cnf ...").
+     */
+    public static List<Clause> read(Path path) throws IOException {
+        boolean dimacs = isDimacs(path);
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return dimacs ? readDimacs(reader) : readCnf(reader);
+        }
+    }
+
+    private static boolean isDimacs(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.equals("c") && !trimmed.startsWith("c ")) {
+                    return trimmed.matches("p\\s+cnf(\\s.*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a formula whose top-level conjuncts are clauses written with
+     * Java logical operators, e.g. {@code R && (!R || A) && (A || !B)}.
+     */
+    public static List<Clause> readCnf(Reader reader) throws IOException {
+        List<Clause> clauses = new ArrayList<Clause>();
+        StringBuilder conjunct = new StringBuilder();
+        int depth = 0;
+        boolean ampersand = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '&' && depth == 0) {
+                if (ampersand) {
+                    addClause(clauses, conjunct);
+                    ampersand = false;
+                } else {
+                    ampersand = true;
+                }
+                continue;
+            }
+            if (ampersand) {
+                // A lone '&', which the parser will complain about.
+                conjunct.append('&');
+                ampersand = false;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+            conjunct.append((char) c);
+        }
+        if (ampersand) {
+            conjunct.append('&');
+        }
+        addClause(clauses, conjunct);
+        return clauses;
+    }
+
+    private static void addClause(List<Clause> clauses, StringBuilder conjunct) {
+        Clause clause = Clause.parse(conjunct.toString());
+        if (clause != null) {
+            clauses.add(clause);
+        }
+        conjunct.setLength(0);
+    }
+
+    /**
+     * Reads a formula in the DIMACS CNF format. Variables are named by
+     * comment lines of the form "c &lt;index&gt; &lt;name&gt;" (as written
+     * by FeatureIDE), or else "x&lt;index&gt;".
+     */
+    public static List<Clause> readDimacs(Reader reader) throws IOException {
+        Map<Integer, String> names = new HashMap<Integer, String>();
+        List<int[]> literalClauses = new ArrayList<int[]>();
+        List<Integer> literals = new ArrayList<Integer>();
+
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].isEmpty() || tokens[0].equals("p") || tokens[0].equals("%")) {
+                continue;
+            } else if (tokens[0].equals("c")) {
+                if (tokens.length >= 3 && tokens[1].matches("[0-9]+")) {
+                    names.put(Integer.valueOf(tokens[1]), tokens[2]);
+                }
+                continue;
+            }
+            for (String token : tokens) {
+                int literal;
+                try {
+                    literal = Integer.parseInt(token);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid DIMACS literal at line " + lineNumber + ": " + token);
+                }
+                if (literal == 0) {
+                    literalClauses.add(toArray(literals));
+                    literals.clear();
+                } else {
+                    literals.add(literal);
+                }
+            }
+        }
+        if (!literals.isEmpty()) {
+            literalClauses.add(toArray(literals));
+        }
+
+        List<Clause> clauses = new ArrayList<Clause>(literalClauses.size());
+        for (int[] literalClause : literalClauses) {
+            List<String> variables = new ArrayList<String>(literalClause.length);
+            boolean[] negated = new boolean[literalClause.length];
+            for (int i = 0; i < literalClause.length; i++) {
+                int variable = Math.abs(literalClause[i]);
+                variables.add(names.getOrDefault(variable, "x" + variable));
+                negated[i] = literalClause[i] < 0;
+            }
+            clauses.add(Clause.ofLiterals(variables, negated));
+        }
+        return clauses;
+    }
+
+    private static int[] toArray(List<Integer> literals) {
+        int[] array = new int[literals.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = literals.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return the conjunction of the clauses, written with Java logical operators.
+     */
+    public static String toFormula(List<Clause> clauses) {
+        StringBuilder formula = new StringBuilder();
+        for (Clause clause : clauses) {
+            if (formula.length() > 0) {
+                formula.append(" && ");
+            }
+            formula.append(clause);
+        }
+        return formula.toString();
+    }
+
+}
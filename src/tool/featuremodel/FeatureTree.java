@@ -0,0 +1,287 @@
+package tool.featuremodel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Feature model as a feature tree plus cross-tree constraints, read from
+ * the XML format of FeatureIDE.
+ *
+ * Each feature implies its parent, the root is always present, and a
+ * feature with children groups them in one of the ways given by
+ * {@link GroupType}. Cross-tree constraints are kept as formulas written
+ * with Java logical operators.
+ */
+public class FeatureTree {
+
+    public enum GroupType {
+        /**
+         * Children are independent, and mandatory ones are implied by the parent.
+         */
+        AND,
+        /**
+         * At least one child is present whenever the parent is.
+         */
+        OR,
+        /**
+         * Exactly one child is present whenever the parent is.
+         */
+        ALTERNATIVE
+    }
+
+    public static class Feature {
+        private final String name;
+        private final GroupType groupType;
+        private final boolean mandatory;
+        private final List<Feature> children = new ArrayList<Feature>();
+
+        Feature(String name, GroupType groupType, boolean mandatory) {
+            this.name = name;
+            this.groupType = groupType;
+            this.mandatory = mandatory;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public GroupType getGroupType() {
+            return groupType;
+        }
+
+        /**
+         * @return whether this feature is implied by its parent. Only
+         *      meaningful for children of {@link GroupType#AND} groups.
+         */
+        public boolean isMandatory() {
+            return mandatory;
+        }
+
+        public List<Feature> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+    }
+
+    private final Feature root;
+    private final List<String> constraints;
+
+    FeatureTree(Feature root, List<String> constraints) {
+        this.root = root;
+        this.constraints = Collections.unmodifiableList(constraints);
+    }
+
+    public static FeatureTree read(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return read(input);
+        }
+    }
+
+    /**
+     * @throws IOException if the input cannot be read or is not a valid
+     *      FeatureIDE feature model.
+     */
+    public static FeatureTree read(InputStream input) throws IOException {
+        Document document;
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            document = builder.parse(input);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid feature model: " + e.getMessage(), e);
+        }
+
+        Element struct = firstElement(document.getElementsByTagName("struct"));
+        List<Element> roots = (struct == null) ? Collections.<Element>emptyList() : childElements(struct);
+        if (roots.size() != 1) {
+            throw new IOException("Invalid feature model: expected a single root feature");
+        }
+        Feature root = readFeature(roots.get(0));
+
+        List<String> constraints = new ArrayList<String>();
+        Element constraintsElement = firstElement(document.getElementsByTagName("constraints"));
+        if (constraintsElement != null) {
+            for (Element rule : childElements(constraintsElement)) {
+                if (rule.getTagName().equals("rule")) {
+                    for (Element formula : childElements(rule)) {
+                        if (!formula.getTagName().equals("description")) {
+                            constraints.add(readConstraint(formula));
+                        }
+                    }
+                }
+            }
+        }
+        return new FeatureTree(root, constraints);
+    }
+
+    private static Feature readFeature(Element element) throws IOException {
+        GroupType groupType;
+        switch (element.getTagName()) {
+        case "feature":
+        case "and":
+            groupType = GroupType.AND;
+            break;
+        case "or":
+            groupType = GroupType.OR;
+            break;
+        case "alt":
+            groupType = GroupType.ALTERNATIVE;
+            break;
+        default:
+            throw new IOException("Invalid feature model: unknown feature element <" + element.getTagName() + ">");
+        }
+        Feature feature = new Feature(element.getAttribute("name"),
+                                      groupType,
+                                      Boolean.parseBoolean(element.getAttribute("mandatory")));
+        for (Element child : childElements(element)) {
+            if (!child.getTagName().equals("description") && !child.getTagName().equals("graphics")) {
+                feature.children.add(readFeature(child));
+            }
+        }
+        return feature;
+    }
+
+    private static String readConstraint(Element element) throws IOException {
+        List<String> operands = new ArrayList<String>();
+        for (Element child : childElements(element)) {
+            operands.add(readConstraint(child));
+        }
+        switch (element.getTagName()) {
+        case "var":
+            return element.getTextContent().trim();
+        case "not":
+            return "!" + single(operands, element);
+        case "conj":
+            return "(" + String.join(" && ", operands) + ")";
+        case "disj":
+            return "(" + String.join(" || ", operands) + ")";
+        case "imp":
+            checkBinary(operands, element);
+            return "(!" + operands.get(0) + " || " + operands.get(1) + ")";
+        case "eq":
+            checkBinary(operands, element);
+            return "((" + operands.get(0) + " && " + operands.get(1) + ") || (!"
+                    + operands.get(0) + " && !" + operands.get(1) + "))";
+        default:
+            throw new IOException("Invalid feature model: unsupported constraint <" + element.getTagName() + ">");
+        }
+    }
+
+    private static String single(List<String> operands, Element element) throws IOException {
+        if (operands.size() != 1) {
+            throw new IOException("Invalid feature model: <" + element.getTagName() + "> expects one operand");
+        }
+        return operands.get(0);
+    }
+
+    private static void checkBinary(List<String> operands, Element element) throws IOException {
+        if (operands.size() != 2) {
+            throw new IOException("Invalid feature model: <" + element.getTagName() + "> expects two operands");
+        }
+    }
+
+    private static Element firstElement(NodeList nodes) {
+        return (nodes.getLength() > 0) ? (Element) nodes.item(0) : null;
+    }
+
+    private static List<Element> childElements(Element parent) {
+        List<Element> elements = new ArrayList<Element>();
+        NodeList children = parent.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i).getNodeType() == Node.ELEMENT_NODE) {
+                elements.add((Element) children.item(i));
+            }
+        }
+        return elements;
+    }
+
+    public Feature getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the cross-tree constraints, written with Java logical operators.
+     */
+    public List<String> getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * @return the features in depth-first (pre-)order, so that every
+     *      feature comes right before its subtree.
+     */
+    public List<String> getFeatureOrder() {
+        List<String> order = new ArrayList<String>();
+        addFeatureOrder(root, order);
+        return order;
+    }
+
+    private static void addFeatureOrder(Feature feature, List<String> order) {
+        order.add(feature.getName());
+        for (Feature child : feature.getChildren()) {
+            addFeatureOrder(child, order);
+        }
+    }
+
+    /**
+     * @return an equivalent feature model in conjunctive normal form.
+     */
+    public List<Clause> toClauses() {
+        List<Clause> clauses = new ArrayList<Clause>();
+        clauses.add(Clause.ofLiterals(Collections.singletonList(root.getName()), new boolean[] {false}));
+        addClauses(root, clauses);
+        for (String constraint : constraints) {
+            clauses.add(Clause.parse(constraint));
+        }
+        return clauses;
+    }
+
+    private static void addClauses(Feature parent, List<Clause> clauses) {
+        List<Feature> children = parent.getChildren();
+        for (Feature child : children) {
+            clauses.add(binaryClause(child.getName(), true, parent.getName(), false));
+            if (parent.getGroupType() == GroupType.AND && child.isMandatory()) {
+                clauses.add(binaryClause(parent.getName(), true, child.getName(), false));
+            }
+        }
+        if (!children.isEmpty() && parent.getGroupType() != GroupType.AND) {
+            List<String> variables = new ArrayList<String>();
+            variables.add(parent.getName());
+            for (Feature child : children) {
+                variables.add(child.getName());
+            }
+            boolean[] negated = new boolean[variables.size()];
+            negated[0] = true;
+            clauses.add(Clause.ofLiterals(variables, negated));
+        }
+        if (parent.getGroupType() == GroupType.ALTERNATIVE) {
+            for (int i = 0; i < children.size(); i++) {
+                for (int j = i + 1; j < children.size(); j++) {
+                    clauses.add(binaryClause(children.get(i).getName(), true, children.get(j).getName(), true));
+                }
+            }
+        }
+        for (Feature child : children) {
+            addClauses(child, clauses);
+        }
+    }
+
+    private static Clause binaryClause(String first, boolean firstNegated, String second, boolean secondNegated) {
+        return Clause.ofLiterals(Arrays.asList(first, second), new boolean[] {firstNegated, secondNegated});
+    }
+
+}
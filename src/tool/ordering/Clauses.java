@@ -0,0 +1,78 @@
+package tool.ordering;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extraction of the variables of boolean expressions written with Java
+ * logical operators, such as feature models and presence conditions.
+ */
+public class Clauses {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z_0-9]*");
+    private static final Set<String> CONSTANTS = Set.of("true", "True", "false", "False");
+
+    private Clauses() {
+        // NO-OP
+    }
+
+    /**
+     * Splits a formula into its top-level conjuncts (i.e., the clauses of a
+     * CNF formula) and returns the variables of each one.
+     */
+    public static List<List<String>> of(String formula) {
+        List<List<String>> clauses = new ArrayList<List<String>>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < formula.length(); i++) {
+            char c = formula.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && formula.startsWith("&&", i)) {
+                addClause(clauses, formula.substring(start, i));
+                start = i + 2;
+                i++;
+            }
+        }
+        addClause(clauses, formula.substring(start));
+        return clauses;
+    }
+
+    private static void addClause(List<List<String>> clauses, String clause) {
+        List<String> variables = variablesOf(clause);
+        if (!variables.isEmpty()) {
+            clauses.add(variables);
+        }
+    }
+
+    /**
+     * @return the distinct variables of an expression, in order of appearance.
+     */
+    public static List<String> variablesOf(String expression) {
+        Set<String> variables = new LinkedHashSet<String>();
+        Matcher matcher = IDENTIFIER.matcher(expression);
+        while (matcher.find()) {
+            if (!CONSTANTS.contains(matcher.group())) {
+                variables.add(matcher.group());
+            }
+        }
+        return new ArrayList<String>(variables);
+    }
+
+    /**
+     * @return the distinct variables of all clauses, in order of appearance.
+     */
+    public static List<String> variablesOf(List<List<String>> clauses) {
+        Set<String> variables = new LinkedHashSet<String>();
+        for (List<String> clause : clauses) {
+            variables.addAll(clause);
+        }
+        return new ArrayList<String>(variables);
+    }
+
+}
@@ -0,0 +1,65 @@
+package tool.ordering;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders variables by a depth-first traversal of the graph in which
+ * variables are adjacent if they appear in the same clause, starting from
+ * the first variable of the feature model.
+ *
+ * In the CNF of a feature model, each feature shares clauses with its parent
+ * and children (and with its cross-tree constraints), and the root usually
+ * comes first. The traversal thus approximates a depth-first traversal of
+ * the feature tree, in which each feature is followed by its subtree.
+ */
+public class DepthFirstOrdering implements IVariableOrderingHeuristic {
+
+    @Override
+    public List<String> order(List<List<String>> clauses) {
+        Map<String, Set<String>> neighbors = new LinkedHashMap<String, Set<String>>();
+        for (List<String> clause : clauses) {
+            for (String variable : clause) {
+                Set<String> adjacent = neighbors.computeIfAbsent(variable, v -> new LinkedHashSet<String>());
+                for (String other : clause) {
+                    if (!other.equals(variable)) {
+                        adjacent.add(other);
+                    }
+                }
+            }
+        }
+
+        List<String> order = new ArrayList<String>(neighbors.size());
+        Set<String> visited = new HashSet<String>();
+        for (String start : neighbors.keySet()) {
+            if (visited.contains(start)) {
+                continue;
+            }
+            Deque<String> stack = new ArrayDeque<String>();
+            stack.push(start);
+            while (!stack.isEmpty()) {
+                String variable = stack.pop();
+                if (!visited.add(variable)) {
+                    continue;
+                }
+                order.add(variable);
+                // Pushed in reverse, so that neighbors are visited in order of appearance.
+                List<String> adjacent = new ArrayList<String>(neighbors.get(variable));
+                for (int i = adjacent.size() - 1; i >= 0; i--) {
+                    if (!visited.contains(adjacent.get(i))) {
+                        stack.push(adjacent.get(i));
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,118 @@
+package tool.ordering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FORCE heuristic (Aloul, Markov and Sakallah, 2003): variables are placed
+ * on a line and repeatedly moved to the center of gravity of the hyperedges
+ * (clauses) in which they appear, so that variables which appear together
+ * end up close to each other. The order with the least total span of the
+ * hyperedges is kept.
+ */
+public class ForceOrdering implements IVariableOrderingHeuristic {
+    private static final int MAX_ITERATIONS = 200;
+
+    private final List<List<String>> additionalHyperedges;
+
+    public ForceOrdering() {
+        this(new ArrayList<List<String>>());
+    }
+
+    /**
+     * @param additionalHyperedges Sets of variables which should also be kept
+     *      close together, besides those of each clause (e.g., the variables
+     *      of each presence condition).
+     */
+    public ForceOrdering(List<List<String>> additionalHyperedges) {
+        this.additionalHyperedges = additionalHyperedges;
+    }
+
+    @Override
+    public List<String> order(List<List<String>> clauses) {
+        List<List<String>> hyperedges = new ArrayList<List<String>>(clauses);
+        hyperedges.addAll(additionalHyperedges);
+        List<String> variables = Clauses.variablesOf(hyperedges);
+        Map<String, Integer> indices = new HashMap<String, Integer>();
+        for (String variable : variables) {
+            indices.put(variable, indices.size());
+        }
+        int[][] edges = new int[hyperedges.size()][];
+        for (int e = 0; e < edges.length; e++) {
+            edges[e] = hyperedges.get(e).stream().mapToInt(indices::get).toArray();
+        }
+
+        int n = variables.size();
+        // Position of each variable and sorted variables.
+        double[] positions = new double[n];
+        Integer[] sorted = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            positions[v] = v;
+            sorted[v] = v;
+        }
+        Integer[] best = sorted.clone();
+        long bestSpan = span(edges, positions);
+
+        double[] sums = new double[n];
+        int[] degrees = new int[n];
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            Arrays.fill(sums, 0);
+            Arrays.fill(degrees, 0);
+            for (int[] edge : edges) {
+                double center = 0;
+                for (int v : edge) {
+                    center += positions[v];
+                }
+                center /= edge.length;
+                for (int v : edge) {
+                    sums[v] += center;
+                    degrees[v]++;
+                }
+            }
+            double[] gravity = new double[n];
+            for (int v = 0; v < n; v++) {
+                gravity[v] = (degrees[v] == 0) ? positions[v] : sums[v] / degrees[v];
+            }
+            Arrays.sort(sorted, Comparator.comparingDouble(v -> gravity[v]));
+            for (int level = 0; level < n; level++) {
+                positions[sorted[level]] = level;
+            }
+
+            long span = span(edges, positions);
+            if (span >= bestSpan) {
+                break;
+            }
+            bestSpan = span;
+            best = sorted.clone();
+        }
+
+        List<String> order = new ArrayList<String>(n);
+        for (int v : best) {
+            order.add(variables.get(v));
+        }
+        return order;
+    }
+
+    /**
+     * @return the sum of the distances between the first and last variables
+     *      of each hyperedge.
+     */
+    private static long span(int[][] edges, double[] positions) {
+        long span = 0;
+        for (int[] edge : edges) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int v : edge) {
+                min = Math.min(min, positions[v]);
+                max = Math.max(max, positions[v]);
+            }
+            span += (long) (max - min);
+        }
+        return span;
+    }
+
+}
@@ -0,0 +1,19 @@
+package tool.ordering;
+
+import java.util.List;
+
+/**
+ * Static variable ordering heuristic, which computes an initial order for
+ * the ADD variables before any ADD is built from them.
+ */
+public interface IVariableOrderingHeuristic {
+
+    /**
+     * @param clauses Variables of each clause of the feature model, in order
+     *      of appearance (see {@link Clauses#of(String)}).
+     * @return every variable in the clauses, from the topmost ADD level to
+     *      the bottommost one.
+     */
+    public List<String> order(List<List<String>> clauses);
+
+}
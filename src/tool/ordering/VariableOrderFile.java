@@ -0,0 +1,35 @@
+package tool.ordering;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text file with one variable name per line, from the topmost ADD level
+ * to the bottommost one.
+ */
+public class VariableOrderFile {
+
+    private VariableOrderFile() {
+        // NO-OP
+    }
+
+    public static List<String> read(Path path) throws IOException {
+        List<String> order = new ArrayList<String>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String variable = line.trim();
+            if (!variable.isEmpty()) {
+                order.add(variable);
+            }
+        }
+        return order;
+    }
+
+    public static void write(Path path, List<String> order) throws IOException {
+        Files.write(path, order, StandardCharsets.UTF_8);
+    }
+
+}
@@ -13,6 +13,12 @@ public interface IFormulaCollector {
 
     public void collectFormula(RDGNode node, String formula);
 
+    /**
+     * Collects the estimated and the actual time (in nanoseconds) taken to
+     * model check the FDTMC of a node.
+     */
+    public void collectModelCheckingTime(RDGNode node, long estimatedTime, long actualTime);
+
     public void printStats(PrintStream out);
 
 }
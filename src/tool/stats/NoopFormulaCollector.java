@@ -11,6 +11,11 @@ public class NoopFormulaCollector implements IFormulaCollector {
         // No-op
     }
 
+    @Override
+    public void collectModelCheckingTime(RDGNode node, long estimatedTime, long actualTime) {
+        // No-op
+    }
+
     @Override
     public void printStats(PrintStream out) {
         // No-op
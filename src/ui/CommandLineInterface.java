@@ -8,6 +8,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -19,6 +20,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.function.BiFunction;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -30,6 +32,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import jadd.Cube;
 import modeling.DiagramAPI;
 import modeling.IModelerAPI;
 
@@ -39,7 +42,11 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import paramwrapper.CachingModelChecker;
 import paramwrapper.IModelCollector;
+import paramwrapper.ModelCheckerWorkerPool;
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.ReducingModelChecker;
 import parsing.SplGeneratorModels.SplGeneratorModelingAPI;
 import parsing.exceptions.InvalidNodeClassException;
 import parsing.exceptions.InvalidNodeType;
@@ -48,10 +55,18 @@ import parsing.exceptions.InvalidTagException;
 import parsing.exceptions.UnsupportedFragmentTypeException;
 import tool.Analyzer;
 import tool.CyclicRdgException;
+import tool.ModelCheckerFactory;
 import tool.PruningStrategyFactory;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
+import tool.VariableOrderingFactory;
+import tool.analyzers.ADDReliabilityResults;
 import tool.analyzers.IReliabilityAnalysisResults;
+import tool.analyzers.buildingblocks.ModelCheckingExecutor;
+import tool.featuremodel.Clause;
+import tool.featuremodel.FeatureModelReader;
+import tool.featuremodel.FeatureTree;
+import tool.ordering.IVariableOrderingHeuristic;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.IMemoryCollector;
@@ -72,6 +87,8 @@ public class CommandLineInterface {
     private static ITimeCollector timeCollector;
     private static IFormulaCollector formulaCollector;
     private static IModelCollector modelCollector;
+    private static ModelCheckerWorkerPool workerPool;
+    private static ModelCheckingExecutor modelCheckingExecutor;
 
     private CommandLineInterface() {
         // NO-OP
@@ -93,16 +110,23 @@ public class CommandLineInterface {
         RDGNode rdgRoot = buildRDG(options);
         memoryCollector.takeSnapshot("after model parsing");
 
-        Analyzer analyzer = makeAnalyzer(options);
+        Analyzer analyzer = makeAnalyzer(options, rdgRoot);
         Stream<Collection<String>> targetConfigurations = getTargetConfigurations(options, analyzer);
 
         memoryCollector.takeSnapshot("before evaluation");
         long analysisStartTime = System.currentTimeMillis();
         Stream<Collection<String>> validConfigs = targetConfigurations.filter(analyzer::isValidConfiguration);
-        IReliabilityAnalysisResults familyReliability = evaluateReliability(analyzer,
-                                                                            rdgRoot,
-                                                                            validConfigs,
-                                                                            options);
+        IReliabilityAnalysisResults familyReliability = null;
+        try {
+            familyReliability = evaluateReliability(analyzer,
+                                                    rdgRoot,
+                                                    validConfigs,
+                                                    options);
+        } catch (CompletionException e) {
+            LOGGER.severe("Model checking failed: " + e.getCause());
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+            System.exit(3);
+        }
         long totalAnalysisTime = System.currentTimeMillis() - analysisStartTime;
         memoryCollector.takeSnapshot("after evaluation");
 
@@ -112,12 +136,27 @@ public class CommandLineInterface {
             printAnalysisResults(splitConfigs, familyReliability);
         }
 
+        if (options.hasAggregatesEnabled()
+                || options.getSlaThreshold() != null
+                || options.getHistogramBins() > 0
+                || options.getWorstConfigurations() > 0
+                || options.getBestConfigurations() > 0) {
+            printAggregates(OUTPUT, familyReliability, options);
+        }
+
         if (options.hasStatsEnabled()) {
-            printStats(OUTPUT, familyReliability, rdgRoot);
+            printStats(OUTPUT, familyReliability, rdgRoot, analyzer);
         }
         long totalRunningTime = System.currentTimeMillis() - startTime;
         OUTPUT.println("Total analysis time: " +  totalAnalysisTime + " ms");
         OUTPUT.println("Total running time: " +  totalRunningTime + " ms");
+
+        if (modelCheckingExecutor != null) {
+            modelCheckingExecutor.close();
+        }
+        if (workerPool != null) {
+            workerPool.close();
+        }
     }
 
     /**
@@ -199,20 +238,87 @@ public class CommandLineInterface {
      * @param options
      * @return
      */
-    private static Analyzer makeAnalyzer(Options options) {
+    private static Analyzer makeAnalyzer(Options options, RDGNode rdgRoot) {
         File featureModelFile = new File(options.getFeatureModelFilePath());
-        String featureModel = readFeatureModel(featureModelFile);
 
-        String paramPath = options.getParamPath();
-        Analyzer analyzer = new Analyzer(featureModel,
-                                         paramPath,
-                                         timeCollector,
-                                         formulaCollector,
-                                         modelCollector);
+        List<String> presenceConditions = new LinkedList<String>();
+        try {
+            for (RDGNode node : rdgRoot.getDependenciesTransitiveClosure()) {
+                presenceConditions.add(node.getPresenceCondition());
+            }
+        } catch (CyclicRdgException e) {
+            LOGGER.severe("Cyclic dependency detected in RDG.");
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+            System.exit(2);
+        }
+        IVariableOrderingHeuristic orderingHeuristic = VariableOrderingFactory.createHeuristic(options.getVariableOrderingStrategy(),
+                                                                                               presenceConditions);
+        Analyzer analyzer;
+        if (featureModelFile.getName().toLowerCase().endsWith(".xml")) {
+            analyzer = new Analyzer(readFeatureTree(featureModelFile),
+                                    options.getADDBackend(),
+                                    orderingHeuristic,
+                                    options.getVariableOrderFilePath(),
+                                    makeModelChecker(options),
+                                    timeCollector,
+                                    formulaCollector,
+                                    modelCollector);
+        } else {
+            analyzer = new Analyzer(readFeatureModel(featureModelFile),
+                                    options.getADDBackend(),
+                                    orderingHeuristic,
+                                    options.getVariableOrderFilePath(),
+                                    makeModelChecker(options),
+                                    timeCollector,
+                                    formulaCollector,
+                                    modelCollector);
+        }
         analyzer.setConcurrencyStrategy(options.getConcurrencyStrategy());
+        if (options.getModelCheckerConcurrency() > 0) {
+            modelCheckingExecutor = new ModelCheckingExecutor(options.getModelCheckerConcurrency(),
+                                                              options.getModelCheckerDeadline() * 1000);
+            analyzer.setModelCheckingExecutor(modelCheckingExecutor);
+        }
         return analyzer;
     }
 
+    /**
+     * @param options
+     * @return
+     */
+    private static ParametricModelChecker makeModelChecker(Options options) {
+        String paramPath = options.getParamPath();
+        if (options.getModelCheckerWorkers() > 0) {
+            String workerCommand = options.getModelCheckerWorkerCommand();
+            if (workerCommand == null) {
+                LOGGER.severe("A worker command (--model-checker-worker-command) is required when using model checker workers.");
+                System.exit(1);
+            }
+            workerPool = new ModelCheckerWorkerPool(workerCommand,
+                                                    options.getModelCheckerWorkers(),
+                                                    options.getModelCheckerTimeout() * 1000);
+        }
+        ParametricModelChecker modelChecker = ModelCheckerFactory.createModelChecker(options.getModelCheckingStrategy(),
+                                                                                     paramPath,
+                                                                                     workerPool,
+                                                                                     options.getModelCheckerBatchSize(),
+                                                                                     modelCollector);
+        if (options.getModelCacheDirectory() != null) {
+            // Different backends may format equivalent expressions differently.
+            String namespace = options.getModelCheckingStrategy() + ":" + paramPath;
+            modelChecker = new CachingModelChecker(modelChecker,
+                                                   new File(options.getModelCacheDirectory()),
+                                                   options.getModelCacheSize(),
+                                                   namespace,
+                                                   modelCollector);
+        }
+        if (options.hasModelReductionEnabled()) {
+            // Reduction comes first, so that equivalent reduced models share cache entries.
+            modelChecker = new ReducingModelChecker(modelChecker, modelCollector);
+        }
+        return modelChecker;
+    }
+
     /**
      * @param options
      */
@@ -287,13 +393,66 @@ public class CommandLineInterface {
         }
     }
 
-    private static void printStats(PrintStream out, IReliabilityAnalysisResults familyReliability, RDGNode rdgRoot) {
+    private static void printAggregates(PrintStream out, IReliabilityAnalysisResults familyReliability, Options options) {
+        if (!(familyReliability instanceof ADDReliabilityResults)) {
+            LOGGER.warning("Aggregate reports are only available for the FEATURE_FAMILY and FAMILY analysis strategies.");
+            return;
+        }
+        ADDReliabilityResults results = (ADDReliabilityResults) familyReliability;
+        out.println("Aggregates:");
+        out.println("=========================================");
+        if (options.hasAggregatesEnabled()) {
+            out.println("Valid configurations: " + results.countValidConfigurations());
+            out.println("Minimum reliability: " + results.getMinReliability());
+            out.println("Maximum reliability: " + results.getMaxReliability());
+            out.println("Mean reliability: " + results.getMeanReliability());
+        }
+        if (options.getSlaThreshold() != null) {
+            out.println("Valid configurations below " + options.getSlaThreshold() + ": "
+                    + results.countConfigurationsBelow(options.getSlaThreshold()));
+        }
+        int bins = options.getHistogramBins();
+        if (bins > 0) {
+            double min = results.getMinReliability();
+            double width = (results.getMaxReliability() - min) / bins;
+            BigInteger[] histogram = results.getReliabilityHistogram(bins);
+            out.println("Reliability histogram:");
+            for (int bin = 0; bin < bins; bin++) {
+                out.println("[" + (min + bin * width) + ", " + (min + (bin + 1) * width)
+                        + (bin == bins - 1 ? "]" : ")") + ": " + histogram[bin]);
+            }
+        }
+        if (options.getWorstConfigurations() > 0) {
+            out.println("Least reliable configurations (parenthesized features are \"don't care\"):");
+            printCubes(out, results.getLeastReliableConfigurations(options.getWorstConfigurations()));
+        }
+        if (options.getBestConfigurations() > 0) {
+            out.println("Most reliable configurations (parenthesized features are \"don't care\"):");
+            printCubes(out, results.getMostReliableConfigurations(options.getBestConfigurations()));
+        }
+        out.println("=========================================");
+    }
+
+    private static void printCubes(PrintStream out, List<Cube> cubes) {
+        for (Cube cube : cubes) {
+            out.println(cube.toList() + " --> " + cube.getValue()
+                    + " (" + cube.getConfigurationCount() + " configurations)");
+        }
+    }
+
+    private static void printStats(PrintStream out, IReliabilityAnalysisResults familyReliability, RDGNode rdgRoot, Analyzer analyzer) {
         out.println("-----------------------------");
         out.println("Stats:");
         out.println("------");
         timeCollector.printStats(out);
+        out.println("Feature model ADD size: " + analyzer.getFeatureModelNodeCount() + " nodes");
+        out.println("Feature model peak intermediate ADD size: " + analyzer.getFeatureModelPeakNodeCount() + " nodes");
+        out.println("Feature model peak live nodes: " + analyzer.getFeatureModelPeakLiveNodeCount());
         formulaCollector.printStats(out);
         modelCollector.printStats(out);
+        if (modelCheckingExecutor != null) {
+            modelCheckingExecutor.printStats(out);
+        }
         memoryCollector.printStats(out);
         printEvaluationReuse(rdgRoot);
         familyReliability.printStats(out);
@@ -318,14 +477,35 @@ public class CommandLineInterface {
     }
 
     /**
+     * Reads a feature model in FeatureIDE's XML format.
+     *
+     * @param featureModelFile
+     * @return
+     */
+    private static FeatureTree readFeatureTree(File featureModelFile) {
+        FeatureTree featureTree = null;
+        try {
+            featureTree = FeatureTree.read(featureModelFile.toPath());
+        } catch (IOException e) {
+            LOGGER.severe("Error reading the provided Feature Model.");
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+            System.exit(1);
+        }
+        return featureTree;
+    }
+
+    /**
+     * Reads the feature model clause by clause, either in CNF (using Java
+     * logical operators) or in the DIMACS format.
+     *
      * @param featureModelFile
      * @return
      */
-    private static String readFeatureModel(File featureModelFile) {
-        String featureModel = null;
+    private static List<Clause> readFeatureModel(File featureModelFile) {
+        List<Clause> featureModel = null;
         Path path = featureModelFile.toPath();
         try {
-            featureModel = new String(Files.readAllBytes(path), Charset.forName("UTF-8"));
+            featureModel = FeatureModelReader.read(path);
         } catch (IOException e) {
             LOGGER.severe("Error reading the provided Feature Model.");
             LOGGER.log(Level.SEVERE, e.toString(), e);
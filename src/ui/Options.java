@@ -2,10 +2,13 @@ package ui;
 
 import java.io.IOException;
 
+import jadd.ADDBackendType;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import tool.ModelCheckingStrategy;
 import tool.PruningStrategy;
+import tool.VariableOrderingStrategy;
 import tool.analyzers.AnalysisStrategy;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 
@@ -27,6 +30,24 @@ class Options {
     private ConcurrencyStrategy concurrencyStrategy;
     private PruningStrategy pruningStrategy;
     private AnalysisStrategy analysisStrategy;
+    private ModelCheckingStrategy modelCheckingStrategy;
+    private int modelCheckerWorkers;
+    private String modelCheckerWorkerCommand;
+    private long modelCheckerTimeout;
+    private int modelCheckerBatchSize;
+    private int modelCheckerConcurrency;
+    private long modelCheckerDeadline;
+    private String modelCacheDirectory;
+    private int modelCacheSize;
+    private boolean modelReductionEnabled;
+    private ADDBackendType addBackend;
+    private VariableOrderingStrategy variableOrderingStrategy;
+    private String variableOrderFilePath;
+    private boolean aggregatesEnabled;
+    private Double slaThreshold;
+    private int histogramBins;
+    private int worstConfigurations;
+    private int bestConfigurations;
 
     static Options parseOptions(String[] args) throws IOException {
         OptionParser optionParser = new OptionParser();
@@ -94,6 +115,144 @@ class Options {
                 .defaultsTo(AnalysisStrategy.FEATURE_FAMILY_PRODUCT)
                 .describedAs("FEATURE_FAMILY | FEATURE_PRODUCT | FAMILY | FAMILY_PRODUCT | PRODUCT | FEATURE_FAMILY_PRODUCT");
 
+        OptionSpec<ModelCheckingStrategy> modelCheckingStrategyOption = optionParser
+                .accepts("model-checker",
+                         "The parametric model checker backend. Can be one of: "
+                                 + "EXTERNAL (PARAM or Prism at --param-path); "
+                                 + "STATE_ELIMINATION (in-JVM state elimination).")
+                .withRequiredArg()
+                .ofType(ModelCheckingStrategy.class)
+                .defaultsTo(ModelCheckingStrategy.EXTERNAL)
+                .describedAs("EXTERNAL | STATE_ELIMINATION");
+
+        OptionSpec<Integer> modelCheckerWorkersOption = optionParser
+                .accepts("model-checker-workers",
+                         "Number of persistent model checker worker processes. "
+                                 + "If 0, a new model checker process is started for each model.")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0)
+                .describedAs("Number");
+        OptionSpec<String> modelCheckerWorkerCommandOption = optionParser
+                .accepts("model-checker-worker-command",
+                         "Command which starts a persistent model checker worker (see ModelCheckerWorkerPool for the protocol)")
+                .withRequiredArg()
+                .describedAs("Command");
+        OptionSpec<Long> modelCheckerTimeoutOption = optionParser
+                .accepts("model-checker-timeout",
+                         "Maximum time a model checker worker may take for a single model")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(600L)
+                .describedAs("Seconds");
+        OptionSpec<Integer> modelCheckerBatchSizeOption = optionParser
+                .accepts("model-checker-batch-size",
+                         "Maximum number of models checked in a single PRISM run. "
+                                 + "If 1, each model is checked by a separate run.")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(1)
+                .describedAs("Number");
+        OptionSpec<Integer> modelCheckerConcurrencyOption = optionParser
+                .accepts("model-checker-concurrency",
+                         "Maximum number of models checked at once by the PARALLEL concurrency strategy. "
+                                 + "If 0, it is limited by the number of cores.")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0)
+                .describedAs("Number");
+        OptionSpec<Long> modelCheckerDeadlineOption = optionParser
+                .accepts("model-checker-deadline",
+                         "Maximum time for checking a single model when using --model-checker-concurrency. "
+                                 + "If 0, there is no limit.")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(0L)
+                .describedAs("Seconds");
+
+        OptionSpec<String> modelCacheDirectoryOption = optionParser
+                .accepts("model-cache-dir",
+                         "Directory of a persistent cache of reliability expressions. If absent, no cache is used.")
+                .withRequiredArg()
+                .describedAs("Directory");
+        OptionSpec<Integer> modelCacheSizeOption = optionParser
+                .accepts("model-cache-size",
+                         "Maximum number of reliability expressions kept in the persistent cache")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(10000)
+                .describedAs("Number");
+
+        OptionSpec<Void> modelReductionOption = optionParser
+                .accepts("reduce-models",
+                         "Minimize models (e.g., by bisimulation lumping) before model checking them");
+
+        OptionSpec<Void> aggregatesOption = optionParser
+                .accepts("aggregates",
+                         "Print the minimum, maximum and mean reliabilities and the number of valid configurations, "
+                                 + "computed from the family reliability ADD (FEATURE_FAMILY and FAMILY strategies only)");
+        OptionSpec<Double> slaThresholdOption = optionParser
+                .accepts("sla-threshold",
+                         "Print the number of valid configurations whose reliability is below this threshold "
+                                 + "(FEATURE_FAMILY and FAMILY strategies only)")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .describedAs("Reliability");
+        OptionSpec<Integer> histogramBinsOption = optionParser
+                .accepts("histogram-bins",
+                         "Print a histogram of the reliabilities of valid configurations with this many bins "
+                                 + "(FEATURE_FAMILY and FAMILY strategies only). If 0, no histogram is printed.")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0)
+                .describedAs("Number");
+        OptionSpec<Integer> worstConfigurationsOption = optionParser
+                .accepts("worst",
+                         "Print (at least) this many valid configurations with the lowest reliabilities, "
+                                 + "grouped into cubes of \"don't care\" features (FEATURE_FAMILY and FAMILY strategies only)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0)
+                .describedAs("Number");
+        OptionSpec<Integer> bestConfigurationsOption = optionParser
+                .accepts("best",
+                         "Print (at least) this many valid configurations with the highest reliabilities, "
+                                 + "grouped into cubes of \"don't care\" features (FEATURE_FAMILY and FAMILY strategies only)")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0)
+                .describedAs("Number");
+
+        OptionSpec<ADDBackendType> addBackendOption = optionParser
+                .accepts("add-backend",
+                         "The ADD engine. Can be one of: "
+                                 + "CUDD (native CUDD library); "
+                                 + "JAVA (pure-Java engine, which needs no native library).")
+                .withRequiredArg()
+                .ofType(ADDBackendType.class)
+                .defaultsTo(ADDBackendType.CUDD)
+                .describedAs("CUDD | JAVA");
+
+        OptionSpec<VariableOrderingStrategy> variableOrderingOption = optionParser
+                .accepts("variable-ordering",
+                         "Static ordering of the ADD variables, applied before the feature model is encoded "
+                                 + "and followed by sifting. Can be one of: "
+                                 + "SIFTING (no static ordering); "
+                                 + "FORCE (FORCE heuristic over the feature model clauses); "
+                                 + "DFS (depth-first traversal of the feature model clauses); "
+                                 + "PRESENCE_CONDITIONS (FORCE over the clauses and the RDG presence conditions).")
+                .withRequiredArg()
+                .ofType(VariableOrderingStrategy.class)
+                .defaultsTo(VariableOrderingStrategy.SIFTING)
+                .describedAs("SIFTING | FORCE | DFS | PRESENCE_CONDITIONS");
+        OptionSpec<String> variableOrderFileOption = optionParser
+                .accepts("variable-order-file",
+                         "File with the variable order, one variable per line. If it exists, its order is used "
+                                 + "(and no sifting takes place); otherwise, the order found is written to it.")
+                .withRequiredArg()
+                .ofType(String.class)
+                .describedAs("Path");
+
         OptionSpec<Void> helpOption = optionParser
                 .accepts("help")
                 .forHelp();
@@ -116,6 +275,24 @@ class Options {
         result.concurrencyStrategy = options.valueOf(concurrencyStrategyOption);
         result.pruningStrategy = options.valueOf(pruningStrategyOption);
         result.analysisStrategy = options.valueOf(analysisStrategyOption);
+        result.modelCheckingStrategy = options.valueOf(modelCheckingStrategyOption);
+        result.modelCheckerWorkers = options.valueOf(modelCheckerWorkersOption);
+        result.modelCheckerWorkerCommand = options.valueOf(modelCheckerWorkerCommandOption);
+        result.modelCheckerTimeout = options.valueOf(modelCheckerTimeoutOption);
+        result.modelCheckerBatchSize = options.valueOf(modelCheckerBatchSizeOption);
+        result.modelCheckerConcurrency = options.valueOf(modelCheckerConcurrencyOption);
+        result.modelCheckerDeadline = options.valueOf(modelCheckerDeadlineOption);
+        result.modelCacheDirectory = options.valueOf(modelCacheDirectoryOption);
+        result.modelCacheSize = options.valueOf(modelCacheSizeOption);
+        result.modelReductionEnabled = options.has(modelReductionOption);
+        result.addBackend = options.valueOf(addBackendOption);
+        result.variableOrderingStrategy = options.valueOf(variableOrderingOption);
+        result.variableOrderFilePath = options.valueOf(variableOrderFileOption);
+        result.aggregatesEnabled = options.has(aggregatesOption);
+        result.slaThreshold = options.valueOf(slaThresholdOption);
+        result.histogramBins = options.valueOf(histogramBinsOption);
+        result.worstConfigurations = options.valueOf(worstConfigurationsOption);
+        result.bestConfigurations = options.valueOf(bestConfigurationsOption);
 
         return result;
     }
@@ -164,4 +341,88 @@ class Options {
         return analysisStrategy;
     }
 
+    public ModelCheckingStrategy getModelCheckingStrategy() {
+        return modelCheckingStrategy;
+    }
+
+    public int getModelCheckerWorkers() {
+        return modelCheckerWorkers;
+    }
+
+    public String getModelCheckerWorkerCommand() {
+        return modelCheckerWorkerCommand;
+    }
+
+    /**
+     * @return the model checker timeout in seconds.
+     */
+    public long getModelCheckerTimeout() {
+        return modelCheckerTimeout;
+    }
+
+    public int getModelCheckerBatchSize() {
+        return modelCheckerBatchSize;
+    }
+
+    public int getModelCheckerConcurrency() {
+        return modelCheckerConcurrency;
+    }
+
+    /**
+     * @return the model checking deadline in seconds.
+     */
+    public long getModelCheckerDeadline() {
+        return modelCheckerDeadline;
+    }
+
+    public String getModelCacheDirectory() {
+        return modelCacheDirectory;
+    }
+
+    public int getModelCacheSize() {
+        return modelCacheSize;
+    }
+
+    public boolean hasModelReductionEnabled() {
+        return modelReductionEnabled;
+    }
+
+    public ADDBackendType getADDBackend() {
+        return addBackend;
+    }
+
+    public VariableOrderingStrategy getVariableOrderingStrategy() {
+        return variableOrderingStrategy;
+    }
+
+    /**
+     * @return the path to the variable order file, or null if none was given.
+     */
+    public String getVariableOrderFilePath() {
+        return variableOrderFilePath;
+    }
+
+    public boolean hasAggregatesEnabled() {
+        return aggregatesEnabled;
+    }
+
+    /**
+     * @return the SLA reliability threshold, or null if none was given.
+     */
+    public Double getSlaThreshold() {
+        return slaThreshold;
+    }
+
+    public int getHistogramBins() {
+        return histogramBins;
+    }
+
+    public int getWorstConfigurations() {
+        return worstConfigurations;
+    }
+
+    public int getBestConfigurations() {
+        return bestConfigurations;
+    }
+
 }
@@ -12,12 +12,18 @@ import tool.stats.IFormulaCollector;
 public class FormulaCollector implements IFormulaCollector {
 
     private Map<RDGNode, String> formulae = new HashMap<RDGNode, String>();
+    private Map<RDGNode, long[]> modelCheckingTimes = new HashMap<RDGNode, long[]>();
 
     @Override
     public synchronized void collectFormula(RDGNode node, String formula) {
         formulae.put(node, formula);
     }
 
+    @Override
+    public synchronized void collectModelCheckingTime(RDGNode node, long estimatedTime, long actualTime) {
+        modelCheckingTimes.put(node, new long[] {estimatedTime, actualTime});
+    }
+
     @Override
     public void printStats(PrintStream out) {
         long count = 0;
@@ -36,9 +42,13 @@ public class FormulaCollector implements IFormulaCollector {
             String formattedFormula = formulaSize < 1000 ?
                     "| " + formula
                     : "";
+            long[] times = modelCheckingTimes.get(node);
+            String formattedTimes = (times != null) ?
+                    "| estimated " + times[0]/1E+6 + " ms | actual " + times[1]/1E+6 + " ms "
+                    : "";
             out.println("    " + node + ": "
                         + numChildren + " children | height " + height + " | "
-                        + formulaSize + " bytes " + formattedFormula);
+                        + formulaSize + " bytes " + formattedTimes + formattedFormula);
 
             count++;
             minSize = Math.min(minSize, formulaSize);
@@ -4,6 +4,8 @@ import java.io.PrintStream;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import paramwrapper.IModelCollector;
 
@@ -15,6 +17,13 @@ public class ModelCollector implements IModelCollector {
 
     private List<Model> models = Collections.synchronizedList(new LinkedList<Model>());
     private List<Double> times = Collections.synchronizedList(new LinkedList<Double>());
+    private AtomicInteger cacheHits = new AtomicInteger();
+    private AtomicInteger cacheMisses = new AtomicInteger();
+    private AtomicInteger reducedModels = new AtomicInteger();
+    private AtomicLong originalStatesSum = new AtomicLong();
+    private AtomicLong originalTransitionsSum = new AtomicLong();
+    private AtomicLong reducedStatesSum = new AtomicLong();
+    private AtomicLong reducedTransitionsSum = new AtomicLong();
 
     @Override
     public void collectModel(int variables, int states) {
@@ -29,6 +38,25 @@ public class ModelCollector implements IModelCollector {
         times.add(elapsedTimeNanos/1E+6);
     }
 
+    @Override
+    public void collectCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void collectCacheMiss() {
+        cacheMisses.incrementAndGet();
+    }
+
+    @Override
+    public void collectModelReduction(int originalStates, int originalTransitions, int reducedStates, int reducedTransitions) {
+        reducedModels.incrementAndGet();
+        originalStatesSum.addAndGet(originalStates);
+        originalTransitionsSum.addAndGet(originalTransitions);
+        reducedStatesSum.addAndGet(reducedStates);
+        reducedTransitionsSum.addAndGet(reducedTransitions);
+    }
+
     @Override
     public void printStats(PrintStream out) {
         int maxVars = 0;
@@ -61,6 +89,13 @@ public class ModelCollector implements IModelCollector {
         out.println("Minimum states in a model: " + minStates);
         out.println("Sum of models' states: " + statesSum);
         out.println("Number of models: " + count);
+        out.println("Model cache hits: " + cacheHits.get());
+        out.println("Model cache misses: " + cacheMisses.get());
+        if (reducedModels.get() > 0) {
+            out.println("Reduced models: " + reducedModels.get());
+            out.println("States before/after reduction: " + originalStatesSum.get() + "/" + reducedStatesSum.get());
+            out.println("Transitions before/after reduction: " + originalTransitionsSum.get() + "/" + reducedTransitionsSum.get());
+        }
 
         synchronized (times) {
             out.println("All model checking times (ms): " + times);
@@ -1,14 +1,33 @@
 
 import jadd.ADDConfigurationsTest;
+import jadd.ADDScopeTest;
+import jadd.JADDConcurrencyTest;
+import jadd.JavaBackendTest;
+import jadd.FlatADDTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import paramwrapper.AcyclicModelCheckerTest;
+import paramwrapper.CachingModelCheckerTest;
 import paramwrapper.FDTMCToParamTest;
+import paramwrapper.ModelBatcherTest;
+import paramwrapper.ModelCheckerWorkerPoolTest;
+import paramwrapper.NumericModelCheckerTest;
+import paramwrapper.ParamWrapperTest;
+import paramwrapper.ReducingModelCheckerTest;
 import paramwrapper.ReliabilityFormulaTest;
+import paramwrapper.StateEliminationModelCheckerTest;
 import tool.AnalyzerTest;
 import tool.RDGNodeTest;
+import tool.analyzers.ADDReliabilityResultsTest;
+import tool.analyzers.buildingblocks.CompiledPresenceConditionsTest;
+import tool.analyzers.buildingblocks.ModelCheckingCostEstimatorTest;
+import tool.analyzers.buildingblocks.ModelCheckingExecutorTest;
+import tool.featuremodel.FeatureModelBuilderTest;
+import tool.featuremodel.FeatureTreeTest;
+import tool.ordering.VariableOrderingTest;
 import expressionsolver.ExpressionSolverTest;
 import fdtmc.FDTMCTest;
 
@@ -17,10 +36,29 @@ import fdtmc.FDTMCTest;
     FDTMCTest.class,
     FDTMCToParamTest.class,
     ReliabilityFormulaTest.class,
+    StateEliminationModelCheckerTest.class,
+    ModelCheckerWorkerPoolTest.class,
+    CachingModelCheckerTest.class,
+    NumericModelCheckerTest.class,
+    ReducingModelCheckerTest.class,
+    ModelBatcherTest.class,
+    ParamWrapperTest.class,
+    AcyclicModelCheckerTest.class,
     ExpressionSolverTest.class,
     AnalyzerTest.class,
     RDGNodeTest.class,
-    ADDConfigurationsTest.class
+    ModelCheckingExecutorTest.class,
+    CompiledPresenceConditionsTest.class,
+    ModelCheckingCostEstimatorTest.class,
+    ADDConfigurationsTest.class,
+    ADDScopeTest.class,
+    JADDConcurrencyTest.class,
+    JavaBackendTest.class,
+    FlatADDTest.class,
+    ADDReliabilityResultsTest.class,
+    VariableOrderingTest.class,
+    FeatureModelBuilderTest.class,
+    FeatureTreeTest.class
 })
 public class AllTests {
 
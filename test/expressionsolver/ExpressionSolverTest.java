@@ -2,12 +2,15 @@ package expressionsolver;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import jadd.ADD;
 import jadd.JADD;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Random;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -227,4 +230,99 @@ public class ExpressionSolverTest {
         assertEquals(24.0, result, 1E+10);
     }
 
+    @Test
+    public void testParsedExpressionKeepsNoInterpretation() {
+        Expression<Double> expression = solver.parseExpression("a + b * c");
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), expression.getVariables());
+
+        HashMap<String, Double> interpretation = new HashMap<String, Double>();
+        interpretation.put("a", 3.0);
+        interpretation.put("b", 4.0);
+        interpretation.put("c", 4.0);
+        assertEquals(19.0, expression.solve(interpretation), 0);
+
+        interpretation.remove("c");
+        assertEquals("Values from previous solutions must not be reused",
+                     3.0, expression.solve(interpretation), 0);
+    }
+
+    @Test
+    public void testParsedFunctionWithoutInterpretationIsNotSolved() {
+        Expression<ADD> expression = solver.parseExpressionForFunctions("a + b");
+        HashMap<String, ADD> interpretation = new HashMap<String, ADD>();
+        interpretation.put("a", jadd.makeConstant(0.5));
+
+        assertNull(expression.solve(interpretation));
+        interpretation.put("b", jadd.makeConstant(0.25));
+        assertEquals(jadd.makeConstant(0.75), expression.solve(interpretation));
+    }
+
+    @Test
+    public void testParsedExpressionIsSharedAmongThreads() {
+        Expression<Double> expression = solver.parseExpression("a + b * c - a / 2");
+        IntStream.range(0, 20000).parallel().forEach(i -> {
+            HashMap<String, Double> interpretation = new HashMap<String, Double>();
+            interpretation.put("a", (double) i);
+            interpretation.put("b", 2.0);
+            interpretation.put("c", 3.0);
+            assertEquals(i / 2.0 + 6.0, expression.solve(interpretation), 0);
+        });
+    }
+
+    @Test
+    public void testSumsAndProductsOfDifferentAritiesAreSharedAmongThreads() {
+        Expression<Double> expression = solver.parseExpression("(a + b + c) * (a + b) * c - a * b");
+        IntStream.range(0, 20000).parallel().forEach(i -> {
+            HashMap<String, Double> interpretation = new HashMap<String, Double>();
+            interpretation.put("a", (double) i);
+            interpretation.put("b", 2.0);
+            interpretation.put("c", 3.0);
+            assertEquals((i + 5.0) * (i + 2.0) * 3.0 - 2.0 * i, expression.solve(interpretation), 0);
+        });
+    }
+
+    @Test
+    public void testCompiledExpressionAgreesWithInterpreter() {
+        String expression = "(((s0)*(0.9*(s1*0.99 + (1-s1)*1.0))) + ((1-s0)*(1.0)))^2 / -(s2 - 3) - 2^-1";
+        CompiledExpression compiled = solver.compileExpression(expression);
+        assertEquals(Arrays.asList("s0", "s1", "s2"), compiled.getVariables());
+        assertEquals(1, compiled.getSlot("s1"));
+        assertEquals(-1, compiled.getSlot("s3"));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            double[] values = {random.nextDouble(), random.nextDouble(), random.nextDouble()};
+            HashMap<String, Double> interpretation = new HashMap<String, Double>();
+            for (int slot = 0; slot < values.length; slot++) {
+                interpretation.put(compiled.getVariables().get(slot), values[slot]);
+            }
+
+            double expected = solver.solveExpression(expression, interpretation);
+            assertEquals(expected, compiled.evaluate(values), 1E-12);
+            assertEquals(expected, compiled.evaluate(interpretation), 1E-12);
+        }
+    }
+
+    @Test
+    public void testCompiledExpressionIsSharedAmongThreads() {
+        CompiledExpression compiled = solver.compileExpression("a + b * c");
+        IntStream.range(0, 100000).parallel().forEach(i -> {
+            double[] values = {i, 2, 3};
+            assertEquals(i + 6.0, compiled.evaluate(values), 0);
+        });
+    }
+
+    @Test
+    public void testCompiledConstantExpression() {
+        CompiledExpression compiled = solver.compileExpression("0.4 / 0.2 - -1");
+        assertTrue(compiled.getVariables().isEmpty());
+        assertEquals(3.0, compiled.evaluate(new double[0]), 0);
+    }
+
+    @Test
+    public void testNonArithmeticExpressionsAreNotCompiled() {
+        assertNull(solver.compileExpression("a && b"));
+        assertNull(solver.compileExpression("a +* b"));
+    }
+
 }
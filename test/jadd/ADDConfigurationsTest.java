@@ -1,8 +1,13 @@
 package jadd;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -15,48 +20,138 @@ public class ADDConfigurationsTest {
     }
 
     @Test
-    public void testConfigurationsWithoutDontCares() {
-        String[] configArray = {"A", "B", "C"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+    public void testConfigurationsWithoutDontCares() throws Exception {
+        Set<List<String>> expanded = configurationsOf(new String[] {"A", "B", "C"}, "A", "B", "C");
 
         Assert.assertEquals(1, expanded.size());
-        Assert.assertTrue(expanded.contains(config));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
     }
 
     @Test
-    public void testConfigurationsWithDontCareAtStart() {
-        String[] configArray = {"(A)", "B", "C"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+    public void testConfigurationsWithDontCareAtStart() throws Exception {
+        Set<List<String>> expanded = configurationsOf(new String[] {"A", "B", "C"}, "B", "C");
 
         Assert.assertEquals(2, expanded.size());
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"B", "C"})));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("B", "C")));
     }
 
     @Test
-    public void testConfigurationsWithDontCareAtEnd() {
-        String[] configArray = {"A", "B", "(C)"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+    public void testConfigurationsWithDontCareAtEnd() throws Exception {
+        Set<List<String>> expanded = configurationsOf(new String[] {"A", "B", "C"}, "A", "B");
 
         Assert.assertEquals(2, expanded.size());
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B"})));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B")));
     }
 
     @Test
-    public void testConfigurationsWithDontCares() {
-        String[] configArray = {"A", "(B)", "C", "(D)"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+    public void testConfigurationsWithDontCares() throws Exception {
+        Set<List<String>> expanded = configurationsOf(new String[] {"A", "B", "C", "D"}, "A", "C");
 
         Assert.assertEquals(4, expanded.size());
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C", "D"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "C", "D"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "C"})));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C", "D")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "C", "D")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "C")));
+    }
+
+    @Test
+    public void testEnumeratedConfigurationsAreTheNonZeroOnes() throws Exception {
+        JADD jadd = new JADD();
+        ADD a = jadd.getVariable("A");
+        ADD b = jadd.getVariable("B");
+        ADD c = jadd.getVariable("C");
+        jadd.getVariable("D");
+        ADD function = a.and(b.complement()).or(c.times(jadd.makeConstant(0.5)));
+        FlatADD flat = function.flatten();
+
+        Set<BitSet> expected = new HashSet<BitSet>();
+        for (long assignment = 0; assignment < 16; assignment++) {
+            BitSet configuration = BitSet.valueOf(new long[] {assignment});
+            if (flat.eval(configuration) != 0) {
+                expected.add(configuration);
+            }
+        }
+        List<BitSet> enumerated = flat.getConfigurations().collect(Collectors.toList());
+
+        Assert.assertEquals(expected.size(), enumerated.size());
+        Assert.assertEquals(expected, new HashSet<BitSet>(enumerated));
+        Assert.assertEquals(expected.size(), function.getExpandedConfigurations().count());
+    }
+
+    @Test
+    public void testSplitsPartitionConfigurationsWithExactSizes() throws Exception {
+        JADD jadd = new JADD();
+        ADD function = jadd.makeConstant(0);
+        for (int i = 0; i < 6; i++) {
+            function = function.or(jadd.getVariable("X" + i).and(jadd.getVariable("Y" + i)));
+        }
+        FlatADD flat = function.flatten();
+
+        List<Spliterator<BitSet>> parts = new ArrayList<Spliterator<BitSet>>();
+        parts.add(new ConfigurationSpliterator(flat));
+        long total = parts.get(0).estimateSize();
+        for (int round = 0; round < 5; round++) {
+            List<Spliterator<BitSet>> splits = new ArrayList<Spliterator<BitSet>>();
+            for (Spliterator<BitSet> part : parts) {
+                Spliterator<BitSet> split = part.trySplit();
+                if (split != null) {
+                    splits.add(split);
+                }
+            }
+            parts.addAll(splits);
+        }
+
+        Set<BitSet> enumerated = new HashSet<BitSet>();
+        long count = 0;
+        for (Spliterator<BitSet> part : parts) {
+            long size = part.estimateSize();
+            List<BitSet> configurations = new ArrayList<BitSet>();
+            part.forEachRemaining(configurations::add);
+            Assert.assertEquals(size, configurations.size());
+            enumerated.addAll(configurations);
+            count += size;
+        }
+        // 4^6 assignments of the pairs, of which 3^6 have no pair of true variables.
+        Assert.assertEquals(4096 - 729, total);
+        Assert.assertEquals(total, count);
+        Assert.assertEquals(total, enumerated.size());
+        Assert.assertTrue(parts.size() > 16);
+    }
+
+    @Test
+    public void testWideCubesAreCountedWithoutExpansion() throws Exception {
+        JADD jadd = new JADD();
+        ADD a = jadd.getVariable("A");
+        for (int i = 0; i < 40; i++) {
+            jadd.getVariable("V" + i);
+        }
+        Spliterator<BitSet> configurations = new ConfigurationSpliterator(a.flatten());
+
+        Assert.assertEquals(1L << 40, configurations.estimateSize());
+        Spliterator<BitSet> half = configurations.trySplit();
+        Assert.assertEquals(1L << 39, half.estimateSize());
+        Assert.assertEquals(1L << 39, configurations.estimateSize());
+        Assert.assertTrue(configurations.tryAdvance(configuration -> Assert.assertTrue(configuration.get(0))));
+    }
+
+    /**
+     * @return the configurations of the conjunction of the {@code present}
+     *      variables, among which the other {@code variables} are "don't cares".
+     */
+    private static Set<List<String>> configurationsOf(String[] variables, String... present) {
+        JADD jadd = new JADD();
+        for (String variable : variables) {
+            jadd.getVariable(variable);
+        }
+        ADD cube = jadd.makeConstant(1);
+        for (String variable : present) {
+            cube = cube.and(jadd.getVariable(variable));
+        }
+        return cube.getExpandedConfigurations()
+                .<List<String>>map(ArrayList::new)
+                .collect(Collectors.toSet());
     }
 
 }
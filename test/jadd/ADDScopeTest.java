@@ -0,0 +1,81 @@
+package jadd;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ADDScopeTest {
+
+	JADD jadd;
+	ADD a;
+	ADD b;
+
+	@Before
+	public void setUp() throws Exception {
+		jadd = new JADD();
+		a = jadd.getVariable("A");
+		b = jadd.getVariable("B");
+	}
+
+	@Test
+	public void testScopeReleasesIntermediatesButKeepsResult() throws Exception {
+		ADD intermediate;
+		ADD result;
+		ADDScope scope = jadd.openScope();
+		try {
+			intermediate = a.plus(b);
+			result = scope.keep(intermediate.times(jadd.makeConstant(0.5)));
+		} finally {
+			scope.close();
+		}
+
+		assertTrue(intermediate.isClosed());
+		assertFalse(result.isClosed());
+		assertEquals(1.0, result.eval(new String[] {"A", "B"}), 1E-10);
+		assertTrue(scope.getCountsAfterRelease().getLiveNodes()
+				< scope.getCountsBeforeRelease().getLiveNodes());
+	}
+
+	@Test
+	public void testKeptADDsAreHandedToEnclosingScope() {
+		ADD kept;
+		try (ADDScope outer = jadd.openScope()) {
+			try (ADDScope inner = jadd.openScope()) {
+				kept = inner.keep(a.times(b));
+			}
+			assertFalse(kept.isClosed());
+			assertNull(outer.getCountsAfterRelease());
+		}
+		assertTrue(kept.isClosed());
+	}
+
+	@Test
+	public void testVariablesAreNeverReleased() throws Exception {
+		try (ADDScope scope = jadd.openScope()) {
+			assertSame(a, jadd.getVariable("A"));
+			jadd.getVariable("C");
+			assertNull(scope.getCountsAfterRelease());
+		}
+		a.close();
+		assertFalse(a.isClosed());
+		assertFalse(jadd.getVariable("C").isClosed());
+		assertEquals(1.0, a.eval(new String[] {"A"}), 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosedADDCannotBeUsed() {
+		ADD sum = a.plus(b);
+		sum.close();
+		sum.close();
+		sum.times(a);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testScopesMustBeClosedInOrder() {
+		ADDScope outer = jadd.openScope();
+		jadd.openScope();
+		outer.close();
+	}
+
+}
@@ -0,0 +1,331 @@
+package jadd;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tool.Assignments;
+
+public class FlatADDTest {
+
+	static final String[] NAMES = {"A", "B", "C", "D", "E"};
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	JADD jadd;
+	ADD function;
+
+	@Before
+	public void setUp() throws Exception {
+		jadd = new JADD();
+		function = jadd.makeConstant(0.5);
+		double weight = 1;
+		for (String name : NAMES) {
+			function = function.plus(jadd.getVariable(name).times(jadd.makeConstant(weight)));
+			weight *= 2;
+		}
+		function = function.times(jadd.getVariable("A").or(jadd.getVariable("C")));
+	}
+
+	@Test
+	public void testSnapshotAgreesWithADD() throws Exception {
+		FlatADD flat = function.flatten();
+		for (int assignment = 0; assignment < (1 << NAMES.length); assignment++) {
+			String[] configuration = Assignments.toConfiguration(assignment, NAMES);
+			BitSet bits = new BitSet();
+			for (String name : configuration) {
+				bits.set(flat.getVariableIndex(name));
+			}
+
+			double expected = function.eval(configuration);
+			assertEquals(expected, flat.eval(configuration), 0);
+			assertEquals(expected, flat.eval(bits), 0);
+			assertEquals(expected, flat.eval(bits.toLongArray()), 0);
+		}
+		assertEquals(function.getNodeCount(), flat.getInternalNodeCount() + flat.getTerminalCount());
+	}
+
+	@Test
+	public void testSnapshotOutlivesADD() throws Exception {
+		FlatADD flat = function.flatten();
+		double expected = function.eval(new String[] {"A", "E"});
+		function.close();
+		jadd.reorderVariables();
+
+		assertEquals(expected, flat.eval(new String[] {"A", "E"}), 0);
+	}
+
+	@Test
+	public void testVariablesBeyondFirstWord() throws Exception {
+		for (int i = 0; i < 70; i++) {
+			jadd.getVariable("V" + i);
+		}
+		FlatADD flat = jadd.getVariable("V3").plus(jadd.getVariable("V66").times(jadd.makeConstant(2))).flatten();
+
+		assertEquals(2.0, flat.eval(new String[] {"V66"}), 0);
+		assertEquals(3.0, flat.eval(new String[] {"V3", "V66"}), 0);
+		// Shorter bit sets leave the remaining variables out.
+		assertEquals(1.0, flat.eval(new long[] {1L << flat.getVariableIndex("V3")}), 0);
+	}
+
+	@Test(expected = UnrecognizedVariableException.class)
+	public void testUnknownVariable() throws Exception {
+		function.flatten().eval(new String[] {"A", "Z"});
+	}
+
+	@Test
+	public void testConcurrentEvaluation() throws Exception {
+		FlatADD flat = function.flatten();
+		double[] expected = new double[1 << NAMES.length];
+		for (int assignment = 0; assignment < expected.length; assignment++) {
+			expected[assignment] = function.eval(Assignments.toConfiguration(assignment, NAMES));
+		}
+		IntStream.range(0, 100000).parallel().forEach(i -> {
+			int assignment = i % expected.length;
+			long[] bits = new long[1];
+			for (int v = 0; v < NAMES.length; v++) {
+				if ((assignment & (1 << v)) != 0) {
+					bits[0] |= 1L << v;
+				}
+			}
+			assertEquals(expected[assignment], flat.eval(bits), 0);
+		});
+	}
+
+	@Test
+	public void testAggregatesAgreeWithEnumeration() throws Exception {
+		FlatADD flat = function.flatten();
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		double sum = 0;
+		int nonZero = 0;
+		int belowFive = 0;
+		int[] histogram = new int[3];
+		for (int assignment = 0; assignment < (1 << NAMES.length); assignment++) {
+			double value = function.eval(Assignments.toConfiguration(assignment, NAMES));
+			if (value != 0) {
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+				sum += value;
+				nonZero++;
+				if (value < 5) {
+					belowFive++;
+				}
+			}
+		}
+		double width = (max - min) / 3;
+		for (int assignment = 0; assignment < (1 << NAMES.length); assignment++) {
+			double value = function.eval(Assignments.toConfiguration(assignment, NAMES));
+			if (value != 0) {
+				histogram[Math.min(2, (int) ((value - min) / width))]++;
+			}
+		}
+
+		assertEquals(min, flat.getMin(value -> value != 0), 0);
+		assertEquals(max, flat.getMax(value -> value != 0), 0);
+		assertEquals(0.0, flat.getMin(value -> true), 0);
+		assertEquals(sum / nonZero, flat.getMean(value -> value != 0), 1E-12);
+		assertEquals(sum / (1 << NAMES.length), flat.getMean(value -> true), 1E-12);
+		assertEquals(BigInteger.valueOf(nonZero), flat.count(value -> value != 0));
+		assertEquals(BigInteger.valueOf(belowFive), flat.count(value -> value != 0 && value < 5));
+		assertEquals(BigInteger.valueOf(1 << NAMES.length), flat.countInRange(0, Double.POSITIVE_INFINITY));
+		BigInteger[] actualHistogram = flat.getHistogram(value -> value != 0, min, max, 3);
+		for (int bin = 0; bin < 3; bin++) {
+			assertEquals(BigInteger.valueOf(histogram[bin]), actualHistogram[bin]);
+		}
+		assertTrue(Double.isNaN(flat.getMax(value -> value > 1000)));
+	}
+
+	@Test
+	public void testCountsAreExactBeyondLongRange() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			jadd.getVariable("V" + i);
+		}
+		FlatADD flat = jadd.getVariable("V0").and(jadd.getVariable("V1")).flatten();
+
+		BigInteger all = BigInteger.ONE.shiftLeft(flat.getNumberOfVariables());
+		assertEquals(all.shiftRight(2), flat.count(value -> value != 0));
+		assertEquals(all.subtract(all.shiftRight(2)), flat.countInRange(0, 0.5));
+		assertEquals(0.25, flat.getMean(value -> true), 0);
+	}
+
+	@Test
+	public void testExtremeCubesAgreeWithSorting() throws Exception {
+		FlatADD flat = function.flatten();
+		List<Double> values = new ArrayList<Double>();
+		for (int assignment = 0; assignment < (1 << NAMES.length); assignment++) {
+			double value = function.eval(Assignments.toConfiguration(assignment, NAMES));
+			if (value != 0) {
+				values.add(value);
+			}
+		}
+		Collections.sort(values);
+
+		for (int k = 1; k <= values.size(); k++) {
+			List<Double> lowest = expand(flat.getLowest(k, value -> value != 0));
+			assertTrue(lowest.size() >= k);
+			assertEquals(values.subList(0, k), lowest.subList(0, k));
+
+			List<Double> highest = expand(flat.getHighest(k, value -> value != 0));
+			List<Double> reversed = new ArrayList<Double>(values);
+			Collections.reverse(reversed);
+			assertEquals(reversed.subList(0, k), highest.subList(0, k));
+		}
+		assertEquals(values.size(), expand(flat.getLowest(1000, value -> value != 0)).size());
+	}
+
+	@Test
+	public void testExtremeCubesKeepDontCares() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			jadd.getVariable("V" + i);
+		}
+		ADD v0 = jadd.getVariable("V0");
+		FlatADD flat = v0.times(jadd.makeConstant(0.9))
+				.plus(v0.complement().times(jadd.makeConstant(0.5)))
+				.times(jadd.getVariable("V1"))
+				.flatten();
+
+		List<Cube> worst = flat.getLowest(3, value -> value != 0);
+		assertEquals(1, worst.size());
+		assertEquals(0.5, worst.get(0).getValue(), 0);
+		assertEquals(Collections.singletonList("V1"), worst.get(0).getPresentVariables());
+		assertEquals(flat.getNumberOfVariables() - 2, worst.get(0).getDontCareVariables().size());
+		assertEquals(BigInteger.ONE.shiftLeft(flat.getNumberOfVariables() - 2), worst.get(0).getConfigurationCount());
+		assertTrue(worst.get(0).toList().contains("(V2)"));
+
+		List<Cube> best = flat.getHighest(1, value -> value != 0);
+		assertEquals(0.9, best.get(0).getValue(), 0);
+		assertTrue(best.get(0).getPresentVariables().containsAll(Arrays.asList("V0", "V1")));
+	}
+
+	@Test
+	public void testRestrictedVariablesAreNotCounted() throws Exception {
+		ADD restricted = function.restrict(Collections.singletonMap("A", true));
+		FlatADD flat = restricted.flatten().excluding(Collections.singletonList("A"));
+
+		// A is present, so every assignment to B, C, D and E is valid.
+		assertEquals(NAMES.length - 1, flat.getNumberOfFreeVariables());
+		assertEquals(BigInteger.valueOf(16), flat.count(value -> value != 0));
+		assertEquals(16, flat.getConfigurations().count());
+		for (Cube cube : flat.getLowest(16, value -> value != 0)) {
+			assertFalse(cube.getDontCareVariables().contains("A"));
+			assertFalse(cube.getPresentVariables().contains("A"));
+		}
+		assertEquals(16, expand(flat.getLowest(16, value -> value != 0)).size());
+	}
+
+	@Test
+	public void testAbstractedVariablesAreNotCounted() throws Exception {
+		ADD abstracted = function.abstractVariables(Arrays.asList("A", "B"), Abstraction.MAX);
+		FlatADD flat = abstracted.flatten().excluding(Arrays.asList("A", "B"));
+
+		// Valid for some choice of A and B, i.e., for every assignment to C, D and E.
+		assertEquals(BigInteger.valueOf(8), flat.count(value -> value != 0));
+		assertEquals(8, flat.getConfigurations().count());
+		// Exclusions accumulate.
+		assertEquals(BigInteger.valueOf(4), abstracted.restrict(Collections.singletonMap("C", false))
+				.flatten()
+				.excluding(Arrays.asList("A", "B"))
+				.excluding(Collections.singletonList("C"))
+				.count(value -> value != 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testVariablesOfTheFunctionCannotBeExcluded() throws Exception {
+		function.flatten().excluding(Collections.singletonList("A"));
+	}
+
+	@Test
+	public void testSnapshotFileRoundTrip() throws Exception {
+		FlatADD flat = function.flatten();
+		File file = temporaryFolder.newFile("function.add");
+		flat.writeTo(file.toPath());
+
+		FlatADD read = FlatADD.readFrom(file.toPath());
+		assertEquals(flat.getInternalNodeCount(), read.getInternalNodeCount());
+		assertEquals(flat.getTerminalCount(), read.getTerminalCount());
+		for (int assignment = 0; assignment < (1 << NAMES.length); assignment++) {
+			String[] configuration = Assignments.toConfiguration(assignment, NAMES);
+			assertEquals(flat.eval(configuration), read.eval(configuration), 0);
+		}
+	}
+
+	@Test
+	public void testBinaryADDIsReadByVariableName() throws Exception {
+		File file = temporaryFolder.newFile("function.add");
+		jadd.dumpBinaryADD(function, file.getPath());
+
+		// Another JADD, whose variables have other indices.
+		JADD other = new JADD(ADDBackendType.JAVA);
+		for (int i = NAMES.length - 1; i >= 0; i--) {
+			other.getVariable(NAMES[i]);
+		}
+		other.getVariable("Z");
+		ADD read = other.readBinaryADD(file.getPath());
+
+		for (int assignment = 0; assignment < (1 << NAMES.length); assignment++) {
+			String[] configuration = Assignments.toConfiguration(assignment, NAMES);
+			assertEquals(function.eval(configuration), read.eval(configuration), 0);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptSnapshotIsRejected() throws Exception {
+		File file = temporaryFolder.newFile("function.add");
+		function.flatten().writeTo(file.toPath());
+		try (RandomAccessFile contents = new RandomAccessFile(file, "rw")) {
+			contents.seek(contents.length() / 2);
+			int value = contents.read();
+			contents.seek(contents.length() / 2);
+			contents.write(value ^ 1);
+		}
+
+		FlatADD.readFrom(file.toPath());
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedSnapshotIsRejected() throws Exception {
+		File file = temporaryFolder.newFile("function.add");
+		function.flatten().writeTo(file.toPath());
+		try (RandomAccessFile contents = new RandomAccessFile(file, "rw")) {
+			contents.setLength(contents.length() - 12);
+		}
+
+		FlatADD.readFrom(file.toPath());
+	}
+
+	/**
+	 * @return the values of all configurations in the cubes, in order.
+	 */
+	private List<Double> expand(List<Cube> cubes) throws UnrecognizedVariableException {
+		List<Double> values = new ArrayList<Double>();
+		for (Cube cube : cubes) {
+			for (long i = 0; i < cube.getConfigurationCount().longValueExact(); i++) {
+				List<String> configuration = new ArrayList<String>(cube.getPresentVariables());
+				for (int j = 0; j < cube.getDontCareVariables().size(); j++) {
+					if ((i & (1L << j)) != 0) {
+						configuration.add(cube.getDontCareVariables().get(j));
+					}
+				}
+				values.add(function.eval(configuration.toArray(new String[configuration.size()])));
+			}
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,137 @@
+package jadd;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JADDConcurrencyTest {
+
+	JADD jadd;
+	ExecutorService executor;
+
+	@Before
+	public void setUp() throws Exception {
+		jadd = new JADD();
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testADDsFromOtherThreadsCanBeCombined() throws Exception {
+		ADD a = jadd.getVariable("A");
+		// B is first created by another thread, but must get the next index.
+		ADD b = executor.submit(() -> jadd.getVariable("B").times(jadd.makeConstant(0.5))).get();
+		ADD c = executor.submit(() -> jadd.getVariable("C")).get();
+
+		ADD sum = a.plus(b).plus(c);
+		assertEquals(2.5, sum.eval(new String[] {"A", "B", "C"}), 1E-10);
+		assertEquals(1.5, sum.eval(new String[] {"B", "C"}), 1E-10);
+		assertEquals(0.0, sum.eval(new String[] {}), 1E-10);
+		assertTrue(sum.getVariables().contains("B"));
+		assertEquals(b, jadd.getVariable("B").times(jadd.makeConstant(0.5)));
+	}
+
+	@Test
+	public void testVariablesMayBeRegisteredByThreadsWithoutManagers() throws Exception {
+		jadd.getVariable("A");
+		int b = executor.submit(() -> jadd.getOrCreateVariableIndex("B")).get();
+
+		assertEquals(1, b);
+		assertEquals(b, jadd.getVariableIndex("B"));
+		assertEquals(b, jadd.getOrCreateVariableIndex("B"));
+		ADD sum = jadd.getVariable("A").plus(jadd.getVariable("B"));
+		assertEquals(1.0, sum.eval(new String[] {"B"}), 1E-10);
+	}
+
+	@Test
+	public void testConcurrentOperationsAgreeWithSequentialOnes() throws Exception {
+		final String[] names = {"A", "B", "C", "D", "E", "F"};
+		ADD expected = weightedSum(names);
+
+		List<Callable<ADD>> tasks = new ArrayList<Callable<ADD>>();
+		for (int i = 0; i < 16; i++) {
+			tasks.add(() -> weightedSum(names));
+		}
+		for (Future<ADD> result : executor.invokeAll(tasks)) {
+			assertEquals(expected, result.get());
+		}
+	}
+
+	@Test
+	public void testNewThreadsFollowVariableOrder() throws Exception {
+		for (String name : new String[] {"A", "B", "C"}) {
+			jadd.getVariable(name);
+		}
+		jadd.setVariableOrder(new String[] {"C", "A", "B"});
+		List<String> order = executor.submit(() -> jadd.getVariable("A").getVariableOrder()).get();
+		assertEquals("C", order.get(0));
+		assertEquals("A", order.get(1));
+		assertEquals("B", order.get(2));
+	}
+
+	@Test
+	public void testNewThreadsFollowOrderSetByOtherThreads() throws Exception {
+		for (String name : new String[] {"A", "B", "C"}) {
+			jadd.getVariable(name);
+		}
+		ExecutorService worker = Executors.newSingleThreadExecutor();
+		try {
+			worker.submit(() -> {
+				jadd.setVariableOrder(new String[] {"B", "C", "A"});
+				return null;
+			}).get();
+		} finally {
+			worker.shutdown();
+		}
+		// The order of the creating thread's manager is stale by now.
+		assertEquals("A", jadd.getVariableOrder().get(0));
+		List<String> order = executor.submit(() -> jadd.getVariableOrder()).get();
+		assertEquals("B", order.get(0));
+		assertEquals("C", order.get(1));
+		assertEquals("A", order.get(2));
+	}
+
+	@Test
+	public void testReleasedManagersLeaveCopiesIntact() throws Exception {
+		ADD a = jadd.getVariable("A");
+		ExecutorService worker = Executors.newSingleThreadExecutor();
+		ADD b = worker.submit(() -> jadd.getVariable("B").times(jadd.makeConstant(2))).get();
+		ADD sum = a.plus(b);
+		worker.submit(() -> jadd.releaseCurrentManager()).get();
+		worker.shutdown();
+
+		// ADDs of a released manager may still be closed.
+		b.close();
+		assertEquals(3.0, sum.eval(new String[] {"A", "B"}), 1E-10);
+		// The manager of the creating thread is never released.
+		jadd.releaseCurrentManager();
+		assertEquals(1.0, a.plus(jadd.makeConstant(0)).eval(new String[] {"A"}), 1E-10);
+	}
+
+	/**
+	 * @return sum of 2^i * x_i, whose value differs for every configuration.
+	 */
+	private ADD weightedSum(String[] names) {
+		ADD sum = jadd.makeConstant(0);
+		double weight = 1;
+		for (String name : names) {
+			sum = sum.plus(jadd.getVariable(name).times(jadd.makeConstant(weight)));
+			weight *= 2;
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,260 @@
+package jadd;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tool.Assignments;
+
+public class JavaBackendTest {
+
+	static final String[] NAMES = {"A", "B", "C", "D", "E", "F", "G", "H"};
+
+	JADD java;
+	JADD cudd;
+
+	@Before
+	public void setUp() throws Exception {
+		java = new JADD(ADDBackendType.JAVA);
+		cudd = new JADD(ADDBackendType.CUDD);
+		for (String name : NAMES) {
+			java.getVariable(name);
+			cudd.getVariable(name);
+		}
+	}
+
+	@Test
+	public void testRandomFunctionsAgreeWithCudd() throws Exception {
+		for (long seed = 0; seed < 20; seed++) {
+			ADD expected = randomFunction(cudd, new Random(seed), 4);
+			ADD actual = randomFunction(java, new Random(seed), 4);
+
+			assertSameFunction(expected, actual);
+			assertEquals(expected.getNodeCount(), actual.getNodeCount());
+			assertEquals(expected.getTerminalsDifferentThanZeroCount(), actual.getTerminalsDifferentThanZeroCount());
+			assertEquals(expected.getPathsToNonZeroTerminalsCount(), actual.getPathsToNonZeroTerminalsCount(), 0);
+			assertEquals(expected.getPathsToZeroTerminalCount(), actual.getPathsToZeroTerminalCount(), 0);
+			assertEquals(expected.getVariables(), actual.getVariables());
+		}
+	}
+
+	@Test
+	public void testBooleanOperationsAgreeWithCudd() throws Exception {
+		ADD expected = cudd.getVariable("A").and(cudd.getVariable("B").complement())
+				.or(cudd.getVariable("C"))
+				.ifThenElse(cudd.getVariable("D"), 0.25);
+		ADD actual = java.getVariable("A").and(java.getVariable("B").complement())
+				.or(java.getVariable("C"))
+				.ifThenElse(java.getVariable("D"), 0.25);
+
+		assertSameFunction(expected, actual);
+		assertEquals(configurations(expected), configurations(actual));
+	}
+
+	@Test
+	public void testEqualityIsCanonical() throws Exception {
+		ADD a = java.getVariable("A");
+		ADD b = java.getVariable("B");
+		ADD left = a.plus(b).times(java.makeConstant(2));
+		ADD right = b.times(java.makeConstant(2)).plus(a.plus(a));
+
+		assertEquals(left, right);
+		assertEquals(left.getUnderlyingNode(), right.getUnderlyingNode());
+		assertNotEquals(left, a.plus(b));
+		assertTrue(a.minus(a).isConstant());
+	}
+
+	@Test
+	public void testReorderingShrinksADDsAndPreservesFunctions() throws Exception {
+		// Pairs of related variables which are far apart in the initial order.
+		ADD function = java.makeConstant(0);
+		ADD expected = cudd.makeConstant(0);
+		for (int i = 0; i < NAMES.length / 2; i++) {
+			String x = NAMES[i];
+			String y = NAMES[i + NAMES.length / 2];
+			function = function.plus(java.getVariable(x).and(java.getVariable(y)));
+			expected = expected.plus(cudd.getVariable(x).and(cudd.getVariable(y)));
+		}
+		int sizeBefore = function.getNodeCount();
+
+		java.reorderVariables();
+
+		assertTrue(function.getNodeCount() < sizeBefore);
+		assertEquals(1, function.getReorderingsCount());
+		assertSameFunction(expected, function);
+		ADD rebuilt = java.makeConstant(0);
+		for (int i = 0; i < NAMES.length / 2; i++) {
+			rebuilt = rebuilt.plus(java.getVariable(NAMES[i]).and(java.getVariable(NAMES[i + NAMES.length / 2])));
+		}
+		assertEquals(function.getUnderlyingNode(), rebuilt.getUnderlyingNode());
+	}
+
+	@Test
+	public void testVariableOrderCanBeSet() throws Exception {
+		ADD function = java.getVariable("A").plus(java.getVariable("H").times(java.makeConstant(3)));
+		String[] order = {"H", "G", "F", "E", "D", "C", "B", "A"};
+
+		java.setVariableOrder(order);
+
+		List<String> actualOrder = function.getVariableOrder();
+		for (int i = 0; i < order.length; i++) {
+			assertEquals(order[i], actualOrder.get(i));
+		}
+		assertEquals(4.0, function.eval(new String[] {"A", "H"}), 0);
+		assertEquals(3.0, function.eval(new String[] {"H"}), 0);
+	}
+
+	@Test
+	public void testClosedADDsAreGarbageCollected() throws Exception {
+		long liveBefore = java.getNodeCounts().getLiveNodes();
+		for (int round = 0; round < 20; round++) {
+			try (ADDScope scope = java.openScope()) {
+				ADD sum = java.makeConstant(round);
+				double weight = 1;
+				for (String name : NAMES) {
+					sum = sum.plus(java.getVariable(name).times(java.makeConstant(weight)));
+					weight *= 3;
+				}
+				for (String name : NAMES) {
+					sum = sum.times(sum.plus(java.getVariable(name)));
+				}
+				assertNull(scope.getCountsAfterRelease());
+			}
+		}
+
+		assertEquals(liveBefore, java.getNodeCounts().getLiveNodes());
+		assertTrue(java.getVariable("A").getGarbageCollectionsCount() > 0);
+	}
+
+	@Test
+	public void testRestrictionAgreesWithCofactors() throws Exception {
+		Map<String, Boolean> assignment = new HashMap<String, Boolean>();
+		assignment.put("A", true);
+		assignment.put("C", false);
+		assignment.put("H", true);
+		// A, C and H fixed as in the assignment.
+		int fixed = 1 | (1 << 7);
+		int cleared = ~(1 | (1 << 2) | (1 << 7));
+		for (long seed = 0; seed < 20; seed++) {
+			for (JADD jadd : Arrays.asList(java, cudd)) {
+				ADD function = randomFunction(jadd, new Random(seed), 4);
+				ADD restricted = function.restrict(assignment);
+
+				assertFalse(restricted.getVariables().contains("A"));
+				assertFalse(restricted.getVariables().contains("C"));
+				for (int configuration = 0; configuration < (1 << NAMES.length); configuration++) {
+					assertEquals(function.eval(Assignments.toConfiguration((configuration & cleared) | fixed, NAMES)),
+								 restricted.eval(Assignments.toConfiguration(configuration, NAMES)),
+								 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAbstractionAgreesWithEnumeration() throws Exception {
+		List<String> abstracted = Arrays.asList("B", "D");
+		int cleared = ~((1 << 1) | (1 << 3));
+		for (long seed = 0; seed < 10; seed++) {
+			for (JADD jadd : Arrays.asList(java, cudd)) {
+				ADD function = randomFunction(jadd, new Random(seed), 4);
+				for (Abstraction abstraction : Abstraction.values()) {
+					ADD result = function.abstractVariables(abstracted, abstraction);
+
+					assertFalse(result.getVariables().contains("B"));
+					assertFalse(result.getVariables().contains("D"));
+					for (int configuration = 0; configuration < (1 << NAMES.length); configuration++) {
+						double[] values = new double[4];
+						for (int choice = 0; choice < 4; choice++) {
+							int assignment = (configuration & cleared) | ((choice & 1) << 1) | ((choice & 2) << 2);
+							values[choice] = function.eval(Assignments.toConfiguration(assignment, NAMES));
+						}
+						double expected = values[0];
+						for (int choice = 1; choice < 4; choice++) {
+							switch (abstraction) {
+							case SUM:
+								expected += values[choice];
+								break;
+							case PRODUCT:
+								expected *= values[choice];
+								break;
+							case MIN:
+								expected = Math.min(expected, values[choice]);
+								break;
+							default:
+								expected = Math.max(expected, values[choice]);
+							}
+						}
+						assertEquals(expected, result.eval(Assignments.toConfiguration(configuration, NAMES)), 1E-9);
+					}
+				}
+			}
+		}
+	}
+
+	@Test(expected = UnrecognizedVariableException.class)
+	public void testRestrictingUnknownVariable() throws Exception {
+		java.getVariable("A").restrict(Collections.singletonMap("Z", true));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDddmpFilesAreNotSupported() throws Exception {
+		java.dumpADD(java.getVariable("A"), "unsupported.add");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDddmpFilesAreNotRead() throws Exception {
+		java.readADD("unsupported.add");
+	}
+
+	private ADD randomFunction(JADD jadd, Random random, int depth) {
+		if (depth == 0) {
+			if (random.nextBoolean()) {
+				return jadd.getVariable(NAMES[random.nextInt(NAMES.length)]);
+			}
+			return jadd.makeConstant(random.nextInt(5) / 4.0);
+		}
+		ADD left = randomFunction(jadd, random, depth - 1);
+		ADD right = randomFunction(jadd, random, depth - 1);
+		switch (random.nextInt(6)) {
+		case 0:
+			return left.plus(right);
+		case 1:
+			return left.minus(right);
+		case 2:
+			return left.times(right);
+		case 3:
+			return left.dividedBy(right.plus(jadd.makeConstant(1)));
+		case 4:
+			return left.negate();
+		default:
+			return jadd.getVariable(NAMES[random.nextInt(NAMES.length)]).ifThenElse(left, right);
+		}
+	}
+
+	private void assertSameFunction(ADD expected, ADD actual) throws Exception {
+		for (int assignment = 0; assignment < (1 << NAMES.length); assignment++) {
+			String[] variables = Assignments.toConfiguration(assignment, NAMES);
+			assertEquals(expected.eval(variables), actual.eval(variables), 1E-12);
+		}
+	}
+
+	private Set<Set<String>> configurations(ADD add) {
+		return add.getExpandedConfigurations()
+				.map((Collection<String> configuration) -> new HashSet<String>(configuration))
+				.collect(Collectors.toSet());
+	}
+
+}
@@ -0,0 +1,89 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class AcyclicModelCheckerTest {
+
+	AcyclicModelChecker modelChecker;
+	int fallbackInvocations;
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() throws Exception {
+		fallbackInvocations = 0;
+		modelChecker = new AcyclicModelChecker(fdtmc -> {
+			fallbackInvocations++;
+			return new StateEliminationModelChecker().getReliability(fdtmc);
+		}, null);
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+	}
+
+	@Test
+	public void testSharedSubpathsAreSummed() {
+		State init = fdtmc.createInitialState();
+		State left = fdtmc.createState();
+		State right = fdtmc.createState();
+		State join = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, left, null, "a");
+		fdtmc.createTransition(init, right, null, "1-a");
+		fdtmc.createTransition(left, join, null, "b");
+		fdtmc.createTransition(left, error, null, "1-b");
+		fdtmc.createTransition(right, join, null, "c");
+		fdtmc.createTransition(right, error, null, "1-c");
+		fdtmc.createTransition(join, success, null, "0.9");
+		fdtmc.createTransition(join, error, null, "0.1");
+		fdtmc.createTransition(success, success, null, "1");
+		fdtmc.createTransition(error, error, null, "1");
+
+		assertEquals(new StateEliminationModelChecker().getReliability(fdtmc),
+				modelChecker.getReliability(fdtmc));
+		assertEquals(0, fallbackInvocations);
+	}
+
+	@Test
+	public void testDeadlocksAreNotCycles() {
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		fdtmc.createErrorState();
+		fdtmc.createTransition(init, success, null, "r");
+
+		assertEquals("1*r", modelChecker.getReliability(fdtmc));
+		assertEquals(0, fallbackInvocations);
+	}
+
+	@Test
+	public void testCyclicModelsAreDelegated() {
+		State init = fdtmc.createInitialState();
+		State retry = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, retry, null, "rRetry");
+		fdtmc.createTransition(init, success, null, "1-rRetry");
+		fdtmc.createTransition(retry, init, null, "0.5");
+		fdtmc.createTransition(retry, error, null, "0.5");
+
+		assertNull(modelChecker.computeReachability(fdtmc));
+		modelChecker.getReliability(fdtmc);
+		assertEquals(1, fallbackInvocations);
+	}
+
+	@Test
+	public void testNonAbsorbingSelfLoopIsACycle() {
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		fdtmc.createTransition(init, init, null, "rLoop");
+		fdtmc.createTransition(init, success, null, "1-rLoop");
+
+		assertNull(modelChecker.computeReachability(fdtmc));
+	}
+
+}
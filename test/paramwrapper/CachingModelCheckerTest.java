@@ -0,0 +1,155 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+import tool.FDTMCStub;
+
+public class CachingModelCheckerTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	File cacheDirectory;
+	AtomicInteger invocations;
+	AtomicInteger hits;
+	AtomicInteger misses;
+	ParametricModelChecker countingModelChecker;
+	IModelCollector countingCollector;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDirectory = temporaryFolder.newFolder("cache");
+		invocations = new AtomicInteger();
+		hits = new AtomicInteger();
+		misses = new AtomicInteger();
+		countingModelChecker = fdtmc -> {
+			invocations.incrementAndGet();
+			return "formula" + fdtmc.getStates().size();
+		};
+		countingCollector = new NoopModelCollector() {
+			@Override
+			public void collectCacheHit() {
+				hits.incrementAndGet();
+			}
+
+			@Override
+			public void collectCacheMiss() {
+				misses.incrementAndGet();
+			}
+		};
+	}
+
+	@Test
+	public void testEquivalentModelsShareEntry() {
+		CachingModelChecker cache = makeCache(10);
+
+		FDTMC first = new FDTMC();
+		first.setVariableName("sA");
+		State init = first.createState("init");
+		State success = first.createState("success");
+		State error = first.createState("fail");
+		first.createTransition(init, success, null, "rA");
+		first.createTransition(init, error, null, "1-rA");
+
+		// Same chain, but states are created in a different order
+		// and under a different variable name.
+		FDTMC second = new FDTMC();
+		second.setVariableName("sB");
+		State init2 = second.createState("init");
+		State error2 = second.createState("fail");
+		State success2 = second.createState("success");
+		second.createTransition(init2, success2, null, "rA");
+		second.createTransition(init2, error2, null, "1 - rA");
+
+		assertEquals("formula3", cache.getReliability(first));
+		assertEquals("formula3", cache.getReliability(second));
+		assertEquals(1, invocations.get());
+		assertEquals(1, misses.get());
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	public void testDifferentParametersYieldDifferentEntries() {
+		CachingModelChecker cache = makeCache(10);
+		cache.getReliability(FDTMCStub.createChainFDTMC(1, "rA"));
+		cache.getReliability(FDTMCStub.createChainFDTMC(1, "rB"));
+		assertEquals(2, invocations.get());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testEntriesPersistAcrossInstances() {
+		makeCache(10).getReliability(FDTMCStub.createChainFDTMC(2, "r"));
+
+		CachingModelChecker reopened = makeCache(10);
+		assertEquals("formula4", reopened.getReliability(FDTMCStub.createChainFDTMC(2, "r")));
+		assertEquals(1, invocations.get());
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() {
+		CachingModelChecker cache = makeCache(2);
+		cache.getReliability(FDTMCStub.createChainFDTMC(1, "r"));
+		cache.getReliability(FDTMCStub.createChainFDTMC(2, "r"));
+		// Makes the first model the most recently used one.
+		cache.getReliability(FDTMCStub.createChainFDTMC(1, "r"));
+		cache.getReliability(FDTMCStub.createChainFDTMC(3, "r"));
+		assertEquals(2, cache.size());
+		assertEquals(2, cacheDirectory.list().length);
+		assertEquals(3, invocations.get());
+
+		cache.getReliability(FDTMCStub.createChainFDTMC(1, "r"));
+		assertEquals(3, invocations.get());
+		cache.getReliability(FDTMCStub.createChainFDTMC(2, "r"));
+		assertEquals(4, invocations.get());
+	}
+
+	@Test
+	public void testConcurrentRequestsAreModelCheckedOnce() {
+		CachingModelChecker cache = makeCache(10);
+		IntStream.range(0, 64).parallel().forEach(i -> {
+			assertEquals("formula5", cache.getReliability(FDTMCStub.createChainFDTMC(3, "r")));
+		});
+		assertEquals(1, invocations.get());
+		assertEquals(1, misses.get());
+		assertEquals(63, hits.get());
+	}
+
+	@Test
+	public void testFailuresAreNotCached() {
+		CachingModelChecker cache = new CachingModelChecker(fdtmc -> {
+			invocations.incrementAndGet();
+			return "";
+		}, cacheDirectory, 10, "test", countingCollector);
+		cache.getReliability(FDTMCStub.createChainFDTMC(1, "r"));
+		cache.getReliability(FDTMCStub.createChainFDTMC(1, "r"));
+		assertEquals(2, invocations.get());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testMissingCollectorIsIgnored() {
+		// The CLI passes no collector when statistics are disabled.
+		CachingModelChecker cache = new CachingModelChecker(countingModelChecker, cacheDirectory, 10, "test", null);
+		assertEquals("formula5", cache.getReliability(FDTMCStub.createChainFDTMC(3, "r")));
+		assertEquals("formula5", cache.getReliability(FDTMCStub.createChainFDTMC(3, "r")));
+		assertEquals(1, invocations.get());
+	}
+
+	private CachingModelChecker makeCache(int maxEntries) {
+		return new CachingModelChecker(countingModelChecker, cacheDirectory, maxEntries, "test", countingCollector);
+	}
+
+}
@@ -0,0 +1,110 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tool.FDTMCStub;
+
+public class ModelBatcherTest {
+
+	List<Integer> batchSizes;
+	ExecutorService executor;
+
+	/**
+	 * Answers each model with its number of states, so that we can tell
+	 * whether results are routed back to the right callers.
+	 */
+	ModelBatcher.BatchChecker checker = new ModelBatcher.BatchChecker() {
+		@Override
+		public List<String> check(List<ParamModel> models) {
+			batchSizes.add(models.size());
+			List<String> results = new ArrayList<String>();
+			for (ParamModel model : models) {
+				results.add(Integer.toString(model.getStatesNumber()));
+			}
+			return results;
+		}
+	};
+
+	@Before
+	public void setUp() throws Exception {
+		batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testFullBatchIsCheckedInOneRun() throws Exception {
+		// A long linger ensures only a full batch triggers the run.
+		final ModelBatcher batcher = new ModelBatcher(4, 60000, checker);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int i = 0; i < 4; i++) {
+			final ParamModel model = new ParamModel(FDTMCStub.createChainFDTMC(i + 1));
+			results.add(executor.submit(() -> batcher.submit(model)));
+		}
+		for (int i = 0; i < 4; i++) {
+			assertEquals(Integer.toString(i + 3), results.get(i).get());
+		}
+		assertEquals(Arrays.asList(4), batchSizes);
+	}
+
+	@Test
+	public void testPartialBatchIsCheckedAfterLinger() {
+		ModelBatcher batcher = new ModelBatcher(4, 10, checker);
+		assertEquals("3", batcher.submit(new ParamModel(FDTMCStub.createChainFDTMC(1))));
+		assertEquals("4", batcher.submit(new ParamModel(FDTMCStub.createChainFDTMC(2))));
+		assertEquals(Arrays.asList(1, 1), batchSizes);
+	}
+
+	@Test
+	public void testUnionModel() {
+		List<ParamModel> models = Arrays.asList(new ParamModel(FDTMCStub.createChainFDTMC(1)),
+				new ParamModel(FDTMCStub.createChainFDTMC(2)));
+		int[] initialStates = ParamModel.getUnionInitialStates(models);
+		String union = ParamModel.toUnionString(models);
+
+		// States 1-3 belong to the first model and 4-7 to the second one.
+		assertArrayEquals(new int[] {1, 4}, initialStates);
+		assertTrue(union.contains("s : [0..7] init 0;"));
+		assertTrue(union.contains("[] s=0 -> (1/2) : (s'=1) + (1/2) : (s'=4);"));
+		assertTrue(union.contains("[] s=4 -> (r0) : (s'=6) + (1-r0) : (s'=5);"));
+		assertTrue(union.contains("[] s=6 -> (r1) : (s'=7) + (1-r1) : (s'=5);"));
+		assertTrue(union.contains("label \"success\" = s=3 | s=7;"));
+		assertTrue(union.contains("param double r0;"));
+		assertTrue(union.contains("param double r1;"));
+	}
+
+	@Test
+	public void testSplitBatchResults() {
+		List<String> lines = Arrays.asList(
+				"filter(state, P=? [ F \"success\" ], s=1):",
+				"Result",
+				"{ r0 | 1 }",
+				"",
+				"filter(state, P=? [ F \"success\" ], s=4):",
+				"Result",
+				"{ r0 * r1 | 1 }",
+				"",
+				"filter(state, P=? [ F \"success\" ], s=8):",
+				"Result",
+				"0.5");
+		assertEquals(Arrays.asList("r0 / 1", "r0 * r1 / 1", "0.5"),
+				ParamWrapper.splitBatchResults(lines));
+	}
+
+}
@@ -0,0 +1,104 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelCheckerWorkerPoolTest {
+
+	private static final String[] STUB_COMMAND = {
+			System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+			"-cp",
+			System.getProperty("java.class.path"),
+			StubModelCheckerWorker.class.getName()};
+
+	private ModelCheckerWorkerPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new ModelCheckerWorkerPool(STUB_COMMAND, 2, 5000);
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	public void testRequestsAreServedByPersistentWorkers() throws IOException {
+		String first = pool.check("a\nb\nc", "P=? [ F \"success\" ]", Arrays.asList("x", "y"));
+		String second = pool.check("a", "P=? [ F \"success\" ]", Collections.<String>emptyList());
+
+		String[] firstFields = first.split(" ");
+		String[] secondFields = second.split(" ");
+		assertEquals("3", firstFields[0]);
+		assertEquals("x,y", firstFields[1]);
+		assertEquals("1", secondFields[0]);
+		assertEquals("-", secondFields[1]);
+		// Sequential requests are served by the same process.
+		assertEquals(firstFields[2], secondFields[2]);
+	}
+
+	@Test
+	public void testPoolIsBounded() {
+		Set<String> workerPids = ConcurrentHashMap.newKeySet();
+		IntStream.range(0, 20).parallel().forEach(i -> {
+			try {
+				workerPids.add(pool.check("a", "p", Collections.<String>emptyList()).split(" ")[2]);
+			} catch (IOException e) {
+				fail(e.toString());
+			}
+		});
+		assertTrue(workerPids.size() <= 2);
+	}
+
+	@Test
+	public void testCrashedWorkerIsRestarted() throws IOException {
+		String before = pool.check("a", "p", Collections.<String>emptyList()).split(" ")[2];
+		try {
+			pool.check("a", "crash", Collections.<String>emptyList());
+			fail("A request which crashes every worker should fail");
+		} catch (IOException e) {
+			// Expected
+		}
+		String after = pool.check("a", "p", Collections.<String>emptyList()).split(" ")[2];
+		assertNotEquals(before, after);
+	}
+
+	@Test
+	public void testHangingWorkerTimesOut() throws IOException {
+		pool.close();
+		pool = new ModelCheckerWorkerPool(STUB_COMMAND, 1, 500);
+		String before = pool.check("a", "p", Collections.<String>emptyList()).split(" ")[2];
+		try {
+			pool.check("a", "hang", Collections.<String>emptyList());
+			fail("Request should have timed out");
+		} catch (IOException e) {
+			// Expected
+		}
+		String after = pool.check("a", "p", Collections.<String>emptyList()).split(" ")[2];
+		assertNotEquals(before, after);
+	}
+
+	@Test(expected = IOException.class)
+	public void testWorkerErrorIsReported() throws IOException {
+		pool.check("a", "fail", Collections.<String>emptyList());
+	}
+
+	@Test(expected = IOException.class)
+	public void testClosedPoolRejectsRequests() throws IOException {
+		pool.close();
+		pool.check("a", "p", Collections.<String>emptyList());
+	}
+
+}
@@ -0,0 +1,112 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class NumericModelCheckerTest {
+
+	private static final double DELTA = 1E-9;
+
+	NumericModelChecker modelChecker;
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() throws Exception {
+		modelChecker = new NumericModelChecker();
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+	}
+
+	@Test
+	public void testStatisticsAreCollected() {
+		int[] collected = new int[3];
+		modelChecker = new NumericModelChecker(new NoopModelCollector() {
+			@Override
+			public void collectModel(int variables, int states) {
+				collected[0] += variables;
+				collected[1] += states;
+			}
+
+			@Override
+			public void collectModelCheckingTime(long elapsedTime) {
+				collected[2]++;
+			}
+		});
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, success, null, "0.9");
+		fdtmc.createTransition(init, error, null, "0.1");
+
+		assertEquals(0.9, modelChecker.getReliability(fdtmc), DELTA);
+		assertArrayEquals(new int[] {0, 3, 1}, collected);
+	}
+
+	@Test
+	public void testAcyclicModel() {
+		State init = fdtmc.createInitialState();
+		State middle = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, middle, null, "0.99");
+		fdtmc.createTransition(init, error, null, "1-0.99");
+		fdtmc.createTransition(middle, success, null, "0.9*0.5");
+		fdtmc.createTransition(middle, error, null, "0.55");
+
+		assertTrue(NumericModelChecker.isParameterFree(fdtmc));
+		assertEquals(0.99*0.45, modelChecker.getReliability(fdtmc), DELTA);
+	}
+
+	@Test
+	public void testCyclicModelMatchesStateElimination() {
+		State init = fdtmc.createInitialState();
+		State retry = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, init, null, "0.1");
+		fdtmc.createTransition(init, retry, null, "0.3");
+		fdtmc.createTransition(init, success, null, "0.5");
+		fdtmc.createTransition(init, error, null, "0.1");
+		fdtmc.createTransition(retry, init, null, "0.8");
+		fdtmc.createTransition(retry, error, null, "0.2");
+
+		double expected = new StateEliminationModelChecker().computeReachability(fdtmc)
+				.getConstantValue()
+				.doubleValue();
+		assertEquals(expected, modelChecker.getReliability(fdtmc), DELTA);
+	}
+
+	@Test
+	public void testUnreachableSuccess() {
+		State init = fdtmc.createInitialState();
+		State trap = fdtmc.createState();
+		fdtmc.createSuccessState();
+		fdtmc.createTransition(init, trap, null, "1");
+		fdtmc.createTransition(trap, trap, null, "1");
+
+		assertEquals(0, modelChecker.getReliability(fdtmc), 0);
+	}
+
+	@Test
+	public void testParametricModel() {
+		State init = fdtmc.createInitialState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, success, null, "rInit");
+		fdtmc.createTransition(init, error, null, "1-rInit");
+
+		assertFalse(NumericModelChecker.isParameterFree(fdtmc));
+		try {
+			modelChecker.getReliability(fdtmc);
+			fail("Parametric models cannot be solved numerically");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+}
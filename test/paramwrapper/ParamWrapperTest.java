@@ -0,0 +1,85 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class ParamWrapperTest {
+
+	private static final String STUB_COMMAND =
+			System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"
+			+ " -cp " + System.getProperty("java.class.path")
+			+ " " + StubModelChecker.class.getName();
+
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() throws Exception {
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State init = fdtmc.createInitialState();
+		State loop = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, loop, null, "rInit");
+		fdtmc.createTransition(init, error, null, "1-rInit");
+		fdtmc.createTransition(loop, init, null, "0.5");
+		fdtmc.createTransition(loop, success, null, "0.5");
+	}
+
+	@Test
+	public void testModelIsStreamedToPrism() throws IOException {
+		ParamWrapper prism = new ParamWrapper(STUB_COMMAND + " prism");
+		int modelLines = new ParamModel(fdtmc).toString(true).split("\n").length;
+		assertEquals(modelLines + "/1", prism.getReliability(fdtmc));
+		assertScratchDirectoryIsEmpty();
+	}
+
+	@Test
+	public void testModelIsStreamedToParam() throws IOException {
+		ParamWrapper param = new ParamWrapper(STUB_COMMAND + " param");
+		int modelLines = new ParamModel(fdtmc).toString().split("\n").length;
+		assertEquals("Result:" + modelLines, param.getReliability(fdtmc));
+		assertScratchDirectoryIsEmpty();
+	}
+
+	@Test
+	public void testBatchIsStreamedToPrism() throws IOException {
+		ParamWrapper prism = new ParamWrapper(STUB_COMMAND + " prism");
+		FDTMC other = new FDTMC();
+		other.setVariableName("t");
+		State init = other.createInitialState();
+		other.createTransition(init, other.createSuccessState(), null, "r");
+		other.createTransition(init, other.createErrorState(), null, "1-r");
+
+		int[] initialStates = ParamModel.getUnionInitialStates(Arrays.asList(new ParamModel(fdtmc), new ParamModel(other)));
+		assertEquals(Arrays.asList(initialStates[0] + "/1", initialStates[1] + "/1"),
+				prism.evaluateBatch(Arrays.asList(new ParamModel(fdtmc), new ParamModel(other))));
+		assertScratchDirectoryIsEmpty();
+	}
+
+	@Test
+	public void testParametersAreDeclaredAsConstantsForPrism() {
+		ParamModel model = new ParamModel(fdtmc);
+		assertTrue(model.toString(true).contains("const double rInit;"));
+		assertFalse(model.toString(true).contains("param "));
+		assertTrue(model.toString().contains("param double rInit;"));
+	}
+
+	private static void assertScratchDirectoryIsEmpty() throws IOException {
+		try (Stream<?> files = Files.list(ScratchDirectory.get().getPath())) {
+			assertEquals(0, files.count());
+		}
+	}
+
+}
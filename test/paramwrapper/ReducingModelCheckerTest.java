@@ -0,0 +1,156 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class ReducingModelCheckerTest {
+
+	ReducingModelChecker reducer;
+	StateEliminationModelChecker modelChecker;
+	FDTMC fdtmc;
+	int[] reduction;
+
+	@Before
+	public void setUp() throws Exception {
+		modelChecker = new StateEliminationModelChecker();
+		reduction = null;
+		reducer = new ReducingModelChecker(modelChecker, new NoopModelCollector() {
+			@Override
+			public void collectModelReduction(int originalStates, int originalTransitions, int reducedStates, int reducedTransitions) {
+				reduction = new int[] {originalStates, originalTransitions, reducedStates, reducedTransitions};
+			}
+		});
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+	}
+
+	@Test
+	public void testProbabilityOneChainsAreCollapsed() {
+		State init = fdtmc.createInitialState();
+		State a = fdtmc.createState();
+		State b = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, a, null, "1");
+		fdtmc.createTransition(a, b, null, "1.0");
+		fdtmc.createTransition(b, success, null, "r");
+		fdtmc.createTransition(b, error, null, "1-r");
+		fdtmc.createTransition(success, success, null, "1");
+		fdtmc.createTransition(error, error, null, "1");
+
+		FDTMC reduced = reducer.reduce(fdtmc);
+		assertEquals(3, reduced.getStates().size());
+		assertArrayEquals(new int[] {5, 6, 3, 4}, reduction);
+		assertEquals(modelChecker.getReliability(fdtmc), modelChecker.getReliability(reduced));
+		assertEquals("1*r", reducer.getReliability(fdtmc));
+	}
+
+	@Test
+	public void testSingleTransitionsBelowOneAreKept() {
+		State init = fdtmc.createInitialState();
+		State a = fdtmc.createState();
+		State b = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		// Sub-stochastic rows with a single transition, which must not be
+		// taken as probability-1 steps.
+		fdtmc.createTransition(init, a, null, "rX");
+		fdtmc.createTransition(a, b, null, "0.9");
+		fdtmc.createTransition(b, success, null, "r");
+		fdtmc.createTransition(b, error, null, "1-r");
+
+		FDTMC reduced = reducer.reduce(fdtmc);
+		assertEquals(5, reduced.getStates().size());
+		assertEquals(modelChecker.getReliability(fdtmc), modelChecker.getReliability(reduced));
+		assertEquals(modelChecker.getReliability(fdtmc), reducer.getReliability(fdtmc));
+	}
+
+	@Test
+	public void testBisimilarStatesAreLumped() {
+		State init = fdtmc.createInitialState();
+		State x = fdtmc.createState();
+		State y = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, x, null, "q");
+		fdtmc.createTransition(init, y, null, "1-q");
+		fdtmc.createTransition(x, success, null, "p");
+		fdtmc.createTransition(x, error, null, "1-p");
+		fdtmc.createTransition(y, success, null, "p");
+		fdtmc.createTransition(y, error, null, "1 - p");
+
+		FDTMC reduced = reducer.reduce(fdtmc);
+		// init, {x, y}, success and error
+		assertEquals(4, reduced.getStates().size());
+		assertEquals("1*p", modelChecker.getReliability(reduced));
+
+		// The merged transition must still expose both of its parameters.
+		ParamModel model = new ParamModel(reduced);
+		assertEquals(new HashSet<String>(Arrays.asList("p", "q")), model.getParameters());
+	}
+
+	@Test
+	public void testStatesWhichCannotReachSuccessAreMerged() {
+		State init = fdtmc.createInitialState();
+		State trap1 = fdtmc.createState();
+		State trap2 = fdtmc.createState();
+		State unreachable = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, trap1, null, "a");
+		fdtmc.createTransition(init, trap2, null, "b");
+		fdtmc.createTransition(init, success, null, "1-a-b");
+		fdtmc.createTransition(trap1, trap2, null, "1");
+		fdtmc.createTransition(trap2, error, null, "1");
+		fdtmc.createTransition(unreachable, success, null, "1");
+
+		FDTMC reduced = reducer.reduce(fdtmc);
+		// init, success and a single sink
+		assertEquals(3, reduced.getStates().size());
+		assertEquals(modelChecker.getReliability(fdtmc), modelChecker.getReliability(reduced));
+	}
+
+	@Test
+	public void testCyclicModelKeepsReliability() {
+		State init = fdtmc.createInitialState();
+		State retry1 = fdtmc.createState();
+		State retry2 = fdtmc.createState();
+		State step = fdtmc.createState();
+		State success = fdtmc.createSuccessState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createTransition(init, retry1, null, "0.2");
+		fdtmc.createTransition(init, retry2, null, "0.1");
+		fdtmc.createTransition(init, step, null, "0.6");
+		fdtmc.createTransition(init, error, null, "0.1");
+		fdtmc.createTransition(retry1, init, null, "0.9");
+		fdtmc.createTransition(retry1, error, null, "0.1");
+		fdtmc.createTransition(retry2, init, null, "0.9");
+		fdtmc.createTransition(retry2, error, null, "0.1");
+		fdtmc.createTransition(step, success, null, "1");
+
+		FDTMC reduced = reducer.reduce(fdtmc);
+		// init, {retry1, retry2}, success and error
+		assertEquals(4, reduced.getStates().size());
+		NumericModelChecker numeric = new NumericModelChecker();
+		assertEquals(numeric.getReliability(fdtmc), numeric.getReliability(reduced), 1E-12);
+	}
+
+	@Test
+	public void testUnreachableSuccess() {
+		State init = fdtmc.createInitialState();
+		State error = fdtmc.createErrorState();
+		fdtmc.createSuccessState();
+		fdtmc.createTransition(init, error, null, "1");
+
+		assertEquals("0", reducer.getReliability(fdtmc));
+	}
+
+}
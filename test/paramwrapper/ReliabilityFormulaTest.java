@@ -2,22 +2,44 @@ package paramwrapper;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collection;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
 import fdtmc.FDTMC;
 import fdtmc.State;
 import paramwrapper.ParamWrapper;
 
+/**
+ * Every parametric model checker backend must yield the same formulae.
+ */
+@RunWith(Parameterized.class)
 public class ReliabilityFormulaTest {
     private static final String PARAM_PATH = "/opt/param-2-3-64";
 
-	ParamWrapper paramWrapper;
+	ParametricModelChecker paramWrapper;
 	FDTMC fdtmc;
 
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> modelCheckers() {
+		return Arrays.asList(new Object[][] {
+			{ "PARAM", new ParamWrapper(PARAM_PATH) },
+			{ "State elimination", new StateEliminationModelChecker() },
+			{ "Acyclic", new AcyclicModelChecker(new StateEliminationModelChecker(), null) }
+		});
+	}
+
+	public ReliabilityFormulaTest(String name, ParametricModelChecker modelChecker) {
+		this.paramWrapper = modelChecker;
+	}
+
 	@Before
 	public void setUp() throws Exception {
-		paramWrapper = new ParamWrapper(PARAM_PATH);
 		fdtmc = new FDTMC();
 		fdtmc.setVariableName("s");
 	}
@@ -0,0 +1,85 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class StateEliminationModelCheckerTest {
+
+	StateEliminationModelChecker modelChecker;
+	FDTMC fdtmc;
+
+	@Before
+	public void setUp() throws Exception {
+		modelChecker = new StateEliminationModelChecker();
+		fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+	}
+
+	@Test
+	public void testReliabilityWithSelfLoop() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s0, null, "rLoop");
+		fdtmc.createTransition(s0, s1, null, "1-rLoop-rFail");
+		fdtmc.createTransition(s0, s2, null, "rFail");
+		fdtmc.createTransition(s1, s1, null, "1");
+		fdtmc.createTransition(s2, s2, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("(1*rFail+1*rLoop-1)/(1*rLoop-1)", formula);
+	}
+
+	/**
+	 * The loop factor must cancel out whenever the numerator is a multiple
+	 * of it, so that the result is a polynomial.
+	 */
+	@Test
+	public void testReliabilityWithCancellingLoop() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		fdtmc.createTransition(s0, s1, null, "1");
+		fdtmc.createTransition(s1, s1, null, "rLoop");
+		fdtmc.createTransition(s1, s2, null, "1-rLoop");
+		fdtmc.createTransition(s2, s2, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("1", formula);
+	}
+
+	@Test
+	public void testReliabilityWithCycleThroughSeveralStates() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState();
+		State s2 = fdtmc.createState("success");
+		State s3 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "0.5");
+		fdtmc.createTransition(s0, s3, null, "0.5");
+		fdtmc.createTransition(s1, s0, null, "0.5");
+		fdtmc.createTransition(s1, s2, null, "0.5");
+		fdtmc.createTransition(s2, s2, null, "1");
+		fdtmc.createTransition(s3, s3, null, "1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("(1)/(3)", formula);
+	}
+
+	@Test
+	public void testReliabilityWithInterfaceLikeProbabilities() {
+		State s0 = fdtmc.createState();
+		State s1 = fdtmc.createState("success");
+		State s2 = fdtmc.createState("error");
+		fdtmc.createTransition(s0, s1, null, "n1");
+		fdtmc.createTransition(s0, s2, null, "1 - n1");
+
+		String formula = modelChecker.getReliability(fdtmc);
+		assertEquals("1*n1", formula);
+	}
+
+}
@@ -0,0 +1,60 @@
+package paramwrapper;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stub of a PRISM or PARAM executable, depending on its first argument.
+ * The result for a single property is the model's number of lines. For a
+ * batch (i.e., a properties file of filtered properties), the result of
+ * each property is the state on which it is filtered.
+ */
+public class StubModelChecker {
+
+	public static void main(String[] args) throws IOException {
+		boolean prism = args[0].equals("prism");
+		List<String> arguments = Arrays.asList(args).subList(1, args.length);
+		int modelLines = 0;
+		try (BufferedReader model = new BufferedReader(new InputStreamReader(new FileInputStream(arguments.get(0)), StandardCharsets.UTF_8))) {
+			while (model.readLine() != null) {
+				modelLines++;
+			}
+		}
+		if (!prism) {
+			String resultsPath = arguments.get(arguments.indexOf("--result-file") + 1);
+			try (PrintStream out = new PrintStream(resultsPath + ".out", "UTF-8")) {
+				out.println("Result: " + modelLines);
+			}
+			return;
+		}
+		String resultsPath = arguments.get(arguments.indexOf("-exportresults") + 1);
+		boolean parametric = arguments.contains("-param");
+		try (PrintStream out = new PrintStream(resultsPath, "UTF-8")) {
+			if (arguments.get(1).equals("-pf")) {
+				out.println("Result");
+				out.println(parametric ? "{ " + modelLines + " | 1 }" : Integer.toString(modelLines));
+				return;
+			}
+			Pattern filteredState = Pattern.compile("s=(\\d+)\\)");
+			for (String property : Files.readAllLines(Paths.get(arguments.get(1)), StandardCharsets.UTF_8)) {
+				Matcher matcher = filteredState.matcher(property);
+				matcher.find();
+				out.println(property + ":");
+				out.println("Result");
+				out.println(parametric ? "{ " + matcher.group(1) + " | 1 }" : matcher.group(1));
+				out.println();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package paramwrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stub model checker worker which speaks the {@link ModelCheckerWorkerPool}
+ * protocol. Its result is the model's number of lines followed by the
+ * parameters, unless the property asks for a crash or a hang.
+ */
+public class StubModelCheckerWorker {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		PrintStream out = new PrintStream(System.out, true, "UTF-8");
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (line.equals("PING")) {
+				out.println("PONG");
+			} else if (line.equals("QUIT")) {
+				return;
+			} else if (line.startsWith("CHECK ")) {
+				String[] header = line.split(" ");
+				int modelLines = Integer.parseInt(header[1]);
+				int propertyLines = Integer.parseInt(header[2]);
+				for (int i = 0; i < modelLines; i++) {
+					in.readLine();
+				}
+				StringBuilder property = new StringBuilder();
+				for (int i = 0; i < propertyLines; i++) {
+					property.append(in.readLine());
+				}
+				if (property.toString().equals("crash")) {
+					System.exit(1);
+				} else if (property.toString().equals("hang")) {
+					Thread.sleep(60000);
+				} else if (property.toString().equals("fail")) {
+					out.println("ERROR unsupported property");
+				} else {
+					out.println("RESULT " + modelLines + " " + header[3] + " " + ProcessHandle.current().pid());
+				}
+			}
+		}
+	}
+
+}
@@ -1,24 +1,39 @@
 package tool;
 
+import jadd.ADDBackendType;
 import jadd.JADD;
 import jadd.UnrecognizedVariableException;
 
+import java.io.File;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import tool.analyzers.IReliabilityAnalysisResults;
+import tool.featuremodel.Clause;
+import tool.featuremodel.FeatureModelReader;
+import tool.ordering.DepthFirstOrdering;
+import tool.ordering.ForceOrdering;
+import tool.ordering.VariableOrderFile;
 import expressionsolver.ExpressionSolver;
 
 public class AnalyzerTest {
     private static final String PARAM_PATH = "/opt/param-2-3-64";
 
     String fmBSN = "Root  &&  (!Root  ||  Monitoring)  &&  (!Root  ||  Storage)  &&  (!Monitoring  ||  Root)  &&  (!Storage  ||  Root)  &&  (!Monitoring  ||  SensorInformation)  &&  (!Monitoring  ||  Sensor)  &&  (!SensorInformation  ||  Monitoring)  &&  (!Sensor  ||  Monitoring)  &&  (!SensorInformation  ||  Oxygenation  ||  PulseRate  ||  Temperature  ||  Position  ||  Fall)  &&  (!Oxygenation  ||  SensorInformation)  &&  (!PulseRate  ||  SensorInformation)  &&  (!Temperature  ||  SensorInformation)  &&  (!Position  ||  SensorInformation)  &&  (!Fall  ||  SensorInformation)  &&  (!Sensor  ||  SPO2  ||  ECG  ||  TEMP  ||  ACC)  &&  (!SPO2  ||  Sensor)  &&  (!ECG  ||  Sensor)  &&  (!TEMP  ||  Sensor)  &&  (!ACC  ||  Sensor)  &&  (!Storage  ||  SQLite  ||  Memory  ||  File)  &&  (!SQLite  ||  Storage)  &&  (!Memory  ||  Storage)  &&  (!File  ||  Storage)  &&  (!SQLite  ||  !Memory)  &&  (!SQLite  ||  !File)  &&  (!Memory  ||  !File)  &&  (!Oxygenation  ||  SPO2)  &&  (!PulseRate  ||  SPO2  ||  ECG)  &&  (!Fall  ||  ACC)  &&  (!Position  ||  ACC)  &&  (!Temperature  ||  TEMP)  &&  True  &&  !False  &&  (PulseRate  ||  ACC  ||  Memory  ||  Temperature  ||  Position  ||  Storage  ||  SensorInformation  ||  Sensor  ||  TEMP  ||  Monitoring  ||  Oxygenation  ||  File  ||  SQLite  ||  ECG  ||  Fall  ||  SPO2  ||  True)";
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     JADD jadd;
     ExpressionSolver solver;
     Analyzer analyzer;
@@ -160,4 +175,45 @@ public class AnalyzerTest {
                 0.994014980014994001, reliability.getResult(fileConfig), 1E-14);
     }
 
+    @Test
+    public void testStaticOrderingsPreserveValidConfigurations() throws Exception {
+        Set<Set<String>> expected = validConfigurations(analyzer);
+
+        Analyzer dfs = new Analyzer(new JADD(), fmBSN, new DepthFirstOrdering(), null, null, null, null);
+        Analyzer force = new Analyzer(new JADD(), fmBSN, new ForceOrdering(), null, null, null, null);
+
+        Assert.assertEquals(expected, validConfigurations(dfs));
+        Assert.assertEquals(expected, validConfigurations(force));
+    }
+
+    @Test
+    public void testVariableOrderIsSavedAndReused() throws Exception {
+        File orderFile = new File(temporaryFolder.getRoot(), "order.txt");
+        new Analyzer(new JADD(), fmBSN, new DepthFirstOrdering(), orderFile.getPath(), null, null, null);
+        Assert.assertTrue(orderFile.exists());
+        List<String> saved = VariableOrderFile.read(orderFile.toPath());
+
+        JADD reused = new JADD();
+        Analyzer analyzer = new Analyzer(reused, fmBSN, null, orderFile.getPath(), null, null, null);
+
+        Assert.assertEquals(saved, reused.getVariable("Root").getVariableOrder().subList(0, saved.size()));
+        Assert.assertEquals(validConfigurations(this.analyzer), validConfigurations(analyzer));
+    }
+
+    @Test
+    public void testFeatureModelClausesAreEncodedDirectly() throws Exception {
+        List<Clause> clauses = FeatureModelReader.readCnf(new StringReader(fmBSN));
+        Analyzer fromClauses = new Analyzer(clauses, ADDBackendType.CUDD, new DepthFirstOrdering(), null, null, null, null, null);
+
+        Assert.assertEquals(validConfigurations(analyzer), validConfigurations(fromClauses));
+        Assert.assertTrue(fromClauses.getFeatureModelPeakNodeCount() >= fromClauses.getFeatureModelNodeCount());
+        Assert.assertTrue(fromClauses.getFeatureModelPeakLiveNodeCount() >= fromClauses.getFeatureModelPeakNodeCount());
+    }
+
+    private static Set<Set<String>> validConfigurations(Analyzer analyzer) {
+        return analyzer.getValidConfigurations()
+                .map(configuration -> new HashSet<String>(configuration))
+                .collect(Collectors.toSet());
+    }
+
 }
@@ -0,0 +1,22 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Assignments {
+
+	/**
+	 * @return the configuration encoded by the bits of {@code assignment},
+	 *      in which {@code variables[i]} is present if and only if bit i is set.
+	 */
+	public static String[] toConfiguration(long assignment, String[] variables) {
+		List<String> configuration = new ArrayList<String>();
+		for (int i = 0; i < variables.length; i++) {
+			if ((assignment & (1L << i)) != 0) {
+				configuration.add(variables[i]);
+			}
+		}
+		return configuration.toArray(new String[configuration.size()]);
+	}
+
+}
@@ -1,5 +1,7 @@
 package tool;
 
+import java.util.Arrays;
+
 import fdtmc.FDTMC;
 import fdtmc.State;
 
@@ -355,4 +357,40 @@ public class FDTMCStub {
 		return fdtmcPulseRate;
 	}
 
+	/**
+	 * @return a chain of {@code length} steps from the initial state to
+	 *      success, the i-th of which succeeds with probability "ri".
+	 */
+	public static FDTMC createChainFDTMC(int length) {
+		String[] parameters = new String[length];
+		for (int i = 0; i < length; i++) {
+			parameters[i] = "r" + i;
+		}
+		return createChainFDTMC(parameters);
+	}
+
+	/**
+	 * @return a chain of {@code length} steps from the initial state to
+	 *      success, each of which succeeds with probability {@code parameter}.
+	 */
+	public static FDTMC createChainFDTMC(int length, String parameter) {
+		String[] parameters = new String[length];
+		Arrays.fill(parameters, parameter);
+		return createChainFDTMC(parameters);
+	}
+
+	private static FDTMC createChainFDTMC(String[] parameters) {
+		FDTMC fdtmc = new FDTMC();
+		fdtmc.setVariableName("s");
+		State current = fdtmc.createInitialState();
+		State error = fdtmc.createErrorState();
+		for (int i = 0; i < parameters.length; i++) {
+			State next = (i == parameters.length - 1) ? fdtmc.createSuccessState() : fdtmc.createState();
+			fdtmc.createTransition(current, next, null, parameters[i]);
+			fdtmc.createTransition(current, error, null, "1-" + parameters[i]);
+			current = next;
+		}
+		return fdtmc;
+	}
+
 }
@@ -0,0 +1,76 @@
+package tool.analyzers;
+
+import static org.junit.Assert.*;
+
+import jadd.ADD;
+import jadd.Abstraction;
+import jadd.Cube;
+import jadd.JADD;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ADDReliabilityResultsTest {
+
+	JADD jadd;
+	ADDReliabilityResults results;
+
+	@Before
+	public void setUp() throws Exception {
+		jadd = new JADD();
+		ADD a = jadd.getVariable("A");
+		ADD b = jadd.getVariable("B");
+		// A is mandatory, and B raises the reliability from 0.8 to 0.9.
+		ADD reliability = jadd.makeConstant(0.8).plus(b.times(jadd.makeConstant(0.1)));
+		results = new ADDReliabilityResults(a.times(reliability));
+	}
+
+	@Test
+	public void testAggregates() throws Exception {
+		assertEquals(BigInteger.valueOf(2), results.countValidConfigurations());
+		assertEquals(0.8, results.getMinReliability(), 1E-10);
+		assertEquals(0.85, results.getMeanReliability(), 1E-10);
+		assertEquals(BigInteger.ONE, results.countConfigurationsBelow(0.85));
+	}
+
+	@Test
+	public void testRestrictedFeaturesAreNotCounted() throws Exception {
+		ADDReliabilityResults restricted = results.restrict(Collections.singletonMap("A", true));
+
+		assertEquals(BigInteger.valueOf(2), restricted.countValidConfigurations());
+		assertEquals(BigInteger.ONE, restricted.countConfigurationsBelow(0.85));
+		assertArrayEquals(new BigInteger[] {BigInteger.ONE, BigInteger.ONE}, restricted.getReliabilityHistogram(2));
+		List<Cube> worst = restricted.getLeastReliableConfigurations(1);
+		assertEquals(1, worst.size());
+		assertEquals(Collections.emptyList(), worst.get(0).getPresentVariables());
+		assertEquals(Collections.emptyList(), worst.get(0).getDontCareVariables());
+	}
+
+	@Test
+	public void testAbstractedFeaturesAreNotCounted() throws Exception {
+		ADDReliabilityResults abstracted = results.abstractFeatures(Collections.singletonList("B"), Abstraction.MIN);
+
+		assertEquals(BigInteger.ONE, abstracted.countValidConfigurations());
+		assertEquals(0.8, abstracted.getMaxReliability(), 1E-10);
+		List<Cube> best = abstracted.getMostReliableConfigurations(1);
+		assertEquals(Arrays.asList("A"), best.get(0).getPresentVariables());
+		assertEquals(Collections.emptyList(), best.get(0).getDontCareVariables());
+
+		// Both restricted and abstracted features are left out.
+		ADDReliabilityResults restricted = abstracted.restrict(Collections.singletonMap("A", true));
+		assertEquals(BigInteger.ONE, restricted.countValidConfigurations());
+	}
+
+	@Test
+	public void testConfigurationsMayStillMentionEliminatedFeatures() throws Exception {
+		ADDReliabilityResults restricted = results.restrict(Collections.singletonMap("A", true));
+		assertEquals(0.9, restricted.getResult(new String[] {"A", "B"}), 1E-10);
+		assertEquals(0.9, restricted.getResult(new String[] {"B"}), 1E-10);
+	}
+
+}
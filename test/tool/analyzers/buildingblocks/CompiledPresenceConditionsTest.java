@@ -0,0 +1,108 @@
+package tool.analyzers.buildingblocks;
+
+import static org.junit.Assert.*;
+
+import jadd.JADD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tool.Assignments;
+import tool.UnknownFeatureException;
+import expressionsolver.ExpressionSolver;
+
+public class CompiledPresenceConditionsTest {
+
+	static final String[] FEATURES = {"A", "B", "C", "D"};
+	static final String[] PRESENCE_CONDITIONS = {
+		"true",
+		"False",
+		"A",
+		"!A",
+		"A && B",
+		"A && !B && C",
+		"(A && !B) || (!A && B)",
+		"!(A || C) && D",
+		"A && (B || !C) && !D",
+		"A && B && (C || D) && !(C && D)",
+	};
+
+	ExpressionSolver expressionSolver;
+	CompiledPresenceConditions presenceConditions;
+
+	@Before
+	public void setUp() throws Exception {
+		expressionSolver = new ExpressionSolver(new JADD());
+		presenceConditions = new CompiledPresenceConditions(expressionSolver);
+		// Features become known as the presence conditions are compiled.
+		for (String presenceCondition : PRESENCE_CONDITIONS) {
+			presenceConditions.get(presenceCondition);
+		}
+	}
+
+	@Test
+	public void testCompiledConditionsAgreeWithADDs() {
+		for (String presenceCondition : PRESENCE_CONDITIONS) {
+			for (int assignment = 0; assignment < (1 << FEATURES.length); assignment++) {
+				List<String> configuration = Arrays.asList(Assignments.toConfiguration(assignment, FEATURES));
+				long[] encoded = presenceConditions.encode(configuration);
+				assertEquals(presenceCondition + " for " + configuration,
+						PresenceConditions.isPresent(presenceCondition, configuration, expressionSolver),
+						presenceConditions.isPresent(presenceCondition, encoded));
+			}
+		}
+	}
+
+	@Test
+	public void testConditionsAreCompiledOnce() {
+		assertSame(presenceConditions.get("A && !B"), presenceConditions.get("A && !B"));
+		assertEquals(Arrays.asList("A", "B"), new ArrayList<String>(presenceConditions.get("A && !B").getVariables()));
+	}
+
+	@Test
+	public void testFeaturesBeyondFirstWord() {
+		StringBuilder presenceCondition = new StringBuilder("F0");
+		for (int i = 1; i < 100; i++) {
+			presenceCondition.append(" && ").append((i % 2 == 0) ? "F" + i : "!F" + i);
+		}
+		presenceConditions.get(presenceCondition.toString());
+		List<String> configuration = new ArrayList<String>();
+		for (int i = 0; i < 100; i += 2) {
+			configuration.add("F" + i);
+		}
+		assertTrue(presenceConditions.isPresent(presenceCondition.toString(), presenceConditions.encode(configuration)));
+
+		configuration.add("F99");
+		assertFalse(presenceConditions.isPresent(presenceCondition.toString(), presenceConditions.encode(configuration)));
+		configuration.remove("F98");
+		configuration.remove("F99");
+		assertFalse(presenceConditions.isPresent(presenceCondition.toString(), presenceConditions.encode(configuration)));
+	}
+
+	@Test
+	public void testConcurrentChecks() {
+		IntStream.range(0, 20000).parallel().forEach(i -> {
+			String presenceCondition = PRESENCE_CONDITIONS[i % PRESENCE_CONDITIONS.length];
+			List<String> configuration = Arrays.asList(Assignments.toConfiguration(i % (1 << FEATURES.length), FEATURES));
+			long[] encoded = presenceConditions.encode(configuration);
+			assertEquals(PresenceConditions.isPresent(presenceCondition, configuration, expressionSolver),
+					presenceConditions.isPresent(presenceCondition, encoded));
+		});
+	}
+
+	@Test(expected = UnknownFeatureException.class)
+	public void testUnknownFeature() {
+		presenceConditions.encode(Arrays.asList("A", "Z"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCondition() {
+		presenceConditions.get("A &&");
+	}
+
+}
@@ -0,0 +1,69 @@
+package tool.analyzers.buildingblocks;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tool.FDTMCStub;
+import tool.RDGNode;
+
+public class ModelCheckingCostEstimatorTest {
+
+	ModelCheckingCostEstimator estimator;
+	RDGNode small;
+	RDGNode medium;
+	RDGNode large;
+
+	@Before
+	public void setUp() throws Exception {
+		estimator = new ModelCheckingCostEstimator();
+		small = new RDGNode(RDGNode.getNextId(), "true", FDTMCStub.createChainFDTMC(1));
+		medium = new RDGNode(RDGNode.getNextId(), "true", FDTMCStub.createChainFDTMC(5));
+		large = new RDGNode(RDGNode.getNextId(), "true", FDTMCStub.createChainFDTMC(20));
+	}
+
+	@Test
+	public void testSize() {
+		// init, success and error states; init -> success, init -> error and 2 self-loops
+		assertEquals(7, ModelCheckingCostEstimator.getSize(small.getFDTMC()));
+	}
+
+	@Test
+	public void testLargestModelsComeFirst() {
+		List<RDGNode> schedule = estimator.sortByDecreasingCost(Arrays.asList(small, large, medium));
+		assertEquals(Arrays.asList(large, medium, small), schedule);
+	}
+
+	@Test
+	public void testPastTimingsOverrideSize() {
+		estimator.record(large, 1000);
+		estimator.record(small, 5000000);
+		assertEquals(5000000, estimator.estimate(small));
+		List<RDGNode> schedule = estimator.sortByDecreasingCost(Arrays.asList(small, large, medium));
+		assertEquals(small, schedule.get(0));
+	}
+
+	@Test
+	public void testUnseenModelsAreCalibratedByPastTimings() {
+		int smallSize = ModelCheckingCostEstimator.getSize(small.getFDTMC());
+		int mediumSize = ModelCheckingCostEstimator.getSize(medium.getFDTMC());
+		estimator.record(small, 10L * smallSize);
+		assertEquals(10L * mediumSize, estimator.estimate(medium));
+	}
+
+	@Test
+	public void testScheduleFollowsGivenEstimates() {
+		Map<String, Long> estimates = estimator.estimate(Arrays.asList(small, large, medium));
+		assertEquals(Long.valueOf(estimator.estimate(large)), estimates.get(large.getId()));
+		// Timings recorded after estimating do not change the schedule.
+		estimator.record(small, Long.MAX_VALUE);
+		List<RDGNode> schedule = ModelCheckingCostEstimator.sortByDecreasingCost(Arrays.asList(small, large, medium), estimates);
+		assertEquals(Arrays.asList(large, medium, small), schedule);
+	}
+
+}
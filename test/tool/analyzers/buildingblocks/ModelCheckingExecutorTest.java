@@ -0,0 +1,187 @@
+package tool.analyzers.buildingblocks;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ModelCheckingExecutorTest {
+
+	ModelCheckingExecutor executor;
+
+	@After
+	public void tearDown() throws Exception {
+		if (executor != null) {
+			executor.close();
+		}
+	}
+
+	@Test
+	public void testResultsKeepTaskOrder() {
+		executor = new ModelCheckingExecutor(3, 0);
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		for (int i = 0; i < 10; i++) {
+			final int id = i;
+			tasks.add(() -> {
+				Thread.sleep(10 - id);
+				return "r" + id;
+			});
+		}
+		List<String> results = executor.invokeAll(tasks);
+		assertEquals(Arrays.asList("r0", "r1", "r2", "r3", "r4", "r5", "r6", "r7", "r8", "r9"), results);
+		assertEquals(10, executor.getCompletedTasks());
+	}
+
+	@Test
+	public void testQueueDepth() throws Exception {
+		executor = new ModelCheckingExecutor(1, 0);
+		final CountDownLatch release = new CountDownLatch(1);
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		tasks.add(() -> {
+			release.await(10, TimeUnit.SECONDS);
+			return "first";
+		});
+		for (int i = 0; i < 4; i++) {
+			tasks.add(() -> "queued");
+		}
+		// The first task holds the only thread until the others are seen waiting.
+		// All five tasks may be queued before the first one starts, though.
+		final AtomicInteger observedDepth = new AtomicInteger();
+		Thread observer = new Thread(() -> {
+			long deadline = System.currentTimeMillis() + 10000;
+			while (executor.getQueueDepth() != 4 && System.currentTimeMillis() < deadline) {
+				Thread.yield();
+			}
+			observedDepth.set(executor.getQueueDepth());
+			release.countDown();
+		});
+		observer.start();
+		executor.invokeAll(tasks);
+		observer.join();
+
+		assertEquals(4, observedDepth.get());
+		assertTrue(executor.getMaxQueueDepth() >= 4);
+		assertEquals(0, executor.getQueueDepth());
+	}
+
+	@Test
+	public void testClosingCancelsQueuedTasks() throws Exception {
+		executor = new ModelCheckingExecutor(1, 0);
+		final CountDownLatch started = new CountDownLatch(1);
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		tasks.add(() -> {
+			started.countDown();
+			Thread.sleep(10000);
+			return "first";
+		});
+		for (int i = 0; i < 4; i++) {
+			tasks.add(() -> "queued");
+		}
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread caller = new Thread(() -> {
+			try {
+				executor.invokeAll(tasks);
+			} catch (CompletionException e) {
+				failure.set(e);
+			}
+		});
+		caller.start();
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (executor.getQueueDepth() != 4 && System.currentTimeMillis() < deadline) {
+			Thread.yield();
+		}
+		executor.close();
+		caller.join(10000);
+
+		assertFalse("Callers must not wait for tasks which will never run", caller.isAlive());
+		assertNotNull(failure.get());
+		assertEquals(0, executor.getQueueDepth());
+		assertEquals(0, executor.getCompletedTasks());
+		assertEquals(0, executor.getTimedOutTasks());
+	}
+
+	@Test
+	public void testConcurrencyLimitIsNotBoundByCores() {
+		int limit = Runtime.getRuntime().availableProcessors() + 2;
+		executor = new ModelCheckingExecutor(limit, 0);
+		// Every task blocks until all of them are running at once.
+		final CountDownLatch allRunning = new CountDownLatch(limit);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (int i = 0; i < limit; i++) {
+			tasks.add(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				allRunning.countDown();
+				boolean reached = allRunning.await(10, TimeUnit.SECONDS);
+				running.decrementAndGet();
+				return reached;
+			});
+		}
+		for (Boolean reached : executor.invokeAll(tasks)) {
+			assertTrue(reached);
+		}
+		assertEquals(limit, maxRunning.get());
+	}
+
+	@Test
+	public void testFirstFailureCancelsRemainingTasks() {
+		executor = new ModelCheckingExecutor(1, 0);
+		final AtomicInteger started = new AtomicInteger();
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		tasks.add(() -> {
+			started.incrementAndGet();
+			throw new IllegalStateException("model checker crashed");
+		});
+		for (int i = 0; i < 5; i++) {
+			tasks.add(() -> {
+				started.incrementAndGet();
+				Thread.sleep(1000);
+				return "late";
+			});
+		}
+		try {
+			executor.invokeAll(tasks);
+			fail("The failure should have been propagated");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		// With a single thread, at most the task after the failed one may have started.
+		assertTrue(started.get() <= 2);
+		assertEquals(1, executor.getFailedTasks());
+		assertTrue(executor.getCancelledTasks() >= 4);
+	}
+
+	@Test
+	public void testDeadlineInterruptsTask() {
+		executor = new ModelCheckingExecutor(2, 100);
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		tasks.add(() -> "fast");
+		tasks.add(() -> {
+			Thread.sleep(10000);
+			return "slow";
+		});
+		long start = System.currentTimeMillis();
+		try {
+			executor.invokeAll(tasks);
+			fail("The deadline should have been enforced");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertEquals(1, executor.getTimedOutTasks());
+	}
+
+}
@@ -0,0 +1,97 @@
+package tool.featuremodel;
+
+import static org.junit.Assert.*;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import expressionsolver.ExpressionSolver;
+
+public class FeatureModelBuilderTest {
+
+	static final String FEATURE_MODEL = "R && (!R || A) && (!A || R) && (!B || R) && (!C || B)"
+			+ " && (!D || B) && (!B || C || D) && (!C || !D) && (!E || R) && (A || !(B && E))";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testCnfClausesAreReadOneByOne() throws Exception {
+		List<Clause> clauses = FeatureModelReader.readCnf(new StringReader(FEATURE_MODEL));
+
+		assertEquals(10, clauses.size());
+		assertEquals("R", clauses.get(0).getVariables().get(0));
+		assertEquals(Arrays.asList("B", "C", "D"), clauses.get(6).getVariables());
+		assertTrue(clauses.get(6).isNegated(0));
+		assertFalse(clauses.get(6).isNegated(1));
+		assertEquals("(!C || !D)", clauses.get(7).toString());
+		// Conjunctions nested in a clause are left to the parser.
+		assertFalse(clauses.get(9).isDisjunctionOfLiterals());
+		assertEquals(Arrays.asList("A", "B", "E"), clauses.get(9).getVariables());
+	}
+
+	@Test
+	public void testDimacsVariablesAreNamedByComments() throws Exception {
+		String dimacs = "c 1 R\nc 2 A\nc 4 C\np cnf 4 3\n1 0\n-2 1 0\n-3 -4\n2 0\n";
+		List<Clause> clauses = FeatureModelReader.readDimacs(new StringReader(dimacs));
+
+		assertEquals(3, clauses.size());
+		assertEquals("(R)", clauses.get(0).toString());
+		assertEquals("(!A || R)", clauses.get(1).toString());
+		// Clauses may span lines, and unnamed variables get default names.
+		assertEquals("(!x3 || !C || A)", clauses.get(2).toString());
+	}
+
+	@Test
+	public void testFileFormatIsDetected() throws Exception {
+		File cnf = temporaryFolder.newFile("fm.txt");
+		Files.write(cnf.toPath(), "c && (!c || d)".getBytes(StandardCharsets.UTF_8));
+		File dimacs = temporaryFolder.newFile("fm.dimacs");
+		Files.write(dimacs.toPath(), "c 1 c\nc 2 d\np cnf 2 2\n1 0\n-1 2 0\n".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals("(c) && (!c || d)", FeatureModelReader.toFormula(FeatureModelReader.read(cnf.toPath())));
+		assertEquals("(c) && (!c || d)", FeatureModelReader.toFormula(FeatureModelReader.read(dimacs.toPath())));
+	}
+
+	@Test
+	public void testBuiltFeatureModelAgreesWithParsedFormula() throws Exception {
+		JADD jadd = new JADD();
+		ADD expected = new ExpressionSolver(jadd).encodeFormula(FEATURE_MODEL);
+
+		FeatureModelBuilder builder = new FeatureModelBuilder(jadd);
+		ADD built = builder.build(FeatureModelReader.readCnf(new StringReader(FEATURE_MODEL)));
+
+		assertEquals(expected, built);
+		assertTrue(builder.getPeakNodeCount() >= built.getNodeCount());
+		assertTrue(builder.getPeakLiveNodeCount() > 0);
+	}
+
+	@Test
+	public void testEmptyClauseIsUnsatisfiable() throws Exception {
+		JADD jadd = new JADD();
+		List<Clause> clauses = FeatureModelReader.readDimacs(new StringReader("p cnf 1 2\n1 0\n0\n"));
+		ADD built = new FeatureModelBuilder(jadd).build(clauses);
+
+		assertEquals(jadd.makeConstant(0), built);
+	}
+
+	@Test
+	public void testInvalidClauseIsRejected() throws Exception {
+		JADD jadd = new JADD();
+		List<Clause> clauses = FeatureModelReader.readCnf(new StringReader("R && (!R || A +)"));
+
+		assertNull(new FeatureModelBuilder(jadd).build(clauses));
+	}
+
+}
@@ -0,0 +1,110 @@
+package tool.featuremodel;
+
+import static org.junit.Assert.*;
+
+import jadd.ADD;
+import jadd.JADD;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import expressionsolver.ExpressionSolver;
+
+public class FeatureTreeTest {
+
+	static final String FEATURE_MODEL = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+			+ "<featureModel><struct>"
+			+ "<and abstract=\"true\" mandatory=\"true\" name=\"Root\">"
+			+ "  <alt mandatory=\"true\" name=\"Sensor\">"
+			+ "    <feature name=\"Oxygen\"/><feature name=\"Pulse\"/><feature name=\"Temperature\"/>"
+			+ "  </alt>"
+			+ "  <or name=\"Storage\">"
+			+ "    <feature name=\"Memory\"/><feature name=\"SQLite\"/>"
+			+ "  </or>"
+			+ "  <feature name=\"Log\"/>"
+			+ "</and>"
+			+ "</struct><constraints>"
+			+ "<rule><imp><var>Log</var><var>Storage</var></imp></rule>"
+			+ "<rule><description>No SQLite with oxygen</description><not><conj><var>Oxygen</var><var>SQLite</var></conj></not></rule>"
+			+ "</constraints></featureModel>";
+
+	FeatureTree featureTree;
+
+	@Before
+	public void setUp() throws Exception {
+		featureTree = read(FEATURE_MODEL);
+	}
+
+	@Test
+	public void testTreeIsRead() throws Exception {
+		FeatureTree.Feature root = featureTree.getRoot();
+		assertEquals("Root", root.getName());
+		assertEquals(3, root.getChildren().size());
+
+		FeatureTree.Feature sensor = root.getChildren().get(0);
+		assertEquals(FeatureTree.GroupType.ALTERNATIVE, sensor.getGroupType());
+		assertTrue(sensor.isMandatory());
+		assertEquals(FeatureTree.GroupType.OR, root.getChildren().get(1).getGroupType());
+		assertFalse(root.getChildren().get(2).isMandatory());
+
+		assertEquals(Arrays.asList("(!Log || Storage)", "!(Oxygen && SQLite)"), featureTree.getConstraints());
+	}
+
+	@Test
+	public void testFeatureOrderFollowsTree() throws Exception {
+		assertEquals(Arrays.asList("Root", "Sensor", "Oxygen", "Pulse", "Temperature",
+		                           "Storage", "Memory", "SQLite", "Log"),
+		             featureTree.getFeatureOrder());
+	}
+
+	@Test
+	public void testCompiledTreeAgreesWithClauses() throws Exception {
+		JADD jadd = new JADD();
+		FeatureModelBuilder builder = new FeatureModelBuilder(jadd);
+		ADD compiled = builder.build(featureTree);
+		ADD expected = new ExpressionSolver(jadd).encodeFormula(FeatureModelReader.toFormula(featureTree.toClauses()));
+
+		assertEquals(expected, compiled);
+		assertTrue(builder.getPeakNodeCount() >= compiled.getNodeCount());
+	}
+
+	@Test
+	public void testGroupSemantics() throws Exception {
+		JADD jadd = new JADD();
+		ADD compiled = new FeatureModelBuilder(jadd).build(featureTree);
+
+		assertEquals(1.0, compiled.eval(new String[] {"Root", "Sensor", "Pulse"}), 0);
+		assertEquals(1.0, compiled.eval(new String[] {"Root", "Sensor", "Pulse", "Storage", "Memory", "SQLite", "Log"}), 0);
+		// Alternative features exclude each other.
+		assertEquals(0.0, compiled.eval(new String[] {"Root", "Sensor", "Pulse", "Oxygen"}), 0);
+		// Present or groups need at least one child.
+		assertEquals(0.0, compiled.eval(new String[] {"Root", "Sensor", "Pulse", "Storage"}), 0);
+		// Mandatory features are implied by their parents.
+		assertEquals(0.0, compiled.eval(new String[] {"Root"}), 0);
+		// Features imply their parents.
+		assertEquals(0.0, compiled.eval(new String[] {"Root", "Sensor", "Pulse", "Memory"}), 0);
+		// Cross-tree constraints.
+		assertEquals(0.0, compiled.eval(new String[] {"Root", "Sensor", "Pulse", "Log"}), 0);
+		assertEquals(0.0, compiled.eval(new String[] {"Root", "Sensor", "Oxygen", "Storage", "SQLite"}), 0);
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownConstraintIsRejected() throws Exception {
+		read(FEATURE_MODEL.replace("<imp>", "<xor>").replace("</imp>", "</xor>"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testMissingTreeIsRejected() throws Exception {
+		read("<featureModel><constraints/></featureModel>");
+	}
+
+	private static FeatureTree read(String featureModel) throws IOException {
+		return FeatureTree.read(new ByteArrayInputStream(featureModel.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
@@ -0,0 +1,86 @@
+package tool.ordering;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VariableOrderingTest {
+
+	@Test
+	public void testClausesAreTopLevelConjuncts() {
+		List<List<String>> clauses = Clauses.of("R && (!R || (A && B)) && (!A || R) && True && !False");
+
+		assertEquals(3, clauses.size());
+		assertEquals(Arrays.asList("R"), clauses.get(0));
+		assertEquals(Arrays.asList("R", "A", "B"), clauses.get(1));
+		assertEquals(Arrays.asList("A", "R"), clauses.get(2));
+	}
+
+	@Test
+	public void testDepthFirstOrderFollowsFeatureTree() {
+		// R has children A and B; A has children A1 and A2.
+		List<List<String>> clauses = Clauses.of("R && (!A || R) && (!B || R) && (!A1 || A) && (!A2 || A) && (!B1 || B)");
+
+		List<String> order = new DepthFirstOrdering().order(clauses);
+
+		assertEquals(Arrays.asList("R", "A", "A1", "A2", "B", "B1"), order);
+	}
+
+	@Test
+	public void testForcePlacesRelatedVariablesTogether() {
+		// Chain of implications between shuffled variables.
+		List<String> variables = new ArrayList<String>();
+		for (int i = 0; i < 30; i++) {
+			variables.add("X" + i);
+		}
+		List<String> shuffled = new ArrayList<String>(variables);
+		Collections.shuffle(shuffled, new Random(42));
+		List<List<String>> clauses = new ArrayList<List<String>>();
+		for (String variable : shuffled) {
+			clauses.add(Arrays.asList(variable));
+		}
+		for (int i = 0; i + 1 < variables.size(); i++) {
+			clauses.add(Arrays.asList(variables.get(i), variables.get(i + 1)));
+		}
+
+		List<String> order = new ForceOrdering().order(clauses);
+
+		assertEquals(new HashSet<String>(variables), new HashSet<String>(order));
+		assertTrue(span(clauses, order) < span(clauses, shuffled));
+	}
+
+	@Test
+	public void testForceUsesAdditionalHyperedges() {
+		List<List<String>> clauses = Clauses.of("(A || B) && (C || D)");
+		List<List<String>> presenceConditions = new ArrayList<List<String>>();
+		presenceConditions.add(Clauses.variablesOf("A && D"));
+
+		List<String> order = new ForceOrdering(presenceConditions).order(clauses);
+
+		assertEquals(1, Math.abs(order.indexOf("A") - order.indexOf("D")));
+		assertEquals(1, Math.abs(order.indexOf("A") - order.indexOf("B")));
+		assertEquals(1, Math.abs(order.indexOf("C") - order.indexOf("D")));
+	}
+
+	private static int span(List<List<String>> clauses, List<String> order) {
+		int span = 0;
+		for (List<String> clause : clauses) {
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (String variable : clause) {
+				min = Math.min(min, order.indexOf(variable));
+				max = Math.max(max, order.indexOf(variable));
+			}
+			span += max - min;
+		}
+		return span;
+	}
+
+}